@@ -0,0 +1,56 @@
+package com.larssont.gameoflife.bench;
+
+import com.larssont.gameoflife.core.BitBoard;
+import com.larssont.gameoflife.core.Cell;
+
+import java.util.SplittableRandom;
+
+/**
+ * Creates seeded random boards for benchmarks, so every run measures the same boards.
+ */
+final class BenchmarkBoards {
+
+    static final long SEED = 42;
+
+    private BenchmarkBoards() {
+    }
+
+    /**
+     * Creates a square packed board with randomly alive cells.
+     *
+     * @param size    number of rows and columns
+     * @param density probability of a cell being alive
+     * @return created board
+     */
+    static BitBoard randomBoard(int size, double density) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        BitBoard board = new BitBoard(size, size);
+
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                if (random.nextDouble() < density) board.setAlive(row, col, true);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Creates a square 2D array of cells with randomly alive cells.
+     *
+     * @param size    number of rows and columns
+     * @param density probability of a cell being alive
+     * @return created cells
+     */
+    static Cell[][] randomCells(int size, double density) {
+        SplittableRandom random = new SplittableRandom(SEED);
+        Cell[][] cells = new Cell[size][size];
+
+        for (int row = 0; row < size; row++) {
+            for (int col = 0; col < size; col++) {
+                cells[row][col] = new Cell(row, col);
+                cells[row][col].setAlive(random.nextDouble() < density);
+            }
+        }
+        return cells;
+    }
+}
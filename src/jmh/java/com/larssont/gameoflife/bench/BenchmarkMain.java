@@ -0,0 +1,46 @@
+package com.larssont.gameoflife.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmark suite with allocation profiling, writing results as JSON
+ * so runs of different releases can be compared.
+ * Accepts the usual JMH command line options, e.g. a benchmark regex or {@code -p size=64}.
+ */
+public class BenchmarkMain {
+
+    private static final String RESULT_FILE = "jmh-result.json";
+
+    /**
+     * Main method
+     *
+     * @param args JMH command line options
+     * @throws CommandLineOptionException when options are malformed.
+     * @throws RunnerException            when a benchmark fails.
+     */
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class);
+
+        if (!commandLine.getResult().hasValue()) {
+            options.result(RESULT_FILE);
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include(BenchmarkMain.class.getPackage().getName() + ".*");
+        }
+
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,75 @@
+package com.larssont.gameoflife.bench;
+
+import com.larssont.gameoflife.core.BitBoard;
+import com.larssont.gameoflife.core.Cell;
+import com.larssont.gameoflife.core.Game;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures resetting, populating and counting boards.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BoardBenchmark {
+
+    @Param({"64", "512", "2048", "8192"})
+    private int size;
+
+    @Param({"0.35"})
+    private double density;
+
+    private Game game;
+    private BitBoard board;
+    private Cell[][] cells;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        game = new Game();
+        board = BenchmarkBoards.randomBoard(size, density);
+        cells = size <= 2048 ? BenchmarkBoards.randomCells(size, density) : null;
+    }
+
+    @Benchmark
+    public BitBoard resetBoard() {
+        game.reset(board);
+        return board;
+    }
+
+    @Benchmark
+    public Cell[][] resetCells() {
+        if (cells != null) game.reset(cells);
+        return cells;
+    }
+
+    @Benchmark
+    public BitBoard populateBoard() {
+        return BenchmarkBoards.randomBoard(size, density);
+    }
+
+    @Benchmark
+    public BitBoard populateBoardFromCells() {
+        return cells != null ? BitBoard.of(cells) : board;
+    }
+
+    @Benchmark
+    public long population() {
+        return board.population();
+    }
+}
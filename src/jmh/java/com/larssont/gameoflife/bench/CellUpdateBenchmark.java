@@ -0,0 +1,60 @@
+package com.larssont.gameoflife.bench;
+
+import com.larssont.gameoflife.core.Cell;
+import com.larssont.gameoflife.core.Game;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Game#update(Cell[][])} on 2D arrays of cells, as baseline for packed boards.
+ * Sizes stop at 2048, beyond which arrays of cells no longer fit in a default heap.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CellUpdateBenchmark {
+
+    @Param({"64", "512", "2048"})
+    private int size;
+
+    @Param({"0.05", "0.35"})
+    private double density;
+
+    @Param({"1", "3"})
+    private int radius;
+
+    private Game game;
+    private Cell[][] cells;
+
+    @Setup(Level.Trial)
+    public void setUpGame() {
+        game = new Game();
+        game.setNeighbourRadius(radius);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpCells() {
+        cells = BenchmarkBoards.randomCells(size, density);
+    }
+
+    @Benchmark
+    public Cell[][] update() {
+        game.update(cells);
+        return cells;
+    }
+}
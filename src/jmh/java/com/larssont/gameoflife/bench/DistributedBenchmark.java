@@ -0,0 +1,99 @@
+package com.larssont.gameoflife.bench;
+
+import com.larssont.gameoflife.core.Rule;
+import com.larssont.gameoflife.distributed.Coordinator;
+import com.larssont.gameoflife.distributed.Worker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures throughput of a distributed board as the number of workers grows.
+ * Workers run on threads of the benchmark JVM and talk over loopback sockets, so results show
+ * halo exchange and coordination overhead against the parallelism gained, not network latency.
+ * Start {@link Worker} processes on other hosts and use the batch runner with --workers to measure those.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DistributedBenchmark {
+
+    @Param({"1024", "4096"})
+    private int size;
+
+    @Param({"1", "2", "4", "8"})
+    private int workers;
+
+    @Param({"B3/S23", "R5,B34-45,S33-57"})
+    private String rule;
+
+    private final List<Worker> running = new ArrayList<>();
+    private Coordinator coordinator;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            Worker worker = new Worker(0);
+            running.add(worker);
+            addresses.add(new InetSocketAddress("localhost", worker.getPort()));
+            Thread thread = new Thread(() -> {
+                try {
+                    worker.serve();
+                } catch (IOException e) {
+                    //Closed on tear down
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+        coordinator = new Coordinator(addresses, size, size, Rule.parse(rule), (band, top) -> {
+            SplittableRandom random = new SplittableRandom(top); //Bands are filled as sent, never as a whole board
+            for (int row = 0; row < band.getRows(); row++) {
+                for (int col = 0; col < size; col++) {
+                    if (random.nextDouble() < 0.35) band.setAlive(row, col, true);
+                }
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        coordinator.close();
+        for (Worker worker : running) {
+            worker.close();
+        }
+    }
+
+    /**
+     * Advances the distributed board one generation, so the score is generations per second.
+     *
+     * @return coordinator, so the step is not eliminated
+     * @throws IOException when a worker fails.
+     */
+    @Benchmark
+    public Coordinator step() throws IOException {
+        coordinator.step(1);
+        return coordinator;
+    }
+}
@@ -0,0 +1,70 @@
+package com.larssont.gameoflife.bench;
+
+import com.larssont.gameoflife.core.BitBoard;
+import com.larssont.gameoflife.core.Game;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Game#update(BitBoard)} across board sizes, densities, rules and thread counts.
+ * Boards are recreated every iteration, so each iteration starts from the same soup.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UpdateBenchmark {
+
+    @Param({"64", "512", "2048", "8192"})
+    private int size;
+
+    @Param({"0.05", "0.35", "0.5"})
+    private double density;
+
+    @Param({"B3/S23", "B36/S23", "B3678/S34678"})
+    private String rule;
+
+    @Param({"1", "4"})
+    private int threads;
+
+    private Game game;
+    private BitBoard board;
+
+    @Setup(Level.Trial)
+    public void setUpGame() {
+        game = new Game();
+        game.setRule(rule);
+        game.setThreads(threads);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpBoard() {
+        board = BenchmarkBoards.randomBoard(size, density);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        game.setThreads(1);
+    }
+
+    @Benchmark
+    public BitBoard update() {
+        game.update(board);
+        return board;
+    }
+}
@@ -0,0 +1,65 @@
+package com.larssont.gameoflife.bench;
+
+import com.larssont.gameoflife.core.BitBoard;
+import com.larssont.gameoflife.core.Game;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link Game#update(BitBoard)} of vectorized and scalar boards on large dense soups.
+ * Forks add the {@code jdk.incubator.vector} module, so the Vector API is available
+ * as long as the JDK ships it; otherwise both variants measure the scalar path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class VectorBenchmark {
+
+    @Param({"1024", "4096"})
+    private int size;
+
+    @Param({"0.35", "0.5"})
+    private double density;
+
+    @Param({"B3/S23", "B36/S23"})
+    private String rule;
+
+    @Param({"false", "true"})
+    private boolean vectorized;
+
+    private Game game;
+    private BitBoard board;
+
+    @Setup(Level.Trial)
+    public void setUpGame() {
+        game = new Game();
+        game.setRule(rule);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpBoard() {
+        board = BenchmarkBoards.randomBoard(size, density);
+        board.setVectorized(vectorized);
+    }
+
+    @Benchmark
+    public BitBoard update() {
+        game.update(board);
+        return board;
+    }
+}
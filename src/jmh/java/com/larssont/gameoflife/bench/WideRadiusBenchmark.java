@@ -0,0 +1,60 @@
+package com.larssont.gameoflife.bench;
+
+import com.larssont.gameoflife.core.BitBoard;
+import com.larssont.gameoflife.core.Game;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link Game#update(BitBoard)} with Larger than Life rules across neighbour radii.
+ * Time per generation should not grow with the radius.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WideRadiusBenchmark {
+
+    @Param({"64", "512", "2048"})
+    private int size;
+
+    @Param({"0.35"})
+    private double density;
+
+    @Param({"R2,B7-9,S6-11", "R5,B34-45,S33-57", "R10,B120-160,S110-200"})
+    private String rule;
+
+    private Game game;
+    private BitBoard board;
+
+    @Setup(Level.Trial)
+    public void setUpGame() {
+        game = new Game();
+        game.setRule(rule);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpBoard() {
+        board = BenchmarkBoards.randomBoard(size, density);
+    }
+
+    @Benchmark
+    public BitBoard update() {
+        game.update(board);
+        return board;
+    }
+}
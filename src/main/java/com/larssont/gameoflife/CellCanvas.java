@@ -0,0 +1,167 @@
+package com.larssont.gameoflife;
+
+import com.larssont.gameoflife.core.BitBoard;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.paint.Color;
+
+import java.util.Arrays;
+import java.util.function.BiConsumer;
+
+/**
+ * Represents a CellCanvas, extends Canvas from javafx.
+ * Draws packed boards on a single canvas instead of one node per cell.
+ * Only cells that changed since the last render are repainted, by writing
+ * pixel blocks directly, and clicked cells are found by one click handler.
+ */
+public class CellCanvas extends Canvas {
+
+    private static final Color DEAD_COLOR = Color.WHITESMOKE;
+    private static final Color ALIVE_COLOR = Color.BLACK;
+    private static final Color GAP_COLOR = Color.DIMGRAY;
+
+    private final int rows;
+    private final int columns;
+    private final int wordsPerRow;
+    private final int cellSize;
+    private BiConsumer<Integer, Integer> onCellClicked = (row, col) -> {
+    };
+
+    private final long[] shown; //Alive state of cells as last rendered
+    private final int[] alivePixels; //Pixel block of an alive cell
+    private final int[] deadPixels; //Pixel block of a dead cell
+
+    /**
+     * Creates a new CellCanvas for boards of given size, with all cells dead.
+     *
+     * @param canvasSize size of largest side of canvas in px
+     * @param rows       number of rows of boards to show
+     * @param columns    number of columns of boards to show
+     */
+    public CellCanvas(int canvasSize, int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        wordsPerRow = (columns + 63) >>> 6;
+        cellSize = Math.max(1, canvasSize / Math.max(rows, columns));
+
+        setWidth(cellSize * columns);
+        setHeight(cellSize * rows);
+
+        shown = new long[rows * wordsPerRow];
+        alivePixels = createCellPixels(ALIVE_COLOR);
+        deadPixels = createCellPixels(DEAD_COLOR);
+
+        setOnMouseClicked(e -> clickAt(e.getX(), e.getY()));
+        paintAll();
+    }
+
+    public int getCellSize() {
+        return cellSize;
+    }
+
+    /**
+     * Sets action to be performed when a cell is clicked.
+     *
+     * @param onCellClicked action receiving row and column of clicked cell
+     */
+    public void setOnCellClicked(BiConsumer<Integer, Integer> onCellClicked) {
+        this.onCellClicked = onCellClicked;
+    }
+
+    /**
+     * Finds cell at given canvas position and passes it to the click action.
+     *
+     * @param x horizontal position in px
+     * @param y vertical position in px
+     */
+    public void clickAt(double x, double y) {
+        int row = (int) (y / cellSize);
+        int col = (int) (x / cellSize);
+        if (x < 0 || y < 0 || row >= rows || col >= columns) {
+            return;
+        }
+        onCellClicked.accept(row, col);
+    }
+
+    /**
+     * Repaints cells whose alive state in given board differs from the last render.
+     *
+     * @param board board to show, of the size given at creation
+     */
+    public void render(BitBoard board) {
+        PixelWriter writer = getGraphicsContext2D().getPixelWriter();
+
+        for (int row = 0; row < rows; row++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                int i = row * wordsPerRow + w;
+                long word = board.getWord(row, w);
+                long diff = word ^ shown[i];
+                if (diff == 0) continue;
+
+                shown[i] = word;
+                while (diff != 0) {
+                    int bit = Long.numberOfTrailingZeros(diff);
+                    paintCell(writer, row, (w << 6) + bit, (word & (1L << bit)) != 0);
+                    diff &= diff - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Paints background and every cell as dead.
+     */
+    private void paintAll() {
+        getGraphicsContext2D().setFill(GAP_COLOR);
+        getGraphicsContext2D().fillRect(0, 0, getWidth(), getHeight());
+
+        PixelWriter writer = getGraphicsContext2D().getPixelWriter();
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                paintCell(writer, row, col, false);
+            }
+        }
+        Arrays.fill(shown, 0);
+    }
+
+    /**
+     * Writes pixel block of a single cell.
+     *
+     * @param writer pixel writer of canvas
+     * @param row    row position of cell
+     * @param col    column position of cell
+     * @param alive  alive state of cell
+     */
+    private void paintCell(PixelWriter writer, int row, int col, boolean alive) {
+        int size = blockSize();
+        writer.setPixels(col * cellSize, row * cellSize, size, size, PixelFormat.getIntArgbInstance(),
+                alive ? alivePixels : deadPixels, 0, size);
+    }
+
+    /**
+     * Creates pixel block of a cell in given color.
+     *
+     * @param color cell color
+     * @return ARGB pixels of block
+     */
+    private int[] createCellPixels(Color color) {
+        int argb = (int) Math.round(color.getOpacity() * 255) << 24
+                | (int) Math.round(color.getRed() * 255) << 16
+                | (int) Math.round(color.getGreen() * 255) << 8
+                | (int) Math.round(color.getBlue() * 255);
+
+        int[] pixels = new int[blockSize() * blockSize()];
+        Arrays.fill(pixels, argb);
+        return pixels;
+    }
+
+    /**
+     * Returns side of a cell's pixel block, leaving a gap of one pixel when cells are large enough.
+     *
+     * @return side of pixel block in px
+     */
+    private int blockSize() {
+        return cellSize >= 4 ? cellSize - 1 : cellSize;
+    }
+}
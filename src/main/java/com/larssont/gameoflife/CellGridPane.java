@@ -1,5 +1,6 @@
 package com.larssont.gameoflife;
 
+import com.larssont.gameoflife.core.Cell;
 import javafx.geometry.Insets;
 import javafx.scene.layout.GridPane;
 
@@ -34,7 +35,7 @@ public class CellGridPane extends GridPane {
     }
 
     /**
-     * Populates 2D array of cells with new Cells.
+     * Populates 2D array of cells with new Cells, each shown by a CellRect.
      *
      * @param cells 2D array of cells to be populated
      */
@@ -43,9 +44,9 @@ public class CellGridPane extends GridPane {
 
         for (int row = 0; row < cells.length; row++) {
             for (int col = 0; col < cells[row].length; col++) {
-                Cell cell = new Cell(cellSize, row, col);
+                Cell cell = new Cell(row, col);
                 cells[row][col] = cell;
-                this.add(cell.getRect(), col, row);
+                this.add(new CellRect(cellSize, cell), col, row);
             }
         }
     }
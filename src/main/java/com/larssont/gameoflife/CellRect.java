@@ -0,0 +1,27 @@
+package com.larssont.gameoflife;
+
+import com.larssont.gameoflife.core.Cell;
+import javafx.scene.paint.Color;
+import javafx.scene.shape.Rectangle;
+
+/**
+ * Represents the rectangle showing a cell, extends Rectangle from javafx.
+ */
+public class CellRect extends Rectangle {
+
+    private static final Color DEAD_COLOR = Color.WHITESMOKE;
+    private static final Color ALIVE_COLOR = Color.BLACK;
+
+    /**
+     * Creates a CellRect showing a cell. Clicking it toggles the cell.
+     *
+     * @param size size of rectangle side
+     * @param cell cell to show
+     */
+    public CellRect(int size, Cell cell) {
+        super(size, size);
+
+        setOnMouseClicked(e -> cell.toggleAlive());
+        cell.setOnAliveChanged(c -> setFill(c.isAlive() ? ALIVE_COLOR : DEAD_COLOR));
+    }
+}
@@ -1,21 +1,60 @@
 package com.larssont.gameoflife;
 
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
+import com.larssont.gameoflife.core.AdaptiveEngine;
+import com.larssont.gameoflife.core.BitBoard;
+import com.larssont.gameoflife.core.Cell;
+import com.larssont.gameoflife.core.Checkpoint;
+import com.larssont.gameoflife.core.CheckpointWriter;
+import com.larssont.gameoflife.core.BoardDiff;
+import com.larssont.gameoflife.core.CycleDetector;
+import com.larssont.gameoflife.core.DenseEngine;
+import com.larssont.gameoflife.core.DiffSubscription;
+import com.larssont.gameoflife.core.Engine;
+import com.larssont.gameoflife.core.EngineMetrics;
+import com.larssont.gameoflife.core.FrameExporter;
+import com.larssont.gameoflife.core.Game;
+import com.larssont.gameoflife.core.History;
+import com.larssont.gameoflife.core.PatternFormat;
+import com.larssont.gameoflife.core.PatternInfo;
+import com.larssont.gameoflife.core.PatternReader;
+import com.larssont.gameoflife.core.PatternWriter;
+import com.larssont.gameoflife.core.RenderEvent;
+import com.larssont.gameoflife.core.Rule;
+import com.larssont.gameoflife.core.Simulation;
+import com.larssont.gameoflife.core.Topology;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Node;
 import javafx.scene.Scene;
 import javafx.scene.control.Button;
+import javafx.scene.control.ChoiceBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.Slider;
+import javafx.scene.input.KeyEvent;
 import javafx.scene.layout.Background;
 import javafx.scene.layout.BackgroundFill;
 import javafx.scene.layout.BorderPane;
 import javafx.scene.layout.CornerRadii;
 import javafx.scene.layout.HBox;
+import javafx.scene.layout.StackPane;
+import javafx.scene.layout.VBox;
 import javafx.scene.paint.Color;
+import javafx.stage.FileChooser;
 import javafx.stage.Stage;
-import javafx.util.Duration;
+import javafx.util.StringConverter;
+import jdk.jfr.EventType;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * This GameOfLife program simulates Conway's Game of Life with visualization using JavaFX.
@@ -28,11 +67,37 @@ public class GameOfLife extends Application {
     private static final String WINDOW_TITLE = "Conway's Game of Life";
 
     private static final int TICK_RATE = 8;
+    private static final int[] TICK_RATES = {1, 8, 30, 60, 240, 0}; //Selectable rates, 0 runs as fast as possible
     private static final int GRID_ROWS = 20;
     private static final int GRID_COLUMNS = 20;
     private static final int GRID_PANE_SIZE = 600;
+    private static final int CANVAS_SIZE = GRID_PANE_SIZE - 40; //Side of canvas within its padding
+    private static final String RENDERER_PARAMETER = "renderer"; //--renderer=grid shows one Rectangle per cell, viewport zooms and pans
+    private static final String SIZE_PARAMETER = "size"; //--size=ROWSxCOLUMNS sets size of new boards
+    private static final String ENGINE_PARAMETER = "engine"; //--engine=sparse, dense or adaptive simulates an unbounded plane, --engine=vector uses the Vector API
+    private static final String DENSE_DENSITY_PARAMETER = "dense-density"; //--dense-density=0.005 sets share of alive cells from which adaptive planes become dense
+    private static final String SPARSE_DENSITY_PARAMETER = "sparse-density"; //--sparse-density=0.0005 sets share of alive cells below which adaptive planes become sparse
+    private static final String TOPOLOGY_PARAMETER = "topology"; //--topology=torus joins opposite edges, infinite simulates an unbounded plane
+    private static final String CHECKPOINT_PARAMETER = "checkpoint"; //--checkpoint=DIR restores from and writes checkpoints to DIR
+    private static final int RECORDS_PER_SNAPSHOT = 1000; //Journaled generations per checkpoint file
+    private static final String EXPORT_PARAMETER = "export"; //--export=DIR writes generations as PNG files to DIR, --export=FILE.gif as an animated GIF
+    private static final int EXPORT_SIZE = 512; //Side of exported images in px, at least one pixel per cell
+    private static final int EXPORT_BUFFERS = 4; //Boards queued for exporting at most
+    private static final String HISTORY_PARAMETER = "history"; //--history=MB sets memory of the rewind history, 0 disables it
+    private static final int HISTORY_MEGABYTES = 64;
+    private static final int KEYFRAME_INTERVAL = 32; //Generations between copies of the whole board in the history
+    private static final int MAX_CYCLE_PERIOD = 100; //Longest period of oscillation that pauses the simulation
+    private static final int PAN_STEP = 10; //Cells to pan with shift held down
+    private static final EventType RENDER_EVENT = EventType.getEventType(RenderEvent.class);
+    private static final Logger LOGGER = Logger.getLogger(GameOfLife.class.getName());
 
     private static Game game;
+    private static Simulation simulation;
+    private static CheckpointWriter checkpoints;
+    private static FrameExporter exporter;
+    private static EngineMetrics metrics;
+
+    private boolean showingGeneration; //Timeline is being moved to the shown generation rather than by the user
 
     /**
      * Starts program, gets called after the system is ready for the application.
@@ -43,48 +108,457 @@ public class GameOfLife extends Application {
     @Override
     public void start(Stage stage) {
         game = new Game();
+        metrics = new EngineMetrics();
+        metrics.register(WINDOW_TITLE);
+        game.setMetrics(metrics);
+        int rows = GRID_ROWS;
+        int columns = GRID_COLUMNS;
+        String size = getParameters().getNamed().get(SIZE_PARAMETER);
+        if (size != null) {
+            String[] parts = size.toLowerCase().split("x");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Size must be of form ROWSxCOLUMNS: " + size);
+            }
+            rows = Integer.parseInt(parts[0].trim());
+            columns = Integer.parseInt(parts[1].trim());
+        }
+        String checkpointDirectory = getParameters().getNamed().get(CHECKPOINT_PARAMETER);
+        String engine = getParameters().getNamed().get(ENGINE_PARAMETER);
+        Topology topology = Topology.parse(getParameters().getNamed().getOrDefault(TOPOLOGY_PARAMETER, "dead"));
+        game.setTopology(topology);
+        boolean unbounded = "sparse".equals(engine) || "dense".equals(engine) || "adaptive".equals(engine) || topology == Topology.INFINITE;
+        Engine plane;
+        long generation = 0;
+        if (unbounded) { //Views have a fixed size, so growing boards are shown as planes
+            plane = createPlane(engine);
+        } else {
+            Checkpoint checkpoint = checkpointDirectory != null ? restoreCheckpoint(Paths.get(checkpointDirectory)) : null;
+            BitBoard board = checkpoint != null ? checkpoint.getBoard() : new BitBoard(rows, columns);
+            board.setVectorized("vector".equals(engine));
+            board.setTopology(topology);
+            rows = board.getRows();
+            columns = board.getColumns();
+            generation = checkpoint != null ? checkpoint.getGeneration() : 0;
+            plane = new DenseEngine(board);
+        }
+        simulation = new Simulation(game, plane, rows, columns, generation);
+        if (checkpointDirectory != null && plane.getBoard() != null) {
+            startCheckpoints(Paths.get(checkpointDirectory));
+        }
+        String export = getParameters().getNamed().get(EXPORT_PARAMETER);
+        if (export != null) {
+            startExport(Paths.get(export), rows, columns);
+        }
+        int historyMegabytes = Integer.parseInt(getParameters().getNamed()
+                .getOrDefault(HISTORY_PARAMETER, String.valueOf(HISTORY_MEGABYTES)));
+        if (historyMegabytes > 0 && plane.getBoard() != null) { //Unbounded planes are not recorded
+            simulation.setHistory(new History((long) historyMegabytes << 20, KEYFRAME_INTERVAL));
+        }
+        simulation.setTargetRate(TICK_RATE);
+        simulation.setCycleDetector(new CycleDetector(MAX_CYCLE_PERIOD));
+
+        Node view;
+        Consumer<Simulation.Frame> render;
+        String renderer = getParameters().getNamed().get(RENDERER_PARAMETER);
+        if ("grid".equals(renderer)) {
+            Cell[][] cells = new Cell[rows][columns];
+            CellGridPane cellGridPane = new CellGridPane(GRID_PANE_SIZE);
+            cellGridPane.populate(cells);
+            bindCells(cells);
+
+            view = cellGridPane;
+            DiffSubscription changes = simulation.subscribe(1, false); //Generations between frames are merged
+            render = frame -> applyChanges(changes, cells);
+        } else if ("viewport".equals(renderer) || Math.max(rows, columns) > CANVAS_SIZE) { //Boards larger than the canvas are zoomed out
+            ViewportCanvas viewportCanvas = new ViewportCanvas(CANVAS_SIZE, CANVAS_SIZE, rows, columns);
+            viewportCanvas.setOnCellClicked((row, col) -> simulation.submit(b -> b.setAlive(row, col, !b.isAlive(row, col))));
+            viewportCanvas.setOnRegionChanged(region -> simulation.setWindow(region[0], region[1], region[2], region[3]));
+            StackPane canvasPane = new StackPane(viewportCanvas);
+            canvasPane.setPadding(new Insets(20));
+
+            view = canvasPane;
+            render = viewportCanvas::render;
+        } else {
+            CellCanvas cellCanvas = new CellCanvas(CANVAS_SIZE, rows, columns);
+            cellCanvas.setOnCellClicked((row, col) -> simulation.submit(b -> b.setAlive(row, col, !b.isAlive(row, col))));
+            StackPane canvasPane = new StackPane(cellCanvas);
+            canvasPane.setPadding(new Insets(20));
+
+            view = canvasPane;
+            render = frame -> cellCanvas.render(frame.getBoard());
+        }
 
-        Cell[][] cells = new Cell[GRID_ROWS][GRID_COLUMNS];
-        CellGridPane cellGridPane = new CellGridPane(GRID_PANE_SIZE);
-        cellGridPane.populate(cells);
+        Label statsLabel = new Label();
+        statsLabel.setTextFill(Color.WHITE);
+        Slider timeline = simulation.getHistory() != null ? createTimeline() : null;
+        simulation.start();
+        createFrameTimer(render, statsLabel, timeline).start();
 
-        Timeline timeline = createTimeLine(cells);
-        HBox buttonBox = createButtons(timeline, cells);
+        HBox buttonBox = createButtons(stage, statsLabel);
+        VBox bottom = timeline != null ? new VBox(10, timeline, buttonBox) : new VBox(buttonBox);
+        bottom.setPadding(new Insets(0, 20, 0, 20));
 
-        createWindow(stage, cellGridPane, buttonBox);
+        createWindow(stage, view, bottom);
+        stage.getScene().addEventFilter(KeyEvent.KEY_PRESSED, this::pan);
     }
 
     /**
-     * Creates animation TimeLine for cells to update in.
+     * Pans view over the unbounded plane with the arrow keys, by one cell or by PAN_STEP with shift held down.
      *
-     * @param cells 2D array of cells to be updated in each KeyFrame update.
-     * @return created timeline
+     * @param event key event
      */
-    private Timeline createTimeLine(Cell[][] cells) {
-        KeyFrame k = new KeyFrame(Duration.millis(1000 / (float) TICK_RATE), e -> game.update(cells));
-        Timeline timeline = new Timeline(k);
+    private void pan(KeyEvent event) {
+        int step = event.isShiftDown() ? PAN_STEP : 1;
+        switch (event.getCode()) {
+            case UP:
+                simulation.pan(-step, 0);
+                break;
+            case DOWN:
+                simulation.pan(step, 0);
+                break;
+            case LEFT:
+                simulation.pan(0, -step);
+                break;
+            case RIGHT:
+                simulation.pan(0, step);
+                break;
+            default:
+                return;
+        }
+        event.consume();
+    }
 
-        timeline.setCycleCount(Timeline.INDEFINITE);
+    /**
+     * Stops simulation thread and finishes writing checkpoints, gets called when the application exits.
+     */
+    @Override
+    public void stop() {
+        if (simulation != null) {
+            simulation.close();
+        }
+        if (checkpoints != null) {
+            try {
+                checkpoints.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, e.toString(), e);
+            }
+        }
+        if (exporter != null) {
+            try {
+                exporter.close();
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, e.toString(), e);
+            }
+        }
+        if (metrics != null) {
+            metrics.unregister();
+        }
+    }
+
+    /**
+     * Creates engine simulating the unbounded plane, sparse unless another is named.
+     *
+     * @param engine name of engine, or null
+     * @return created engine
+     */
+    private Engine createPlane(String engine) {
+        if ("adaptive".equals(engine)) {
+            String denseDensity = getParameters().getNamed().get(DENSE_DENSITY_PARAMETER);
+            String sparseDensity = getParameters().getNamed().get(SPARSE_DENSITY_PARAMETER);
+            return new AdaptiveEngine(
+                    denseDensity != null ? Double.parseDouble(denseDensity) : AdaptiveEngine.DEFAULT_DENSE_DENSITY,
+                    sparseDensity != null ? Double.parseDouble(sparseDensity) : AdaptiveEngine.DEFAULT_SPARSE_DENSITY);
+        }
+        return Engine.create(engine == null || "vector".equals(engine) ? "sparse" : engine);
+    }
+
+    /**
+     * Restores the latest checkpoint of a directory and applies its rule.
+     *
+     * @param directory directory of checkpoint files
+     * @return restored checkpoint, or null if none could be read
+     */
+    private Checkpoint restoreCheckpoint(Path directory) {
+        try {
+            Checkpoint checkpoint = Checkpoint.readLatest(directory);
+            if (checkpoint != null) {
+                game.setRule(checkpoint.getRule());
+            }
+            return checkpoint;
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, e.toString(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Starts writing every generation of the simulation as checkpoints to a directory.
+     *
+     * @param directory directory of checkpoint files
+     */
+    private void startCheckpoints(Path directory) {
+        try {
+            checkpoints = new CheckpointWriter(directory, RECORDS_PER_SNAPSHOT);
+            simulation.setCheckpoints(checkpoints, 1);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, e.toString(), e);
+        }
+    }
+
+    /**
+     * Starts exporting every generation of the simulation as images, encoded on background threads.
+     *
+     * @param target  directory of PNG files or GIF file
+     * @param rows    number of rows of board
+     * @param columns number of columns of board
+     */
+    private void startExport(Path target, int rows, int columns) {
+        try {
+            exporter = new FrameExporter(target, FrameExporter.Format.fromFileName(target.toString()),
+                    Math.max(1, EXPORT_SIZE / Math.max(rows, columns)),
+                    Math.max(1, Runtime.getRuntime().availableProcessors() - 1), EXPORT_BUFFERS);
+            simulation.setExporter(exporter, 1);
+        } catch (IOException e) {
+            LOGGER.log(Level.WARNING, e.toString(), e);
+        }
+    }
+
+    /**
+     * Makes 2D array of cells a view of the board.
+     * Cells toggled by the user are written back to the board.
+     *
+     * @param cells 2D array of cells
+     */
+    private void bindCells(Cell[][] cells) {
+        for (Cell[] row : cells) {
+            for (Cell cell : row) {
+                cell.setOnToggle(c -> {
+                    boolean alive = c.isAlive();
+                    simulation.submit(b -> b.setAlive(c.getRow(), c.getColumn(), alive));
+                });
+            }
+        }
+    }
+
+    /**
+     * Applies queued changes of the board to a 2D array of cells, so only cells that were born or died are updated.
+     *
+     * @param changes subscription to changes of the board
+     * @param cells   2D array of cells
+     */
+    private void applyChanges(DiffSubscription changes, Cell[][] cells) {
+        BoardDiff diff;
+        while ((diff = changes.poll()) != null) {
+            if (diff.isReset()) {
+                for (Cell[] row : cells) {
+                    for (Cell cell : row) {
+                        if (cell.isAlive()) cell.setAlive(false);
+                    }
+                }
+            }
+            for (int i = 0; i < diff.size(); i++) {
+                long flipped = diff.getBorn(i) | diff.getDied(i);
+                while (flipped != 0) {
+                    int bit = Long.numberOfTrailingZeros(flipped);
+                    cells[diff.getRow(i)][(diff.getWord(i) << 6) + bit].setAlive((diff.getValue(i) & (1L << bit)) != 0);
+                    flipped &= flipped - 1;
+                }
+            }
+        }
+    }
 
+    /**
+     * Creates timer running at display refresh, showing the latest generation published by the simulation.
+     * Generations published in between frames are skipped, and render time is recorded to metrics.
+     * Once a second, the label is updated with generations per second and the number of dropped frames,
+     * or the cycle that stopped the simulation.
+     *
+     * @param render     action showing a frame
+     * @param statsLabel label for simulation statistics
+     * @param timeline   slider over the generations of the history, null if there is none
+     * @return created timer
+     */
+    private AnimationTimer createFrameTimer(Consumer<Simulation.Frame> render, Label statsLabel, Slider timeline) {
+        return new AnimationTimer() {
+            private long lastStatsTime;
+            private long lastGeneration;
+
+            @Override
+            public void handle(long now) {
+                Simulation.Frame frame = simulation.pollFrame();
+                if (frame != null) {
+                    RenderEvent event = RENDER_EVENT.isEnabled() ? new RenderEvent() : null; //Created only while recorded
+                    if (event != null) event.begin();
+                    long start = System.nanoTime();
+                    render.accept(frame);
+                    long nanos = System.nanoTime() - start;
+                    if (event != null) event.end();
+                    metrics.recordRender(event, nanos, frame.getGeneration());
+                    if (timeline != null) showGeneration(timeline, frame.getGeneration());
+                }
+
+                if (now - lastStatsTime >= 1_000_000_000L) {
+                    long generation = simulation.getGeneration();
+                    double rate = lastStatsTime == 0 ? 0 : (generation - lastGeneration) * 1e9 / (now - lastStatsTime);
+                    CycleDetector.Cycle cycle = simulation.getCycle();
+                    statsLabel.setText(cycle != null ? "Stopped, " + cycle
+                            : String.format("%.0f gen/s, %d frames dropped", rate, simulation.getDroppedFrames()));
+
+                    lastStatsTime = now;
+                    lastGeneration = generation;
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates slider over the generations of the history, rewinding the simulation to the generation it is moved to.
+     *
+     * @return created slider
+     */
+    private Slider createTimeline() {
+        Slider timeline = new Slider(0, 0, 0);
+        timeline.setPrefWidth(GRID_PANE_SIZE - 40);
+        timeline.valueProperty().addListener((observable, oldValue, newValue) -> {
+            if (!showingGeneration) simulation.seek(Math.round(newValue.doubleValue()));
+        });
         return timeline;
     }
 
     /**
-     * Creates HBox of buttons for play, stop, reset
+     * Moves timeline to a shown generation and stretches it over the generations of the history,
+     * unless it is being dragged.
+     *
+     * @param timeline   slider over the generations of the history
+     * @param generation shown generation
+     */
+    private void showGeneration(Slider timeline, long generation) {
+        if (timeline.isValueChanging()) {
+            return;
+        }
+        History history = simulation.getHistory();
+        showingGeneration = true;
+        timeline.setMin(history.getOldestGeneration());
+        timeline.setMax(Math.max(history.getNewestGeneration(), generation));
+        timeline.setValue(generation);
+        showingGeneration = false;
+    }
+
+    /**
+     * Creates chooser of RLE, Life 1.06 and plaintext pattern files.
+     *
+     * @param title title of dialog
+     * @return created chooser
+     */
+    private FileChooser createPatternChooser(String title) {
+        FileChooser chooser = new FileChooser();
+        chooser.setTitle(title);
+        chooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("RLE", "*.rle"),
+                new FileChooser.ExtensionFilter("Life 1.06", "*.lif", "*.life"),
+                new FileChooser.ExtensionFilter("Plaintext", "*.cells", "*.txt"));
+        return chooser;
+    }
+
+    /**
+     * Lets the user choose a pattern file and places it centered on the board, replacing all cells.
+     * The rule given by the pattern, if any, is applied.
+     *
+     * @param stage      owner of dialog
+     * @param statsLabel label to show errors in
+     */
+    private void openPattern(Stage stage, Label statsLabel) {
+        File file = createPatternChooser("Open Pattern").showOpenDialog(stage);
+        if (file == null) {
+            return;
+        }
+
+        Rule rule;
+        try (PatternReader reader = new PatternReader(file.toPath())) {
+            PatternInfo header = reader.readHeader(); //Checked before the board is reset
+            rule = header.getRule() != null ? Rule.parse(header.getRule()) : null;
+        } catch (IOException | IllegalArgumentException e) {
+            LOGGER.log(Level.WARNING, e.toString(), e);
+            statsLabel.setText("Could not open pattern: " + e.getMessage());
+            return;
+        }
+
+        simulation.pause();
+        simulation.reset();
+        simulation.submit(b -> { //Cells are streamed onto the board on the simulation thread
+            if (rule != null) game.setRule(rule);
+            try (PatternReader reader = new PatternReader(file.toPath())) {
+                reader.readCentered(b);
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, e.toString(), e);
+                Platform.runLater(() -> statsLabel.setText("Could not open pattern: " + e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Lets the user choose a pattern file and writes the board to it, in the format of its extension.
      *
-     * @param timeline affected timeline for button actions
-     * @param cells    2D array of cells for reset
+     * @param stage      owner of dialog
+     * @param statsLabel label to show errors in
+     */
+    private void savePattern(Stage stage, Label statsLabel) {
+        File file = createPatternChooser("Save Pattern").showSaveDialog(stage);
+        if (file == null) {
+            return;
+        }
+
+        PatternFormat chosen = PatternFormat.fromFileName(file.getName());
+        PatternFormat format = chosen != null ? chosen : PatternFormat.RLE;
+        simulation.submit(b -> {
+            try (PatternWriter writer = new PatternWriter(Files.newOutputStream(file.toPath()))) {
+                writer.write(b, format, game.getRule());
+            } catch (IOException e) {
+                LOGGER.log(Level.WARNING, e.toString(), e);
+                Platform.runLater(() -> statsLabel.setText("Could not save pattern: " + e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Creates HBox of buttons for play, stop, stepping back, reset, opening and saving patterns, a choice of tick rate
+     * and a statistics label
+     *
+     * @param stage      owner of file dialogs
+     * @param statsLabel label for simulation statistics
      * @return HBox created buttons
      */
-    private HBox createButtons(Timeline timeline, Cell[][] cells) {
-        Button playButton = new GUIButton("Play", event -> timeline.play());
-        Button stopButton = new GUIButton("Stop", event -> timeline.stop());
+    private HBox createButtons(Stage stage, Label statsLabel) {
+        Button playButton = new GUIButton("Play", event -> simulation.play());
+        Button stopButton = new GUIButton("Stop", event -> simulation.pause());
+        Button backButton = new GUIButton("Back", event -> simulation.stepBack());
+        backButton.setDisable(simulation.getHistory() == null);
         Button resetButton = new GUIButton("Reset", event -> {
-            timeline.stop();
-            game.reset(cells);
+            simulation.pause();
+            simulation.reset();
+        });
+        Button openButton = new GUIButton("Open", event -> openPattern(stage, statsLabel));
+        Button saveButton = new GUIButton("Save", event -> savePattern(stage, statsLabel));
+
+        ChoiceBox<Integer> rateBox = new ChoiceBox<>();
+        for (int rate : TICK_RATES) {
+            rateBox.getItems().add(rate);
+        }
+        rateBox.setConverter(new StringConverter<Integer>() {
+            @Override
+            public String toString(Integer rate) {
+                return rate == 0 ? "Max" : rate + "/s";
+            }
+
+            @Override
+            public Integer fromString(String string) {
+                return string.equals("Max") ? 0 : Integer.parseInt(string.replace("/s", ""));
+            }
         });
+        rateBox.setValue(TICK_RATE);
+        rateBox.setOnAction(event -> simulation.setTargetRate(rateBox.getValue()));
 
-        HBox box = new HBox(20, playButton, stopButton, resetButton);
+        HBox box = new HBox(20, playButton, stopButton, backButton, resetButton, openButton, saveButton, rateBox, statsLabel);
 
         box.setPadding(new Insets(0, 0, 20, 0));
         box.setAlignment(Pos.CENTER);
@@ -0,0 +1,170 @@
+package com.larssont.gameoflife;
+
+import com.larssont.gameoflife.core.BitBoard;
+import com.larssont.gameoflife.core.Simulation;
+import com.larssont.gameoflife.core.Viewport;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.input.MouseButton;
+import javafx.scene.paint.Color;
+
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * Represents a ViewportCanvas, extends Canvas from javafx.
+ * Shows boards larger than the screen through a {@link Viewport}, zoomed with the mouse wheel
+ * and panned by dragging. Every render writes one shade per pixel, blended from dead to alive color
+ * by the density of cells under the pixel, so rendering cost depends on the canvas size only.
+ * Frames are counted by their changed tiles, and only the region of cells read is requested from the simulation.
+ */
+public class ViewportCanvas extends Canvas {
+
+    private static final Color DEAD_COLOR = Color.WHITESMOKE;
+    private static final Color ALIVE_COLOR = Color.BLACK;
+    private static final Color GAP_COLOR = Color.DIMGRAY;
+
+    private final Viewport viewport;
+    private final int[] shades;
+    private final int[] pixels;
+    private final int[] palette = new int[Viewport.MAX_SHADE + 1]; //ARGB color of every shade
+    private final int gapPixel;
+    private BitBoard shown; //Board of the last render, rendered again as the view moves
+    private BiConsumer<Integer, Integer> onCellClicked = (row, col) -> {
+    };
+    private Consumer<long[]> onRegionChanged = region -> {
+    };
+    private double dragX;
+    private double dragY;
+    private boolean dragged;
+
+    /**
+     * Creates a new ViewportCanvas fitting boards of given size.
+     *
+     * @param width   width of canvas in px
+     * @param height  height of canvas in px
+     * @param rows    number of rows of boards to show
+     * @param columns number of columns of boards to show
+     */
+    public ViewportCanvas(int width, int height, int rows, int columns) {
+        super(width, height);
+        viewport = new Viewport(width, height);
+        viewport.fit(rows, columns);
+        shades = new int[width * height];
+        pixels = new int[width * height];
+
+        for (int shade = 0; shade <= Viewport.MAX_SHADE; shade++) {
+            palette[shade] = toArgb(DEAD_COLOR.interpolate(ALIVE_COLOR, (double) shade / Viewport.MAX_SHADE));
+        }
+        gapPixel = toArgb(GAP_COLOR);
+
+        setOnScroll(e -> {
+            if (e.getDeltaY() != 0) {
+                viewport.zoom(e.getDeltaY() > 0 ? -1 : 1, (int) e.getX(), (int) e.getY());
+                onRegionChanged.accept(viewport.getReadRegion());
+                repaint();
+            }
+        });
+        setOnMousePressed(e -> {
+            dragX = e.getX();
+            dragY = e.getY();
+            dragged = false;
+        });
+        setOnMouseDragged(e -> {
+            int dx = (int) (e.getX() - dragX);
+            int dy = (int) (e.getY() - dragY);
+            if (dx == 0 && dy == 0) return;
+            viewport.pan(dx, dy);
+            dragX += dx;
+            dragY += dy;
+            dragged = true;
+            onRegionChanged.accept(viewport.getReadRegion());
+            repaint();
+        });
+        setOnMouseClicked(e -> {
+            if (!dragged && e.getButton() == MouseButton.PRIMARY) clickAt(e.getX(), e.getY());
+        });
+    }
+
+    public Viewport getViewport() {
+        return viewport;
+    }
+
+    /**
+     * Sets action to be performed when a cell is clicked. Cells are only clicked when zoomed in
+     * far enough for every pixel to show a single cell.
+     *
+     * @param onCellClicked action receiving row and column of clicked cell
+     */
+    public void setOnCellClicked(BiConsumer<Integer, Integer> onCellClicked) {
+        this.onCellClicked = onCellClicked;
+    }
+
+    /**
+     * Sets action to be performed when the region of cells read by the viewport changes, as it is zoomed
+     * or panned, so only that region needs to be copied to frames. The action is performed once when set.
+     *
+     * @param onRegionChanged action receiving top row, left column, bottom row and right column of region
+     */
+    public void setOnRegionChanged(Consumer<long[]> onRegionChanged) {
+        this.onRegionChanged = onRegionChanged;
+        onRegionChanged.accept(viewport.getReadRegion());
+    }
+
+    /**
+     * Finds cell at given canvas position and passes it to the click action.
+     *
+     * @param x horizontal position in px
+     * @param y vertical position in px
+     */
+    public void clickAt(double x, double y) {
+        if (shown == null || viewport.getScale() > 0 || x < 0 || y < 0 || x >= getWidth() || y >= getHeight()) {
+            return;
+        }
+        long row = viewport.rowAt((int) y);
+        long col = viewport.columnAt((int) x);
+        if (row < 0 || col < 0 || row >= shown.getRows() || col >= shown.getColumns()) {
+            return;
+        }
+        onCellClicked.accept((int) row, (int) col);
+    }
+
+    /**
+     * Renders the view of a frame, counting only the tiles that changed since the previous frame.
+     *
+     * @param frame frame to show
+     */
+    public void render(Simulation.Frame frame) {
+        viewport.update(frame);
+        shown = frame.getBoard();
+        repaint();
+    }
+
+    /**
+     * Renders the view of the last board again, after the view moved.
+     */
+    private void repaint() {
+        if (shown == null) {
+            return;
+        }
+        viewport.draw(shown, shades);
+        for (int i = 0; i < shades.length; i++) {
+            pixels[i] = shades[i] == Viewport.OUTSIDE ? gapPixel : palette[shades[i]];
+        }
+        getGraphicsContext2D().getPixelWriter().setPixels(0, 0, viewport.getWidth(), viewport.getHeight(),
+                PixelFormat.getIntArgbInstance(), pixels, 0, viewport.getWidth());
+    }
+
+    /**
+     * Returns ARGB pixel of a color.
+     *
+     * @param color color to convert
+     * @return ARGB pixel
+     */
+    private static int toArgb(Color color) {
+        return (int) Math.round(color.getOpacity() * 255) << 24
+                | (int) Math.round(color.getRed() * 255) << 16
+                | (int) Math.round(color.getGreen() * 255) << 8
+                | (int) Math.round(color.getBlue() * 255);
+    }
+}
@@ -0,0 +1,413 @@
+package com.larssont.gameoflife.cli;
+
+import com.larssont.gameoflife.core.BitBoard;
+import com.larssont.gameoflife.core.Checkpoint;
+import com.larssont.gameoflife.core.CheckpointWriter;
+import com.larssont.gameoflife.core.CycleDetector;
+import com.larssont.gameoflife.core.EngineMetrics;
+import com.larssont.gameoflife.core.FrameExporter;
+import com.larssont.gameoflife.core.Game;
+import com.larssont.gameoflife.core.HashLife;
+import com.larssont.gameoflife.core.PatternFormat;
+import com.larssont.gameoflife.core.PatternInfo;
+import com.larssont.gameoflife.core.PatternReader;
+import com.larssont.gameoflife.core.PatternSink;
+import com.larssont.gameoflife.core.PatternWriter;
+import com.larssont.gameoflife.core.Rule;
+import com.larssont.gameoflife.core.SparseBoard;
+import com.larssont.gameoflife.core.Topology;
+import com.larssont.gameoflife.distributed.Coordinator;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a simulation headless from the command line, without JavaFX.
+ * Loads a pattern, advances it a number of generations at full speed,
+ * then writes the final board and timing statistics.
+ */
+public class BatchRunner {
+
+    private static final int DEFAULT_HASHLIFE_CACHE = 1 << 22; //Canonical nodes kept by HashLife
+    private static final String USAGE = "Usage: BatchRunner --pattern FILE --generations N [--rule B3/S23]"
+            + " [--size ROWSxCOLUMNS] [--threads N] [--output FILE] [--checkpoint DIR]"
+            + " [--detect-cycles MAXPERIOD] [--engine scalar|vector|hashlife] [--hashlife-cache NODES] [--topology dead|torus|klein-bottle|infinite]"
+            + " [--workers HOST:PORT,...] [--export DIR|FILE.gif] [--export-every N] [--export-cell-size PX]"
+            + " [--export-wait-ms MS]"
+            + "\nPatterns and output may be RLE (.rle), Life 1.06 (.lif, .life) or plaintext (.cells, .txt)"
+            + "\nWith --checkpoint, the run resumes from the latest checkpoint in DIR and writes new ones there"
+            + "\nWith --detect-cycles, the run fast-forwards once the board repeats within MAXPERIOD generations"
+            + "\nWith --engine vector, generations are computed with the Vector API when jdk.incubator.vector is added"
+            + "\nWith --engine hashlife, generations are computed with HashLife on an unbounded plane, keeping at most NODES"
+            + " nodes in cache (default " + DEFAULT_HASHLIFE_CACHE + "), and the board shows the region of the pattern"
+            + "\nWith --topology infinite, the board grows as cells approach its edges"
+            + "\nWith --workers, bands of rows are simulated by Worker processes listening on the given addresses"
+            + "\nWith --export, every Nth generation is exported as numbered PNG files in DIR or as an animated GIF."
+            + " A generation is skipped when exporting falls more than MS milliseconds behind (default 0)";
+    private static final int RECORDS_PER_SNAPSHOT = 1000; //Journaled generations per checkpoint file
+    private static final int EXPORT_BUFFERS = 4; //Boards queued for exporting at most
+
+    private final Map<String, String> options;
+
+    /**
+     * Creates a BatchRunner from command line options.
+     *
+     * @param options options by name, without leading dashes
+     */
+    public BatchRunner(Map<String, String> options) {
+        this.options = options;
+    }
+
+    /**
+     * Loads pattern or latest checkpoint, runs generations and writes results.
+     * When resuming from a checkpoint, generations counts from the start of the original run.
+     *
+     * @param statsOut stream to write timing statistics to
+     * @throws IOException              when pattern can not be read or board can not be written.
+     * @throws IllegalArgumentException when options are missing or malformed.
+     */
+    public void run(PrintStream statsOut) throws IOException {
+        long generations = Long.parseLong(require("generations"));
+        if (generations < 0) {
+            throw new IllegalArgumentException("Generations must be non-negative");
+        }
+        String workers = options.get("workers");
+        if (workers != null) {
+            runDistributed(statsOut, generations, workers);
+            return;
+        }
+
+        Game game = new Game();
+        String checkpointDirectory = options.get("checkpoint");
+        Checkpoint checkpoint = checkpointDirectory != null ? Checkpoint.readLatest(Paths.get(checkpointDirectory)) : null;
+        BitBoard board;
+        long generation = 0;
+        if (checkpoint != null) {
+            board = checkpoint.getBoard();
+            generation = checkpoint.getGeneration();
+            game.setRule(options.containsKey("rule") ? Rule.parse(options.get("rule")) : checkpoint.getRule());
+        } else {
+            board = loadPattern(game);
+        }
+        game.setThreads(Integer.parseInt(options.getOrDefault("threads", "1")));
+        game.setTopology(Topology.parse(options.getOrDefault("topology", "dead")));
+        String engine = options.getOrDefault("engine", "scalar");
+        board.setVectorized("vector".equals(engine));
+        HashLife hashLife = "hashlife".equals(engine) ? new HashLife(game.getRule(),
+                Integer.parseInt(options.getOrDefault("hashlife-cache", String.valueOf(DEFAULT_HASHLIFE_CACHE)))) : null;
+        EngineMetrics metrics = new EngineMetrics();
+        game.setMetrics(metrics);
+        long resumed = generation;
+
+        String maxPeriod = options.get("detect-cycles");
+        CycleDetector detector = maxPeriod != null ? new CycleDetector(Integer.parseInt(maxPeriod)) : null;
+        String export = options.get("export");
+        if (hashLife != null && (detector != null || checkpointDirectory != null
+                || options.containsKey("topology") || export != null)) {
+            throw new IllegalArgumentException("--engine hashlife can not be combined with --workers, --detect-cycles,"
+                    + " --checkpoint, --topology or --export");
+        }
+        long exportEvery = Long.parseLong(options.getOrDefault("export-every", "1"));
+        long exportWait = Long.parseLong(options.getOrDefault("export-wait-ms", "0"));
+        if (exportEvery <= 0 || exportWait < 0) {
+            throw new IllegalArgumentException("--export-every must be positive and --export-wait-ms non-negative");
+        }
+        CheckpointWriter checkpoints = checkpointDirectory != null
+                ? new CheckpointWriter(Paths.get(checkpointDirectory), RECORDS_PER_SNAPSHOT) : null;
+        FrameExporter exporter = export != null ? new FrameExporter(Paths.get(export),
+                FrameExporter.Format.fromFileName(export), Integer.parseInt(options.getOrDefault("export-cell-size", "1")),
+                Math.max(1, Runtime.getRuntime().availableProcessors() - 1), EXPORT_BUFFERS) : null;
+
+        long start = System.nanoTime();
+        long steps = 0;
+        CycleDetector.Cycle cycle = null;
+        try {
+            if (detector != null) detector.add(generation, board.getHash());
+            if (exporter != null) exporter.offer(board, generation, exportWait, TimeUnit.MILLISECONDS);
+            if (hashLife != null) {
+                hashLife.load(board);
+                hashLife.advance(generations - generation);
+                hashLife.copyTo(board, 0, 0);
+                steps += generations - generation;
+                generation = generations;
+            }
+            while (detector == null && checkpoints == null && generation < generations) {
+                long observed = exporter != null ? exportEvery - generation % exportEvery : Long.MAX_VALUE;
+                int count = (int) Math.min(Math.min(generations - generation, observed), Integer.MAX_VALUE); //Step many per pass up to the next exported generation
+                game.update(board, count);
+                generation += count;
+                steps += count;
+                if (exporter != null && generation % exportEvery == 0) {
+                    exporter.offer(board, generation, exportWait, TimeUnit.MILLISECONDS);
+                }
+            }
+            while (generation < generations) {
+                game.update(board);
+                generation++;
+                steps++;
+                if (checkpoints != null) checkpoints.offer(board, generation, game.getRule());
+                if (exporter != null && generation % exportEvery == 0) {
+                    exporter.offer(board, generation, exportWait, TimeUnit.MILLISECONDS);
+                }
+
+                if (detector != null && (cycle = detector.add(generation, board.getHash())) != null) {
+                    long remaining = (generations - generation) % cycle.getPeriod();
+                    for (long i = 0; i < remaining; i++) {
+                        game.update(board);
+                        steps++;
+                    }
+                    generation = generations; //Later generations repeat the cycle
+                    detector = null;
+                }
+            }
+            if (checkpoints != null) checkpoints.put(board, generation, game.getRule()); //Final generation is never skipped
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while writing checkpoint", e);
+        } finally {
+            if (checkpoints != null) checkpoints.close();
+            if (exporter != null) exporter.close();
+        }
+        long elapsed = System.nanoTime() - start;
+        game.setThreads(1); //Shuts down worker pool
+
+        String output = options.get("output");
+        if (output == null) {
+            new PatternWriter(System.out).write(board, PatternFormat.PLAINTEXT, game.getRule());
+        } else {
+            Path path = Paths.get(output);
+            PatternFormat format = PatternFormat.fromFileName(path.getFileName().toString());
+            try (PatternWriter writer = new PatternWriter(Files.newOutputStream(path))) {
+                writer.write(board, format != null ? format : PatternFormat.PLAINTEXT, game.getRule());
+            }
+        }
+
+        double seconds = elapsed / 1e9;
+        long stepped = generation - resumed;
+        statsOut.printf("rule=%s size=%dx%d topology=%s threads=%d workers=%d vectorized=%b resumed=%d cycle=%s%n",
+                game.getRule(), board.getRows(), board.getColumns(), game.getTopology(), game.getThreads(),
+                0, board.isVectorized(), resumed,
+                cycle != null ? cycle.getPeriod() + "@" + cycle.getStartGeneration() : "none");
+        statsOut.printf("generations=%d steps=%d seconds=%.3f generations/s=%.1f cells/s=%.3e population=%d%n",
+                stepped, steps, seconds, steps / seconds,
+                (double) steps * board.getRows() * board.getColumns() / seconds, board.population());
+        statsOut.printf("tick-mean-us=%.1f tick-p50-us=%.1f tick-p99-us=%.1f tick-max-us=%.1f births=%d deaths=%d"
+                        + " tiles-evaluated=%d tiles-skipped=%d%n",
+                metrics.getTickMeanNanos() / 1e3, metrics.getTickP50Nanos() / 1e3, metrics.getTickP99Nanos() / 1e3,
+                metrics.getTickMaxNanos() / 1e3, metrics.getBirths(), metrics.getDeaths(),
+                metrics.getEvaluatedTiles(), metrics.getSkippedTiles());
+        if (hashLife != null) {
+            statsOut.printf("hashlife-population=%d hashlife-cache=%d hashlife-evicted=%d%n",
+                    hashLife.getPopulation(), hashLife.getCacheSize(), hashLife.getEvictedNodes());
+        }
+        if (exporter != null) {
+            statsOut.printf("frames-exported=%d frames-skipped=%d%n", exporter.getWrittenFrames(), exporter.getSkippedFrames());
+        }
+    }
+
+    /**
+     * Runs generations on distributed workers and writes the final board. The board is never held here:
+     * every band is read from the pattern as it is sent to its worker, reading the pattern once per worker,
+     * and the final board is written row by row as it is gathered. The board takes the requested size or the
+     * size declared by the header of the pattern, or else the extent of the pattern found by a first pass.
+     *
+     * @param statsOut    stream to write timing statistics to
+     * @param generations number of generations
+     * @param workers     comma separated worker addresses of form HOST:PORT
+     * @throws IOException when pattern can not be read, board can not be written or a worker fails.
+     */
+    private void runDistributed(PrintStream statsOut, long generations, String workers) throws IOException {
+        if (options.containsKey("detect-cycles") || options.containsKey("checkpoint") || options.containsKey("export")
+                || Topology.parse(options.getOrDefault("topology", "dead")) != Topology.DEAD
+                || "hashlife".equals(options.get("engine"))) {
+            throw new IllegalArgumentException("--workers can not be combined with --detect-cycles, --checkpoint,"
+                    + " --topology, --export or --engine hashlife");
+        }
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (String worker : workers.split(",")) {
+            int colon = worker.lastIndexOf(':');
+            if (colon < 0) {
+                throw new IllegalArgumentException("Workers must be of form HOST:PORT,...: " + workers);
+            }
+            addresses.add(new InetSocketAddress(worker.substring(0, colon).trim(),
+                    Integer.parseInt(worker.substring(colon + 1).trim())));
+        }
+
+        Path pattern = Paths.get(require("pattern"));
+        PatternInfo info;
+        try (PatternReader reader = new PatternReader(pattern)) {
+            info = reader.readHeader();
+            if (info.getRows() < 0 || info.getColumns() < 0) {
+                info = reader.read((row, column) -> { }); //Finds extent without holding cells
+            }
+        }
+        String size = options.get("size");
+        int[] dimensions = parseSize(size != null ? size
+                : Math.max(info.getRows(), 1) + "x" + Math.max(info.getColumns(), 1));
+        long top = (dimensions[0] - info.getRows()) / 2 - info.getTop(); //Board row of pattern row 0
+        long left = (dimensions[1] - info.getColumns()) / 2 - info.getLeft();
+        String ruleOption = options.get("rule");
+        Rule rule = Rule.parse(ruleOption != null ? ruleOption : info.getRule() != null ? info.getRule() : "B3/S23");
+
+        long start = System.nanoTime();
+        long elapsed;
+        long population;
+        try (Coordinator coordinator = new Coordinator(addresses, dimensions[0], dimensions[1], rule, (band, from) -> {
+            try (PatternReader reader = new PatternReader(pattern)) {
+                reader.read(PatternSink.of(band, top - from, left));
+            }
+        })) {
+            for (long remaining = generations; remaining > 0; ) {
+                int count = (int) Math.min(remaining, Integer.MAX_VALUE);
+                coordinator.step(count);
+                remaining -= count;
+            }
+            elapsed = System.nanoTime() - start;
+            population = coordinator.population();
+
+            String output = options.get("output");
+            if (output == null) {
+                writeGathered(coordinator, new PatternWriter(System.out), PatternFormat.PLAINTEXT);
+            } else {
+                Path path = Paths.get(output);
+                PatternFormat format = PatternFormat.fromFileName(path.getFileName().toString());
+                try (PatternWriter writer = new PatternWriter(Files.newOutputStream(path))) {
+                    writeGathered(coordinator, writer, format != null ? format : PatternFormat.PLAINTEXT);
+                }
+            }
+        }
+
+        double seconds = elapsed / 1e9;
+        statsOut.printf("rule=%s size=%dx%d topology=%s threads=%d workers=%d vectorized=%b resumed=%d cycle=%s%n",
+                rule, dimensions[0], dimensions[1], Topology.DEAD, Integer.parseInt(options.getOrDefault("threads", "1")),
+                addresses.size(), false, 0, "none");
+        statsOut.printf("generations=%d steps=%d seconds=%.3f generations/s=%.1f cells/s=%.3e population=%d%n",
+                generations, generations, seconds, generations / seconds,
+                (double) generations * dimensions[0] * dimensions[1] / seconds, population);
+    }
+
+    /**
+     * Gathers the distributed board and writes it row by row.
+     *
+     * @param coordinator coordinator of distributed board
+     * @param writer      writer to write board with
+     * @param format      format to write in
+     * @throws IOException when board can not be written or a worker fails.
+     */
+    private static void writeGathered(Coordinator coordinator, PatternWriter writer, PatternFormat format)
+            throws IOException {
+        writer.begin(format, coordinator.getRows(), coordinator.getColumns(), coordinator.getRule());
+        coordinator.gather((row, words) -> writer.writeRow(words));
+        writer.end();
+    }
+
+    /**
+     * Loads pattern centered on a board of the requested size, and applies the requested rule
+     * or the rule given by the pattern. The board is allocated from the requested size or the size
+     * declared by the header of the pattern, then cells are streamed onto it, so memory use does not
+     * depend on the number of alive cells. Only patterns without a header are held as alive cells
+     * until their size is known.
+     *
+     * @param game game to apply rule to
+     * @return board holding pattern
+     * @throws IOException when pattern can not be read.
+     */
+    private BitBoard loadPattern(Game game) throws IOException {
+        BitBoard board;
+        PatternInfo info;
+        try (PatternReader reader = new PatternReader(Paths.get(require("pattern")))) {
+            PatternInfo header = reader.readHeader();
+            String size = options.get("size");
+            if (size != null || (header.getRows() >= 0 && header.getColumns() >= 0)) {
+                int[] dimensions = parseSize(size != null ? size
+                        : Math.max(header.getRows(), 1) + "x" + Math.max(header.getColumns(), 1));
+                board = new BitBoard(dimensions[0], dimensions[1]);
+                info = reader.readCentered(board);
+            } else {
+                SparseBoard pattern = new SparseBoard(); //Holds only alive cells until board size is known
+                info = reader.read(PatternSink.of(pattern, 0, 0));
+                board = new BitBoard((int) Math.max(info.getRows(), 1), (int) Math.max(info.getColumns(), 1));
+                pattern.copyTo(board, info.getTop(), info.getLeft());
+            }
+        }
+
+        String rule = options.get("rule");
+        game.setRule(rule != null ? rule : info.getRule() != null ? info.getRule() : "B3/S23");
+        return board;
+    }
+
+    /**
+     * Returns value of a required option.
+     *
+     * @param name option name
+     * @return option value
+     * @throws IllegalArgumentException when option is missing.
+     */
+    private String require(String name) {
+        String value = options.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing option --" + name);
+        }
+        return value;
+    }
+
+    /**
+     * Parses board size of form ROWSxCOLUMNS.
+     *
+     * @param size size string
+     * @return rows and columns
+     */
+    static int[] parseSize(String size) {
+        String[] parts = size.toLowerCase().split("x");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException("Size must be of form ROWSxCOLUMNS: " + size);
+        }
+        return new int[]{Integer.parseInt(parts[0].trim()), Integer.parseInt(parts[1].trim())};
+    }
+
+    /**
+     * Parses command line arguments of form --name value into options.
+     *
+     * @param args command line arguments
+     * @return options by name
+     */
+    static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Malformed argument: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[++i]);
+        }
+        return options;
+    }
+
+    /**
+     * Main method. The board is written to standard output as plaintext unless --output is given,
+     * in which case statistics are written there instead of to standard error.
+     *
+     * @param args command line arguments, see usage
+     */
+    public static void main(String[] args) {
+        try {
+            Map<String, String> options = parseArgs(args);
+            new BatchRunner(options).run(options.containsKey("output") ? System.out : System.err);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println(e);
+            System.exit(1);
+        }
+    }
+}
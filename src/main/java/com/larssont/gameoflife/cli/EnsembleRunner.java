@@ -0,0 +1,371 @@
+package com.larssont.gameoflife.cli;
+
+import com.larssont.gameoflife.core.BitBoard;
+import com.larssont.gameoflife.core.CycleDetector;
+import com.larssont.gameoflife.core.Game;
+import com.larssont.gameoflife.core.Rule;
+import com.larssont.gameoflife.core.Topology;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Runs ensembles of random soups headless, for statistics over rules and initial densities.
+ * Every combination of rule and density is run a number of times on boards filled at random,
+ * until the board settles into a cycle or a generation limit is reached.
+ * <p>
+ * Runs are independent and execute concurrently, on virtual threads when the runtime has them
+ * and on a fixed pool of platform threads otherwise. At most --threads runs hold a board at once.
+ * Every run draws its seed from a generator seeded with --seed in the order runs are listed,
+ * so results are identical for equal options regardless of scheduling.
+ */
+public class EnsembleRunner {
+
+    private static final String USAGE = "Usage: EnsembleRunner --runs N [--rules B3/S23;B36/S23] [--densities 0.2,0.35,0.5]"
+            + " [--size ROWSxCOLUMNS] [--max-generations N] [--max-period N] [--seed N] [--threads N]"
+            + " [--topology dead|torus|klein-bottle] [--format csv|json] [--output FILE]"
+            + "\nRuns N random soups for every rule and density and writes one record per run,"
+            + " as CSV unless --format or the --output extension is json"
+            + "\nRules are separated by semicolons, as rules of a larger radius contain commas";
+    private static final String VIRTUAL_EXECUTOR = "newVirtualThreadPerTaskExecutor"; //Executors factory from Java 21 on
+
+    private final Map<String, String> options;
+
+    /**
+     * Creates an EnsembleRunner from command line options.
+     *
+     * @param options options by name, without leading dashes
+     */
+    public EnsembleRunner(Map<String, String> options) {
+        this.options = options;
+    }
+
+    /**
+     * Runs all soups, writes their records and a summary per rule and density.
+     *
+     * @param statsOut stream to write the summary to
+     * @return results in the order runs are listed, by rule, then density, then run
+     * @throws IOException              when records can not be written.
+     * @throws IllegalArgumentException when options are missing or malformed.
+     */
+    public List<Result> run(PrintStream statsOut) throws IOException {
+        String runsOption = options.get("runs");
+        if (runsOption == null) {
+            throw new IllegalArgumentException("Missing option --runs");
+        }
+        int runs = Integer.parseInt(runsOption);
+        int[] size = BatchRunner.parseSize(options.getOrDefault("size", "64x64"));
+        long maxGenerations = Long.parseLong(options.getOrDefault("max-generations", "10000"));
+        int maxPeriod = Integer.parseInt(options.getOrDefault("max-period", "100"));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+                String.valueOf(Runtime.getRuntime().availableProcessors())));
+        Topology topology = Topology.parse(options.getOrDefault("topology", "dead"));
+        if (runs < 0 || maxGenerations < 0 || threads <= 0) {
+            throw new IllegalArgumentException("Runs and generations must be non-negative and threads positive");
+        }
+        if (topology == Topology.INFINITE) {
+            throw new IllegalArgumentException("Soups are run on bounded boards, --topology infinite is not supported");
+        }
+        String output = options.get("output");
+        String format = options.getOrDefault("format",
+                output != null && output.toLowerCase().endsWith(".json") ? "json" : "csv");
+        if (!"csv".equals(format) && !"json".equals(format)) {
+            throw new IllegalArgumentException("Format must be csv or json: " + format);
+        }
+
+        List<Rule> rules = new ArrayList<>();
+        for (String rule : options.getOrDefault("rules", "B3/S23").split(";")) {
+            rules.add(Rule.parse(rule.trim()));
+        }
+        List<Double> densities = new ArrayList<>();
+        for (String density : options.getOrDefault("densities", "0.35").split(",")) {
+            double value = Double.parseDouble(density.trim());
+            if (value < 0 || value > 1) {
+                throw new IllegalArgumentException("Densities must lie between 0 and 1: " + density);
+            }
+            densities.add(value);
+        }
+
+        SplittableRandom seeds = new SplittableRandom(Long.parseLong(options.getOrDefault("seed", "0")));
+        List<Soup> soups = new ArrayList<>();
+        for (Rule rule : rules) {
+            for (double density : densities) {
+                for (int run = 0; run < runs; run++) {
+                    soups.add(new Soup(rule, density, run, seeds.nextLong()));
+                }
+            }
+        }
+
+        long start = System.nanoTime();
+        List<Result> results = new ArrayList<>();
+        ExecutorService executor = createVirtualExecutor();
+        boolean virtual = executor != null;
+        if (!virtual) {
+            executor = Executors.newFixedThreadPool(threads);
+        }
+        try {
+            Semaphore permits = new Semaphore(threads); //Bounds boards held at once, virtual threads are unbounded
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Soup soup : soups) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return simulate(soup, size[0], size[1], topology, maxGenerations, maxPeriod);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<Result> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while running soups", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Run failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        if (output == null) {
+            write(results, format, System.out);
+        } else {
+            try (OutputStream out = Files.newOutputStream(Paths.get(output))) {
+                write(results, format, out);
+            }
+        }
+
+        statsOut.printf("runs=%d size=%dx%d topology=%s threads=%d virtual=%b seconds=%.3f runs/s=%.1f%n",
+                results.size(), size[0], size[1], topology, threads, virtual, seconds, results.size() / seconds);
+        for (int from = 0; from < results.size(); from += runs) {
+            statsOut.println(summarize(results.subList(from, from + runs)));
+        }
+        return results;
+    }
+
+    /**
+     * Creates executor starting a virtual thread per task, through reflection so the runner
+     * also runs on releases without virtual threads.
+     *
+     * @return created executor, or null if virtual threads are unavailable
+     */
+    private static ExecutorService createVirtualExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod(VIRTUAL_EXECUTOR).invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Runs a single soup until it settles into a cycle or reaches the generation limit.
+     *
+     * @param soup           soup to run
+     * @param rows           number of rows of board
+     * @param columns        number of columns of board
+     * @param topology       topology of board
+     * @param maxGenerations generation limit
+     * @param maxPeriod      longest period to detect
+     * @return result of run
+     */
+    static Result simulate(Soup soup, int rows, int columns, Topology topology, long maxGenerations, int maxPeriod) {
+        SplittableRandom random = new SplittableRandom(soup.seed);
+        BitBoard board = new BitBoard(rows, columns);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                if (random.nextDouble() < soup.density) board.setAlive(row, col, true);
+            }
+        }
+        long initialPopulation = board.population();
+
+        Game game = new Game();
+        game.setRule(soup.rule);
+        game.setTopology(topology);
+        CycleDetector detector = new CycleDetector(maxPeriod);
+        CycleDetector.Cycle cycle = detector.add(0, board.getHash());
+        for (long generation = 1; generation <= maxGenerations && cycle == null; generation++) {
+            game.update(board);
+            cycle = detector.add(generation, board.getHash());
+        }
+
+        return new Result(soup, initialPopulation, board.population(),
+                cycle != null ? cycle.getStartGeneration() : maxGenerations,
+                cycle != null ? cycle.getPeriod() : 0, cycle != null && cycle.isExtinct());
+    }
+
+    /**
+     * Summarizes results of a single rule and density.
+     *
+     * @param results results of equal rule and density
+     * @return summary line
+     */
+    private static String summarize(List<Result> results) {
+        Result first = results.get(0);
+        long settled = 0;
+        long extinct = 0;
+        long lifespans = 0;
+        long maxLifespan = 0;
+        long populations = 0;
+        Map<Long, Integer> periods = new TreeMap<>(); //Number of runs per period of settled runs
+        for (Result result : results) {
+            if (result.period > 0) {
+                settled++;
+                periods.merge(result.period, 1, Integer::sum);
+            }
+            if (result.extinct) extinct++;
+            lifespans += result.lifespan;
+            maxLifespan = Math.max(maxLifespan, result.lifespan);
+            populations += result.finalPopulation;
+        }
+        return String.format(Locale.ROOT, "rule=%s density=%.3f runs=%d settled=%d extinct=%d lifespan-mean=%.1f"
+                        + " lifespan-max=%d population-mean=%.1f periods=%s",
+                first.soup.rule, first.soup.density, results.size(), settled, extinct,
+                (double) lifespans / results.size(), maxLifespan, (double) populations / results.size(), periods);
+    }
+
+    /**
+     * Writes one record per result.
+     *
+     * @param results results to write
+     * @param format  csv or json
+     * @param out     stream to write to, left open
+     */
+    private static void write(List<Result> results, String format, OutputStream out) {
+        PrintWriter writer = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if ("json".equals(format)) {
+            writer.println("[");
+            for (int i = 0; i < results.size(); i++) {
+                Result r = results.get(i);
+                writer.printf(Locale.ROOT, "  {\"rule\": \"%s\", \"density\": %s, \"run\": %d, \"seed\": %d,"
+                                + " \"initialPopulation\": %d, \"finalPopulation\": %d, \"lifespan\": %d, \"period\": %d,"
+                                + " \"extinct\": %b}%s%n",
+                        r.soup.rule, r.soup.density, r.soup.run, r.soup.seed, r.initialPopulation, r.finalPopulation,
+                        r.lifespan, r.period, r.extinct, i + 1 < results.size() ? "," : "");
+            }
+            writer.println("]");
+        } else {
+            writer.println("rule,density,run,seed,initial_population,final_population,lifespan,period,extinct");
+            for (Result r : results) {
+                writer.printf(Locale.ROOT, "\"%s\",%s,%d,%d,%d,%d,%d,%d,%b%n", //Rules of a larger radius contain commas
+                        r.soup.rule, r.soup.density, r.soup.run, r.soup.seed, r.initialPopulation, r.finalPopulation,
+                        r.lifespan, r.period, r.extinct);
+            }
+        }
+        writer.flush();
+    }
+
+    /**
+     * Represents a random soup to run, the rule applied and the density and seed it is filled with.
+     */
+    static final class Soup {
+
+        private final Rule rule;
+        private final double density;
+        private final int run;
+        private final long seed;
+
+        Soup(Rule rule, double density, int run, long seed) {
+            this.rule = rule;
+            this.density = density;
+            this.run = run;
+            this.seed = seed;
+        }
+    }
+
+    /**
+     * Represents the result of a run. Runs that did not settle within the generation limit
+     * have a period of 0 and a lifespan of the limit.
+     */
+    public static final class Result {
+
+        private final Soup soup;
+        private final long initialPopulation;
+        private final long finalPopulation;
+        private final long lifespan; //Generations until the first generation of the cycle
+        private final long period;
+        private final boolean extinct;
+
+        private Result(Soup soup, long initialPopulation, long finalPopulation, long lifespan, long period, boolean extinct) {
+            this.soup = soup;
+            this.initialPopulation = initialPopulation;
+            this.finalPopulation = finalPopulation;
+            this.lifespan = lifespan;
+            this.period = period;
+            this.extinct = extinct;
+        }
+
+        public Rule getRule() {
+            return soup.rule;
+        }
+
+        public double getDensity() {
+            return soup.density;
+        }
+
+        public int getRun() {
+            return soup.run;
+        }
+
+        public long getSeed() {
+            return soup.seed;
+        }
+
+        public long getInitialPopulation() {
+            return initialPopulation;
+        }
+
+        public long getFinalPopulation() {
+            return finalPopulation;
+        }
+
+        public long getLifespan() {
+            return lifespan;
+        }
+
+        public long getPeriod() {
+            return period;
+        }
+
+        public boolean isExtinct() {
+            return extinct;
+        }
+    }
+
+    /**
+     * Main method. Records are written to standard output unless --output is given,
+     * the summary to standard error.
+     *
+     * @param args command line arguments, see usage
+     */
+    public static void main(String[] args) {
+        try {
+            new EnsembleRunner(BatchRunner.parseArgs(args)).run(System.err);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println(e);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,289 @@
+package com.larssont.gameoflife.core;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongConsumer;
+
+/**
+ * Engine migrating the plane between a {@link SparseBoard} and a {@link DenseEngine}, whichever steps faster.
+ * Sparse steps cost time per alive cell, dense steps per cell of the board, so every check interval
+ * the population is compared with the area of its bounding box. A sparse plane becomes dense once the alive cells
+ * fill enough of it, and a dense one becomes sparse again once they fill too little, e.g. as spaceships fly apart.
+ * The gap between both densities keeps the plane from switching back and forth.
+ * Both representations hash alive cells alike, so switching keeps hashes and cycle detection intact.
+ */
+public class AdaptiveEngine implements Engine {
+
+    private static final int COMPACT_RATIO = 4; //Times the area around alive cells from which dense boards are compacted
+
+    public static final double DEFAULT_DENSE_DENSITY = 0.005;
+    public static final double DEFAULT_SPARSE_DENSITY = 0.0005;
+
+    private double denseDensity; //Share of bounding box alive from which sparse planes become dense
+    private double sparseDensity; //Share of bounding box alive below which dense planes become sparse
+    private long minDensePopulation = 256; //Fewer alive cells are always sparse, as switching would not pay off
+    private long maxDenseArea = 1L << 30; //Cells a dense board spans at most, 128 MB
+    private int checkInterval = 16; //Generations between checks of density
+
+    private Engine engine = new SparseBoard();
+    private int uncheckedGenerations;
+    private long lastBirths;
+    private long lastDeaths;
+    private long switches;
+
+    /**
+     * Creates an empty engine switching at the default densities.
+     */
+    public AdaptiveEngine() {
+        this(DEFAULT_DENSE_DENSITY, DEFAULT_SPARSE_DENSITY);
+    }
+
+    /**
+     * Creates an empty engine switching at given densities.
+     *
+     * @param denseDensity  share of the bounding box alive from which sparse planes become dense, from 0 to 1
+     * @param sparseDensity share of the bounding box alive below which dense planes become sparse, from 0 to 1
+     * @throws IllegalArgumentException when a density is outside of range, or denseDensity is not above sparseDensity.
+     */
+    public AdaptiveEngine(double denseDensity, double sparseDensity) {
+        checkDensities(denseDensity, sparseDensity);
+        this.denseDensity = denseDensity;
+        this.sparseDensity = sparseDensity;
+    }
+
+    /**
+     * Sets share of the bounding box of alive cells that must be alive for a sparse plane to become dense.
+     *
+     * @param denseDensity density from 0 to 1
+     * @throws IllegalArgumentException when denseDensity is outside of range or not above the sparse density.
+     */
+    public void setDenseDensity(double denseDensity) {
+        checkDensities(denseDensity, sparseDensity);
+        this.denseDensity = denseDensity;
+    }
+
+    public double getDenseDensity() {
+        return denseDensity;
+    }
+
+    /**
+     * Sets share of the bounding box of alive cells that must be alive for a dense plane to stay dense.
+     * Should be well below the dense density.
+     *
+     * @param sparseDensity density from 0 to 1
+     * @throws IllegalArgumentException when sparseDensity is outside of range or not below the dense density.
+     */
+    public void setSparseDensity(double sparseDensity) {
+        checkDensities(denseDensity, sparseDensity);
+        this.sparseDensity = sparseDensity;
+    }
+
+    public double getSparseDensity() {
+        return sparseDensity;
+    }
+
+    /**
+     * Sets population below which the plane is always sparse.
+     *
+     * @param minDensePopulation number of alive cells
+     * @throws IllegalArgumentException when minDensePopulation is negative.
+     */
+    public void setMinDensePopulation(long minDensePopulation) {
+        if (minDensePopulation < 0) {
+            throw new IllegalArgumentException("Must be set to non-negative value");
+        }
+        this.minDensePopulation = minDensePopulation;
+    }
+
+    public long getMinDensePopulation() {
+        return minDensePopulation;
+    }
+
+    /**
+     * Sets number of cells a dense board may span, bounding its memory to an eighth as many bytes.
+     *
+     * @param maxDenseArea number of cells
+     * @throws IllegalArgumentException when maxDenseArea is not positive.
+     */
+    public void setMaxDenseArea(long maxDenseArea) {
+        if (maxDenseArea <= 0) {
+            throw new IllegalArgumentException("Must be set to positive value");
+        }
+        this.maxDenseArea = maxDenseArea;
+    }
+
+    public long getMaxDenseArea() {
+        return maxDenseArea;
+    }
+
+    /**
+     * Sets number of generations between checks of density.
+     *
+     * @param checkInterval number of generations
+     * @throws IllegalArgumentException when checkInterval is not positive.
+     */
+    public void setCheckInterval(int checkInterval) {
+        if (checkInterval <= 0) {
+            throw new IllegalArgumentException("Must be set to positive value");
+        }
+        this.checkInterval = checkInterval;
+    }
+
+    public int getCheckInterval() {
+        return checkInterval;
+    }
+
+    /**
+     * Returns true if the plane is currently stored densely.
+     *
+     * @return true if dense, false if sparse
+     */
+    public boolean isDense() {
+        return engine instanceof DenseEngine;
+    }
+
+    /**
+     * Returns number of times the plane switched between sparse and dense.
+     *
+     * @return number of switches
+     */
+    public long getSwitches() {
+        return switches;
+    }
+
+    /**
+     * Checks density right away and switches representation if it pays off,
+     * e.g. after loading a pattern. Dense boards spanning much more than their alive cells are compacted.
+     */
+    public void adapt() {
+        uncheckedGenerations = 0;
+        long population = engine.population();
+        long[] bounds = engine.getBounds();
+        boolean dense = engine instanceof DenseEngine;
+        if (bounds == null) {
+            if (dense) migrate(new SparseBoard());
+            return;
+        }
+        long rows = bounds[2] - bounds[0] + 1;
+        long columns = bounds[3] - bounds[1] + 1;
+        long area = (rows + 2 * DenseEngine.MARGIN) * (columns + 2 * DenseEngine.MARGIN); //Of a dense board around them
+        if (dense) {
+            if (population < minDensePopulation / 2 || population < sparseDensity * rows * columns || area > maxDenseArea) {
+                migrate(new SparseBoard());
+            } else if (((DenseEngine) engine).getArea() > COMPACT_RATIO * area) {
+                Engine compacted = new DenseEngine(bounds);
+                engine.forEachAlive(position -> compacted.setAlive(SparseBoard.row(position), SparseBoard.column(position), true));
+                engine = compacted;
+            }
+        } else if (population >= minDensePopulation && population >= denseDensity * rows * columns && area <= maxDenseArea) {
+            migrate(new DenseEngine(bounds));
+        }
+    }
+
+    /**
+     * Checks that both densities are in range and leave a gap, so planes do not switch back and forth every check.
+     *
+     * @param denseDensity  density from which sparse planes become dense
+     * @param sparseDensity density below which dense planes become sparse
+     * @throws IllegalArgumentException when a density is outside of range, or denseDensity is not above sparseDensity.
+     */
+    private static void checkDensities(double denseDensity, double sparseDensity) {
+        if (denseDensity < 0 || denseDensity > 1 || sparseDensity < 0 || sparseDensity > 1) {
+            throw new IllegalArgumentException("Must be set to value from 0 to 1");
+        }
+        if (denseDensity <= sparseDensity) {
+            throw new IllegalArgumentException("Dense density must be above sparse density: "
+                    + denseDensity + " <= " + sparseDensity);
+        }
+    }
+
+    /**
+     * Copies alive cells to another representation and continues with it.
+     *
+     * @param target empty engine to continue with
+     */
+    private void migrate(Engine target) {
+        engine.forEachAlive(position -> target.setAlive(SparseBoard.row(position), SparseBoard.column(position), true));
+        engine = target;
+        switches++;
+    }
+
+    @Override
+    public boolean isAlive(long row, long column) {
+        return engine.isAlive(row, column);
+    }
+
+    @Override
+    public void setAlive(long row, long column, boolean alive) {
+        engine.setAlive(row, column, alive);
+    }
+
+    @Override
+    public void step(Rule rule) {
+        step(rule, null);
+    }
+
+    /**
+     * Advances plane one generation, on a pool while dense, see {@link DenseEngine#step(Rule, ForkJoinPool)}.
+     *
+     * @param rule rule to apply
+     * @param pool pool to run bands of a dense board on, null to step sequentially
+     * @throws IllegalArgumentException when rule gives birth to cells without neighbours.
+     */
+    @Override
+    public void step(Rule rule, ForkJoinPool pool) {
+        engine.step(rule, pool);
+        lastBirths = engine.getLastBirths();
+        lastDeaths = engine.getLastDeaths();
+        if (++uncheckedGenerations >= checkInterval) {
+            adapt();
+        }
+    }
+
+    @Override
+    public long population() {
+        return engine.population();
+    }
+
+    @Override
+    public long[] getBounds() {
+        return engine.getBounds();
+    }
+
+    @Override
+    public void clear() {
+        engine = new SparseBoard();
+        uncheckedGenerations = 0;
+        lastBirths = 0;
+        lastDeaths = 0;
+    }
+
+    @Override
+    public long getHash() {
+        return engine.getHash();
+    }
+
+    @Override
+    public long getLastBirths() {
+        return lastBirths;
+    }
+
+    @Override
+    public long getLastDeaths() {
+        return lastDeaths;
+    }
+
+    @Override
+    public void load(BitBoard board, long top, long left) {
+        engine.load(board, top, left);
+    }
+
+    @Override
+    public void copyTo(BitBoard board, long top, long left) {
+        engine.copyTo(board, top, left);
+    }
+
+    @Override
+    public void forEachAlive(LongConsumer action) {
+        engine.forEachAlive(action);
+    }
+}
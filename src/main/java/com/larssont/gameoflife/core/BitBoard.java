@@ -0,0 +1,1040 @@
+package com.larssont.gameoflife.core;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Represents a board of cells stored as packed bits, 64 cells per long.
+ * Each row is surrounded by one padding word on either side and the board
+ * by one padding row above and below, so neighbour lookups never leave the array.
+ * Padding is dead, or filled with halo cells from the opposite edges before every generation
+ * on a wrapping {@link Topology}. Infinite boards grow instead of letting cells reach an edge.
+ * Generations are computed into a second buffer which is swapped in afterwards.
+ * <p>
+ * The board is divided into tiles of one word across and {@link #TILE_ROWS} rows.
+ * Only tiles that changed in the last generation, and their neighbours, are evaluated
+ * by rules with radius 1; other tiles are equal in both buffers and left untouched.
+ * <p>
+ * A Zobrist-style hash of the board is kept up to date from the words that change,
+ * so comparing generations for cycles costs nothing per unchanged word. Boards backing an {@link Engine}
+ * also hash alive cells by their position on its plane, from the cells that change.
+ * The population of every tile is kept up to date the same way, so views of large boards
+ * can show density without reading cells. When tracking changes, tiles that change are marked dirty,
+ * and only words of dirty tiles are compared with their last drained state to list changes as a {@link BoardDiff}.
+ * <p>
+ * When vectorized and the {@code jdk.incubator.vector} module is present, rules with radius 1
+ * compute several words of a row at once with the Vector API, otherwise one word at a time.
+ * <p>
+ * Work beyond stepping single generations of radius 1 is left to collaborators: {@link Halo} fills padding
+ * on wrapping topologies, {@link WideStepper} computes rules with radius above 1, {@link BlockStepper}
+ * advances several generations per pass, {@link Kernels} selects the row kernel and {@link ChangeTracker}
+ * lists changes.
+ */
+public class BitBoard {
+
+    public static final int TILE_ROWS = 64; //Rows in a tile, bands of rows are split along tile borders
+
+    private int rows; //Rows and everything derived from them only change when an infinite board grows
+    private int columns;
+    private int wordsPerRow; //Words holding cells in a row, padding excluded
+    private int stride; //Words in a row, padding included
+    private long lastWordMask; //Bits of the last word in a row that hold cells
+
+    private int tileRows; //Number of rows of tiles
+    private boolean[] changed; //Tiles changed in the last generation or by the user
+    private boolean[] active; //Tiles to evaluate in the current generation
+    private int[] tilePopulation; //Alive cells per tile
+    private ChangeTracker tracker; //Null when not tracking changes
+    private Topology topology = Topology.DEAD;
+    private long originRow; //Row of the board that was row 0 when created, grows as an infinite board grows upwards
+    private long originColumn; //Column of the board that was column 0 when created
+    private Rule lastRule; //Rule of the last generation, tiles are only skipped if it is unchanged
+    private long evaluatedTiles; //Tiles evaluated in the last step, summed over its generations
+    private long skippedTiles; //Tiles skipped in the last step, summed over its generations
+    private long hash; //XOR of wordHash of all words
+    private boolean hashingCells; //Cells are also hashed by their position on a plane
+    private long cellTop; //Row of the plane at row 0, while hashing cells
+    private long cellLeft; //Column of the plane at column 0, while hashing cells
+    private long cellHash; //XOR of cellKey of all alive cells, while hashing cells
+    private long population;
+    private long lastBirths; //Cells born in the last generation
+    private long lastDeaths; //Cells died in the last generation
+    private final Change change = new Change(); //Change of the current generation, reused by sequential steps
+    private final WideStepper wide = new WideStepper(); //Steps rules with radius above 1 sequentially
+    private BandTask bands; //Tasks of parallel steps, reused while the board and band size are unchanged
+    private final BlockStepper blocks = new BlockStepper(); //Steps several generations per pass
+    private RowKernel kernel; //Kernel computing leading words of rows, null to compute all words here
+
+    private long[] cells;
+    private long[] next;
+
+    /**
+     * Creates a board with all cells dead.
+     *
+     * @param rows    number of rows
+     * @param columns number of columns
+     * @throws IllegalArgumentException when rows or columns is not positive.
+     */
+    public BitBoard(int rows, int columns) {
+        if (rows <= 0 || columns <= 0) {
+            throw new IllegalArgumentException("Must be set to positive values");
+        }
+        allocate(rows, columns);
+    }
+
+    /**
+     * Sets size of board and allocates empty buffers and tiles for it.
+     *
+     * @param rows    number of rows
+     * @param columns number of columns
+     */
+    private void allocate(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+
+        wordsPerRow = (columns + 63) >>> 6;
+        stride = wordsPerRow + 2;
+        lastWordMask = -1L >>> (wordsPerRow * 64 - columns);
+
+        cells = new long[(rows + 2) * stride];
+        next = new long[(rows + 2) * stride];
+
+        tileRows = (rows + TILE_ROWS - 1) / TILE_ROWS;
+        changed = new boolean[tileRows * wordsPerRow];
+        active = new boolean[tileRows * wordsPerRow];
+        tilePopulation = new int[tileRows * wordsPerRow];
+        lastRule = null;
+        if (tracker != null) { //Every word differs from an empty board of the new size
+            tracker.resize(tileRows * wordsPerRow, cells.length);
+        }
+    }
+
+    /**
+     * Creates a board matching the alive state of a 2D array of cells.
+     *
+     * @param cells 2D array of cells
+     * @return created board
+     */
+    public static BitBoard of(Cell[][] cells) {
+        BitBoard board = new BitBoard(cells.length, cells[0].length);
+
+        for (Cell[] row : cells) {
+            for (Cell cell : row) {
+                if (cell.isAlive()) {
+                    board.setAlive(cell.getRow(), cell.getColumn(), true);
+                }
+            }
+        }
+        return board;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Sets topology deciding which cells neighbour cells on the edges.
+     *
+     * @param topology topology to apply in coming steps
+     */
+    public void setTopology(Topology topology) {
+        if (topology != this.topology) {
+            lastRule = null; //Cells on the edges may change differently, so every tile is evaluated in the next step
+        }
+        this.topology = topology;
+    }
+
+    public Topology getTopology() {
+        return topology;
+    }
+
+    /**
+     * Returns row position of the cell that was in row 0 when the board was created.
+     * Only changes when an infinite board grows upwards.
+     *
+     * @return row of original origin
+     */
+    public long getOriginRow() {
+        return originRow;
+    }
+
+    /**
+     * Returns column position of the cell that was in column 0 when the board was created.
+     * Only changes when an infinite board grows to the left.
+     *
+     * @return column of original origin
+     */
+    public long getOriginColumn() {
+        return originColumn;
+    }
+
+    public int getTileRows() {
+        return tileRows;
+    }
+
+    /**
+     * Returns number of alive cells within a tile, kept up to date as cells change.
+     * Tiles are one word across, so tile columns match word positions within rows.
+     *
+     * @param tileRow row position of tile
+     * @param word    word position of tile within rows
+     * @return number of alive cells in tile
+     */
+    public int getTilePopulation(int tileRow, int word) {
+        if (tileRow < 0 || tileRow >= tileRows || word < 0 || word >= wordsPerRow) {
+            throw new IndexOutOfBoundsException("Tile (" + tileRow + ", " + word + ") is outside of board");
+        }
+        return tilePopulation[tileRow * wordsPerRow + word];
+    }
+
+    /**
+     * Returns number of tiles evaluated in the last step, summed over its generations.
+     *
+     * @return number of evaluated tiles
+     */
+    public long getEvaluatedTiles() {
+        return evaluatedTiles;
+    }
+
+    /**
+     * Returns number of tiles skipped in the last step, summed over its generations,
+     * because neither they nor their neighbours changed in the generation before.
+     *
+     * @return number of skipped tiles
+     */
+    public long getSkippedTiles() {
+        return skippedTiles;
+    }
+
+    /**
+     * Returns alive state of cell at given position.
+     *
+     * @param row    row position of cell
+     * @param column column position of cell
+     * @return true if cell is alive, otherwise false
+     */
+    public boolean isAlive(int row, int column) {
+        checkBounds(row, column);
+        return (cells[index(row, column >>> 6)] & (1L << column)) != 0;
+    }
+
+    /**
+     * Returns alive state of 64 cells of a row, starting at column word * 64.
+     * Bit i of the returned word holds the cell of column word * 64 + i.
+     *
+     * @param row  row position of cells
+     * @param word word position within row
+     * @return packed alive state of cells
+     */
+    public long getWord(int row, int word) {
+        if (word < 0 || word >= wordsPerRow) {
+            throw new IndexOutOfBoundsException("Word " + word + " is outside of board");
+        }
+        checkBounds(row, 0);
+        return cells[index(row, word)];
+    }
+
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    /**
+     * Sets alive state of 64 cells of a row, starting at column word * 64.
+     * Bits past the last column are ignored.
+     *
+     * @param row  row position of cells
+     * @param word word position within row
+     * @param bits packed alive state of cells, bit i holds the cell of column word * 64 + i
+     */
+    public void setWord(int row, int word, long bits) {
+        if (word < 0 || word >= wordsPerRow) {
+            throw new IndexOutOfBoundsException("Word " + word + " is outside of board");
+        }
+        checkBounds(row, 0);
+        int i = index(row, word);
+        long value = word == wordsPerRow - 1 ? bits & lastWordMask : bits;
+        hash ^= wordHash(row, word, cells[i]) ^ wordHash(row, word, value);
+        if (hashingCells) cellHash ^= cellHash(row, word, cells[i] ^ value);
+        population += Long.bitCount(value) - Long.bitCount(cells[i]);
+        changeTile((row / TILE_ROWS) * wordsPerRow + word, cells[i], value);
+        cells[i] = value;
+        changed[(row / TILE_ROWS) * wordsPerRow + word] = true;
+    }
+
+    /**
+     * Returns hash of the alive state of all cells. Boards of equal size and alive cells have equal hashes,
+     * boards that differ have equal hashes with a probability of about 2^-64.
+     *
+     * @return hash of board
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Starts hashing alive cells by their position on a plane, like {@link SparseBoard} does, so an engine
+     * storing part of a plane on the board gets the hash of its cells without visiting them.
+     * Positions move with the cells as an infinite board grows.
+     *
+     * @param top  row of the plane at row 0 of the board
+     * @param left column of the plane at column 0 of the board
+     */
+    void hashCells(long top, long left) {
+        hashingCells = true;
+        cellTop = top;
+        cellLeft = left;
+        cellHash = cellHash();
+    }
+
+    /**
+     * Returns hash of the alive cells by their position on a plane, see {@link #hashCells(long, long)}.
+     *
+     * @return XOR of {@link #cellKey(long, long)} of all alive cells
+     */
+    long getCellHash() {
+        return cellHash;
+    }
+
+    /**
+     * Computes hash of all alive cells by their position on the plane.
+     *
+     * @return hash of cells
+     */
+    private long cellHash() {
+        long hash = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                hash ^= cellHash(row, w, cells[index(row, w)]);
+            }
+        }
+        return hash;
+    }
+
+    /**
+     * Returns hash of the cells of a word by their position on the plane.
+     * XOR-ing the flipped bits of a word into the hash updates it for births and deaths.
+     *
+     * @param row  row position of word
+     * @param word word position within row
+     * @param bits cells to hash
+     * @return XOR of {@link #cellKey(long, long)} of the cells
+     */
+    private long cellHash(int row, int word, long bits) {
+        long hash = 0;
+        for (; bits != 0; bits &= bits - 1) {
+            hash ^= cellKey(cellTop + row, cellLeft + ((long) word << 6) + Long.numberOfTrailingZeros(bits));
+        }
+        return hash;
+    }
+
+    /**
+     * Returns key of an alive cell at a position of a plane, as XOR-ed into hashes of engines.
+     *
+     * @param row    row position on plane
+     * @param column column position on plane
+     * @return key of cell
+     */
+    static long cellKey(long row, long column) {
+        return mix(SparseBoard.pack(row, column));
+    }
+
+    /**
+     * Returns hash of a word of cells, as XOR-ed into the board hash. Dead words hash to 0,
+     * so only words holding alive cells contribute.
+     *
+     * @param row  row position of word
+     * @param word word position within row
+     * @param bits packed alive state of cells
+     * @return hash of word
+     */
+    private static long wordHash(int row, int word, long bits) {
+        return bits == 0 ? 0 : mix(bits ^ mix(((long) row << 32) | word));
+    }
+
+    /**
+     * Returns the SplitMix64 output for a seed, mixing all bits so that nearby seeds give unrelated keys.
+     *
+     * @param seed seed to mix
+     * @return mixed value
+     */
+    static long mix(long seed) {
+        long z = seed + 0x9e3779b97f4a7c15L;
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Sets alive state of cell at given position.
+     *
+     * @param row    row position of cell
+     * @param column column position of cell
+     * @param alive  new alive state
+     */
+    public void setAlive(int row, int column, boolean alive) {
+        checkBounds(row, column);
+        int i = index(row, column >>> 6);
+        int tile = (row / TILE_ROWS) * wordsPerRow + (column >>> 6);
+        changed[tile] = true;
+
+        long value = alive ? cells[i] | (1L << column) : cells[i] & ~(1L << column);
+        hash ^= wordHash(row, column >>> 6, cells[i]) ^ wordHash(row, column >>> 6, value);
+        if (hashingCells) cellHash ^= cellHash(row, column >>> 6, cells[i] ^ value);
+        population += Long.bitCount(value) - Long.bitCount(cells[i]);
+        changeTile(tile, cells[i], value);
+        cells[i] = value;
+    }
+
+    /**
+     * Sets all cells to dead. When tracking changes, only tiles holding alive cells are marked changed.
+     */
+    public void clear() {
+        if (tracker != null) {
+            for (int tile = 0; tile < tilePopulation.length; tile++) {
+                if (tilePopulation[tile] != 0) tracker.mark(tile);
+            }
+        }
+        Arrays.fill(cells, 0);
+        Arrays.fill(next, 0);
+        Arrays.fill(changed, false);
+        Arrays.fill(tilePopulation, 0);
+        hash = 0;
+        cellHash = 0;
+        population = 0;
+    }
+
+    /**
+     * Returns number of alive cells on the board, kept up to date as cells change.
+     *
+     * @return number of alive cells
+     */
+    public long population() {
+        return population;
+    }
+
+    /**
+     * Returns number of cells born in the last step, summed over its generations.
+     *
+     * @return number of births
+     */
+    public long getLastBirths() {
+        return lastBirths;
+    }
+
+    /**
+     * Returns number of cells that died in the last step, summed over its generations.
+     *
+     * @return number of deaths
+     */
+    public long getLastDeaths() {
+        return lastDeaths;
+    }
+
+    /**
+     * Copies alive state of board to a 2D array of cells of equal size.
+     * Only cells whose state differs are updated.
+     *
+     * @param cells 2D array of cells
+     */
+    public void copyTo(Cell[][] cells) {
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                boolean alive = isAlive(row, col);
+                if (cells[row][col].isAlive() != alive) {
+                    cells[row][col].setAlive(alive);
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies alive state of board to another board of equal size.
+     * When the target tracks changes, only tiles whose words differ are marked changed.
+     *
+     * @param target board to copy to
+     * @throws IllegalArgumentException when boards differ in size.
+     */
+    public void copyTo(BitBoard target) {
+        if (target.rows != rows || target.columns != columns) {
+            throw new IllegalArgumentException("Boards must be of equal size");
+        }
+        if (target.tracker != null) markDiffering(target, 0, rows, 0, wordsPerRow);
+        System.arraycopy(cells, 0, target.cells, 0, cells.length);
+        System.arraycopy(tilePopulation, 0, target.tilePopulation, 0, tilePopulation.length);
+        target.hash = hash;
+        if (target.hashingCells) target.cellHash = target.cellHash(); //Target may lie elsewhere on its plane
+        target.population = population;
+        target.lastRule = null; //Buffers of target differ, so every tile is evaluated in its next step
+    }
+
+    /**
+     * Copies tile populations and the cells of a window to another board of equal size, for frames
+     * showing part of a large board. Words outside of the window are left as they are, so only the window,
+     * the tile populations and the population of the target are up to date. The target takes the hash of this board.
+     *
+     * @param target board to copy to
+     * @param top    first row of window
+     * @param left   first column of window
+     * @param bottom last row of window, exclusive
+     * @param right  last column of window, exclusive
+     * @throws IllegalArgumentException when boards differ in size.
+     */
+    public void copyWindowTo(BitBoard target, int top, int left, int bottom, int right) {
+        if (target.rows != rows || target.columns != columns) {
+            throw new IllegalArgumentException("Boards must be of equal size");
+        }
+        int fromRow = Math.max(top, 0);
+        int toRow = Math.min(bottom, rows);
+        int fromWord = Math.max(0, Math.min(left, columns)) >>> 6;
+        int toWord = (Math.max(0, Math.min(right, columns)) + 63) >>> 6;
+        if (target.tracker != null) markDiffering(target, fromRow, toRow, fromWord, toWord);
+        for (int row = fromRow; row < toRow && fromWord < toWord; row++) {
+            System.arraycopy(cells, index(row, fromWord), target.cells, index(row, fromWord), toWord - fromWord);
+        }
+        System.arraycopy(tilePopulation, 0, target.tilePopulation, 0, tilePopulation.length);
+        target.hash = hash;
+        target.population = population;
+        target.lastRule = null; //Buffers of target differ, so every tile is evaluated in its next step
+    }
+
+    /**
+     * Marks tiles of another board of equal size as changed where its words differ from those of this board.
+     *
+     * @param target   board tracking changes
+     * @param fromRow  first row, inclusive
+     * @param toRow    last row, exclusive
+     * @param fromWord first word of rows, inclusive
+     * @param toWord   last word of rows, exclusive
+     */
+    private void markDiffering(BitBoard target, int fromRow, int toRow, int fromWord, int toWord) {
+        for (int row = fromRow; row < toRow; row++) {
+            int start = index(row, 0);
+            int tile = (row / TILE_ROWS) * wordsPerRow;
+            for (int w = fromWord; w < toWord; w++) {
+                if (cells[start + w] != target.cells[start + w]) target.tracker.mark(tile + w);
+            }
+        }
+    }
+
+    /**
+     * Sets whether changed words are tracked, so they can be listed by {@link #drainChanges(BoardDiff, long, long)}.
+     * Tracking keeps a second copy of the board, as of the last drain, starting with the current state.
+     *
+     * @param tracking true to track changes
+     */
+    public void setTrackingChanges(boolean tracking) {
+        if (tracking != (tracker != null)) {
+            tracker = tracking ? new ChangeTracker(cells, tileRows * wordsPerRow) : null;
+        }
+    }
+
+    public boolean isTrackingChanges() {
+        return tracker != null;
+    }
+
+    /**
+     * Lists words changed since the last drain, or since tracking started, into a diff.
+     * Only words of dirty tiles are compared with their state as of the last drain.
+     * If the board was resized, the diff is relative to an empty board.
+     *
+     * @param diff           diff to clear and fill
+     * @param fromGeneration generation of the last drain
+     * @param toGeneration   current generation
+     * @throws IllegalStateException when changes are not tracked.
+     */
+    public void drainChanges(BoardDiff diff, long fromGeneration, long toGeneration) {
+        if (tracker == null) {
+            throw new IllegalStateException("Changes are not tracked");
+        }
+        tracker.drain(cells, rows, columns, diff, fromGeneration, toGeneration);
+    }
+
+    /**
+     * Returns true if the Vector API is available, so boards can be vectorized.
+     *
+     * @return true if vectorized steps are supported, otherwise false
+     */
+    public static boolean isVectorSupported() {
+        return Kernels.vector() != null;
+    }
+
+    /**
+     * Sets whether rules with radius 1 are computed with the Vector API.
+     * Falls back to computing one word at a time when the Vector API is unavailable.
+     * Results are identical either way.
+     *
+     * @param vectorized true to vectorize steps when supported
+     */
+    public void setVectorized(boolean vectorized) {
+        kernel = vectorized ? Kernels.vector() : null;
+    }
+
+    public boolean isVectorized() {
+        return kernel != null;
+    }
+
+    /**
+     * Advances board one generation.
+     *
+     * @param rule rule to apply
+     */
+    public void step(Rule rule) {
+        prepare(rule);
+        activateTiles(rule);
+        change.clear();
+        stepRows(0, rows, rule, change, wide);
+        apply(change);
+        swap();
+        Halo.clear(next, rows, columns, topology);
+    }
+
+    /**
+     * Advances board one generation, computing bands of rows in parallel on given pool.
+     * Every band reads the current generation and writes the next buffer,
+     * so results are identical to {@link #step(Rule)}. Tasks and their buffers are reused by later steps
+     * as long as the board and the number of bands stay the same.
+     *
+     * @param rule rule to apply
+     * @param pool pool to run bands on
+     */
+    public void step(Rule rule, ForkJoinPool pool) {
+        prepare(rule);
+        int bandRows = Math.max(1, tileRows / (pool.getParallelism() * 4)) * TILE_ROWS;
+        activateTiles(rule);
+        if (bands == null || bands.to != rows || bands.bandRows != bandRows) {
+            bands = new BandTask(this, 0, rows, bandRows);
+        }
+        bands.reset(rule);
+        pool.invoke(bands);
+        apply(bands.change);
+        swap();
+        Halo.clear(next, rows, columns, topology);
+    }
+
+    /**
+     * Prepares current buffer for a step according to topology. Infinite boards grow
+     * until no alive cell lies within the radius of an edge, so every cell that can be born
+     * lies on the board. Wrapping boards fill their padding with halo cells for rules with radius 1,
+     * rules with larger radii wrap their column counts instead.
+     *
+     * @param rule rule to apply
+     */
+    private void prepare(Rule rule) {
+        if (topology == Topology.INFINITE) {
+            expand(rule.getRadius());
+        } else if (topology.wraps() && rule.getRadius() == 1) {
+            Halo.fill(cells, rows, columns, topology);
+        }
+    }
+
+    /**
+     * Grows board until no alive cell lies within radius of an edge. Each edge that is too close
+     * moves outwards by a whole number of words, at least twice the radius, so growing is rare.
+     * Cells keep their state, but their positions shift by the growth above and to the left.
+     *
+     * @param radius radius of neighbourhood
+     */
+    private void expand(int radius) {
+        if (population == 0) {
+            return;
+        }
+        int margin = ((2 * radius + 63) >>> 6) << 6;
+        int top = anyAlive(0, Math.min(radius, rows), 0, columns) ? margin : 0;
+        int bottom = anyAlive(Math.max(rows - radius, 0), rows, 0, columns) ? margin : 0;
+        int left = anyAlive(0, rows, 0, Math.min(radius, columns)) ? margin : 0;
+        int right = anyAlive(0, rows, Math.max(columns - radius, 0), columns) ? margin : 0;
+        if (top + bottom + left + right == 0) {
+            return;
+        }
+
+        long[] old = cells;
+        int oldRows = rows;
+        int oldWords = wordsPerRow;
+        int oldStride = stride;
+        allocate(rows + top + bottom, columns + left + right);
+        for (int row = 0; row < oldRows; row++) {
+            System.arraycopy(old, (row + 1) * oldStride + 1, cells, index(row + top, left >>> 6), oldWords);
+        }
+        originRow += top;
+        originColumn += left;
+        cellTop -= top; //Cells keep their position on the plane, so their hash is unchanged
+        cellLeft -= left;
+
+        hash = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                long word = cells[index(row, w)];
+                hash ^= wordHash(row, w, word);
+                tilePopulation[(row / TILE_ROWS) * wordsPerRow + w] += Long.bitCount(word);
+            }
+        }
+    }
+
+    /**
+     * Returns true if any cell within a rectangle of the board is alive.
+     *
+     * @param fromRow    first row, inclusive
+     * @param toRow      last row, exclusive
+     * @param fromColumn first column, inclusive
+     * @param toColumn   last column, exclusive
+     * @return true if an alive cell was found, otherwise false
+     */
+    private boolean anyAlive(int fromRow, int toRow, int fromColumn, int toColumn) {
+        if (fromColumn >= toColumn) {
+            return false;
+        }
+        int fromWord = fromColumn >>> 6;
+        int toWord = (toColumn - 1) >>> 6;
+        long fromMask = -1L << (fromColumn & 63);
+        long toMask = -1L >>> (63 - ((toColumn - 1) & 63));
+
+        for (int row = fromRow; row < toRow; row++) {
+            int start = index(row, 0);
+            for (int w = fromWord; w <= toWord; w++) {
+                long mask = (w == fromWord ? fromMask : -1L) & (w == toWord ? toMask : -1L);
+                if ((cells[start + w] & mask) != 0) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Advances board a number of generations, computing several generations per pass over memory
+     * with a {@link BlockStepper}, so results are identical to calling {@link #step(Rule)} repeatedly.
+     * The hash and tile populations are updated from the words changed by every pass.
+     * <p>
+     * Rules with radius above 1 and topologies other than {@link Topology#DEAD} are stepped
+     * one generation at a time. Births, deaths and evaluated and skipped tiles are summed over all generations.
+     *
+     * @param rule        rule to apply
+     * @param generations number of generations to advance
+     * @throws IllegalArgumentException when generations is negative.
+     */
+    public void step(Rule rule, int generations) {
+        if (generations < 0) {
+            throw new IllegalArgumentException("Must be set to non-negative value");
+        }
+        if (rule.getRadius() > 1 || topology != Topology.DEAD) {
+            long births = 0;
+            long deaths = 0;
+            long evaluated = 0;
+            long skipped = 0;
+            for (int i = 0; i < generations; i++) {
+                step(rule);
+                births += lastBirths;
+                deaths += lastDeaths;
+                evaluated += evaluatedTiles;
+                skipped += skippedTiles;
+            }
+            lastBirths = births;
+            lastDeaths = deaths;
+            evaluatedTiles = evaluated;
+            skippedTiles = skipped;
+            return;
+        }
+
+        change.clear();
+        for (int done = 0; done < generations; done += BlockStepper.MAX_GENERATIONS) {
+            blocks.step(cells, next, rows, columns, Math.min(generations - done, BlockStepper.MAX_GENERATIONS),
+                    rule, kernel, change);
+            collect(0, rows, change, false);
+            swap();
+        }
+        apply(change);
+        evaluatedTiles = (long) active.length * generations; //Blocks evaluate every tile
+        skippedTiles = 0;
+        lastRule = null; //Next buffer holds an older generation, so every tile is evaluated in the next step
+    }
+
+    /**
+     * Computes next generation of a band of rows into the next buffer.
+     * Rules with radius 1 are computed 64 cells at a time, larger radii
+     * with sliding window sums by a {@link WideStepper}.
+     *
+     * @param from   first row of band, inclusive
+     * @param to     last row of band, exclusive
+     * @param rule   rule to apply
+     * @param change change to add changed words of the band to
+     * @param wide   stepper for rules with radius above 1, used by no other band
+     */
+    private void stepRows(int from, int to, Rule rule, Change change, WideStepper wide) {
+        if (rule.getRadius() > 1) {
+            wide.step(cells, next, rows, columns, topology, rule, from, to);
+            collect(from, to, change, true);
+            return;
+        }
+        for (int row = from; row < to; row++) {
+            stepRow(row, rule.getBornMask(), rule.getSurviveMask(), change);
+        }
+    }
+
+    /**
+     * Adds words of a band of rows that differ between the current and next buffer to a change
+     * and to the population of their tiles.
+     *
+     * @param from   first row of band, inclusive
+     * @param to     last row of band, exclusive
+     * @param change change to add changed words to
+     * @param count  true to count births and deaths, false if already counted per generation
+     */
+    private void collect(int from, int to, Change change, boolean count) {
+        for (int row = from; row < to; row++) {
+            int middle = index(row, 0);
+            int tile = (row / TILE_ROWS) * wordsPerRow;
+            for (int w = 0; w < wordsPerRow; w++) {
+                long before = cells[middle + w];
+                long after = next[middle + w];
+                if (before == after) continue;
+                change.rehash(row, w, before, after);
+                if (hashingCells) change.cellHash ^= cellHash(row, w, before ^ after);
+                if (count) change.count(before, after);
+                changeTile(tile + w, before, after);
+            }
+        }
+    }
+
+    /**
+     * Updates population of a tile for a changed word and marks the tile dirty when tracking changes.
+     * Bands of rows are split along tile borders, so parallel bands never update the same tile.
+     *
+     * @param tile   index of tile
+     * @param before word before change
+     * @param after  word after change
+     */
+    private void changeTile(int tile, long before, long after) {
+        tilePopulation[tile] += Long.bitCount(after) - Long.bitCount(before);
+        if (tracker != null) tracker.mark(tile);
+    }
+
+    /**
+     * Applies change of a generation to hash, population and birth and death counts.
+     *
+     * @param change change of generation
+     */
+    private void apply(Change change) {
+        hash ^= change.hash;
+        cellHash ^= change.cellHash;
+        population += change.births - change.deaths;
+        lastBirths = change.births;
+        lastDeaths = change.deaths;
+    }
+
+    /**
+     * Marks tiles to evaluate in the coming generation and resets changed tiles.
+     * With an unchanged rule of radius 1 on a board that does not wrap, a tile is active
+     * if it or one of its eight neighbouring tiles changed, otherwise all tiles are active.
+     *
+     * @param rule rule to apply
+     */
+    private void activateTiles(Rule rule) {
+        boolean all = rule.getRadius() > 1 || !rule.equals(lastRule) || topology.wraps();
+        lastRule = rule;
+
+        if (all) {
+            Arrays.fill(active, true);
+            Arrays.fill(changed, false);
+            evaluatedTiles = active.length;
+            skippedTiles = 0;
+            return;
+        }
+
+        int evaluated = 0;
+        for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                boolean any = false;
+                for (int r = Math.max(tileRow - 1, 0); r <= Math.min(tileRow + 1, tileRows - 1) && !any; r++) {
+                    for (int c = Math.max(w - 1, 0); c <= Math.min(w + 1, wordsPerRow - 1); c++) {
+                        if (changed[r * wordsPerRow + c]) {
+                            any = true;
+                            break;
+                        }
+                    }
+                }
+                active[tileRow * wordsPerRow + w] = any;
+                if (any) evaluated++;
+            }
+        }
+        Arrays.fill(changed, false);
+
+        evaluatedTiles = evaluated;
+        skippedTiles = active.length - evaluated;
+    }
+
+    /**
+     * Swaps current and next buffers, making the computed generation current.
+     */
+    private void swap() {
+        long[] tmp = cells;
+        cells = next;
+        next = tmp;
+    }
+
+    /**
+     * Computes next generation of a single row into the next buffer.
+     * Leading words are computed by the vector kernel when vectorized, remaining words one at a time.
+     * Words of inactive tiles are skipped, words that change mark their tile as changed and update its population.
+     *
+     * @param row         row to compute
+     * @param bornMask    neighbour counts required for birth
+     * @param surviveMask neighbour counts required for survival
+     * @param change      change to add changed words of the row to
+     */
+    private void stepRow(int row, int bornMask, int surviveMask, Change change) {
+        int north = index(row - 1, 0);
+        int middle = index(row, 0);
+        int south = index(row + 1, 0);
+        int tile = (row / TILE_ROWS) * wordsPerRow;
+        int computed = kernel != null
+                ? kernel.step(cells, next, north, middle, south, wordsPerRow, bornMask, surviveMask) : 0;
+
+        for (int w = 0; w < wordsPerRow; w++) {
+            long c = cells[middle + w];
+            if (!active[tile + w]) {
+                if (w < computed) next[middle + w] = c; //Kernel computed every word, inactive words stay unchanged
+                continue;
+            }
+
+            long result = w < computed ? next[middle + w]
+                    : Kernels.nextWord(cells, north + w, middle + w, south + w, bornMask, surviveMask);
+            if (w == wordsPerRow - 1) {
+                result &= lastWordMask;
+                c &= lastWordMask; //Bit after last column may hold a halo cell
+            }
+            if (result != c) {
+                changed[tile + w] = true;
+                change.add(row, w, c, result);
+                if (hashingCells) change.cellHash ^= cellHash(row, w, c ^ result);
+                changeTile(tile + w, c, result);
+            }
+            next[middle + w] = result;
+        }
+    }
+
+    /**
+     * Accumulates the change of hashes, births and deaths of the words changed in a generation.
+     */
+    static final class Change {
+
+        private long hash;
+        private long cellHash; //Change of the hash of cells by position, while the board hashes cells
+        private long births;
+        private long deaths;
+
+        void add(int row, int word, long before, long after) {
+            rehash(row, word, before, after);
+            count(before, after);
+        }
+
+        void rehash(int row, int word, long before, long after) {
+            hash ^= wordHash(row, word, before) ^ wordHash(row, word, after);
+        }
+
+        void count(long before, long after) {
+            births += Long.bitCount(after & ~before);
+            deaths += Long.bitCount(before & ~after);
+        }
+
+        void add(Change other) {
+            hash ^= other.hash;
+            cellHash ^= other.cellHash;
+            births += other.births;
+            deaths += other.deaths;
+        }
+
+        void clear() {
+            hash = 0;
+            cellHash = 0;
+            births = 0;
+            deaths = 0;
+        }
+    }
+
+    /**
+     * Task computing a band of rows, split in halves along tile borders until bands are small enough.
+     * The whole tree of tasks is created up front, so each leaf keeps its stepper and buffers across steps.
+     */
+    private static final class BandTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final transient BitBoard board;
+        private final int from;
+        private final int to;
+        private final int bandRows;
+        private final BandTask upper; //Halves of the band, null for leaves
+        private final BandTask lower;
+        private final transient WideStepper wide; //Steps rules with radius above 1 in leaves
+        private final transient Change change = new Change(); //Change caused by the band, set once computed
+        private transient Rule rule;
+
+        BandTask(BitBoard board, int from, int to, int bandRows) {
+            this.board = board;
+            this.from = from;
+            this.to = to;
+            this.bandRows = bandRows;
+            if (to - from <= bandRows) {
+                upper = null;
+                lower = null;
+                wide = new WideStepper();
+            } else {
+                int middle = from + ((to - from + TILE_ROWS - 1) / TILE_ROWS / 2) * TILE_ROWS;
+                upper = new BandTask(board, from, middle, bandRows);
+                lower = new BandTask(board, middle, to, bandRows);
+                wide = null;
+            }
+        }
+
+        /**
+         * Prepares the completed task to compute its band again.
+         *
+         * @param rule rule to apply
+         */
+        void reset(Rule rule) {
+            reinitialize();
+            this.rule = rule;
+        }
+
+        @Override
+        protected void compute() {
+            change.clear();
+            if (upper == null) {
+                board.stepRows(from, to, rule, change, wide);
+                return;
+            }
+            upper.reset(rule);
+            lower.reset(rule);
+            invokeAll(upper, lower);
+            change.add(upper.change);
+            change.add(lower.change);
+        }
+    }
+
+    /**
+     * Returns array index of a word, accounting for padding.
+     *
+     * @param row  row position
+     * @param word word position within row
+     * @return index into cell buffers
+     */
+    private int index(int row, int word) {
+        return (row + 1) * stride + word + 1;
+    }
+
+    /**
+     * Checks that given position lies on the board.
+     *
+     * @param row    row position
+     * @param column column position
+     * @throws IndexOutOfBoundsException when position is outside of board.
+     */
+    private void checkBounds(int row, int column) {
+        if (row < 0 || row >= rows || column < 0 || column >= columns) {
+            throw new IndexOutOfBoundsException("Position (" + row + ", " + column + ") is outside of board");
+        }
+    }
+}
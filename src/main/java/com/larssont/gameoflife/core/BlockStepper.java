@@ -0,0 +1,110 @@
+package com.larssont.gameoflife.core;
+
+import java.util.Arrays;
+
+/**
+ * Advances packed boards several generations per pass over memory, for rules with radius 1 on dead edges.
+ * Bands of rows are copied together with a halo of one row per generation above and below
+ * into buffers small enough to stay in cache, advanced there and written back to the next buffer.
+ * Rows of the halo are recomputed by neighbouring bands, and rows beyond the board stay dead,
+ * so results are identical to stepping one generation at a time.
+ * <p>
+ * Band buffers are reused by every pass until the board grows, so a stepper must only be used
+ * by one thread at a time.
+ */
+final class BlockStepper {
+
+    static final int MAX_GENERATIONS = 16; //Generations per pass, bounds the halo recomputed per band
+    private static final int BLOCK_BYTES = 1 << 18; //Size of both band buffers, to stay in L2
+
+    private long[] band = new long[0];
+    private long[] bandNext = band;
+    private int stride; //Words per row the band buffers were allocated for
+
+    /**
+     * Advances all rows of a board a number of generations from the current buffer into the next buffer.
+     * Buffers are laid out like those of {@link BitBoard}. Births and deaths of every generation are
+     * counted into a change, the hash of changed words is left to the caller.
+     *
+     * @param cells   buffer holding the current generation
+     * @param next    buffer to compute into
+     * @param rows    number of rows of board
+     * @param columns number of columns of board
+     * @param depth   number of generations to advance, at most {@link #MAX_GENERATIONS}
+     * @param rule    rule to apply, of radius 1
+     * @param kernel  kernel computing leading words of rows, or null
+     * @param change  change to count births and deaths into
+     */
+    void step(long[] cells, long[] next, int rows, int columns, int depth, Rule rule, RowKernel kernel, BitBoard.Change change) {
+        int words = (columns + 63) >>> 6;
+        int stride = words + 2;
+        int bandRows = Math.max(BLOCK_BYTES / (2 * Long.BYTES * stride) - 2 * MAX_GENERATIONS, MAX_GENERATIONS);
+        int capacity = (Math.min(bandRows + 2 * MAX_GENERATIONS, rows) + 2) * stride;
+        if (band.length < capacity || this.stride != stride) { //Padding words are never written, so they stay zeroed while reused
+            band = new long[capacity];
+            bandNext = new long[capacity];
+            this.stride = stride;
+        }
+
+        for (int top = 0; top < rows; top += bandRows) {
+            stepBand(cells, next, rows, columns, top, Math.min(top + bandRows, rows), depth, rule, kernel, change);
+        }
+    }
+
+    /**
+     * Advances a band of rows a number of generations into the next buffer.
+     * Rows of the band and its halo are copied into the first of two band buffers, which
+     * hold rows like the board does, padding included, then stepped back and forth between them.
+     * Each generation computes one row less of halo on either side.
+     *
+     * @param cells   buffer holding the current generation
+     * @param next    buffer to write band to
+     * @param rows    number of rows of board
+     * @param columns number of columns of board
+     * @param top     first row of band, inclusive
+     * @param bottom  last row of band, exclusive
+     * @param depth   number of generations to advance
+     * @param rule    rule to apply
+     * @param kernel  kernel computing leading words of rows, or null
+     * @param change  change to count births and deaths of the band into, per generation
+     */
+    private void stepBand(long[] cells, long[] next, int rows, int columns, int top, int bottom, int depth,
+                          Rule rule, RowKernel kernel, BitBoard.Change change) {
+        int words = stride - 2;
+        long lastWordMask = -1L >>> (words * 64 - columns);
+        long[] current = band;
+        long[] following = bandNext;
+        int first = Math.max(top - depth, 0);
+        int held = Math.min(bottom + depth, rows) - first;
+        System.arraycopy(cells, (first + 1) * stride, current, stride, held * stride);
+        Arrays.fill(current, (held + 1) * stride, (held + 2) * stride, 0); //Rows below the board are dead
+        Arrays.fill(following, (held + 1) * stride, (held + 2) * stride, 0);
+
+        for (int generation = 1; generation <= depth; generation++) {
+            int from = Math.max(top - depth + generation, 0);
+            int to = Math.min(bottom + depth - generation, rows);
+
+            for (int row = from; row < to; row++) {
+                int middle = (row - first + 1) * stride + 1;
+                Kernels.stepRow(kernel, current, following, middle - stride, middle, middle + stride,
+                        words, rule.getBornMask(), rule.getSurviveMask());
+                following[middle + words - 1] &= lastWordMask;
+
+                if (row < top || row >= bottom) continue;
+                for (int w = 0; w < words; w++) {
+                    if (following[middle + w] != current[middle + w]) {
+                        change.count(current[middle + w], following[middle + w]);
+                    }
+                }
+            }
+
+            long[] tmp = current;
+            current = following;
+            following = tmp;
+        }
+
+        for (int row = top; row < bottom; row++) {
+            System.arraycopy(current, (row - first + 1) * stride + 1, next, (row + 1) * stride + 1, words);
+        }
+    }
+}
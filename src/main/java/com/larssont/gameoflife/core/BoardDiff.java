@@ -0,0 +1,330 @@
+package com.larssont.gameoflife.core;
+
+import java.util.Arrays;
+
+/**
+ * Represents the changes of a board between two generations, as a list of changed words.
+ * Every entry holds the position of a word of 64 cells, a mask of the cells that flipped
+ * and the new state of the word, so born and died cells are read 64 at a time.
+ * Entries are sorted by row, then by word.
+ * <p>
+ * A diff of a resized board, and the first diff of a subscription, is relative to an empty board:
+ * every alive cell is listed as born, and the receiver should start over from a board of the new size.
+ * Diffs of consecutive generations merge into one diff spanning all of them.
+ */
+public final class BoardDiff {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int rows;
+    private int columns;
+    private int wordsPerRow;
+    private boolean reset; //True if relative to an empty board
+    private long fromGeneration; //Generation the diff starts from
+    private long toGeneration; //Generation the diff leads to
+
+    private int size;
+    private int[] indices = new int[INITIAL_CAPACITY]; //Row * wordsPerRow + word of every entry
+    private long[] flips = new long[INITIAL_CAPACITY]; //Cells flipped in every entry
+    private long[] values = new long[INITIAL_CAPACITY]; //New state of every entry
+
+    /**
+     * Creates an empty diff.
+     */
+    public BoardDiff() {
+    }
+
+    /**
+     * Creates a copy of a diff.
+     *
+     * @param other diff to copy
+     */
+    public BoardDiff(BoardDiff other) {
+        set(other);
+    }
+
+    /**
+     * Creates a diff from an empty board to the current state of a board.
+     *
+     * @param board      board to list alive cells of
+     * @param generation generation of board
+     * @return created diff
+     */
+    public static BoardDiff of(BitBoard board, long generation) {
+        BoardDiff diff = new BoardDiff();
+        diff.clear(board.getRows(), board.getColumns(), true, generation, generation);
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int w = 0; w < board.getWordsPerRow(); w++) {
+                long word = board.getWord(row, w);
+                if (word != 0) diff.add(row * board.getWordsPerRow() + w, word, word);
+            }
+        }
+        return diff;
+    }
+
+    /**
+     * Removes all entries and sets the board and generations the diff refers to.
+     *
+     * @param rows           number of rows of board
+     * @param columns        number of columns of board
+     * @param reset          true if relative to an empty board
+     * @param fromGeneration generation the diff starts from
+     * @param toGeneration   generation the diff leads to
+     */
+    void clear(int rows, int columns, boolean reset, long fromGeneration, long toGeneration) {
+        this.rows = rows;
+        this.columns = columns;
+        wordsPerRow = (columns + 63) >>> 6;
+        this.reset = reset;
+        this.fromGeneration = fromGeneration;
+        this.toGeneration = toGeneration;
+        size = 0;
+    }
+
+    /**
+     * Appends an entry. Entries must be added in order of index.
+     *
+     * @param index row * wordsPerRow + word of changed word
+     * @param flip  cells flipped
+     * @param value new state of word
+     */
+    void add(int index, long flip, long value) {
+        if (size == indices.length) {
+            indices = Arrays.copyOf(indices, size * 2);
+            flips = Arrays.copyOf(flips, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        indices[size] = index;
+        flips[size] = flip;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Replaces this diff with a copy of another.
+     *
+     * @param other diff to copy
+     */
+    private void set(BoardDiff other) {
+        clear(other.rows, other.columns, other.reset, other.fromGeneration, other.toGeneration);
+        indices = Arrays.copyOf(other.indices, Math.max(other.size, INITIAL_CAPACITY));
+        flips = Arrays.copyOf(other.flips, indices.length);
+        values = Arrays.copyOf(other.values, indices.length);
+        size = other.size;
+    }
+
+    /**
+     * Merges the diff of the following generations into this one, so this diff leads to
+     * the generation of the other. Words flipped in both cancel out where they flipped back.
+     *
+     * @param later diff starting from the generation this diff leads to
+     */
+    public void merge(BoardDiff later) {
+        if (later.reset) { //Later diff lists the whole board, so it replaces this one
+            long from = fromGeneration;
+            set(later);
+            fromGeneration = from;
+            return;
+        }
+
+        int[] mergedIndices = new int[size + later.size];
+        long[] mergedFlips = new long[mergedIndices.length];
+        long[] mergedValues = new long[mergedIndices.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < size || j < later.size) {
+            int index;
+            long flip;
+            long value;
+            if (j == later.size || (i < size && indices[i] < later.indices[j])) {
+                index = indices[i];
+                flip = flips[i];
+                value = values[i++];
+            } else if (i == size || later.indices[j] < indices[i]) {
+                index = later.indices[j];
+                flip = later.flips[j];
+                value = later.values[j++];
+            } else {
+                index = indices[i];
+                flip = flips[i++] ^ later.flips[j];
+                value = later.values[j++];
+            }
+            if (reset ? value == 0 : flip == 0) continue; //Relative to an empty board, only alive words are listed
+            mergedIndices[count] = index;
+            mergedFlips[count] = reset ? value : flip;
+            mergedValues[count++] = value;
+        }
+
+        indices = mergedIndices.length > 0 ? mergedIndices : new int[INITIAL_CAPACITY];
+        flips = mergedFlips.length > 0 ? mergedFlips : new long[INITIAL_CAPACITY];
+        values = mergedValues.length > 0 ? mergedValues : new long[INITIAL_CAPACITY];
+        size = count;
+        toGeneration = later.toGeneration;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns true if the diff is relative to an empty board, because the board was resized
+     * or the diff is the first of a subscription.
+     *
+     * @return true if receivers should start over from an empty board
+     */
+    public boolean isReset() {
+        return reset;
+    }
+
+    public long getFromGeneration() {
+        return fromGeneration;
+    }
+
+    public long getToGeneration() {
+        return toGeneration;
+    }
+
+    /**
+     * Returns number of changed words.
+     *
+     * @return number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns row of a changed word.
+     *
+     * @param i entry
+     * @return row position of word
+     */
+    public int getRow(int i) {
+        return indices[i] / wordsPerRow;
+    }
+
+    /**
+     * Returns position of a changed word within its row, covering columns word * 64 onwards.
+     *
+     * @param i entry
+     * @return word position within row
+     */
+    public int getWord(int i) {
+        return indices[i] % wordsPerRow;
+    }
+
+    /**
+     * Returns cells of a word that were born, bit i holding the cell of column word * 64 + i.
+     *
+     * @param i entry
+     * @return packed born cells
+     */
+    public long getBorn(int i) {
+        return flips[i] & values[i];
+    }
+
+    /**
+     * Returns cells of a word that died, bit i holding the cell of column word * 64 + i.
+     *
+     * @param i entry
+     * @return packed died cells
+     */
+    public long getDied(int i) {
+        return flips[i] & ~values[i];
+    }
+
+    /**
+     * Returns new state of a word, bit i holding the cell of column word * 64 + i.
+     *
+     * @param i entry
+     * @return packed alive state
+     */
+    public long getValue(int i) {
+        return values[i];
+    }
+
+    /**
+     * Returns number of born cells.
+     *
+     * @return number of births
+     */
+    public long getBirths() {
+        long births = 0;
+        for (int i = 0; i < size; i++) {
+            births += Long.bitCount(getBorn(i));
+        }
+        return births;
+    }
+
+    /**
+     * Returns number of died cells.
+     *
+     * @return number of deaths
+     */
+    public long getDeaths() {
+        long deaths = 0;
+        for (int i = 0; i < size; i++) {
+            deaths += Long.bitCount(getDied(i));
+        }
+        return deaths;
+    }
+
+    /**
+     * Returns positions of born cells as pairs of row and column.
+     *
+     * @return array of row, column, row, column...
+     */
+    public int[] getBornCells() {
+        return cells(true);
+    }
+
+    /**
+     * Returns positions of died cells as pairs of row and column.
+     *
+     * @return array of row, column, row, column...
+     */
+    public int[] getDiedCells() {
+        return cells(false);
+    }
+
+    /**
+     * Unpacks born or died cells into pairs of row and column.
+     *
+     * @param born true for born cells, false for died cells
+     * @return array of row, column, row, column...
+     */
+    private int[] cells(boolean born) {
+        int[] cells = new int[2 * (int) (born ? getBirths() : getDeaths())];
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            long bits = born ? getBorn(i) : getDied(i);
+            while (bits != 0) {
+                cells[n++] = getRow(i);
+                cells[n++] = (getWord(i) << 6) + Long.numberOfTrailingZeros(bits);
+                bits &= bits - 1;
+            }
+        }
+        return cells;
+    }
+
+    /**
+     * Applies the diff to a board of its size. A reset diff clears the board first.
+     *
+     * @param board board to apply diff to
+     * @throws IllegalArgumentException when board differs in size.
+     */
+    public void applyTo(BitBoard board) {
+        if (board.getRows() != rows || board.getColumns() != columns) {
+            throw new IllegalArgumentException("Boards must be of equal size");
+        }
+        if (reset) board.clear();
+        for (int i = 0; i < size; i++) {
+            board.setWord(getRow(i), getWord(i), values[i]);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.larssont.gameoflife.core;
+
+import java.util.function.Consumer;
+
+/**
+ * Represents a cell.
+ *
+ * @author Tommy Larsson
+ * @author larssont.com
+ */
+public class Cell {
+
+    private final int column;
+    private final int row;
+
+    private boolean alive;
+    private Consumer<Cell> onToggle = cell -> {
+    };
+    private Consumer<Cell> onAliveChanged = cell -> {
+    };
+
+    /**
+     * Creates a dead cell.
+     *
+     * @param row    row position of cell
+     * @param column column position of cell
+     */
+    public Cell(int row, int column) {
+        this.row = row;
+        this.column = column;
+    }
+
+    public int getColumn() {
+        return column;
+    }
+
+    public int getRow() {
+        return row;
+    }
+
+    public boolean isAlive() {
+        return alive;
+    }
+
+    /**
+     * Sets action to be performed after cell has been toggled by the user.
+     *
+     * @param onToggle action receiving the toggled cell
+     */
+    public void setOnToggle(Consumer<Cell> onToggle) {
+        this.onToggle = onToggle;
+    }
+
+    /**
+     * Sets action to be performed whenever alive state of cell is set, e.g. to update a view of it.
+     *
+     * @param onAliveChanged action receiving the cell
+     */
+    public void setOnAliveChanged(Consumer<Cell> onAliveChanged) {
+        this.onAliveChanged = onAliveChanged;
+        onAliveChanged.accept(this);
+    }
+
+    /**
+     * Toggles the state of alive for cell, as done by the user.
+     * false -> true or true -> false
+     */
+    public void toggleAlive() {
+        setAlive(!alive);
+        onToggle.accept(this);
+    }
+
+    /**
+     * Sets alive state of cell.
+     *
+     * @param alive new alive state
+     */
+    public void setAlive(boolean alive) {
+        this.alive = alive;
+        onAliveChanged.accept(this);
+    }
+}
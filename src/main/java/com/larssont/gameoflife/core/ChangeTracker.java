@@ -0,0 +1,80 @@
+package com.larssont.gameoflife.core;
+
+import java.util.Arrays;
+
+/**
+ * Tracks which tiles of a packed board changed since changes were last drained, and the words as of then,
+ * so only words of dirty tiles are compared to list changes as a {@link BoardDiff}.
+ * Tiles are one word across and {@link BitBoard#TILE_ROWS} rows, laid out like those of {@link BitBoard}.
+ */
+final class ChangeTracker {
+
+    private boolean[] dirty; //Tiles changed since changes were last drained
+    private long[] drained; //Words as of the last drain, laid out like cells
+    private boolean resized; //Board was resized since changes were last drained
+
+    /**
+     * Starts tracking changes from the current state of a board.
+     *
+     * @param cells buffer holding the current generation
+     * @param tiles number of tiles
+     */
+    ChangeTracker(long[] cells, int tiles) {
+        dirty = new boolean[tiles];
+        drained = cells.clone();
+    }
+
+    /**
+     * Marks a tile as changed.
+     *
+     * @param tile index of tile
+     */
+    void mark(int tile) {
+        dirty[tile] = true;
+    }
+
+    /**
+     * Starts over after the board was resized, so the next diff is relative to an empty board of the new size.
+     *
+     * @param tiles  number of tiles of resized board
+     * @param length length of cell buffers of resized board
+     */
+    void resize(int tiles, int length) {
+        dirty = new boolean[tiles];
+        Arrays.fill(dirty, true);
+        drained = new long[length];
+        resized = true;
+    }
+
+    /**
+     * Lists words changed since the last drain into a diff and remembers them as drained.
+     * If the board was resized, the diff is relative to an empty board.
+     *
+     * @param cells          buffer holding the current generation
+     * @param rows           number of rows of board
+     * @param columns        number of columns of board
+     * @param diff           diff to clear and fill
+     * @param fromGeneration generation of the last drain
+     * @param toGeneration   current generation
+     */
+    void drain(long[] cells, int rows, int columns, BoardDiff diff, long fromGeneration, long toGeneration) {
+        int words = (columns + 63) >>> 6;
+        int tileRows = (rows + BitBoard.TILE_ROWS - 1) / BitBoard.TILE_ROWS;
+        diff.clear(rows, columns, resized, fromGeneration, toGeneration);
+        for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+            int tile = tileRow * words;
+            for (int row = tileRow * BitBoard.TILE_ROWS; row < Math.min((tileRow + 1) * BitBoard.TILE_ROWS, rows); row++) {
+                int start = (row + 1) * (words + 2) + 1;
+                for (int w = 0; w < words; w++) {
+                    if (!dirty[tile + w]) continue;
+                    long flip = cells[start + w] ^ drained[start + w];
+                    if (flip == 0) continue;
+                    diff.add(row * words + w, flip, cells[start + w]);
+                    drained[start + w] = cells[start + w];
+                }
+            }
+        }
+        Arrays.fill(dirty, false);
+        resized = false;
+    }
+}
@@ -0,0 +1,159 @@
+package com.larssont.gameoflife.core;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * Board restored from a checkpoint file written by {@link CheckpointWriter}.
+ * The snapshot is read, then the journal is replayed up to its last complete record.
+ */
+public final class Checkpoint {
+
+    private final BitBoard board;
+    private final long generation;
+    private final Rule rule;
+
+    private Checkpoint(BitBoard board, long generation, Rule rule) {
+        this.board = board;
+        this.generation = generation;
+        this.rule = rule;
+    }
+
+    public BitBoard getBoard() {
+        return board;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public Rule getRule() {
+        return rule;
+    }
+
+    /**
+     * Restores the latest generation of the latest readable checkpoint file of a directory.
+     *
+     * @param directory directory of checkpoint files
+     * @return restored checkpoint, or null if directory holds no readable checkpoint
+     * @throws IOException when directory can not be read.
+     */
+    public static Checkpoint readLatest(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return null;
+        }
+        List<Path> files = CheckpointWriter.listFiles(directory);
+        for (int i = files.size() - 1; i >= 0; i--) {
+            try {
+                return read(files.get(i));
+            } catch (IOException | IllegalArgumentException e) {
+                //Incomplete or corrupt snapshot, fall back to the previous file
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Restores the latest generation of a checkpoint file.
+     *
+     * @param file checkpoint file
+     * @return restored checkpoint
+     * @throws IOException when file can not be read or its snapshot is incomplete.
+     */
+    public static Checkpoint read(Path file) throws IOException {
+        try (InputStream fileIn = new BufferedInputStream(Files.newInputStream(file))) {
+            DataInputStream header = new DataInputStream(fileIn);
+            if (header.readInt() != CheckpointWriter.MAGIC) {
+                throw new IOException("Not a checkpoint file: " + file);
+            }
+            int version = header.readInt();
+            if (version != CheckpointWriter.VERSION) {
+                throw new IOException("Unsupported checkpoint version " + version + ": " + file);
+            }
+            BitBoard board = new BitBoard(header.readInt(), header.readInt());
+            Rule rule = Rule.parse(header.readUTF());
+
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new InflaterInputStream(fileIn)));
+            int wordsPerRow = board.getWordsPerRow();
+            long[] words = new long[board.getRows() * wordsPerRow];
+            long generation = in.readLong();
+            for (int i = 0; i < words.length; i++) {
+                words[i] = in.readLong();
+            }
+
+            generation = replay(in, words, generation);
+
+            for (int row = 0; row < board.getRows(); row++) {
+                for (int word = 0; word < wordsPerRow; word++) {
+                    board.setWord(row, word, words[row * wordsPerRow + word]);
+                }
+            }
+            return new Checkpoint(board, generation, rule);
+        }
+    }
+
+    /**
+     * Applies journal records to words, stopping at the end of the journal or at an incomplete record.
+     *
+     * @param in         journal stream
+     * @param words      words of snapshot, updated in place
+     * @param generation generation of snapshot
+     * @return generation of last record applied
+     */
+    private static long replay(DataInputStream in, long[] words, long generation) throws IOException {
+        int[] positions = new int[0];
+        long[] diffs = new long[0];
+        while (true) {
+            long recordGeneration;
+            int changed;
+            try {
+                recordGeneration = in.readLong();
+                changed = readVarInt(in);
+                if (changed < 0 || changed > words.length) {
+                    return generation; //Corrupt record
+                }
+                if (positions.length < changed) {
+                    positions = new int[changed];
+                    diffs = new long[changed];
+                }
+                int position = 0;
+                for (int i = 0; i < changed; i++) {
+                    int delta = readVarInt(in);
+                    position += delta;
+                    if (delta < 0 || position >= words.length) {
+                        return generation; //Corrupt record
+                    }
+                    positions[i] = position;
+                    diffs[i] = in.readLong();
+                }
+            } catch (EOFException | ZipException e) {
+                return generation; //Journal ends, possibly within a record written before a crash
+            }
+
+            for (int i = 0; i < changed; i++) {
+                words[positions[i]] ^= diffs[i];
+            }
+            generation = recordGeneration;
+        }
+    }
+
+    private static int readVarInt(DataInputStream in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        return -1; //Malformed, more than 32 bits
+    }
+}
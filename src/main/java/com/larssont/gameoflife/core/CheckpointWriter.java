@@ -0,0 +1,324 @@
+package com.larssont.gameoflife.core;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes checkpoints of a board on a background thread, so they can be restored with {@link Checkpoint}.
+ * <p>
+ * A checkpoint file starts with a deflated, bit-packed snapshot of the board, followed by a journal
+ * of generations. Every journal record holds only the words of cells that were born or died since
+ * the previous record, so writing a record costs about as much as the change. A new checkpoint file
+ * is started after a number of records, and only the latest checkpoint files are kept.
+ * <p>
+ * Boards are copied into one of two buffers by the caller. When both are still being written,
+ * generations are skipped rather than slowing the caller down. Every record carries its generation,
+ * so a journal with skipped generations restores to the latest generation written.
+ */
+public class CheckpointWriter implements Closeable {
+
+    static final int MAGIC = 0x474F4C43; //"GOLC"
+    static final int VERSION = 1;
+    static final String FILE_PREFIX = "checkpoint-";
+    static final String FILE_SUFFIX = ".gol";
+
+    private static final int BUFFERS = 2; //Boards being copied or written at a time
+    private static final int KEPT_FILES = 2; //Checkpoint files kept, the latest may be incomplete after a crash
+
+    private final Path directory;
+    private final int recordsPerSnapshot;
+    private final BlockingQueue<Entry> free = new ArrayBlockingQueue<>(BUFFERS);
+    private final ExecutorService executor;
+
+    private DataOutputStream out; //Current checkpoint file, owned by writer thread
+    private long[] previous; //Words of the last board written, owned by writer thread
+    private int rows;
+    private int columns;
+    private Rule rule;
+    private int records; //Records written since snapshot
+
+    private volatile IOException error;
+    private volatile long writtenGenerations;
+    private volatile long skippedGenerations;
+
+    /**
+     * Creates writer of checkpoints to a directory, which is created if needed.
+     *
+     * @param directory          directory to write checkpoint files to
+     * @param recordsPerSnapshot journal records to write before starting a new checkpoint file
+     * @throws IOException              when directory can not be created.
+     * @throws IllegalArgumentException when recordsPerSnapshot is not positive.
+     */
+    public CheckpointWriter(Path directory, int recordsPerSnapshot) throws IOException {
+        if (recordsPerSnapshot <= 0) {
+            throw new IllegalArgumentException("Must be set to positive value");
+        }
+        this.directory = Files.createDirectories(directory);
+        this.recordsPerSnapshot = recordsPerSnapshot;
+
+        for (int i = 0; i < BUFFERS; i++) {
+            free.add(new Entry());
+        }
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Copies board to be written in the background, unless both buffers are still being written.
+     *
+     * @param board      board to write
+     * @param generation generation of board
+     * @param rule       rule the board is simulated with
+     * @return true if board will be written, false if it was skipped or the writer is closed
+     * @throws IOException when writing a previous checkpoint failed.
+     */
+    public boolean offer(BitBoard board, long generation, Rule rule) throws IOException {
+        checkError();
+        Entry entry = free.poll();
+        if (entry == null) {
+            skippedGenerations++;
+            return false;
+        }
+        return submit(entry, board, generation, rule);
+    }
+
+    /**
+     * Copies board to be written in the background, waiting for a buffer if needed.
+     *
+     * @param board      board to write
+     * @param generation generation of board
+     * @param rule       rule the board is simulated with
+     * @throws IOException          when writing a previous checkpoint failed or the writer is closed.
+     * @throws InterruptedException when interrupted while waiting.
+     */
+    public void put(BitBoard board, long generation, Rule rule) throws IOException, InterruptedException {
+        checkError();
+        if (!submit(free.take(), board, generation, rule)) {
+            throw new IOException("Checkpoint writer is closed");
+        }
+    }
+
+    public long getWrittenGenerations() {
+        return writtenGenerations;
+    }
+
+    public long getSkippedGenerations() {
+        return skippedGenerations;
+    }
+
+    /**
+     * Waits for queued boards to be written, then closes the current checkpoint file.
+     *
+     * @throws IOException when writing or closing failed.
+     */
+    @Override
+    public void close() throws IOException {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+        checkError();
+    }
+
+    private void checkError() throws IOException {
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Copies board into entry and queues it for writing.
+     *
+     * @return false if the writer is closed
+     */
+    private boolean submit(Entry entry, BitBoard board, long generation, Rule rule) {
+        if (executor.isShutdown()) {
+            free.add(entry);
+            return false;
+        }
+        int wordsPerRow = board.getWordsPerRow();
+        int length = board.getRows() * wordsPerRow;
+        if (entry.words.length != length) {
+            entry.words = new long[length];
+        }
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int word = 0; word < wordsPerRow; word++) {
+                entry.words[row * wordsPerRow + word] = board.getWord(row, word);
+            }
+        }
+        entry.rows = board.getRows();
+        entry.columns = board.getColumns();
+        entry.generation = generation;
+        entry.rule = rule;
+
+        try {
+            executor.execute(() -> {
+                try {
+                    write(entry);
+                } catch (IOException e) {
+                    error = e;
+                } finally {
+                    free.add(entry);
+                }
+            });
+        } catch (RejectedExecutionException e) { //Closed while copying
+            free.add(entry);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Writes entry as a snapshot starting a new checkpoint file, or as a journal record.
+     *
+     * @param entry copied board
+     */
+    private void write(Entry entry) throws IOException {
+        if (error != null) {
+            return;
+        }
+        if (out == null || records >= recordsPerSnapshot
+                || entry.rows != rows || entry.columns != columns || !entry.rule.equals(rule)) {
+            writeSnapshot(entry);
+        } else {
+            writeRecord(entry);
+        }
+        out.flush(); //Completes deflate block, so the record can be restored after a crash
+
+        long[] swap = previous;
+        previous = entry.words;
+        entry.words = swap != null ? swap : new long[0];
+        writtenGenerations++;
+    }
+
+    /**
+     * Starts a new checkpoint file with a snapshot of entry and deletes old checkpoint files.
+     *
+     * @param entry copied board
+     */
+    private void writeSnapshot(Entry entry) throws IOException {
+        if (out != null) {
+            out.close();
+        }
+        Path file = directory.resolve(fileName(entry.generation));
+        OutputStream fileOut = new BufferedOutputStream(Files.newOutputStream(file));
+        DataOutputStream header = new DataOutputStream(fileOut);
+        header.writeInt(MAGIC);
+        header.writeInt(VERSION);
+        header.writeInt(entry.rows);
+        header.writeInt(entry.columns);
+        header.writeUTF(entry.rule.toString());
+
+        out = new DataOutputStream(new BufferedOutputStream(new DeflaterOutputStream(fileOut, true)));
+        out.writeLong(entry.generation);
+        for (long word : entry.words) {
+            out.writeLong(word);
+        }
+
+        rows = entry.rows;
+        columns = entry.columns;
+        rule = entry.rule;
+        records = 0;
+        deleteOldFiles();
+    }
+
+    /**
+     * Appends journal record of the words changed since the previous board written.
+     * Positions are written as variable length differences to the previous changed word.
+     *
+     * @param entry copied board
+     */
+    private void writeRecord(Entry entry) throws IOException {
+        int changed = 0;
+        for (int i = 0; i < entry.words.length; i++) {
+            if (entry.words[i] != previous[i]) changed++;
+        }
+
+        out.writeLong(entry.generation);
+        writeVarInt(changed);
+        int last = 0;
+        for (int i = 0; i < entry.words.length; i++) {
+            long diff = entry.words[i] ^ previous[i];
+            if (diff != 0) {
+                writeVarInt(i - last);
+                out.writeLong(diff);
+                last = i;
+            }
+        }
+        records++;
+    }
+
+    private void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Deletes all but the latest KEPT_FILES checkpoint files.
+     */
+    private void deleteOldFiles() throws IOException {
+        List<Path> files = listFiles(directory);
+        for (int i = 0; i < files.size() - KEPT_FILES; i++) {
+            Files.deleteIfExists(files.get(i));
+        }
+    }
+
+    /**
+     * Lists checkpoint files of a directory, oldest first.
+     *
+     * @param directory directory of checkpoint files
+     * @return checkpoint files sorted by generation
+     * @throws IOException when directory can not be read.
+     */
+    static List<Path> listFiles(Path directory) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files); //Generations are zero-padded, so names sort by generation
+        return files;
+    }
+
+    static String fileName(long generation) {
+        return String.format("%s%019d%s", FILE_PREFIX, generation, FILE_SUFFIX);
+    }
+
+    /**
+     * Board copied for writing.
+     */
+    private static final class Entry {
+        private long[] words = new long[0];
+        private int rows;
+        private int columns;
+        private long generation;
+        private Rule rule;
+    }
+}
@@ -0,0 +1,132 @@
+package com.larssont.gameoflife.core;
+
+/**
+ * Detects extinction, still lifes and oscillating boards from the hashes of consecutive generations.
+ * A bounded ring of recent hashes is kept, so cycles are found once a hash repeats within
+ * the maximum period, at a cost per generation independent of the board size.
+ */
+public class CycleDetector {
+
+    private final long[] hashes; //Ring of recent hashes
+    private final long[] generations; //Generation of each hash in ring
+    private int size; //Hashes in ring
+    private int newest = -1; //Ring index of newest hash
+
+    /**
+     * Creates a detector of cycles up to a maximum period.
+     *
+     * @param maxPeriod longest period to detect
+     * @throws IllegalArgumentException when maxPeriod is not positive.
+     */
+    public CycleDetector(int maxPeriod) {
+        if (maxPeriod <= 0) {
+            throw new IllegalArgumentException("Must be set to positive value");
+        }
+        hashes = new long[maxPeriod];
+        generations = new long[maxPeriod];
+    }
+
+    public int getMaxPeriod() {
+        return hashes.length;
+    }
+
+    /**
+     * Adds hash of the next generation and checks whether it repeats a recent generation.
+     * Generations must be added consecutively, call {@link #reset()} after editing the board.
+     *
+     * @param generation generation of board
+     * @param hash       hash of board, 0 for an empty board as given by {@link BitBoard#getHash()}
+     * @return cycle the board has entered, or null if none was found
+     */
+    public Cycle add(long generation, long hash) {
+        Cycle cycle = null;
+        for (int i = 0; i < size && cycle == null; i++) { //Newest first, so the shortest period is found
+            int index = Math.floorMod(newest - i, hashes.length);
+            if (hashes[index] == hash) {
+                cycle = new Cycle(generation - generations[index], generations[index], generation, hash == 0);
+            }
+        }
+
+        newest = (newest + 1) % hashes.length;
+        hashes[newest] = hash;
+        generations[newest] = generation;
+        size = Math.min(size + 1, hashes.length);
+        return cycle;
+    }
+
+    /**
+     * Returns true if no hash has been added since creation or the last reset.
+     *
+     * @return true if empty, otherwise false
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Forgets all hashes, e.g. after the board was edited.
+     */
+    public void reset() {
+        size = 0;
+        newest = -1;
+    }
+
+    /**
+     * Represents a detected cycle.
+     */
+    public static final class Cycle {
+
+        private final long period;
+        private final long startGeneration;
+        private final long detectedGeneration;
+        private final boolean extinct;
+
+        private Cycle(long period, long startGeneration, long detectedGeneration, boolean extinct) {
+            this.period = period;
+            this.startGeneration = startGeneration;
+            this.detectedGeneration = detectedGeneration;
+            this.extinct = extinct;
+        }
+
+        /**
+         * Returns number of generations after which the board repeats.
+         *
+         * @return period, 1 for still lifes and extinct boards
+         */
+        public long getPeriod() {
+            return period;
+        }
+
+        /**
+         * Returns first generation of the cycle, the generation repeated by the detected generation.
+         *
+         * @return first generation of cycle
+         */
+        public long getStartGeneration() {
+            return startGeneration;
+        }
+
+        public long getDetectedGeneration() {
+            return detectedGeneration;
+        }
+
+        public boolean isExtinct() {
+            return extinct;
+        }
+
+        public boolean isStillLife() {
+            return period == 1 && !extinct;
+        }
+
+        @Override
+        public String toString() {
+            if (isExtinct()) {
+                return "extinct since generation " + startGeneration;
+            }
+            if (isStillLife()) {
+                return "still life since generation " + startGeneration;
+            }
+            return "period " + period + " since generation " + startGeneration;
+        }
+    }
+}
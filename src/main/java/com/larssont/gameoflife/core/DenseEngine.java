@@ -0,0 +1,369 @@
+package com.larssont.gameoflife.core;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongConsumer;
+
+/**
+ * Engine storing a rectangle of the plane as a packed board, 64 cells per word.
+ * The board grows as cells approach its edges, see {@link Topology#INFINITE}, and when cells are set outside of it.
+ * Steps cost time proportional to the area of the board rather than to the population,
+ * so dense patterns step much faster than on a {@link SparseBoard}, while sparse ones waste memory and time.
+ * Boards never shrink, so spaceships leave an ever larger board behind.
+ * <p>
+ * An engine can also simulate a bounded board in place. The board keeps its size, its topology decides its edges,
+ * and its rows and columns are those of the plane.
+ * <p>
+ * The board hashes alive cells by their position on the plane from the words each step changes,
+ * so the hash costs time per birth and death rather than per cell of the board.
+ */
+public class DenseEngine implements Engine {
+
+    static final int MARGIN = 32; //Dead cells kept around alive cells when the board is created or grows
+    private static final int INITIAL_SIZE = 64;
+
+    private final boolean bounded; //Board keeps its size, cells beyond it are dead
+    private BitBoard board;
+    private long top; //Row of the plane at row 0 of board
+    private long left; //Column of the plane at column 0 of board
+
+    /**
+     * Creates an empty engine.
+     */
+    public DenseEngine() {
+        bounded = false;
+        clear();
+    }
+
+    /**
+     * Creates an engine simulating a bounded board in place, with cells at rows and columns from 0.
+     * Cells beyond the edges of the board are dead, or wrap around according to the topology of the board.
+     *
+     * @param board board to simulate
+     * @throws IllegalArgumentException when the topology of the board is infinite.
+     */
+    public DenseEngine(BitBoard board) {
+        if (board.getTopology() == Topology.INFINITE) {
+            throw new IllegalArgumentException("Bounded boards must not have an infinite topology");
+        }
+        bounded = true;
+        this.board = board;
+        board.hashCells(0, 0);
+    }
+
+    /**
+     * Creates an empty engine with a board covering given bounds, so cells within them are set without growing.
+     *
+     * @param bounds top, left, bottom and right position, inclusive
+     * @throws IllegalArgumentException when bounds span too many cells for a packed board.
+     */
+    public DenseEngine(long[] bounds) {
+        bounded = false;
+        allocate(bounds[0] - MARGIN, bounds[1] - MARGIN, bounds[2] + MARGIN, bounds[3] + MARGIN);
+    }
+
+    @Override
+    public boolean isAlive(long row, long column) {
+        long r = row - top;
+        long c = column - left;
+        return r >= 0 && r < board.getRows() && c >= 0 && c < board.getColumns() && board.isAlive((int) r, (int) c);
+    }
+
+    @Override
+    public void setAlive(long row, long column, boolean alive) {
+        if (row < SparseBoard.MIN_COORDINATE || row > SparseBoard.MAX_COORDINATE
+                || column < SparseBoard.MIN_COORDINATE || column > SparseBoard.MAX_COORDINATE) {
+            throw new IndexOutOfBoundsException("Position outside of plane: " + row + ", " + column);
+        }
+        if (!contains(row, column)) {
+            if (!alive) return;
+            if (bounded) {
+                throw new IndexOutOfBoundsException("Position outside of board: " + row + ", " + column);
+            }
+            include(row, column, row, column);
+        }
+        board.setAlive((int) (row - top), (int) (column - left), alive);
+    }
+
+    @Override
+    public void step(Rule rule) {
+        step(rule, null);
+    }
+
+    /**
+     * Advances plane one generation, computing bands of rows in parallel on a pool,
+     * see {@link BitBoard#step(Rule, ForkJoinPool)}.
+     *
+     * @param rule rule to apply
+     * @param pool pool to run bands on, null to step sequentially
+     * @throws IllegalArgumentException when rule gives birth to cells without neighbours on an unbounded plane.
+     */
+    @Override
+    public void step(Rule rule, ForkJoinPool pool) {
+        if (!bounded && rule.next(false, 0)) {
+            throw new IllegalArgumentException("Rules giving birth without neighbours can not be used on an unbounded plane");
+        }
+        long originRow = board.getOriginRow();
+        long originColumn = board.getOriginColumn();
+        if (pool == null) {
+            board.step(rule);
+        } else {
+            board.step(rule, pool);
+        }
+        top -= board.getOriginRow() - originRow; //Board grew upwards or to the left
+        left -= board.getOriginColumn() - originColumn;
+    }
+
+    @Override
+    public long population() {
+        return board.population();
+    }
+
+    @Override
+    public long[] getBounds() {
+        int[] bounds = boundsOf(board);
+        return bounds == null ? null : new long[]{top + bounds[0], left + bounds[1], top + bounds[2], left + bounds[3]};
+    }
+
+    /**
+     * Returns number of cells the board spans, which steps take time in proportion to.
+     *
+     * @return rows times columns of board
+     */
+    public long getArea() {
+        return (long) board.getRows() * board.getColumns();
+    }
+
+    @Override
+    public void clear() {
+        if (bounded) {
+            board.clear();
+            return;
+        }
+        allocate(-INITIAL_SIZE / 2, -INITIAL_SIZE / 2, INITIAL_SIZE / 2 - 1, INITIAL_SIZE / 2 - 1);
+    }
+
+    /**
+     * Returns Zobrist hash of the alive cells, kept by the board from their positions on the plane like that of a
+     * {@link SparseBoard}, so hashes stay equal when the board grows or the plane changes representation.
+     *
+     * @return hash of plane
+     */
+    @Override
+    public long getHash() {
+        return board.getCellHash();
+    }
+
+    /**
+     * Returns the simulated board when bounded.
+     *
+     * @return board, or null if the engine simulates an unbounded plane
+     */
+    @Override
+    public BitBoard getBoard() {
+        return bounded ? board : null;
+    }
+
+    @Override
+    public long getLastBirths() {
+        return board.getLastBirths();
+    }
+
+    @Override
+    public long getLastDeaths() {
+        return board.getLastDeaths();
+    }
+
+    /**
+     * Replaces region of the plane with the alive state of a packed board, 64 cells at a time.
+     * The board grows to include alive cells of the region, unless bounded, in which case
+     * cells of the region beyond its edges are ignored.
+     *
+     * @param view packed board to copy from
+     * @param top  top row of region
+     * @param left left column of region
+     */
+    @Override
+    public void load(BitBoard view, long top, long left) {
+        int[] bounds = boundsOf(view);
+        if (bounds != null && !bounded) {
+            include(top + bounds[0], left + bounds[1], top + bounds[2], left + bounds[3]);
+        }
+        for (int row = 0; row < view.getRows(); row++) {
+            long target = top + row - this.top;
+            if (target < 0 || target >= board.getRows()) continue;
+            for (int w = 0; w < board.getWordsPerRow(); w++) {
+                long column = this.left - left + ((long) w << 6); //Column of view at bit 0 of word
+                long mask = mask(-column, view.getColumns() - column);
+                if (mask == 0) continue;
+                long word = board.getWord((int) target, w);
+                long value = (word & ~mask) | (bits(view, row, column) & mask);
+                if (value != word) board.setWord((int) target, w, value);
+            }
+        }
+    }
+
+    /**
+     * Copies region of the plane to a packed board, at once when the region is exactly the board,
+     * as when publishing a bounded board, otherwise 64 cells at a time. Only words that differ are written,
+     * so a view tracking changes only marks changed tiles.
+     *
+     * @param view packed board to copy to
+     * @param top  top row of region
+     * @param left left column of region
+     */
+    @Override
+    public void copyTo(BitBoard view, long top, long left) {
+        if (top == this.top && left == this.left
+                && view.getRows() == board.getRows() && view.getColumns() == board.getColumns()) {
+            board.copyTo(view);
+            return;
+        }
+        long lastWordMask = -1L >>> (view.getWordsPerRow() * 64 - view.getColumns());
+        for (int row = 0; row < view.getRows(); row++) {
+            long source = top + row - this.top;
+            boolean inside = source >= 0 && source < board.getRows();
+            for (int w = 0; w < view.getWordsPerRow(); w++) {
+                long bits = inside ? bits(board, (int) source, left - this.left + ((long) w << 6)) : 0;
+                if (w == view.getWordsPerRow() - 1) bits &= lastWordMask;
+                if (bits != view.getWord(row, w)) view.setWord(row, w, bits);
+            }
+        }
+    }
+
+    @Override
+    public void forEachAlive(LongConsumer action) {
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int w = 0; w < board.getWordsPerRow(); w++) {
+                long word = board.getWord(row, w);
+                while (word != 0) {
+                    action.accept(SparseBoard.pack(top + row, left + (w << 6) + Long.numberOfTrailingZeros(word)));
+                    word &= word - 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns true if position lies on the board.
+     *
+     * @param row    row position
+     * @param column column position
+     * @return true if position is on the board, otherwise false
+     */
+    private boolean contains(long row, long column) {
+        return row >= top && row < top + board.getRows() && column >= left && column < left + board.getColumns();
+    }
+
+    /**
+     * Grows board to include a rectangle and a margin around it, keeping its alive cells.
+     * An empty board is replaced by one around the rectangle only.
+     *
+     * @param fromRow    top row of rectangle
+     * @param fromColumn left column of rectangle
+     * @param toRow      bottom row of rectangle, inclusive
+     * @param toColumn   right column of rectangle, inclusive
+     */
+    private void include(long fromRow, long fromColumn, long toRow, long toColumn) {
+        if (contains(fromRow, fromColumn) && contains(toRow, toColumn)) {
+            return;
+        }
+        BitBoard old = board;
+        long oldTop = top;
+        long oldLeft = left;
+        if (old.population() == 0) {
+            allocate(fromRow - MARGIN, fromColumn - MARGIN, toRow + MARGIN, toColumn + MARGIN);
+            return;
+        }
+        allocate(Math.min(oldTop, fromRow - MARGIN), Math.min(oldLeft, fromColumn - MARGIN),
+                Math.max(oldTop + old.getRows() - 1, toRow + MARGIN), Math.max(oldLeft + old.getColumns() - 1, toColumn + MARGIN));
+
+        int rowOffset = (int) (oldTop - top);
+        for (int row = 0; row < old.getRows(); row++) {
+            for (int w = 0; w < board.getWordsPerRow(); w++) {
+                long bits = bits(old, row, left - oldLeft + ((long) w << 6));
+                if (bits != 0) board.setWord(row + rowOffset, w, bits);
+            }
+        }
+    }
+
+    /**
+     * Replaces board with an empty one covering a rectangle.
+     *
+     * @param fromRow    top row of rectangle
+     * @param fromColumn left column of rectangle
+     * @param toRow      bottom row of rectangle, inclusive
+     * @param toColumn   right column of rectangle, inclusive
+     * @throws IllegalArgumentException when rectangle spans too many cells for a packed board.
+     */
+    private void allocate(long fromRow, long fromColumn, long toRow, long toColumn) {
+        long rows = toRow - fromRow + 1;
+        long columns = toColumn - fromColumn + 1;
+        if ((rows + 2) * ((columns + 63) / 64 + 2) > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Area spans too many cells for a dense engine: " + rows + "x" + columns);
+        }
+        board = new BitBoard((int) rows, (int) columns);
+        board.setTopology(Topology.INFINITE);
+        board.hashCells(fromRow, fromColumn);
+        top = fromRow;
+        left = fromColumn;
+    }
+
+    /**
+     * Returns 64 cells of a row of a board starting at any column, cells outside of the board being dead.
+     *
+     * @param board  board to read
+     * @param row    row position, on the board
+     * @param column first column, possibly outside of the board
+     * @return packed alive state, bit i holding the cell of column + i
+     */
+    private static long bits(BitBoard board, int row, long column) {
+        long word = Math.floorDiv(column, 64);
+        int shift = Math.floorMod(column, 64);
+        long bits = word(board, row, word) >>> shift;
+        return shift == 0 ? bits : bits | word(board, row, word + 1) << (64 - shift);
+    }
+
+    /**
+     * Returns mask of the bits of a word from one bit to another, both clamped to the word.
+     *
+     * @param from first bit, inclusive
+     * @param to   last bit, exclusive
+     * @return mask, 0 if no bit lies within both
+     */
+    private static long mask(long from, long to) {
+        from = Math.max(from, 0);
+        to = Math.min(to, 64);
+        if (from >= to) {
+            return 0;
+        }
+        return (to == 64 ? -1L : (1L << to) - 1) & (-1L << from);
+    }
+
+    private static long word(BitBoard board, int row, long word) {
+        return word >= 0 && word < board.getWordsPerRow() ? board.getWord(row, (int) word) : 0;
+    }
+
+    /**
+     * Finds smallest rectangle of a board containing all alive cells.
+     *
+     * @param board board to search
+     * @return top, left, bottom and right position on the board, inclusive, or null if no cell is alive
+     */
+    static int[] boundsOf(BitBoard board) {
+        if (board.population() == 0) {
+            return null;
+        }
+        int[] bounds = {Integer.MAX_VALUE, Integer.MAX_VALUE, -1, -1};
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int w = 0; w < board.getWordsPerRow(); w++) {
+                long word = board.getWord(row, w);
+                if (word == 0) continue;
+                bounds[0] = Math.min(bounds[0], row);
+                bounds[1] = Math.min(bounds[1], (w << 6) + Long.numberOfTrailingZeros(word));
+                bounds[2] = row;
+                bounds[3] = Math.max(bounds[3], (w << 6) + 63 - Long.numberOfLeadingZeros(word));
+            }
+        }
+        return bounds;
+    }
+}
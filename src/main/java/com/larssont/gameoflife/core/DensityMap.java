@@ -0,0 +1,139 @@
+package com.larssont.gameoflife.core;
+
+/**
+ * Represents a pyramid of population counts of a board, for showing boards far larger than the screen.
+ * Level 0 holds the population of every tile of the board, as kept by {@link BitBoard},
+ * and every level above holds the sum of two by two blocks of the level below,
+ * so the population of a block of 2^level by 2^level tiles is read in constant time.
+ * <p>
+ * Updating compares tile populations with those of the last update, and only tiles
+ * that changed add their difference to the blocks above them. When the changed tiles are known,
+ * as for frames of a {@link Simulation}, only those tiles are compared.
+ */
+public class DensityMap {
+
+    private int tileRows;
+    private int tileColumns;
+    private long[][] levels = new long[0][]; //Population of blocks per level, level 0 holding tiles
+
+    /**
+     * Updates population counts to those of a board. Counts are rebuilt if the board differs in size
+     * from the last update, otherwise only changed tiles are propagated.
+     *
+     * @param board board to count
+     */
+    public void update(BitBoard board) {
+        if (board.getTileRows() != tileRows || board.getWordsPerRow() != tileColumns || levels.length == 0) {
+            allocate(board.getTileRows(), board.getWordsPerRow());
+        }
+
+        for (int tileRow = 0; tileRow < tileRows; tileRow++) {
+            for (int tileColumn = 0; tileColumn < tileColumns; tileColumn++) {
+                updateTile(board, tileRow, tileColumn);
+            }
+        }
+    }
+
+    /**
+     * Updates population count of a single tile of a board, for boards whose changed tiles are known.
+     * Counts are rebuilt from every tile if the board differs in size from the last update.
+     *
+     * @param board board to count
+     * @param tile  index of tile, its row of tiles times words per row plus its word
+     */
+    public void update(BitBoard board, int tile) {
+        if (board.getTileRows() != tileRows || board.getWordsPerRow() != tileColumns || levels.length == 0) {
+            update(board);
+            return;
+        }
+        updateTile(board, tile / tileColumns, tile % tileColumns);
+    }
+
+    /**
+     * Adds the change of population of a tile since the last update to every block above it.
+     *
+     * @param board      board to count
+     * @param tileRow    row of tile
+     * @param tileColumn column of tile
+     */
+    private void updateTile(BitBoard board, int tileRow, int tileColumn) {
+        long delta = board.getTilePopulation(tileRow, tileColumn) - levels[0][tileRow * tileColumns + tileColumn];
+        if (delta == 0) {
+            return;
+        }
+        for (int level = 0; level < levels.length; level++) {
+            levels[level][(tileRow >> level) * columns(level) + (tileColumn >> level)] += delta;
+        }
+    }
+
+    /**
+     * Allocates empty levels for a board of given size in tiles, up to a single block covering all tiles.
+     *
+     * @param tileRows    number of rows of tiles
+     * @param tileColumns number of columns of tiles
+     */
+    private void allocate(int tileRows, int tileColumns) {
+        this.tileRows = tileRows;
+        this.tileColumns = tileColumns;
+
+        int count = 1;
+        while ((tileRows - 1) >> (count - 1) > 0 || (tileColumns - 1) >> (count - 1) > 0) {
+            count++;
+        }
+        levels = new long[count][];
+        for (int level = 0; level < count; level++) {
+            levels[level] = new long[rows(level) * columns(level)];
+        }
+    }
+
+    /**
+     * Returns number of levels, the highest holding a single block covering all tiles.
+     *
+     * @return number of levels
+     */
+    public int getLevels() {
+        return levels.length;
+    }
+
+    /**
+     * Returns number of rows of blocks at a level.
+     *
+     * @param level level, 0 for tiles
+     * @return number of rows of blocks
+     */
+    public int rows(int level) {
+        return ((tileRows - 1) >> level) + 1;
+    }
+
+    /**
+     * Returns number of columns of blocks at a level.
+     *
+     * @param level level, 0 for tiles
+     * @return number of columns of blocks
+     */
+    public int columns(int level) {
+        return ((tileColumns - 1) >> level) + 1;
+    }
+
+    /**
+     * Returns number of alive cells within a block of 2^level by 2^level tiles, as of the last update.
+     * Levels above the highest hold the population of the whole board in block 0.
+     *
+     * @param level  level, 0 for tiles
+     * @param row    row position of block
+     * @param column column position of block
+     * @return number of alive cells in block, 0 if block lies outside of board
+     */
+    public long getPopulation(int level, long row, long column) {
+        if (levels.length == 0) {
+            return 0;
+        }
+        if (level >= levels.length) {
+            return row == 0 && column == 0 ? levels[levels.length - 1][0] : 0;
+        }
+        if (row < 0 || row >= rows(level) || column < 0 || column >= columns(level)) {
+            return 0;
+        }
+        return levels[level][(int) row * columns(level) + (int) column];
+    }
+}
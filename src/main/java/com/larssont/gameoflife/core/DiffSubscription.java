@@ -0,0 +1,122 @@
+package com.larssont.gameoflife.core;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Represents a subscription to the changes of a simulation, delivered as one {@link BoardDiff}
+ * per generation or batch of edits through a bounded queue.
+ * <p>
+ * The first diff lists the whole board. When the queue is full, a subscriber that falls behind
+ * either has new diffs merged into the newest queued one, skipping the generations in between
+ * without slowing the simulation, or blocks the simulation until it catches up.
+ */
+public class DiffSubscription implements AutoCloseable {
+
+    private final Simulation simulation;
+    private final int capacity;
+    private final boolean blocking; //True to wait for room instead of merging when full
+    private final ArrayDeque<BoardDiff> queue = new ArrayDeque<>();
+    private long mergedDiffs; //Diffs merged into a queued diff because the queue was full
+    private boolean closed;
+
+    /**
+     * Creates a subscription to a simulation.
+     *
+     * @param simulation simulation publishing diffs
+     * @param capacity   number of diffs queued at most
+     * @param blocking   true to block the simulation while the queue is full, false to merge diffs
+     * @throws IllegalArgumentException when capacity is not positive.
+     */
+    DiffSubscription(Simulation simulation, int capacity, boolean blocking) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Must be set to positive value");
+        }
+        this.simulation = simulation;
+        this.capacity = capacity;
+        this.blocking = blocking;
+    }
+
+    /**
+     * Queues a copy of a diff, merging it into the newest queued diff or waiting for room when full.
+     * Waiting ends when the subscription is closed or the waiting thread interrupted.
+     *
+     * @param diff diff to queue
+     */
+    synchronized void offer(BoardDiff diff) {
+        try {
+            while (blocking && !closed && queue.size() >= capacity) {
+                wait();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (closed) {
+            return;
+        }
+        if (queue.size() < capacity) {
+            queue.add(new BoardDiff(diff));
+        } else {
+            queue.peekLast().merge(diff);
+            mergedDiffs++;
+        }
+        notifyAll();
+    }
+
+    /**
+     * Takes the oldest queued diff.
+     *
+     * @return oldest diff, or null if none is queued
+     */
+    public synchronized BoardDiff poll() {
+        BoardDiff diff = queue.poll();
+        notifyAll();
+        return diff;
+    }
+
+    /**
+     * Takes the oldest queued diff, waiting until one is queued.
+     *
+     * @param timeout time to wait at most
+     * @param unit    unit of timeout
+     * @return oldest diff, or null if none was queued in time
+     * @throws InterruptedException when interrupted while waiting.
+     */
+    public synchronized BoardDiff poll(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (queue.isEmpty() && !closed) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return poll();
+    }
+
+    /**
+     * Returns number of diffs merged into queued diffs because the subscriber fell behind.
+     *
+     * @return number of merged diffs
+     */
+    public synchronized long getMergedDiffs() {
+        return mergedDiffs;
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Ends subscription. Queued diffs can still be taken, and a blocked simulation continues.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        simulation.unsubscribe(this);
+    }
+}
@@ -0,0 +1,167 @@
+package com.larssont.gameoflife.core;
+
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongConsumer;
+
+/**
+ * Represents a backend simulating cells on an effectively unbounded plane.
+ * Rows and columns range from {@link SparseBoard#MIN_COORDINATE} to {@link SparseBoard#MAX_COORDINATE}
+ * and positions are packed with {@link SparseBoard#pack(long, long)}, whatever the representation.
+ * Engines are chosen by name at startup with {@link #create(String)}.
+ * <p>
+ * Bounded boards are simulated by a {@link DenseEngine} too, its plane being the board,
+ * see {@link #getBoard()}, so every board is stepped, hashed and drawn through the same interface.
+ */
+public interface Engine {
+
+    /**
+     * Creates an empty engine by name.
+     *
+     * @param name sparse, dense or adaptive
+     * @return created engine
+     * @throws IllegalArgumentException when name is unknown.
+     */
+    static Engine create(String name) {
+        switch (name.trim().toLowerCase(Locale.ROOT)) {
+            case "sparse":
+                return new SparseBoard();
+            case "dense":
+                return new DenseEngine();
+            case "adaptive":
+                return new AdaptiveEngine();
+            default:
+                throw new IllegalArgumentException("Engine must be sparse, dense or adaptive: " + name);
+        }
+    }
+
+    /**
+     * Returns alive state of cell at given position.
+     *
+     * @param row    row position of cell
+     * @param column column position of cell
+     * @return true if cell is alive, otherwise false
+     */
+    boolean isAlive(long row, long column);
+
+    /**
+     * Sets alive state of cell at given position.
+     *
+     * @param row    row position of cell
+     * @param column column position of cell
+     * @param alive  new alive state
+     * @throws IndexOutOfBoundsException when position is outside of coordinate range.
+     */
+    void setAlive(long row, long column, boolean alive);
+
+    /**
+     * Advances plane one generation.
+     *
+     * @param rule rule to apply
+     * @throws IllegalArgumentException when rule gives birth to cells without neighbours,
+     *                                  which would fill the plane.
+     */
+    void step(Rule rule);
+
+    /**
+     * Advances plane one generation, on a pool when the engine computes parts of the plane in parallel.
+     * Engines that do not, step sequentially.
+     *
+     * @param rule rule to apply
+     * @param pool pool to run parallel work on
+     * @throws IllegalArgumentException when rule gives birth to cells without neighbours,
+     *                                  which would fill the plane.
+     */
+    default void step(Rule rule, ForkJoinPool pool) {
+        step(rule);
+    }
+
+    /**
+     * Returns number of alive cells.
+     *
+     * @return number of alive cells
+     */
+    long population();
+
+    /**
+     * Returns smallest rectangle containing all alive cells.
+     *
+     * @return top, left, bottom and right position, inclusive, or null if no cell is alive
+     */
+    long[] getBounds();
+
+    /**
+     * Sets all cells dead.
+     */
+    void clear();
+
+    /**
+     * Returns Zobrist hash of the alive cells, the XOR of a key per alive cell derived from its packed position.
+     * Equal alive cells have equal hashes, whatever the engine.
+     *
+     * @return hash of plane
+     */
+    long getHash();
+
+    /**
+     * Returns the board simulated by a bounded engine, which keeps its size.
+     * Features replaying or storing whole boards, such as history, checkpoints and frame export, require one.
+     *
+     * @return board, or null if the plane is unbounded
+     */
+    default BitBoard getBoard() {
+        return null;
+    }
+
+    /**
+     * Returns number of cells born in the last step.
+     *
+     * @return number of births
+     */
+    long getLastBirths();
+
+    /**
+     * Returns number of cells that died in the last step.
+     *
+     * @return number of deaths
+     */
+    long getLastDeaths();
+
+    /**
+     * Replaces region of the plane with the alive state of a packed board. The region has the size of the board.
+     *
+     * @param board packed board to copy from
+     * @param top   top row of region
+     * @param left  left column of region
+     */
+    void load(BitBoard board, long top, long left);
+
+    /**
+     * Copies region of the plane to a packed board. The region has the size of the board,
+     * so moving it pans a view over the plane.
+     *
+     * @param board packed board to copy to
+     * @param top   top row of region
+     * @param left  left column of region
+     */
+    void copyTo(BitBoard board, long top, long left);
+
+    /**
+     * Passes the packed position of every alive cell to an action, in no particular order.
+     *
+     * @param action action accepting packed positions
+     */
+    void forEachAlive(LongConsumer action);
+
+    /**
+     * Creates a copy of the alive cells, independent of the engine and its representation,
+     * so it stays unchanged while the engine steps.
+     *
+     * @return copied plane
+     */
+    default Engine snapshot() {
+        SparseBoard snapshot = new SparseBoard();
+        forEachAlive(position -> snapshot.setAlive(SparseBoard.row(position), SparseBoard.column(position), true));
+        return snapshot;
+    }
+}
@@ -0,0 +1,245 @@
+package com.larssont.gameoflife.core;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects metrics of the engine: tick latencies, generation, birth and death counters,
+ * evaluated and skipped tiles of packed boards, population and render time. Counters are striped and histograms lock-free, so recording
+ * costs a few atomic additions per tick and metrics can stay on in production.
+ * <p>
+ * Metrics are exposed through JMX once registered, and every tick and render is also
+ * emitted as a {@link TickEvent} or {@link RenderEvent} while a flight recording is enabled.
+ */
+public class EngineMetrics implements EngineMetricsMXBean {
+
+    static final String DOMAIN = "com.larssont.gameoflife";
+
+    private final LongAdder generations = new LongAdder();
+    private final LongAdder births = new LongAdder();
+    private final LongAdder deaths = new LongAdder();
+    private final LongAdder evaluatedTiles = new LongAdder();
+    private final LongAdder skippedTiles = new LongAdder();
+    private final LatencyHistogram ticks = new LatencyHistogram();
+    private final LatencyHistogram renders = new LatencyHistogram();
+
+    private volatile long population;
+    private volatile long lastBirths;
+    private volatile long lastDeaths;
+
+    private ObjectName objectName; //Name registered with, null if not registered
+
+    /**
+     * Records a generation step and commits its flight recorder event, if enabled.
+     * The event must have been begun before and ended after the step.
+     *
+     * @param event      event of the step, null if flight recording is off
+     * @param nanos      latency of the step in nanoseconds
+     * @param births     cells born in the step
+     * @param deaths     cells died in the step
+     * @param population alive cells after the step
+     */
+    public void recordTick(TickEvent event, long nanos, long births, long deaths, long population) {
+        recordTicks(event, nanos, 1, births, deaths, population);
+    }
+
+    /**
+     * Records steps of several generations computed together, each with the mean latency,
+     * and commits their flight recorder event, if enabled.
+     * The event must have been begun before and ended after the steps.
+     *
+     * @param event      event of the steps, null if flight recording is off
+     * @param nanos      latency of all steps in nanoseconds
+     * @param count      number of generations stepped
+     * @param births     cells born in all steps
+     * @param deaths     cells died in all steps
+     * @param population alive cells after the steps
+     */
+    public void recordTicks(TickEvent event, long nanos, int count, long births, long deaths, long population) {
+        if (count <= 0) {
+            return;
+        }
+        generations.add(count);
+        this.births.add(births);
+        this.deaths.add(deaths);
+        ticks.record(nanos / count, count);
+        this.population = population;
+        lastBirths = births;
+        lastDeaths = deaths;
+
+        if (event != null && event.shouldCommit()) {
+            event.generation = generations.sum();
+            event.generations = count;
+            event.births = births;
+            event.deaths = deaths;
+            event.population = population;
+            event.commit();
+        }
+    }
+
+    /**
+     * Records tiles of a packed board evaluated and skipped by the steps last recorded.
+     *
+     * @param evaluated tiles evaluated, summed over generations
+     * @param skipped   tiles skipped because they could not change, summed over generations
+     */
+    public void recordTiles(long evaluated, long skipped) {
+        evaluatedTiles.add(evaluated);
+        skippedTiles.add(skipped);
+    }
+
+    /**
+     * Records rendering of a frame and commits its flight recorder event, if enabled.
+     * The event must have been begun before and ended after rendering.
+     *
+     * @param event      event of the render, null if flight recording is off
+     * @param nanos      render time in nanoseconds
+     * @param generation generation rendered
+     */
+    public void recordRender(RenderEvent event, long nanos, long generation) {
+        renders.record(nanos);
+
+        if (event != null && event.shouldCommit()) {
+            event.generation = generation;
+            event.commit();
+        }
+    }
+
+    /**
+     * Registers metrics with the platform MBean server, replacing metrics registered under the same name.
+     *
+     * @param name name of the engine, e.g. the application or run it belongs to
+     * @throws IllegalStateException when registration fails.
+     */
+    public void register(String name) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            ObjectName objectName = new ObjectName(DOMAIN + ":type=EngineMetrics,name=" + ObjectName.quote(name));
+            try {
+                server.registerMBean(this, objectName);
+            } catch (InstanceAlreadyExistsException e) {
+                server.unregisterMBean(objectName);
+                server.registerMBean(this, objectName);
+            }
+            this.objectName = objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Could not register metrics " + name, e);
+        }
+    }
+
+    /**
+     * Unregisters metrics from the platform MBean server, if registered.
+     */
+    public void unregister() {
+        if (objectName == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (JMException e) {
+            //Already unregistered
+        }
+        objectName = null;
+    }
+
+    public LatencyHistogram getTickHistogram() {
+        return ticks;
+    }
+
+    public LatencyHistogram getRenderHistogram() {
+        return renders;
+    }
+
+    @Override
+    public long getGenerations() {
+        return generations.sum();
+    }
+
+    @Override
+    public long getBirths() {
+        return births.sum();
+    }
+
+    @Override
+    public long getDeaths() {
+        return deaths.sum();
+    }
+
+    @Override
+    public long getEvaluatedTiles() {
+        return evaluatedTiles.sum();
+    }
+
+    @Override
+    public long getSkippedTiles() {
+        return skippedTiles.sum();
+    }
+
+    @Override
+    public long getPopulation() {
+        return population;
+    }
+
+    @Override
+    public long getLastBirths() {
+        return lastBirths;
+    }
+
+    @Override
+    public long getLastDeaths() {
+        return lastDeaths;
+    }
+
+    @Override
+    public double getTickMeanNanos() {
+        return ticks.getMeanNanos();
+    }
+
+    @Override
+    public long getTickP50Nanos() {
+        return ticks.getPercentileNanos(50);
+    }
+
+    @Override
+    public long getTickP99Nanos() {
+        return ticks.getPercentileNanos(99);
+    }
+
+    @Override
+    public long getTickMaxNanos() {
+        return ticks.getMaxNanos();
+    }
+
+    @Override
+    public long getRenders() {
+        return renders.getCount();
+    }
+
+    @Override
+    public double getRenderMeanNanos() {
+        return renders.getMeanNanos();
+    }
+
+    @Override
+    public long getRenderP99Nanos() {
+        return renders.getPercentileNanos(99);
+    }
+
+    @Override
+    public void reset() {
+        generations.reset();
+        births.reset();
+        deaths.reset();
+        evaluatedTiles.reset();
+        skippedTiles.reset();
+        ticks.reset();
+        renders.reset();
+        population = 0;
+        lastBirths = 0;
+        lastDeaths = 0;
+    }
+}
@@ -0,0 +1,42 @@
+package com.larssont.gameoflife.core;
+
+/**
+ * Management interface of {@link EngineMetrics}, as exposed through JMX.
+ */
+public interface EngineMetricsMXBean {
+
+    long getGenerations();
+
+    long getBirths();
+
+    long getDeaths();
+
+    long getEvaluatedTiles();
+
+    long getSkippedTiles();
+
+    long getPopulation();
+
+    long getLastBirths();
+
+    long getLastDeaths();
+
+    double getTickMeanNanos();
+
+    long getTickP50Nanos();
+
+    long getTickP99Nanos();
+
+    long getTickMaxNanos();
+
+    long getRenders();
+
+    double getRenderMeanNanos();
+
+    long getRenderP99Nanos();
+
+    /**
+     * Resets all counters, histograms and gauges. Gauges are set again by the next tick.
+     */
+    void reset();
+}
@@ -0,0 +1,414 @@
+package com.larssont.gameoflife.core;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOInvalidTreeException;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.IndexColorModel;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Exports generations of a board as images on background threads, without a display.
+ * Generations are rendered from board state as two-color images, either written as a numbered
+ * sequence of PNG files, e.g. as frames for a video encoder, or appended to an animated GIF.
+ * <p>
+ * Boards are copied by the caller into one of a fixed number of buffers, which form a bounded queue
+ * to a pool of encoder threads. When all buffers are taken, the caller waits for one at most
+ * as long as it allows, then skips the generation, so exporting never slows the caller by more than that.
+ * PNG files are encoded in parallel. GIF frames are rendered in parallel and appended in order by one thread.
+ */
+public class FrameExporter implements Closeable {
+
+    static final String FILE_PREFIX = "frame-";
+    static final String FILE_SUFFIX = ".png";
+
+    private static final int DEAD_RGB = 0xF5F5F5; //Whitesmoke, as cells are shown on screen
+    private static final int ALIVE_RGB = 0x000000;
+    private static final int DEFAULT_FRAME_DELAY_MILLIS = 100;
+
+    /**
+     * Represents a format of exported frames.
+     */
+    public enum Format {
+        PNG, //Numbered PNG files in a directory
+        GIF; //Single animated GIF file
+
+        /**
+         * Returns format exported to a path: GIF for .gif files, otherwise PNG files in a directory.
+         *
+         * @param fileName name of file or directory
+         * @return format of export
+         */
+        public static Format fromFileName(String fileName) {
+            return fileName.toLowerCase(Locale.ROOT).endsWith(".gif") ? GIF : PNG;
+        }
+    }
+
+    private final Path target;
+    private final Format format;
+    private final int cellSize;
+    private final BlockingQueue<Entry> free;
+    private final ExecutorService encoders;
+    private final ExecutorService sequencer; //Appends GIF frames in order, null when writing PNG files
+    private CompletableFuture<Void> lastAppend = CompletableFuture.completedFuture(null); //Owned by caller
+    private int frameDelayMillis = DEFAULT_FRAME_DELAY_MILLIS;
+
+    private ImageWriter gifWriter; //Owned by sequencer thread
+    private ImageOutputStream gifOut;
+    private long frames; //Frames accepted, numbering PNG files, owned by caller
+
+    private volatile IOException error;
+    private volatile long writtenFrames;
+    private volatile long skippedFrames;
+
+    /**
+     * Creates exporter of frames to a directory of PNG files, which is created if needed, or to a GIF file.
+     *
+     * @param target   directory for PNG files or GIF file to write
+     * @param format   format of frames
+     * @param cellSize side of a cell in px
+     * @param encoders number of encoder threads
+     * @param capacity number of boards queued or being encoded at most
+     * @throws IOException              when directory can not be created.
+     * @throws IllegalArgumentException when cellSize, encoders or capacity is not positive.
+     */
+    public FrameExporter(Path target, Format format, int cellSize, int encoders, int capacity) throws IOException {
+        if (cellSize <= 0 || encoders <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Must be set to positive values");
+        }
+        this.target = format == Format.PNG ? Files.createDirectories(target) : target;
+        this.format = format;
+        this.cellSize = cellSize;
+
+        free = new ArrayBlockingQueue<>(capacity);
+        for (int i = 0; i < capacity; i++) {
+            free.add(new Entry());
+        }
+        this.encoders = Executors.newFixedThreadPool(encoders, runnable -> {
+            Thread thread = new Thread(runnable, "export");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sequencer = format == Format.GIF ? Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "export-gif");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    /**
+     * Sets time every GIF frame is shown. Has no effect on PNG files.
+     *
+     * @param frameDelayMillis time per frame in milliseconds, rounded to hundredths of a second
+     * @throws IllegalArgumentException when frameDelayMillis is negative.
+     */
+    public void setFrameDelayMillis(int frameDelayMillis) {
+        if (frameDelayMillis < 0) {
+            throw new IllegalArgumentException("Must be set to non-negative value");
+        }
+        this.frameDelayMillis = frameDelayMillis;
+    }
+
+    /**
+     * Copies board to be exported in the background, unless all buffers are taken.
+     *
+     * @param board      board to export
+     * @param generation generation of board
+     * @return true if board will be exported, false if it was skipped or the exporter is closed
+     * @throws IOException when exporting a previous frame failed.
+     */
+    public boolean offer(BitBoard board, long generation) throws IOException {
+        return offer(board, generation, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Copies board to be exported in the background, waiting at most a given time for a buffer.
+     *
+     * @param board      board to export
+     * @param generation generation of board
+     * @param timeout    time to wait for a buffer at most
+     * @param unit       unit of timeout
+     * @return true if board will be exported, false if it was skipped or the exporter is closed
+     * @throws IOException when exporting a previous frame failed.
+     */
+    public boolean offer(BitBoard board, long generation, long timeout, TimeUnit unit) throws IOException {
+        checkError();
+        Entry entry;
+        try {
+            entry = timeout > 0 ? free.poll(timeout, unit) : free.poll();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            entry = null;
+        }
+        if (entry == null) {
+            skippedFrames++;
+            return false;
+        }
+        return submit(entry, board, generation);
+    }
+
+    public long getWrittenFrames() {
+        return writtenFrames;
+    }
+
+    public long getSkippedFrames() {
+        return skippedFrames;
+    }
+
+    /**
+     * Waits for queued boards to be exported, then finishes the GIF file.
+     *
+     * @throws IOException when exporting or closing failed.
+     */
+    @Override
+    public void close() throws IOException {
+        encoders.shutdown();
+        try {
+            encoders.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            if (sequencer != null) {
+                lastAppend.exceptionally(e -> null).get();
+                sequencer.submit(this::finishGif).get();
+                sequencer.shutdown();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (java.util.concurrent.ExecutionException e) {
+            error = error != null ? error : new IOException(e.getCause());
+        }
+        checkError();
+    }
+
+    private void checkError() throws IOException {
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Copies board into entry and queues it for encoding.
+     *
+     * @return false if the exporter is closed
+     */
+    private boolean submit(Entry entry, BitBoard board, long generation) {
+        if (encoders.isShutdown()) {
+            free.add(entry);
+            return false;
+        }
+        int wordsPerRow = board.getWordsPerRow();
+        int length = board.getRows() * wordsPerRow;
+        if (entry.words.length != length) {
+            entry.words = new long[length];
+        }
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int word = 0; word < wordsPerRow; word++) {
+                entry.words[row * wordsPerRow + word] = board.getWord(row, word);
+            }
+        }
+        entry.rows = board.getRows();
+        entry.columns = board.getColumns();
+        entry.generation = generation;
+        entry.frame = frames;
+
+        try {
+            if (format == Format.PNG) {
+                encoders.execute(() -> {
+                    try {
+                        writePng(render(entry), entry.frame);
+                    } catch (IOException e) {
+                        error = e;
+                    } finally {
+                        free.add(entry);
+                    }
+                });
+            } else {
+                CompletableFuture<BufferedImage> image = CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return render(entry);
+                    } finally {
+                        free.add(entry);
+                    }
+                }, encoders);
+                lastAppend = lastAppend.thenCombineAsync(image, (done, rendered) -> {
+                    appendGif(rendered);
+                    return null;
+                }, sequencer);
+            }
+        } catch (RejectedExecutionException e) { //Closed while copying
+            free.add(entry);
+            return false;
+        }
+        frames++;
+        return true;
+    }
+
+    /**
+     * Renders copied board as a two-color image, cells as squares of cellSize pixels.
+     *
+     * @param entry copied board
+     * @return rendered image
+     */
+    private BufferedImage render(Entry entry) {
+        int width = entry.columns * cellSize;
+        int height = entry.rows * cellSize;
+        IndexColorModel colors = new IndexColorModel(1, 2,
+                new byte[]{(byte) (DEAD_RGB >> 16), (byte) (ALIVE_RGB >> 16)},
+                new byte[]{(byte) (DEAD_RGB >> 8), (byte) (ALIVE_RGB >> 8)},
+                new byte[]{(byte) DEAD_RGB, (byte) ALIVE_RGB});
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY, colors);
+        byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        int bytesPerLine = (width + 7) >>> 3; //Pixels are packed 8 per byte, leftmost in the highest bit
+
+        int wordsPerRow = (entry.columns + 63) >>> 6;
+        for (int row = 0; row < entry.rows; row++) {
+            int line = row * cellSize * bytesPerLine;
+            for (int w = 0; w < wordsPerRow; w++) {
+                long word = entry.words[row * wordsPerRow + w];
+                while (word != 0) {
+                    int x = ((w << 6) + Long.numberOfTrailingZeros(word)) * cellSize;
+                    for (int px = x; px < x + cellSize; px++) {
+                        pixels[line + (px >>> 3)] |= (byte) (0x80 >>> (px & 7));
+                    }
+                    word &= word - 1;
+                }
+            }
+            for (int copy = 1; copy < cellSize; copy++) {
+                System.arraycopy(pixels, line, pixels, line + copy * bytesPerLine, bytesPerLine);
+            }
+        }
+        return image;
+    }
+
+    /**
+     * Writes image as the PNG file of a frame.
+     *
+     * @param image rendered image
+     * @param frame number of frame
+     */
+    private void writePng(BufferedImage image, long frame) throws IOException {
+        if (error != null) {
+            return;
+        }
+        ImageIO.write(image, "png", target.resolve(fileName(frame)).toFile());
+        writtenFrames++;
+    }
+
+    /**
+     * Appends image as the next frame of the GIF file, starting the file with the first frame.
+     * Runs on the sequencer thread only.
+     *
+     * @param image rendered image
+     */
+    private void appendGif(BufferedImage image) {
+        if (error != null) {
+            return;
+        }
+        try {
+            if (gifWriter == null) {
+                gifWriter = ImageIO.getImageWritersByFormatName("gif").next();
+                Files.deleteIfExists(target);
+                gifOut = ImageIO.createImageOutputStream(target.toFile());
+                gifWriter.setOutput(gifOut);
+                gifWriter.prepareWriteSequence(null);
+            }
+            gifWriter.writeToSequence(new IIOImage(image, null, gifMetadata(image)), null);
+            writtenFrames++;
+        } catch (IOException e) {
+            error = e;
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Creates metadata of a GIF frame, with the frame delay and, so the animation repeats, a looping extension.
+     *
+     * @param image rendered image
+     * @return metadata of frame
+     */
+    private IIOMetadata gifMetadata(BufferedImage image) throws IIOInvalidTreeException {
+        IIOMetadata metadata = gifWriter.getDefaultImageMetadata(ImageTypeSpecifier.createFromRenderedImage(image), null);
+        String formatName = metadata.getNativeMetadataFormatName();
+        IIOMetadataNode root = (IIOMetadataNode) metadata.getAsTree(formatName);
+
+        IIOMetadataNode control = new IIOMetadataNode("GraphicControlExtension");
+        control.setAttribute("disposalMethod", "none");
+        control.setAttribute("userInputFlag", "FALSE");
+        control.setAttribute("transparentColorFlag", "FALSE");
+        control.setAttribute("delayTime", String.valueOf(frameDelayMillis / 10));
+        control.setAttribute("transparentColorIndex", "0");
+        root.appendChild(control);
+
+        IIOMetadataNode colors = new IIOMetadataNode("LocalColorTable"); //Otherwise frames are shown in black and white
+        colors.setAttribute("sizeOfLocalColorTable", "2");
+        colors.setAttribute("sortFlag", "FALSE");
+        int[] palette = {DEAD_RGB, ALIVE_RGB};
+        for (int i = 0; i < palette.length; i++) {
+            IIOMetadataNode entry = new IIOMetadataNode("ColorTableEntry");
+            entry.setAttribute("index", String.valueOf(i));
+            entry.setAttribute("red", String.valueOf(palette[i] >> 16 & 0xFF));
+            entry.setAttribute("green", String.valueOf(palette[i] >> 8 & 0xFF));
+            entry.setAttribute("blue", String.valueOf(palette[i] & 0xFF));
+            colors.appendChild(entry);
+        }
+        root.appendChild(colors);
+
+        IIOMetadataNode applications = new IIOMetadataNode("ApplicationExtensions");
+        IIOMetadataNode loop = new IIOMetadataNode("ApplicationExtension");
+        loop.setAttribute("applicationID", "NETSCAPE");
+        loop.setAttribute("authenticationCode", "2.0");
+        loop.setUserObject(new byte[]{1, 0, 0}); //Loop forever
+        applications.appendChild(loop);
+        root.appendChild(applications);
+
+        metadata.setFromTree(formatName, root);
+        return metadata;
+    }
+
+    /**
+     * Completes the GIF file. Runs on the sequencer thread only.
+     */
+    private void finishGif() {
+        try {
+            if (gifWriter != null) {
+                gifWriter.endWriteSequence();
+                gifOut.close();
+                gifWriter.dispose();
+                gifWriter = null;
+            }
+        } catch (IOException e) {
+            error = error != null ? error : e;
+        }
+    }
+
+    static String fileName(long frame) {
+        return String.format("%s%06d%s", FILE_PREFIX, frame, FILE_SUFFIX);
+    }
+
+    /**
+     * Board copied for exporting.
+     */
+    private static final class Entry {
+        private long[] words = new long[0];
+        private int rows;
+        private int columns;
+        private long generation;
+        private long frame;
+    }
+}
@@ -0,0 +1,416 @@
+package com.larssont.gameoflife.core;
+
+import jdk.jfr.EventType;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Contains and handles game logic.
+ *
+ * @author Tommy Larsson
+ * @author larssont.com
+ */
+public class Game {
+
+    private static final EventType TICK_EVENT = EventType.getEventType(TickEvent.class);
+
+    private int neighbourRadius = 1; //Radius for cells to be considered neighbours
+
+    private int[] cellBornConditions = {3}; //Number of neighbours required for birth
+    private int[] cellSurviveConditions = {2, 3}; //Number of neighbours required for survival
+    private Rule rule = Rule.CONWAY; //Compiled from neighbourRadius and conditions whenever they are set
+    private Topology topology = Topology.DEAD; //Decides neighbours of cells on the edges
+
+    private int threads = 1; //Number of threads used to update packed boards
+    private ForkJoinPool pool; //Pool for parallel updates, null when updating sequentially
+    private EngineMetrics metrics; //Metrics recorded per update, null when not instrumented
+
+    private int[] sums = new int[0]; //Summed-area table of cells, reused while cells and radius keep their size
+    private int sumsWidth;
+    private Cell[] changedCells = new Cell[0]; //Died cells from the front and born cells from the back, reused by updates
+
+    /**
+     * Updates 2D array of cells to the next iteration in the game.
+     * Check each cell independently for number of neighbours and sets
+     * alive boolean accordingly. Arrays of cells can not grow, so cells beyond
+     * the edges are dead unless topology wraps. Buffers are reused, so updates of
+     * cells of an unchanged size allocate nothing. Empty arrays are left as they are.
+     *
+     * @param cells 2D array of cells
+     */
+    public void update(Cell[][] cells) {
+        if (cells.length == 0 || cells[0].length == 0) {
+            return;
+        }
+        TickEvent event = metrics != null ? begin() : null;
+        long start = metrics != null ? System.nanoTime() : 0;
+        int total = cells.length * cells[0].length;
+        if (changedCells.length < total) {
+            changedCells = new Cell[total];
+        }
+        int died = 0;
+        int born = 0;
+
+        int[] sums = sumAliveCells(cells);
+
+        for (Cell[] row : cells) {
+            for (Cell cell : row) {
+                int neighbours = findNeighbours(sums, cells, cell);
+
+                if (cell.isAlive()) {
+                    if (rule.next(true, neighbours)) {
+                        continue;
+                    }
+                    changedCells[died++] = cell;
+                    continue;
+                }
+
+                if (rule.next(false, neighbours)) {
+                    changedCells[total - ++born] = cell;
+                }
+            }
+        }
+
+        for (int i = 0; i < died; i++) {
+            changedCells[i].setAlive(false);
+        }
+
+        for (int i = total - born; i < total; i++) {
+            changedCells[i].setAlive(true);
+        }
+
+        if (metrics != null) {
+            int width = cells[0].length + 2 * neighbourRadius + 1;
+            int top = neighbourRadius * width + neighbourRadius; //Halo excluded
+            int bottom = (cells.length + neighbourRadius) * width + neighbourRadius;
+            int alive = sums[bottom + cells[0].length] - sums[top + cells[0].length] - sums[bottom] + sums[top];
+            long population = alive - died + born;
+            record(event, start, born, died, population);
+        }
+    }
+
+    /**
+     * Updates packed board to the next iteration in the game.
+     * See {@link BitBoard#step(Rule)}. The board takes the topology of the game.
+     *
+     * @param board packed board of cells
+     */
+    public void update(BitBoard board) {
+        TickEvent event = metrics != null ? begin() : null;
+        long start = metrics != null ? System.nanoTime() : 0;
+        board.setTopology(topology);
+        if (pool == null) {
+            board.step(rule);
+        } else {
+            board.step(rule, pool);
+        }
+        if (metrics != null) {
+            record(event, start, board.getLastBirths(), board.getLastDeaths(), board.population());
+            metrics.recordTiles(board.getEvaluatedTiles(), board.getSkippedTiles());
+        }
+    }
+
+    /**
+     * Updates packed board a number of generations. Sequential games compute several generations
+     * per pass over the board, see {@link BitBoard#step(Rule, int)}, parallel games one at a time.
+     * Results are identical to calling {@link #update(BitBoard)} repeatedly.
+     *
+     * @param board       packed board of cells
+     * @param generations number of generations
+     * @throws IllegalArgumentException when generations is negative.
+     */
+    public void update(BitBoard board, int generations) {
+        if (generations < 0) {
+            throw new IllegalArgumentException("Must be set to non-negative value");
+        }
+        if (pool != null) {
+            for (int i = 0; i < generations; i++) {
+                update(board);
+            }
+            return;
+        }
+        TickEvent event = metrics != null ? begin() : null;
+        long start = metrics != null ? System.nanoTime() : 0;
+        board.setTopology(topology);
+        board.step(rule, generations);
+        if (metrics != null) {
+            long nanos = System.nanoTime() - start;
+            if (event != null) event.end();
+            metrics.recordTicks(event, nanos, generations, board.getLastBirths(), board.getLastDeaths(), board.population());
+            metrics.recordTiles(board.getEvaluatedTiles(), board.getSkippedTiles());
+        }
+    }
+
+    /**
+     * Updates plane of an engine to the next iteration in the game, on the pool of parallel games.
+     * See {@link Engine#step(Rule, ForkJoinPool)}. The board of a bounded engine takes the topology of the game,
+     * like boards updated directly, while unbounded planes are always infinite.
+     *
+     * @param plane plane of cells
+     * @throws IllegalArgumentException when the engine is bounded and the topology of the game is infinite.
+     */
+    public void update(Engine plane) {
+        BitBoard bounded = plane.getBoard();
+        if (bounded != null) {
+            if (topology == Topology.INFINITE) {
+                throw new IllegalArgumentException("Bounded boards can not have an infinite topology");
+            }
+            bounded.setTopology(topology);
+        }
+        TickEvent event = metrics != null ? begin() : null;
+        long start = metrics != null ? System.nanoTime() : 0;
+        if (pool == null) {
+            plane.step(rule);
+        } else {
+            plane.step(rule, pool);
+        }
+        if (metrics != null) {
+            record(event, start, plane.getLastBirths(), plane.getLastDeaths(), plane.population());
+            if (bounded != null) metrics.recordTiles(bounded.getEvaluatedTiles(), bounded.getSkippedTiles());
+        }
+    }
+
+    /**
+     * Begins flight recorder event of an update, unless no recording has tick events enabled.
+     * Events are not created then, so instrumented updates allocate nothing.
+     *
+     * @return begun event, or null if tick events are not recorded
+     */
+    private static TickEvent begin() {
+        if (!TICK_EVENT.isEnabled()) {
+            return null;
+        }
+        TickEvent event = new TickEvent();
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Ends event of an update and records it to metrics.
+     *
+     * @param event      begun event, null if tick events are not recorded
+     * @param start      time update started, from {@link System#nanoTime()}
+     * @param births     cells born in update
+     * @param deaths     cells died in update
+     * @param population alive cells after update
+     */
+    private void record(TickEvent event, long start, long births, long deaths, long population) {
+        long nanos = System.nanoTime() - start;
+        if (event != null) event.end();
+        metrics.recordTick(event, nanos, births, deaths, population);
+    }
+
+    /**
+     * Creates summed-area table of alive cells padded with a halo of neighbourRadius rows and columns
+     * on every side, filled according to topology. Entry (i, j) holds the number of alive cells above
+     * and to the left of padded row i and column j, where padded row neighbourRadius is row 0 of cells.
+     *
+     * @param cells 2D array of cells
+     * @return summed-area table with (rows + 2 * neighbourRadius + 1) * (columns + 2 * neighbourRadius + 1) entries,
+     * reused by the next update
+     */
+    private int[] sumAliveCells(Cell[][] cells) {
+        int rows = cells.length;
+        int columns = cells[0].length;
+        int height = rows + 2 * neighbourRadius;
+        int width = columns + 2 * neighbourRadius + 1;
+        if (sums.length != (height + 1) * width || sumsWidth != width) { //First row and column are never written, so they stay zeroed
+            sums = new int[(height + 1) * width];
+            sumsWidth = width;
+        }
+
+        for (int i = 0; i < height; i++) {
+            long row = i - neighbourRadius;
+            int sourceRow = topology.wrap(row, rows);
+            boolean reflected = topology.reflects(row, rows);
+
+            int rowSum = 0;
+            for (int j = 0; j < width - 1; j++) {
+                long column = j - neighbourRadius;
+                int sourceColumn = topology.wrap(reflected ? columns - 1 - column : column, columns);
+                if (sourceRow >= 0 && sourceColumn >= 0 && cells[sourceRow][sourceColumn].isAlive()) rowSum++;
+                sums[(i + 1) * width + j + 1] = sums[i * width + j + 1] + rowSum;
+            }
+        }
+        return sums;
+    }
+
+    /**
+     * Finds number of neighbours for a given cell inside a given 2D array of cells.
+     * Neighbourhood is summed from the padded summed-area table, so no bounds are checked
+     * and the cost does not depend on neighbourRadius.
+     *
+     * @param sums  padded summed-area table of cells
+     * @param cells 2D array of cells
+     * @param cell  origin cell to be checked
+     * @return number of neighbours for cell
+     */
+    private int findNeighbours(int[] sums, Cell[][] cells, Cell cell) {
+        int width = cells[0].length + 2 * neighbourRadius + 1;
+        int top = cell.getRow();
+        int bottom = top + 2 * neighbourRadius + 1;
+        int left = cell.getColumn();
+        int right = left + 2 * neighbourRadius + 1;
+
+        int alive = sums[bottom * width + right] - sums[top * width + right]
+                - sums[bottom * width + left] + sums[top * width + left];
+
+        return cell.isAlive() ? alive - 1 : alive;
+    }
+
+    /**
+     * Sets alive to false for all cells inside of 2D cell array.
+     *
+     * @param cells 2D array of cells
+     */
+    public void reset(Cell[][] cells) {
+        for (Cell[] row : cells) {
+            for (Cell cell : row) {
+                cell.setAlive(false);
+            }
+        }
+    }
+
+    /**
+     * Sets alive to false for all cells of packed board.
+     *
+     * @param board packed board of cells
+     */
+    public void reset(BitBoard board) {
+        board.clear();
+    }
+
+    /**
+     * Sets alive to false for all cells of the plane of an engine.
+     *
+     * @param plane plane of cells
+     */
+    public void reset(Engine plane) {
+        plane.clear();
+    }
+
+    /**
+     * Sets neighbourRadius to given value.
+     *
+     * @param neighbourRadius input integer
+     * @throws IllegalArgumentException when neighbourRadius is not positive or above {@link Rule#MAX_RADIUS}.
+     */
+    public void setNeighbourRadius(int neighbourRadius) {
+        if (neighbourRadius <= 0) {
+            throw new IllegalArgumentException("Must be set to positive value");
+        }
+        rule = new Rule(neighbourRadius, cellBornConditions, cellSurviveConditions);
+        this.neighbourRadius = neighbourRadius;
+    }
+
+    /**
+     * Sets number of threads used to update packed boards.
+     * With more than one thread, bands of rows are updated in parallel.
+     *
+     * @param threads number of threads
+     * @throws IllegalArgumentException when threads is not positive.
+     */
+    public void setThreads(int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("Must be set to positive value");
+        }
+        if (pool != null) {
+            pool.shutdown();
+        }
+
+        this.threads = threads;
+        pool = threads > 1 ? new ForkJoinPool(threads) : null;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * Sets topology of boards updated by the game, including boards of bounded engines.
+     * Unbounded planes are always infinite.
+     *
+     * @param topology topology to apply
+     */
+    public void setTopology(Topology topology) {
+        this.topology = topology;
+    }
+
+    public Topology getTopology() {
+        return topology;
+    }
+
+    /**
+     * Sets metrics to record every update to, or null to stop recording.
+     * Updates are not timed while no metrics are set.
+     *
+     * @param metrics metrics to record to
+     */
+    public void setMetrics(EngineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public EngineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Sets cellBornConditions to given value.
+     *
+     * @param cellBornConditions input integer array
+     * @throws IllegalArgumentException when input array contains negative integers.
+     */
+    public void setCellBornConditions(int[] cellBornConditions) {
+        for (int num : cellBornConditions) {
+            if (num < 0) {
+                throw new IllegalArgumentException("Must only contain array of non-negative integers.");
+            }
+        }
+
+        rule = new Rule(neighbourRadius, cellBornConditions, cellSurviveConditions);
+        this.cellBornConditions = cellBornConditions;
+    }
+
+    /**
+     * Sets cellSurviveConditions to given value.
+     *
+     * @param cellSurviveConditions input integer array
+     * @throws IllegalArgumentException when input array contains negative integers.
+     */
+    public void setCellSurviveConditions(int[] cellSurviveConditions) {
+        for (int num : cellSurviveConditions) {
+            if (num < 0) {
+                throw new IllegalArgumentException("Must only contain array of non-negative integers.");
+            }
+        }
+
+        rule = new Rule(neighbourRadius, cellBornConditions, cellSurviveConditions);
+        this.cellSurviveConditions = cellSurviveConditions;
+    }
+
+    /**
+     * Sets neighbourRadius, cellBornConditions and cellSurviveConditions from given rule.
+     *
+     * @param rule compiled rule
+     */
+    public void setRule(Rule rule) {
+        this.rule = rule;
+        neighbourRadius = rule.getRadius();
+        cellBornConditions = rule.getBornConditions();
+        cellSurviveConditions = rule.getSurviveConditions();
+    }
+
+    /**
+     * Sets rule from a rule string such as {@code B3/S23} or {@code R5,B34-45,S33-57}.
+     *
+     * @param rule rule string
+     * @throws IllegalArgumentException when rule string is malformed.
+     */
+    public void setRule(String rule) {
+        setRule(Rule.parse(rule));
+    }
+
+    public Rule getRule() {
+        return rule;
+    }
+}
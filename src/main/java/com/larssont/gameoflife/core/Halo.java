@@ -0,0 +1,93 @@
+package com.larssont.gameoflife.core;
+
+import java.util.Arrays;
+
+/**
+ * Fills and clears the padding of packed cell buffers according to a {@link Topology}.
+ * Buffers are laid out like those of {@link BitBoard}: rows of words surrounded by one padding word
+ * on either side, and one padding row above and below.
+ */
+final class Halo {
+
+    private Halo() {
+    }
+
+    /**
+     * Fills padding rows and columns of a buffer with the cells they refer to on a wrapping board.
+     * Rows above and below are copies of the last and first rows, reversed on a Klein bottle,
+     * then columns left and right of every row, padding rows included, are copies of its last and first columns.
+     *
+     * @param cells    buffer to fill
+     * @param rows     number of rows
+     * @param columns  number of columns
+     * @param topology topology of board, which must wrap
+     */
+    static void fill(long[] cells, int rows, int columns, Topology topology) {
+        int words = (columns + 63) >>> 6;
+        int stride = words + 2;
+        int above = 1;
+        int first = stride + 1;
+        int last = rows * stride + 1;
+        int below = (rows + 1) * stride + 1;
+        if (topology == Topology.KLEIN_BOTTLE) {
+            reverseRow(cells, last, above, words, columns);
+            reverseRow(cells, first, below, words, columns);
+        } else {
+            System.arraycopy(cells, last, cells, above, words);
+            System.arraycopy(cells, first, cells, below, words);
+        }
+
+        int lastColumn = columns - 1;
+        for (int row = -1; row <= rows; row++) {
+            int start = (row + 1) * stride + 1;
+            long west = (cells[start + (lastColumn >>> 6)] >>> (lastColumn & 63)) & 1;
+            long east = cells[start] & 1;
+            cells[start - 1] = west << 63;
+            cells[start + (columns >>> 6)] |= east << (columns & 63); //Bit after last column, possibly in the right padding word
+        }
+    }
+
+    /**
+     * Writes a row of a buffer with its columns reversed to another row of the buffer.
+     * The whole row of words is reversed, then shifted down past the bits beyond the last column.
+     *
+     * @param cells   buffer holding both rows
+     * @param from    index of first word of row to reverse
+     * @param to      index of first word of row to write
+     * @param words   number of words in a row, padding excluded
+     * @param columns number of columns
+     */
+    private static void reverseRow(long[] cells, int from, int to, int words, int columns) {
+        int unused = words * 64 - columns;
+        for (int w = 0; w < words; w++) {
+            long high = Long.reverse(cells[from + words - 1 - w]);
+            long low = w + 1 < words ? Long.reverse(cells[from + words - 2 - w]) : 0;
+            cells[to + w] = unused == 0 ? high : (high >>> unused) | (low << (64 - unused));
+        }
+    }
+
+    /**
+     * Clears halo cells filled into a buffer, so padding is dead again. Has no effect unless the topology wraps.
+     *
+     * @param buffer   buffer to clear
+     * @param rows     number of rows
+     * @param columns  number of columns
+     * @param topology topology of board
+     */
+    static void clear(long[] buffer, int rows, int columns, Topology topology) {
+        if (!topology.wraps()) {
+            return;
+        }
+        int words = (columns + 63) >>> 6;
+        int stride = words + 2;
+        long lastWordMask = -1L >>> (words * 64 - columns);
+        Arrays.fill(buffer, 0, stride, 0);
+        Arrays.fill(buffer, (rows + 1) * stride, (rows + 2) * stride, 0);
+        for (int row = 0; row < rows; row++) {
+            int start = (row + 1) * stride + 1;
+            buffer[start - 1] = 0;
+            buffer[start + words - 1] &= lastWordMask;
+            buffer[start + words] = 0;
+        }
+    }
+}
@@ -0,0 +1,644 @@
+package com.larssont.gameoflife.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Simulates a board on an unbounded plane using the HashLife algorithm.
+ * The board is a quadtree of canonical nodes, equal subtrees are shared,
+ * and the future of every node is memoized, so regular patterns can be
+ * advanced 2^k generations in a single step.
+ * <p>
+ * Canonical nodes are kept in a bounded cache. Once a step leaves more nodes
+ * in the cache than allowed, nodes unreachable from the board are evicted
+ * along with all memoized results. A step that fills the cache while it runs
+ * is abandoned, nodes are evicted, and it is repeated as two steps of half as
+ * many generations, so only a single generation may exceed the cache.
+ */
+public class HashLife {
+
+    private static final int MIN_LEVEL = 3; //Smallest level of root, 8x8 cells
+    private static final int MAX_LEVEL = 62; //Largest level of root, keeps coordinates within a long
+
+    private static final Node DEAD = new Node(0);
+    private static final Node ALIVE = new Node(1);
+    private static final int[] NEIGHBOUR_MASKS = { //Neighbours of the center cells of a 4x4 grid
+            neighbourMask(5), neighbourMask(6), neighbourMask(9), neighbourMask(10)};
+
+    private final Rule rule;
+    private final int maxCacheSize;
+
+    private Map<Node, Node> cache = new HashMap<>();
+    private final ArrayList<Node> emptyNodes = new ArrayList<>(); //emptyNodes.get(level) is the empty node of level
+
+    private Node root;
+    private long originRow; //Row of the top left cell of root
+    private long originColumn; //Column of the top left cell of root
+    private long generation;
+    private long evictedNodes;
+    private boolean bounded; //Filling the cache abandons the running step
+
+    /**
+     * Creates an empty HashLife board.
+     *
+     * @param rule         rule to apply, must have a radius of 1 and give no birth without neighbours
+     * @param maxCacheSize number of canonical nodes to keep in cache between steps
+     * @throws IllegalArgumentException when rule radius is not 1, rule gives birth to cells without neighbours,
+     *                                  which would fill the plane, or maxCacheSize is not positive.
+     */
+    public HashLife(Rule rule, int maxCacheSize) {
+        if (rule.getRadius() != 1) {
+            throw new IllegalArgumentException("Only rules with a neighbour radius of 1 are supported");
+        }
+        if (rule.next(false, 0)) { //Empty nodes are assumed to stay empty
+            throw new IllegalArgumentException("Rules giving birth without neighbours can not be used on an unbounded plane");
+        }
+        if (maxCacheSize <= 0) {
+            throw new IllegalArgumentException("Must be set to positive value");
+        }
+        this.rule = rule;
+        this.maxCacheSize = maxCacheSize;
+
+        emptyNodes.add(DEAD);
+        root = empty(MIN_LEVEL);
+    }
+
+    /**
+     * Replaces board with the alive state of a 2D array of cells, placed with its top left cell at (0, 0).
+     *
+     * @param cells 2D array of cells
+     */
+    public void load(Cell[][] cells) {
+        load(BitBoard.of(cells));
+    }
+
+    /**
+     * Replaces board with the alive state of a packed board, placed with its top left cell at (0, 0).
+     *
+     * @param board packed board of cells
+     */
+    public void load(BitBoard board) {
+        int level = MIN_LEVEL;
+        while ((1L << level) < Math.max(board.getRows(), board.getColumns())) {
+            level++;
+        }
+
+        root = build(board, level, 0, 0);
+        originRow = 0;
+        originColumn = 0;
+        generation = 0;
+    }
+
+    /**
+     * Builds node from a square region of a packed board, cells outside of the board are dead.
+     *
+     * @param board  packed board of cells
+     * @param level  level of node to build
+     * @param row    top row of region
+     * @param column left column of region
+     * @return canonical node of region
+     */
+    private Node build(BitBoard board, int level, long row, long column) {
+        if (row >= board.getRows() || column >= board.getColumns()) {
+            return empty(level);
+        }
+        if (level == 0) {
+            return board.isAlive((int) row, (int) column) ? ALIVE : DEAD;
+        }
+
+        long half = 1L << (level - 1);
+        return join(build(board, level - 1, row, column),
+                build(board, level - 1, row, column + half),
+                build(board, level - 1, row + half, column),
+                build(board, level - 1, row + half, column + half));
+    }
+
+    /**
+     * Returns alive state of cell at given position.
+     *
+     * @param row    row position of cell
+     * @param column column position of cell
+     * @return true if cell is alive, otherwise false
+     */
+    public boolean isAlive(long row, long column) {
+        if (!contains(row, column)) {
+            return false;
+        }
+
+        Node node = root;
+        long r = row - originRow;
+        long c = column - originColumn;
+        while (node.level > 0) {
+            long half = 1L << (node.level - 1);
+            boolean south = r >= half;
+            boolean east = c >= half;
+
+            node = south ? (east ? node.se : node.sw) : (east ? node.ne : node.nw);
+            if (south) r -= half;
+            if (east) c -= half;
+        }
+        return node == ALIVE;
+    }
+
+    /**
+     * Sets alive state of cell at given position, growing the board if needed.
+     *
+     * @param row    row position of cell
+     * @param column column position of cell
+     * @param alive  new alive state
+     */
+    public void setAlive(long row, long column, boolean alive) {
+        while (!contains(row, column)) {
+            grow();
+        }
+        root = setAlive(root, row - originRow, column - originColumn, alive);
+    }
+
+    /**
+     * Returns copy of node with a single cell changed.
+     *
+     * @param node   node to copy
+     * @param row    row position of cell relative to node
+     * @param column column position of cell relative to node
+     * @param alive  new alive state
+     * @return canonical node with cell changed
+     */
+    private Node setAlive(Node node, long row, long column, boolean alive) {
+        if (node.level == 0) {
+            return alive ? ALIVE : DEAD;
+        }
+
+        long half = 1L << (node.level - 1);
+        if (row < half) {
+            if (column < half) {
+                return join(setAlive(node.nw, row, column, alive), node.ne, node.sw, node.se);
+            }
+            return join(node.nw, setAlive(node.ne, row, column - half, alive), node.sw, node.se);
+        }
+        if (column < half) {
+            return join(node.nw, node.ne, setAlive(node.sw, row - half, column, alive), node.se);
+        }
+        return join(node.nw, node.ne, node.sw, setAlive(node.se, row - half, column - half, alive));
+    }
+
+    /**
+     * Copies region of the board to a packed board. The region has the size of the packed board.
+     * Only populated nodes overlapping the region are visited.
+     *
+     * @param board  packed board to copy to
+     * @param top    top row of region
+     * @param left   left column of region
+     */
+    public void copyTo(BitBoard board, long top, long left) {
+        board.clear();
+        copyTo(root, originRow, originColumn, board, top, left);
+    }
+
+    /**
+     * Copies region of the board to a 2D array of cells. The region has the size of the array.
+     *
+     * @param cells 2D array of cells
+     * @param top   top row of region
+     * @param left  left column of region
+     */
+    public void copyTo(Cell[][] cells, long top, long left) {
+        BitBoard board = new BitBoard(cells.length, cells[0].length);
+        copyTo(board, top, left);
+        board.copyTo(cells);
+    }
+
+    /**
+     * Copies alive cells of a node overlapping a region to a packed board.
+     *
+     * @param node   node to copy
+     * @param row    top row of node
+     * @param column left column of node
+     * @param board  packed board to copy to
+     * @param top    top row of region
+     * @param left   left column of region
+     */
+    private void copyTo(Node node, long row, long column, BitBoard board, long top, long left) {
+        long size = 1L << node.level;
+        if (node.population == 0
+                || row >= top + board.getRows() || row + size <= top
+                || column >= left + board.getColumns() || column + size <= left) {
+            return;
+        }
+        if (node.level == 0) {
+            board.setAlive((int) (row - top), (int) (column - left), true);
+            return;
+        }
+
+        long half = size >> 1;
+        copyTo(node.nw, row, column, board, top, left);
+        copyTo(node.ne, row, column + half, board, top, left);
+        copyTo(node.sw, row + half, column, board, top, left);
+        copyTo(node.se, row + half, column + half, board, top, left);
+    }
+
+    /**
+     * Advances board 2^log2Generations generations.
+     *
+     * @param log2Generations base 2 logarithm of the number of generations
+     * @throws IllegalArgumentException when log2Generations is negative or too large.
+     */
+    public void step(int log2Generations) {
+        if (log2Generations < 0 || log2Generations > MAX_LEVEL - 3) {
+            throw new IllegalArgumentException("Must be between 0 and " + (MAX_LEVEL - 3));
+        }
+
+        if (cache.size() > maxCacheSize) {
+            collect();
+        }
+        //Pattern must lie within the center quarter, so it can not outgrow the result during the step
+        while (root.level < log2Generations + 3 || center(center(root)).population != root.population) {
+            grow();
+        }
+
+        long quarter = 1L << (root.level - 2);
+        Node next;
+        try {
+            bounded = log2Generations > 0; //A single generation can not be split any further
+            next = successor(root, log2Generations);
+        } catch (CacheFullException e) {
+            collect(); //Evicts nodes of the abandoned step, root is unchanged
+            step(log2Generations - 1);
+            step(log2Generations - 1);
+            return;
+        } finally {
+            bounded = false;
+        }
+        root = next;
+        originRow += quarter;
+        originColumn += quarter;
+        generation += 1L << log2Generations;
+
+        if (cache.size() > maxCacheSize) {
+            collect();
+        }
+    }
+
+    /**
+     * Advances board a given number of generations, as a sequence of power of two steps.
+     *
+     * @param generations number of generations
+     * @throws IllegalArgumentException when generations is negative.
+     */
+    public void advance(long generations) {
+        if (generations < 0) {
+            throw new IllegalArgumentException("Must be set to non-negative value");
+        }
+        for (int k = 0; generations != 0; k++, generations >>>= 1) {
+            if ((generations & 1) != 0) {
+                step(k);
+            }
+        }
+    }
+
+    public long getPopulation() {
+        return root.population;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns number of canonical nodes currently held in cache.
+     *
+     * @return cache size
+     */
+    public int getCacheSize() {
+        return cache.size();
+    }
+
+    public int getMaxCacheSize() {
+        return maxCacheSize;
+    }
+
+    /**
+     * Returns total number of nodes evicted from cache.
+     *
+     * @return number of evicted nodes
+     */
+    public long getEvictedNodes() {
+        return evictedNodes;
+    }
+
+    /**
+     * Checks if position lies within root.
+     *
+     * @param row    row position
+     * @param column column position
+     * @return true if root contains position, otherwise false
+     */
+    private boolean contains(long row, long column) {
+        long size = 1L << root.level;
+        return row >= originRow && row - originRow < size && column >= originColumn && column - originColumn < size;
+    }
+
+    /**
+     * Doubles root in size, keeping its contents centered.
+     *
+     * @throws IllegalStateException when root can not grow any further.
+     */
+    private void grow() {
+        if (root.level >= MAX_LEVEL) {
+            throw new IllegalStateException("Board can not grow beyond 2^" + MAX_LEVEL + " cells across");
+        }
+
+        Node e = empty(root.level - 1);
+        long half = 1L << (root.level - 1);
+
+        root = join(join(e, e, e, root.nw),
+                join(e, e, root.ne, e),
+                join(e, root.sw, e, e),
+                join(root.se, e, e, e));
+        originRow -= half;
+        originColumn -= half;
+    }
+
+    /**
+     * Computes center of node advanced 2^min(log2Generations, level - 2) generations.
+     * At full speed, both halves of the recursion advance time. When fewer generations
+     * are requested, the first half only takes centers of the nine overlapping sub nodes.
+     *
+     * @param node            node of level 2 or above
+     * @param log2Generations base 2 logarithm of the requested number of generations
+     * @return canonical node of level one below node
+     */
+    private Node successor(Node node, int log2Generations) {
+        if (node.population == 0) {
+            return empty(node.level - 1);
+        }
+
+        int step = Math.min(log2Generations, node.level - 2);
+        if (node.result != null && node.resultStep == step) {
+            return node.result;
+        }
+
+        Node result;
+        if (node.level == 2) {
+            result = baseSuccessor(node);
+        } else {
+            Node n00 = node.nw;
+            Node n01 = horizontal(node.nw, node.ne);
+            Node n02 = node.ne;
+            Node n10 = vertical(node.nw, node.sw);
+            Node n11 = center(node);
+            Node n12 = vertical(node.ne, node.se);
+            Node n20 = node.sw;
+            Node n21 = horizontal(node.sw, node.se);
+            Node n22 = node.se;
+
+            boolean fullSpeed = step == node.level - 2;
+            Node r00 = fullSpeed ? successor(n00, log2Generations) : center(n00);
+            Node r01 = fullSpeed ? successor(n01, log2Generations) : center(n01);
+            Node r02 = fullSpeed ? successor(n02, log2Generations) : center(n02);
+            Node r10 = fullSpeed ? successor(n10, log2Generations) : center(n10);
+            Node r11 = fullSpeed ? successor(n11, log2Generations) : center(n11);
+            Node r12 = fullSpeed ? successor(n12, log2Generations) : center(n12);
+            Node r20 = fullSpeed ? successor(n20, log2Generations) : center(n20);
+            Node r21 = fullSpeed ? successor(n21, log2Generations) : center(n21);
+            Node r22 = fullSpeed ? successor(n22, log2Generations) : center(n22);
+
+            result = join(successor(join(r00, r01, r10, r11), log2Generations),
+                    successor(join(r01, r02, r11, r12), log2Generations),
+                    successor(join(r10, r11, r20, r21), log2Generations),
+                    successor(join(r11, r12, r21, r22), log2Generations));
+        }
+
+        node.result = result;
+        node.resultStep = step;
+        return result;
+    }
+
+    /**
+     * Computes center 2x2 cells of a 4x4 node advanced one generation.
+     * The 16 cells are packed into the bits of an int, four per row,
+     * so neighbours of a cell are counted by masking them.
+     *
+     * @param node node of level 2
+     * @return canonical node of level 1
+     */
+    private Node baseSuccessor(Node node) {
+        int grid = bits(node.nw) | bits(node.ne) << 2 | bits(node.sw) << 8 | bits(node.se) << 10;
+        return join(next(grid, 5, NEIGHBOUR_MASKS[0]), next(grid, 6, NEIGHBOUR_MASKS[1]),
+                next(grid, 9, NEIGHBOUR_MASKS[2]), next(grid, 10, NEIGHBOUR_MASKS[3]));
+    }
+
+    /**
+     * Returns next generation of a cell of a packed 4x4 grid.
+     *
+     * @param grid          cells of grid, bit row * 4 + column set if alive
+     * @param bit           bit of cell
+     * @param neighbourMask bits of its neighbours
+     * @return single cell node
+     */
+    private Node next(int grid, int bit, int neighbourMask) {
+        boolean alive = (grid & (1 << bit)) != 0;
+        return rule.next(alive, Integer.bitCount(grid & neighbourMask)) ? ALIVE : DEAD;
+    }
+
+    /**
+     * Packs the cells of a 2x2 node into the top left corner of a 4x4 grid.
+     *
+     * @param node node of level 1
+     * @return cells of node, bit row * 4 + column set if alive
+     */
+    private static int bits(Node node) {
+        return (node.nw == ALIVE ? 1 : 0) | (node.ne == ALIVE ? 2 : 0)
+                | (node.sw == ALIVE ? 16 : 0) | (node.se == ALIVE ? 32 : 0);
+    }
+
+    /**
+     * Returns bits of the eight neighbours of a cell within a 4x4 grid, the cell not on its edge.
+     *
+     * @param bit bit of cell, row * 4 + column
+     * @return bits of neighbours
+     */
+    private static int neighbourMask(int bit) {
+        int block = 0x777 << (bit - 5); //3x3 cells around the cell
+        return block & ~(1 << bit);
+    }
+
+    /**
+     * Returns node made of the east half of w and the west half of e.
+     *
+     * @param w west node
+     * @param e east node
+     * @return canonical node of same level
+     */
+    private Node horizontal(Node w, Node e) {
+        return join(w.ne, e.nw, w.se, e.sw);
+    }
+
+    /**
+     * Returns node made of the south half of n and the north half of s.
+     *
+     * @param n north node
+     * @param s south node
+     * @return canonical node of same level
+     */
+    private Node vertical(Node n, Node s) {
+        return join(n.sw, n.se, s.nw, s.ne);
+    }
+
+    /**
+     * Returns center of node, one level below it.
+     *
+     * @param node node of level 2 or above
+     * @return canonical node of level one below node
+     */
+    private Node center(Node node) {
+        return join(node.nw.se, node.ne.sw, node.sw.ne, node.se.nw);
+    }
+
+    /**
+     * Returns canonical node with given quadrants.
+     *
+     * @param nw north west quadrant
+     * @param ne north east quadrant
+     * @param sw south west quadrant
+     * @param se south east quadrant
+     * @return canonical node
+     * @throws CacheFullException when a bounded step adds a node to a full cache.
+     */
+    private Node join(Node nw, Node ne, Node sw, Node se) {
+        Node node = new Node(nw, ne, sw, se);
+        Node canonical = cache.putIfAbsent(node, node);
+        if (canonical != null) {
+            return canonical;
+        }
+        if (bounded && cache.size() > maxCacheSize) {
+            throw CacheFullException.INSTANCE;
+        }
+        return node;
+    }
+
+    /**
+     * Returns canonical empty node of given level.
+     *
+     * @param level level of node
+     * @return empty node
+     */
+    private Node empty(int level) {
+        while (emptyNodes.size() <= level) {
+            Node e = emptyNodes.get(emptyNodes.size() - 1);
+            emptyNodes.add(join(e, e, e, e));
+        }
+        return emptyNodes.get(level);
+    }
+
+    /**
+     * Evicts nodes unreachable from root and empty nodes from cache, and clears all memoized results.
+     */
+    private void collect() {
+        int size = cache.size();
+        Map<Node, Node> reachable = new HashMap<>();
+        Map<Node, Boolean> visited = new IdentityHashMap<>();
+
+        mark(root, reachable, visited);
+        for (Node e : emptyNodes) {
+            mark(e, reachable, visited);
+        }
+
+        cache = reachable;
+        evictedNodes += size - cache.size();
+    }
+
+    /**
+     * Adds node and its descendants to a cache, clearing their memoized results.
+     *
+     * @param node      node to keep
+     * @param reachable cache of kept nodes
+     * @param visited   nodes already kept
+     */
+    private void mark(Node node, Map<Node, Node> reachable, Map<Node, Boolean> visited) {
+        if (node.level == 0 || visited.put(node, Boolean.TRUE) != null) {
+            return;
+        }
+
+        node.result = null;
+        reachable.put(node, node);
+        mark(node.nw, reachable, visited);
+        mark(node.ne, reachable, visited);
+        mark(node.sw, reachable, visited);
+        mark(node.se, reachable, visited);
+    }
+
+    /**
+     * Represents a square quadtree node of 2^level cells across.
+     * Nodes of level 0 are single cells. Two nodes are equal when their quadrants are
+     * the same canonical nodes.
+     */
+    private static final class Node {
+
+        final Node nw;
+        final Node ne;
+        final Node sw;
+        final Node se;
+        final int level;
+        final long population;
+        final int hash;
+
+        Node result; //Memoized successor
+        int resultStep; //Base 2 logarithm of the generations result is advanced
+
+        /**
+         * Creates a single cell node.
+         *
+         * @param population 1 if cell is alive, otherwise 0
+         */
+        Node(int population) {
+            nw = ne = sw = se = null;
+            level = 0;
+            this.population = population;
+            hash = population;
+        }
+
+        Node(Node nw, Node ne, Node sw, Node se) {
+            this.nw = nw;
+            this.ne = ne;
+            this.sw = sw;
+            this.se = se;
+            level = nw.level + 1;
+            population = nw.population + ne.population + sw.population + se.population;
+
+            int h = nw.hash;
+            h = h * 1000003 + ne.hash;
+            h = h * 1000003 + sw.hash;
+            h = h * 1000003 + se.hash;
+            hash = h ^ (h >>> 16);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Node)) return false;
+
+            Node other = (Node) o;
+            return nw == other.nw && ne == other.ne && sw == other.sw && se == other.se;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    /**
+     * Thrown to abandon a step that filled the cache. Carries no stack trace, so it is shared.
+     */
+    private static final class CacheFullException extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+        private static final CacheFullException INSTANCE = new CacheFullException();
+
+        private CacheFullException() {
+            super(null, null, false, false);
+        }
+    }
+}
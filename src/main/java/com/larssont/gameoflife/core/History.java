@@ -0,0 +1,340 @@
+package com.larssont.gameoflife.core;
+
+import java.util.Arrays;
+
+/**
+ * Represents the recent generations of a board, so the board can be rewound to any of them.
+ * <p>
+ * Generations are held in a ring buffer, each as the words of 64 cells that differ from the generation
+ * before, so a generation is restored by flipping those words backwards from a later state. Every
+ * keyframe interval, a generation also holds a copy of the whole board, so a restore starts from the next
+ * keyframe and flips at most the words of one interval, however long the history grows. Once the memory
+ * budget is exceeded, the oldest generations are dropped.
+ * <p>
+ * Generations are recorded and restored by one thread, while the range of generations may be read by any thread.
+ */
+public class History {
+
+    private static final int ENTRY_BYTES = 48; //Estimated size of an entry and its array headers
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int[] NO_INDICES = new int[0];
+    private static final long[] NO_FLIPS = new long[0];
+
+    private final long memoryBudget;
+    private final int keyframeInterval;
+
+    private Entry[] ring = new Entry[INITIAL_CAPACITY];
+    private int head; //Position of oldest entry in ring
+    private int size;
+    private long memoryUsage;
+    private volatile long oldestGeneration;
+    private volatile long newestGeneration = -1; //-1 when empty
+
+    private int rows;
+    private int columns;
+    private int wordsPerRow;
+    private long[] current = NO_FLIPS; //Words of newest generation, indexed by row * wordsPerRow + word
+    private int[] changedIndices = new int[INITIAL_CAPACITY]; //Scratch buffers of the words a record changes
+    private long[] changedFlips = new long[INITIAL_CAPACITY];
+
+    /**
+     * Creates an empty history.
+     *
+     * @param memoryBudget     bytes held at most, including one copy of the board, except that
+     *                         the newest generation is always kept
+     * @param keyframeInterval number of generations between copies of the whole board
+     * @throws IllegalArgumentException when memoryBudget or keyframeInterval is not positive.
+     */
+    public History(long memoryBudget, int keyframeInterval) {
+        if (memoryBudget <= 0 || keyframeInterval <= 0) {
+            throw new IllegalArgumentException("Must be set to positive values");
+        }
+        this.memoryBudget = memoryBudget;
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    /**
+     * Records the state of a board. Recording the next generation appends it. Recording a recorded
+     * generation, e.g. after the board was edited or rewound, replaces it and drops all later generations.
+     * Any other generation, or a board of another size, starts the history over.
+     *
+     * @param board      board to record
+     * @param generation generation of board
+     */
+    public void record(BitBoard board, long generation) {
+        if (isEmpty() || board.getRows() != rows || board.getColumns() != columns
+                || generation < oldestGeneration || generation > newestGeneration + 1) {
+            start(board, generation);
+            return;
+        }
+
+        while (newestGeneration > generation) {
+            dropNewest();
+        }
+        int changes = diff(board);
+        if (generation == newestGeneration) { //Edited, so the changes are merged into the newest entry
+            Entry entry = entry(generation);
+            memoryUsage -= entry.bytes();
+            if (generation != oldestGeneration) entry.merge(changedIndices, changedFlips, changes);
+            if (entry.keyframe != null) System.arraycopy(current, 0, entry.keyframe, 0, current.length);
+            memoryUsage += entry.bytes();
+        } else {
+            Entry entry = new Entry(Arrays.copyOf(changedIndices, changes), Arrays.copyOf(changedFlips, changes),
+                    generation % keyframeInterval == 0 ? current.clone() : null);
+            append(entry);
+            newestGeneration = generation;
+        }
+        evict();
+    }
+
+    /**
+     * Restores a recorded generation into a board of the recorded size. The board is left unchanged
+     * when the generation is not recorded.
+     *
+     * @param generation generation to restore
+     * @param board      board to write generation to
+     * @return true if the generation was restored
+     * @throws IllegalArgumentException when board differs in size.
+     */
+    public boolean restore(long generation, BitBoard board) {
+        if (isEmpty() || generation < oldestGeneration || generation > newestGeneration) {
+            return false;
+        }
+        if (board.getRows() != rows || board.getColumns() != columns) {
+            throw new IllegalArgumentException("Boards must be of equal size");
+        }
+
+        long keyframe = (generation + keyframeInterval - 1) / keyframeInterval * keyframeInterval;
+        long[] words;
+        if (keyframe < newestGeneration) {
+            words = entry(keyframe).keyframe.clone();
+        } else {
+            keyframe = newestGeneration;
+            words = current.clone();
+        }
+        for (long g = keyframe; g > generation; g--) {
+            entry(g).flip(words);
+        }
+
+        for (int row = 0; row < rows; row++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                board.setWord(row, w, words[row * wordsPerRow + w]);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Removes all generations.
+     */
+    public void clear() {
+        Arrays.fill(ring, null);
+        head = 0;
+        size = 0;
+        memoryUsage = 0;
+        newestGeneration = -1;
+        oldestGeneration = 0;
+        current = NO_FLIPS;
+    }
+
+    public boolean isEmpty() {
+        return newestGeneration < 0;
+    }
+
+    /**
+     * Returns oldest generation that can be restored.
+     *
+     * @return oldest recorded generation, undefined when empty
+     */
+    public long getOldestGeneration() {
+        return oldestGeneration;
+    }
+
+    /**
+     * Returns newest generation that can be restored.
+     *
+     * @return newest recorded generation, -1 when empty
+     */
+    public long getNewestGeneration() {
+        return newestGeneration;
+    }
+
+    /**
+     * Returns estimated number of bytes held by recorded generations, including the copy of the newest one.
+     *
+     * @return bytes held
+     */
+    public long getMemoryUsage() {
+        return memoryUsage;
+    }
+
+    /**
+     * Starts history over from a board.
+     *
+     * @param board      first board to record
+     * @param generation generation of board
+     */
+    private void start(BitBoard board, long generation) {
+        clear();
+        rows = board.getRows();
+        columns = board.getColumns();
+        wordsPerRow = board.getWordsPerRow();
+        current = new long[rows * wordsPerRow];
+        diff(board);
+        memoryUsage = 8L * current.length;
+
+        append(new Entry(NO_INDICES, NO_FLIPS, generation % keyframeInterval == 0 ? current.clone() : null));
+        oldestGeneration = generation;
+        newestGeneration = generation;
+        evict();
+    }
+
+    /**
+     * Collects words of a board differing from the newest recorded state into the scratch buffers,
+     * and updates the newest state to the board.
+     *
+     * @param board board to compare
+     * @return number of changed words
+     */
+    private int diff(BitBoard board) {
+        int changes = 0;
+        for (int row = 0; row < rows; row++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                int index = row * wordsPerRow + w;
+                long flip = board.getWord(row, w) ^ current[index];
+                if (flip == 0) continue;
+                if (changes == changedIndices.length) {
+                    changedIndices = Arrays.copyOf(changedIndices, changes * 2);
+                    changedFlips = Arrays.copyOf(changedFlips, changes * 2);
+                }
+                changedIndices[changes] = index;
+                changedFlips[changes++] = flip;
+                current[index] ^= flip;
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Appends an entry to the ring, growing it when full.
+     *
+     * @param entry entry of the generation after the newest
+     */
+    private void append(Entry entry) {
+        if (size == ring.length) {
+            Entry[] grown = new Entry[size * 2];
+            for (int i = 0; i < size; i++) {
+                grown[i] = ring[(head + i) % ring.length];
+            }
+            ring = grown;
+            head = 0;
+        }
+        ring[(head + size++) % ring.length] = entry;
+        memoryUsage += entry.bytes();
+    }
+
+    /**
+     * Drops the newest generation, flipping the newest state back to the generation before.
+     */
+    private void dropNewest() {
+        Entry entry = entry(newestGeneration);
+        entry.flip(current);
+        memoryUsage -= entry.bytes();
+        ring[(head + --size) % ring.length] = null;
+        newestGeneration--;
+    }
+
+    /**
+     * Drops the oldest generations until the memory budget is met, keeping the newest generation.
+     * The changes leading to the new oldest generation are dropped too, as nothing is restored before it.
+     */
+    private void evict() {
+        while (memoryUsage > memoryBudget && size > 1) {
+            memoryUsage -= ring[head].bytes();
+            ring[head] = null;
+            head = (head + 1) % ring.length;
+            size--;
+            oldestGeneration++;
+
+            Entry oldest = ring[head];
+            memoryUsage -= oldest.bytes();
+            oldest.indices = NO_INDICES;
+            oldest.flips = NO_FLIPS;
+            memoryUsage += oldest.bytes();
+        }
+    }
+
+    /**
+     * Returns entry of a recorded generation.
+     *
+     * @param generation recorded generation
+     * @return entry of generation
+     */
+    private Entry entry(long generation) {
+        return ring[(int) ((head + generation - oldestGeneration) % ring.length)];
+    }
+
+    /**
+     * Generation recorded as the words that changed since the generation before.
+     */
+    private static final class Entry {
+        private int[] indices; //Row * wordsPerRow + word of changed words, ascending
+        private long[] flips; //Cells that changed in every word
+        private final long[] keyframe; //Copy of the whole board, null unless at a keyframe interval
+
+        private Entry(int[] indices, long[] flips, long[] keyframe) {
+            this.indices = indices;
+            this.flips = flips;
+            this.keyframe = keyframe;
+        }
+
+        /**
+         * Flips changed words, turning the state of this generation into the one before.
+         *
+         * @param words words of the board
+         */
+        private void flip(long[] words) {
+            for (int i = 0; i < indices.length; i++) {
+                words[indices[i]] ^= flips[i];
+            }
+        }
+
+        /**
+         * Merges further changes of the same generation. Words flipped back cancel out.
+         *
+         * @param otherIndices indices of further changed words, ascending
+         * @param otherFlips   cells changed in every word
+         * @param count        number of further changed words
+         */
+        private void merge(int[] otherIndices, long[] otherFlips, int count) {
+            int[] mergedIndices = new int[indices.length + count];
+            long[] mergedFlips = new long[mergedIndices.length];
+            int merged = 0;
+            int i = 0;
+            int j = 0;
+            while (i < indices.length || j < count) {
+                int index;
+                long flip;
+                if (j == count || (i < indices.length && indices[i] < otherIndices[j])) {
+                    index = indices[i];
+                    flip = flips[i++];
+                } else if (i == indices.length || otherIndices[j] < indices[i]) {
+                    index = otherIndices[j];
+                    flip = otherFlips[j++];
+                } else {
+                    index = indices[i];
+                    flip = flips[i++] ^ otherFlips[j++];
+                }
+                if (flip == 0) continue;
+                mergedIndices[merged] = index;
+                mergedFlips[merged++] = flip;
+            }
+            indices = Arrays.copyOf(mergedIndices, merged);
+            flips = Arrays.copyOf(mergedFlips, merged);
+        }
+
+        private long bytes() {
+            return ENTRY_BYTES + 12L * indices.length + (keyframe != null ? 8L * keyframe.length : 0);
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.larssont.gameoflife.core;
+
+/**
+ * Computes words of packed rows for rules with radius 1 and selects the {@link RowKernel} to use.
+ * The scalar kernel computes one word at a time and is always available, the Vector API kernel
+ * is loaded only when the {@code jdk.incubator.vector} module is present.
+ */
+final class Kernels {
+
+    private static final int MAX_NEIGHBOURS = 8; //Highest neighbour count with a radius of 1
+    private static final String VECTOR_MODULE = "jdk.incubator.vector";
+    private static final String VECTOR_KERNEL = "com.larssont.gameoflife.core.VectorKernel";
+    private static final RowKernel VECTOR = loadVectorKernel(); //Null when the Vector API is unavailable
+
+    private Kernels() {
+    }
+
+    /**
+     * Returns the Vector API kernel.
+     *
+     * @return kernel, or null if the Vector API is unavailable
+     */
+    static RowKernel vector() {
+        return VECTOR;
+    }
+
+    /**
+     * Computes next generation of a single word.
+     * Neighbour counts are kept in four bit planes and summed 64 cells at a time
+     * with full and half adders, then matched against the rule masks.
+     *
+     * @param cells       buffer holding the current generation
+     * @param north       index of word above
+     * @param middle      index of word
+     * @param south       index of word below
+     * @param bornMask    neighbour counts required for birth
+     * @param surviveMask neighbour counts required for survival
+     * @return next generation of word, bits past the last column not masked
+     */
+    static long nextWord(long[] cells, int north, int middle, int south, int bornMask, int surviveMask) {
+        long n = cells[north];
+        long c = cells[middle];
+        long s = cells[south];
+
+        long nw = (n << 1) | (cells[north - 1] >>> 63);
+        long ne = (n >>> 1) | (cells[north + 1] << 63);
+        long we = (c << 1) | (cells[middle - 1] >>> 63);
+        long ea = (c >>> 1) | (cells[middle + 1] << 63);
+        long sw = (s << 1) | (cells[south - 1] >>> 63);
+        long se = (s >>> 1) | (cells[south + 1] << 63);
+
+        //Three full adders and a half adder sum the eight neighbours into bit planes
+        long x1 = nw ^ n;
+        long s1 = x1 ^ ne;
+        long c1 = (nw & n) | (ne & x1);
+        long x2 = we ^ ea;
+        long s2 = x2 ^ sw;
+        long c2 = (we & ea) | (sw & x2);
+        long s3 = s ^ se;
+        long c3 = s & se;
+
+        long x4 = s1 ^ s2;
+        long bit0 = x4 ^ s3;
+        long k1 = (s1 & s2) | (s3 & x4);
+
+        long x5 = c1 ^ c2;
+        long t = x5 ^ c3;
+        long k2a = (c1 & c2) | (c3 & x5);
+        long bit1 = t ^ k1;
+        long k2b = t & k1;
+
+        long bit2 = k2a ^ k2b;
+        long bit3 = k2a & k2b;
+
+        long result = 0;
+        for (int count = 0; count <= MAX_NEIGHBOURS; count++) {
+            int bit = 1 << count;
+            if (((bornMask | surviveMask) & bit) == 0) continue;
+
+            long equal = ((count & 1) != 0 ? bit0 : ~bit0)
+                    & ((count & 2) != 0 ? bit1 : ~bit1)
+                    & ((count & 4) != 0 ? bit2 : ~bit2)
+                    & ((count & 8) != 0 ? bit3 : ~bit3);
+
+            if ((bornMask & bit) != 0) result |= equal & ~c;
+            if ((surviveMask & bit) != 0) result |= equal & c;
+        }
+        return result;
+    }
+
+    /**
+     * Computes next generation of the words of a row from a kernel, or one word at a time without one.
+     *
+     * @param kernel      kernel computing leading words, or null
+     * @param cells       current buffer
+     * @param next        next buffer
+     * @param north       index of first word of row above
+     * @param middle      index of first word of row
+     * @param south       index of first word of row below
+     * @param words       number of words in row
+     * @param bornMask    neighbour counts required for birth
+     * @param surviveMask neighbour counts required for survival
+     */
+    static void stepRow(RowKernel kernel, long[] cells, long[] next, int north, int middle, int south,
+                        int words, int bornMask, int surviveMask) {
+        int computed = kernel != null ? kernel.step(cells, next, north, middle, south, words, bornMask, surviveMask) : 0;
+        for (int w = computed; w < words; w++) {
+            next[middle + w] = nextWord(cells, north + w, middle + w, south + w, bornMask, surviveMask);
+        }
+    }
+
+    /**
+     * Loads the Vector API row kernel if the {@code jdk.incubator.vector} module is present.
+     *
+     * @return loaded kernel, or null if the module or kernel is unavailable
+     */
+    private static RowKernel loadVectorKernel() {
+        if (!ModuleLayer.boot().findModule(VECTOR_MODULE).isPresent()) {
+            return null;
+        }
+        try {
+            return (RowKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
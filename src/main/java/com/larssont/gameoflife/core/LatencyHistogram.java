@@ -0,0 +1,121 @@
+package com.larssont.gameoflife.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in buckets of powers of two nanoseconds.
+ * Recording is lock-free and allocation-free, so it can stay on in production.
+ * Percentiles are estimated as the upper bound of their bucket, within a factor of two.
+ */
+public class LatencyHistogram {
+
+    private static final int BUCKETS = 64; //Bucket b holds latencies below 2^b nanoseconds
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLong max = new AtomicLong();
+
+    /**
+     * Records a latency.
+     *
+     * @param nanos latency in nanoseconds, negative values are recorded as 0
+     */
+    public void record(long nanos) {
+        record(nanos, 1);
+    }
+
+    /**
+     * Records a number of equal latencies, e.g. the mean latency of several operations timed together.
+     *
+     * @param nanos latency in nanoseconds, negative values are recorded as 0
+     * @param times number of times to record latency
+     */
+    public void record(long nanos, int times) {
+        long value = Math.max(nanos, 0);
+        counts.addAndGet(bucket(value), times);
+        count.addAndGet(times);
+        total.addAndGet(value * times);
+
+        long current;
+        while ((current = max.get()) < value && !max.compareAndSet(current, value)) {
+            //Retry until max is at least value
+        }
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public long getMaxNanos() {
+        return max.get();
+    }
+
+    /**
+     * Returns mean of recorded latencies.
+     *
+     * @return mean in nanoseconds, 0 if none were recorded
+     */
+    public double getMeanNanos() {
+        long n = count.get();
+        return n == 0 ? 0 : (double) total.get() / n;
+    }
+
+    /**
+     * Estimates a percentile of recorded latencies.
+     *
+     * @param percentile percentile between 0 and 100
+     * @return upper bound of the bucket holding the percentile in nanoseconds, 0 if none were recorded
+     * @throws IllegalArgumentException when percentile is outside of 0 to 100.
+     */
+    public long getPercentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Must be set to value between 0 and 100");
+        }
+        long n = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            n += counts.get(b);
+        }
+        long rank = (long) Math.ceil(percentile / 100 * n);
+
+        long seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            seen += counts.get(b);
+            if (seen >= rank && seen > 0) {
+                return Math.min(b == 63 ? Long.MAX_VALUE : 1L << b, max.get());
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns number of latencies recorded per bucket, where bucket b holds latencies
+     * from 2^(b-1) up to 2^b nanoseconds.
+     *
+     * @return copy of bucket counts
+     */
+    public long[] getBuckets() {
+        long[] buckets = new long[BUCKETS];
+        for (int b = 0; b < BUCKETS; b++) {
+            buckets[b] = counts.get(b);
+        }
+        return buckets;
+    }
+
+    /**
+     * Forgets all recorded latencies.
+     */
+    public void reset() {
+        for (int b = 0; b < BUCKETS; b++) {
+            counts.set(b, 0);
+        }
+        count.set(0);
+        total.set(0);
+        max.set(0);
+    }
+
+    private static int bucket(long nanos) {
+        return Math.min(64 - Long.numberOfLeadingZeros(nanos), BUCKETS - 1);
+    }
+}
@@ -0,0 +1,181 @@
+package com.larssont.gameoflife.core;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Set of primitive longs using open addressing with linear probing.
+ * Keys are stored unboxed in a single array, which grows with the number of keys.
+ * {@link #EMPTY} marks free slots and can not be added.
+ */
+final class LongHashSet {
+
+    static final long EMPTY = Long.MIN_VALUE; //Marks a free slot
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int mask; //Capacity - 1, capacity is a power of two
+    private int size;
+
+    /**
+     * Creates an empty set.
+     *
+     * @param expectedSize number of keys to make room for
+     */
+    LongHashSet(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Returns true if set contains key.
+     *
+     * @param key key to look for
+     * @return true if key is in set, otherwise false
+     */
+    boolean contains(long key) {
+        return keys[slot(key)] == key;
+    }
+
+    /**
+     * Adds key to set.
+     *
+     * @param key key to add, must not be {@link #EMPTY}
+     * @return true if key was added, false if already in set
+     */
+    boolean add(long key) {
+        int slot = slot(key);
+        if (keys[slot] == key) {
+            return false;
+        }
+        keys[slot] = key;
+        if (++size > keys.length >> 1) {
+            rehash(keys.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Removes key from set. Keys probed past the freed slot are shifted back,
+     * so lookups never need tombstones.
+     *
+     * @param key key to remove
+     * @return true if key was removed, false if not in set
+     */
+    boolean remove(long key) {
+        int gap = slot(key);
+        if (keys[gap] != key) {
+            return false;
+        }
+
+        for (int i = (gap + 1) & mask; keys[i] != EMPTY; i = (i + 1) & mask) {
+            int home = hash(keys[i]) & mask;
+            if (((i - home) & mask) >= ((i - gap) & mask)) { //Home of key is not between gap and slot
+                keys[gap] = keys[i];
+                gap = i;
+            }
+        }
+        keys[gap] = EMPTY;
+        size--;
+        return true;
+    }
+
+    /**
+     * Removes all keys. Storage is shrunk if it is much larger than needed for expectedSize keys,
+     * so memory follows the number of keys rather than its peak.
+     *
+     * @param expectedSize number of keys to make room for
+     */
+    void clear(int expectedSize) {
+        int capacity = capacityFor(expectedSize);
+        if (keys.length > capacity << 2) {
+            allocate(capacity);
+        } else {
+            Arrays.fill(keys, EMPTY);
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns key held in a slot, so keys can be visited by looping over all slots up to {@link #capacity()}.
+     *
+     * @param slot slot index, below capacity
+     * @return key in slot, {@link #EMPTY} if slot is free
+     */
+    long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Performs action for every key in set, in no particular order.
+     *
+     * @param action action receiving each key
+     */
+    void forEach(LongConsumer action) {
+        for (long key : keys) {
+            if (key != EMPTY) action.accept(key);
+        }
+    }
+
+    /**
+     * Finds slot holding key, or the free slot where it would be added.
+     *
+     * @param key key to look for
+     * @return slot index
+     */
+    private int slot(long key) {
+        int i = hash(key) & mask;
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void rehash(int capacity) {
+        long[] old = keys;
+        allocate(capacity);
+        for (long key : old) {
+            if (key != EMPTY) keys[slot(key)] = key;
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Returns power of two capacity keeping expectedSize keys at most half full.
+     *
+     * @param expectedSize number of keys
+     * @return capacity
+     */
+    static int capacityFor(int expectedSize) {
+        long capacity = Long.highestOneBit(Math.max((long) expectedSize * 2, MIN_CAPACITY) * 2 - 1);
+        if (capacity > 1 << 30) {
+            throw new IllegalStateException("Too many keys: " + expectedSize);
+        }
+        return (int) capacity;
+    }
+
+    /**
+     * Mixes all bits of key, so clustered coordinates spread evenly over slots.
+     *
+     * @param key key to hash
+     * @return hash of key
+     */
+    static int hash(long key) {
+        key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (int) (key ^ (key >>> 33));
+    }
+}
@@ -0,0 +1,144 @@
+package com.larssont.gameoflife.core;
+
+import java.util.Arrays;
+
+/**
+ * Map from primitive longs to primitive ints using open addressing with linear probing.
+ * Keys and values are stored unboxed in parallel arrays, which grow with the number of keys.
+ * Absent keys map to 0. Entries can not be removed, only cleared all at once.
+ */
+final class LongIntHashMap {
+
+    private long[] keys;
+    private int[] values;
+    private int mask; //Capacity - 1, capacity is a power of two
+    private int size;
+
+    /**
+     * Creates an empty map.
+     *
+     * @param expectedSize number of keys to make room for
+     */
+    LongIntHashMap(int expectedSize) {
+        allocate(LongHashSet.capacityFor(expectedSize));
+    }
+
+    int size() {
+        return size;
+    }
+
+    int capacity() {
+        return keys.length;
+    }
+
+    /**
+     * Returns value of key.
+     *
+     * @param key key to look up
+     * @return value of key, 0 if absent
+     */
+    int get(long key) {
+        int slot = slot(key);
+        return keys[slot] == key ? values[slot] : 0;
+    }
+
+    /**
+     * Adds delta to value of key, inserting key with value delta if absent.
+     *
+     * @param key   key to update, must not be {@link LongHashSet#EMPTY}
+     * @param delta amount to add
+     */
+    void addTo(long key, int delta) {
+        int slot = slot(key);
+        if (keys[slot] == key) {
+            values[slot] += delta;
+            return;
+        }
+        keys[slot] = key;
+        values[slot] = delta;
+        if (++size > keys.length >> 1) {
+            rehash(keys.length << 1);
+        }
+    }
+
+    /**
+     * Removes all entries. Storage is shrunk if it is much larger than needed for expectedSize keys.
+     *
+     * @param expectedSize number of keys to make room for
+     */
+    void clear(int expectedSize) {
+        int capacity = LongHashSet.capacityFor(expectedSize);
+        if (keys.length > capacity << 2) {
+            allocate(capacity);
+        } else {
+            Arrays.fill(keys, LongHashSet.EMPTY);
+        }
+        size = 0;
+    }
+
+    /**
+     * Returns key held in a slot, so entries can be visited by looping over all slots up to {@link #capacity()}.
+     *
+     * @param slot slot index, below capacity
+     * @return key in slot, {@link LongHashSet#EMPTY} if slot is free
+     */
+    long keyAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Returns value held in a slot.
+     *
+     * @param slot slot index of a key, below capacity
+     * @return value in slot
+     */
+    int valueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Performs action for every entry in map, in no particular order.
+     *
+     * @param action action receiving each key and value
+     */
+    void forEach(EntryConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != LongHashSet.EMPTY) action.accept(keys[i], values[i]);
+        }
+    }
+
+    private int slot(long key) {
+        int i = LongHashSet.hash(key) & mask;
+        while (keys[i] != LongHashSet.EMPTY && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == LongHashSet.EMPTY) continue;
+            int slot = slot(oldKeys[i]);
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, LongHashSet.EMPTY);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Receives entries of a map without boxing.
+     */
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(long key, int value);
+    }
+}
@@ -0,0 +1,44 @@
+package com.larssont.gameoflife.core;
+
+import java.util.Locale;
+
+/**
+ * File formats of patterns.
+ */
+public enum PatternFormat {
+
+    /**
+     * Run length encoded cells with a header of size and rule, e.g. {@code x = 3, y = 1, rule = B3/S23 3o!}.
+     */
+    RLE,
+
+    /**
+     * Header {@code #Life 1.06} followed by one line of "column row" for every alive cell.
+     */
+    LIFE_106,
+
+    /**
+     * One line of characters per row, 'O' or '*' for alive cells, with comment lines starting with '!'.
+     */
+    PLAINTEXT;
+
+    /**
+     * Returns format of a pattern file by its extension.
+     *
+     * @param fileName name of pattern file
+     * @return format, or null if extension is not recognized
+     */
+    public static PatternFormat fromFileName(String fileName) {
+        String name = fileName.toLowerCase(Locale.ROOT);
+        if (name.endsWith(".rle")) {
+            return RLE;
+        }
+        if (name.endsWith(".lif") || name.endsWith(".life")) {
+            return LIFE_106;
+        }
+        if (name.endsWith(".cells") || name.endsWith(".txt")) {
+            return PLAINTEXT;
+        }
+        return null;
+    }
+}
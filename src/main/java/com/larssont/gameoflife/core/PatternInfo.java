@@ -0,0 +1,83 @@
+package com.larssont.gameoflife.core;
+
+/**
+ * Describes a pattern that has been read.
+ */
+public final class PatternInfo {
+
+    private final PatternFormat format;
+    private final String rule; //Rule given by pattern, null if none
+    private final long top;
+    private final long left;
+    private final long rows;
+    private final long columns;
+    private final long population;
+
+    PatternInfo(PatternFormat format, String rule, long top, long left, long rows, long columns, long population) {
+        this.format = format;
+        this.rule = rule;
+        this.top = top;
+        this.left = left;
+        this.rows = rows;
+        this.columns = columns;
+        this.population = population;
+    }
+
+    public PatternFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Returns rule given by the pattern.
+     *
+     * @return rule in any notation accepted by {@link Rule#parse(String)}, or null if none was given
+     */
+    public String getRule() {
+        return rule;
+    }
+
+    /**
+     * Returns top row of the pattern. Only Life 1.06 patterns can have cells above row 0.
+     *
+     * @return top row
+     */
+    public long getTop() {
+        return top;
+    }
+
+    /**
+     * Returns left column of the pattern. Only Life 1.06 patterns can have cells left of column 0.
+     *
+     * @return left column
+     */
+    public long getLeft() {
+        return left;
+    }
+
+    /**
+     * Returns number of rows of the pattern, as declared by its header or spanned by its lines or cells.
+     *
+     * @return number of rows
+     */
+    public long getRows() {
+        return rows;
+    }
+
+    /**
+     * Returns number of columns of the pattern, as declared by its header or spanned by its lines or cells.
+     *
+     * @return number of columns
+     */
+    public long getColumns() {
+        return columns;
+    }
+
+    /**
+     * Returns number of alive cells read.
+     *
+     * @return number of alive cells
+     */
+    public long getPopulation() {
+        return population;
+    }
+}
@@ -0,0 +1,434 @@
+package com.larssont.gameoflife.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads RLE, Life 1.06 and plaintext patterns as a stream of bytes, passing alive cells
+ * straight to a {@link PatternSink}. No strings or cells are created for the body of a pattern,
+ * so memory use does not depend on the size of the file. Files are memory-mapped one region at a time.
+ * <p>
+ * The header of an RLE pattern declares its size, so it can be read first with {@link #readHeader()}
+ * to allocate a board before the cells are read onto it.
+ */
+public class PatternReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16; //Bytes read from a stream at a time
+    private static final long REGION_SIZE = 1L << 26; //Bytes of a file mapped at a time
+    private static final int MAX_LINE_LENGTH = 1024; //Characters kept of header and comment lines
+
+    private final PatternFormat format; //Format to read, null to detect from content
+    private final InputStream in; //Null when reading a file
+    private final FileChannel channel; //Null when reading a stream
+    private long mapped; //Bytes of file mapped so far
+
+    private ByteBuffer buffer = ByteBuffer.allocate(0);
+    private long line = 1; //Line of the next byte, for error messages
+
+    private PatternFormat detected; //Format being read, null until the header was read
+    private String rule; //Rule given by header, null if none
+    private long rows = -1; //Rows declared by header, -1 if none
+    private long columns = -1; //Columns declared by header, -1 if none
+
+    /**
+     * Creates reader of a pattern file. The format is taken from the file extension,
+     * or detected from the content if the extension is not recognized.
+     *
+     * @param path pattern file
+     * @throws IOException when file can not be opened.
+     */
+    public PatternReader(Path path) throws IOException {
+        format = PatternFormat.fromFileName(path.getFileName().toString());
+        in = null;
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+    }
+
+    /**
+     * Creates reader of a pattern stream.
+     *
+     * @param in     stream to read
+     * @param format format of pattern, null to detect from content
+     */
+    public PatternReader(InputStream in, PatternFormat format) {
+        this.format = format;
+        this.in = in;
+        channel = null;
+    }
+
+    /**
+     * Detects format and reads header of pattern, unless already read, so its size is known before its cells.
+     * Only RLE patterns have a header declaring their size.
+     *
+     * @return description of pattern as declared by its header, with rows and columns of -1 if not declared
+     *         and a population of 0
+     * @throws IOException when pattern can not be read or its header is malformed.
+     */
+    public PatternInfo readHeader() throws IOException {
+        if (detected == null) {
+            String firstLine = null;
+            detected = format;
+            if (detected == null) {
+                int first = peek();
+                if (first == '#') {
+                    firstLine = readLine();
+                    detected = firstLine.startsWith("#Life 1.06") ? PatternFormat.LIFE_106 : PatternFormat.RLE;
+                } else {
+                    detected = first == 'x' ? PatternFormat.RLE : PatternFormat.PLAINTEXT;
+                }
+            }
+            if (detected == PatternFormat.RLE) {
+                readRleHeader(firstLine);
+            }
+        }
+        return new PatternInfo(detected, rule, 0, 0, rows, columns, 0);
+    }
+
+    /**
+     * Reads pattern, passing every alive cell to sink. The header is read first unless already read.
+     *
+     * @param sink sink receiving alive cells
+     * @return description of pattern
+     * @throws IOException when pattern can not be read or is malformed.
+     */
+    public PatternInfo read(PatternSink sink) throws IOException {
+        readHeader();
+        switch (detected) {
+            case RLE:
+                return readRle(sink);
+            case LIFE_106:
+                return readLife106(sink);
+            default:
+                return readPlaintext(sink);
+        }
+    }
+
+    /**
+     * Reads pattern centered on a board. Patterns declaring their size in a header are streamed straight
+     * onto the board, others are held as alive cells on a {@link SparseBoard} until their size is known.
+     * Cells falling outside of the board are left out.
+     *
+     * @param board board to place pattern on
+     * @return description of pattern
+     * @throws IOException when pattern can not be read or is malformed.
+     */
+    public PatternInfo readCentered(BitBoard board) throws IOException {
+        PatternInfo header = readHeader();
+        if (header.getRows() >= 0 && header.getColumns() >= 0) {
+            return read(PatternSink.of(board, (board.getRows() - header.getRows()) / 2,
+                    (board.getColumns() - header.getColumns()) / 2));
+        }
+
+        SparseBoard pattern = new SparseBoard();
+        PatternInfo info = read(PatternSink.of(pattern, 0, 0));
+        pattern.copyTo(board, info.getTop() - (board.getRows() - info.getRows()) / 2,
+                info.getLeft() - (board.getColumns() - info.getColumns()) / 2);
+        return info;
+    }
+
+    /**
+     * Reads comment lines and header of an RLE pattern, up to its body.
+     * Everything after {@code rule =} is the rule, as rules of larger radii contain commas themselves.
+     *
+     * @param firstLine header or comment line already read, null if none
+     */
+    private void readRleHeader(String firstLine) throws IOException {
+        String header = firstLine;
+        while (true) {
+            if (header == null) {
+                skipWhitespace();
+                if (peek() != '#' && peek() != 'x') break;
+                header = readLine();
+            }
+            if (header.startsWith("#r")) {
+                rule = header.substring(2).trim();
+            } else if (header.startsWith("x")) {
+                int start = 0; //Start of field within header
+                for (String field : header.split(",")) {
+                    String[] pair = field.split("=", 2);
+                    if (pair.length != 2) throw malformed("RLE header", header);
+                    String key = pair[0].trim();
+                    String value = pair[1].trim();
+                    if (key.equals("rule")) {
+                        rule = header.substring(start + field.indexOf('=') + 1).trim();
+                        break;
+                    }
+                    if (key.equals("x")) columns = parseLong(value, header);
+                    if (key.equals("y")) rows = parseLong(value, header);
+                    start += field.length() + 1;
+                }
+                break;
+            }
+            header = null;
+        }
+    }
+
+    /**
+     * Reads body of an RLE pattern. Runs of alive cells are passed to sink at once,
+     * and must end within the width declared by the header, if any.
+     *
+     * @param sink sink receiving alive cells
+     * @return description of pattern
+     */
+    private PatternInfo readRle(PatternSink sink) throws IOException {
+        long row = 0;
+        long col = 0;
+        long count = 0; //Run count being parsed, 0 if none
+        long width = 0;
+        long population = 0;
+        int c;
+        while ((c = next()) != -1 && c != '!') {
+            if (c >= '0' && c <= '9') {
+                if (count > (Long.MAX_VALUE - 9) / 10) throw malformed("run count", String.valueOf(count));
+                count = count * 10 + c - '0';
+                continue;
+            }
+            if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+                continue;
+            }
+
+            long run = count == 0 ? 1 : count;
+            count = 0;
+            if (c == 'b' || c == '.') {
+                col += run;
+            } else if (c == 'o' || (c >= 'A' && c <= 'X')) {
+                if (columns >= 0 && run > columns - col) {
+                    throw new IOException("Run of " + run + " cells beyond width of RLE pattern at line " + line);
+                }
+                sink.setRun(row, col, run);
+                col += run;
+                population += run;
+                width = Math.max(width, col);
+            } else if (c == '$') {
+                row += run;
+                col = 0;
+            } else {
+                throw new IOException("Unexpected character '" + (char) c + "' in RLE pattern at line " + line);
+            }
+        }
+
+        return new PatternInfo(PatternFormat.RLE, rule, 0, 0,
+                rows >= 0 ? rows : row + 1, columns >= 0 ? columns : width, population);
+    }
+
+    /**
+     * Reads Life 1.06 pattern.
+     *
+     * @param sink sink receiving alive cells
+     * @return description of pattern
+     */
+    private PatternInfo readLife106(PatternSink sink) throws IOException {
+        long top = Long.MAX_VALUE;
+        long left = Long.MAX_VALUE;
+        long bottom = Long.MIN_VALUE;
+        long right = Long.MIN_VALUE;
+        long population = 0;
+
+        while (true) {
+            skipWhitespace();
+            int c = peek();
+            if (c == -1) break;
+            if (c == '#') {
+                skipLine();
+                continue;
+            }
+
+            long column = readLong();
+            skipSpaces();
+            long row = readLong();
+            sink.setAlive(row, column);
+
+            top = Math.min(top, row);
+            left = Math.min(left, column);
+            bottom = Math.max(bottom, row);
+            right = Math.max(right, column);
+            population++;
+        }
+
+        if (population == 0) {
+            return new PatternInfo(PatternFormat.LIFE_106, null, 0, 0, 0, 0, 0);
+        }
+        return new PatternInfo(PatternFormat.LIFE_106, null, top, left, bottom - top + 1, right - left + 1, population);
+    }
+
+    /**
+     * Reads plaintext pattern.
+     *
+     * @param sink sink receiving alive cells
+     * @return description of pattern
+     */
+    private PatternInfo readPlaintext(PatternSink sink) throws IOException {
+        long row = 0;
+        long col = 0;
+        long width = 0;
+        long population = 0;
+        boolean lineStart = true;
+
+        int c;
+        while ((c = next()) != -1) {
+            if (lineStart && c == '!') {
+                skipLine();
+                continue;
+            }
+            if (c == '\n') {
+                row++;
+                col = 0;
+                lineStart = true;
+                continue;
+            }
+            if (c == '\r') {
+                continue;
+            }
+
+            lineStart = false;
+            if (c == 'O' || c == '*') {
+                sink.setAlive(row, col);
+                population++;
+            }
+            width = Math.max(width, ++col);
+        }
+
+        return new PatternInfo(PatternFormat.PLAINTEXT, null, 0, 0, lineStart ? row : row + 1, width, population);
+    }
+
+    /**
+     * Reads a signed decimal number.
+     *
+     * @return number read
+     */
+    private long readLong() throws IOException {
+        boolean negative = peek() == '-';
+        if (negative || peek() == '+') next();
+
+        int c = peek();
+        if (c < '0' || c > '9') {
+            throw new IOException("Expected number at line " + line);
+        }
+        long value = 0;
+        while ((c = peek()) >= '0' && c <= '9') {
+            if (value > (Long.MAX_VALUE - 9) / 10) throw new IOException("Number too large at line " + line);
+            value = value * 10 + next() - '0';
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Reads rest of current line, keeping at most MAX_LINE_LENGTH characters.
+     *
+     * @return line without line terminator
+     */
+    private String readLine() throws IOException {
+        StringBuilder builder = new StringBuilder();
+        int c;
+        while ((c = next()) != -1 && c != '\n') {
+            if (c != '\r' && builder.length() < MAX_LINE_LENGTH) builder.append((char) c);
+        }
+        return builder.toString();
+    }
+
+    private void skipLine() throws IOException {
+        int c;
+        do {
+            c = next();
+        } while (c != -1 && c != '\n');
+    }
+
+    private void skipWhitespace() throws IOException {
+        int c;
+        while ((c = peek()) == ' ' || c == '\t' || c == '\r' || c == '\n') {
+            next();
+        }
+    }
+
+    private void skipSpaces() throws IOException {
+        int c;
+        while ((c = peek()) == ' ' || c == '\t') {
+            next();
+        }
+    }
+
+    private IOException malformed(String what, String value) {
+        return new IOException("Malformed " + what + " at line " + (line - 1) + ": " + value);
+    }
+
+    private long parseLong(String value, String header) throws IOException {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw malformed("RLE header", header);
+        }
+    }
+
+    /**
+     * Returns next byte without consuming it.
+     *
+     * @return next byte, or -1 at end of pattern
+     */
+    private int peek() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        return buffer.get(buffer.position()) & 0xFF;
+    }
+
+    /**
+     * Consumes next byte.
+     *
+     * @return next byte, or -1 at end of pattern
+     */
+    private int next() throws IOException {
+        if (!buffer.hasRemaining() && !fill()) {
+            return -1;
+        }
+        int c = buffer.get() & 0xFF;
+        if (c == '\n') line++;
+        return c;
+    }
+
+    /**
+     * Replaces buffer with the next region of the file or the next bytes of the stream.
+     *
+     * @return false at end of pattern
+     */
+    private boolean fill() throws IOException {
+        if (channel != null) {
+            long size = channel.size();
+            if (mapped >= size) {
+                return false;
+            }
+            long length = Math.min(REGION_SIZE, size - mapped);
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapped, length);
+            mapped += length;
+            return true;
+        }
+
+        byte[] bytes = buffer.capacity() == BUFFER_SIZE ? buffer.array() : new byte[BUFFER_SIZE];
+        int n;
+        do {
+            n = in.read(bytes);
+        } while (n == 0);
+        if (n < 0) {
+            return false;
+        }
+        buffer = ByteBuffer.wrap(bytes, 0, n);
+        return true;
+    }
+
+    /**
+     * Closes file or stream being read.
+     *
+     * @throws IOException when closing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        } else {
+            in.close();
+        }
+    }
+}
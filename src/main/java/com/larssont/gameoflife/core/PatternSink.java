@@ -0,0 +1,99 @@
+package com.larssont.gameoflife.core;
+
+/**
+ * Receives alive cells of a pattern as it is read, so they are written straight into board storage.
+ */
+@FunctionalInterface
+public interface PatternSink {
+
+    /**
+     * Sets cell at given position of the pattern alive.
+     *
+     * @param row    row position of cell within pattern
+     * @param column column position of cell within pattern
+     */
+    void setAlive(long row, long column);
+
+    /**
+     * Sets a run of cells of a row alive, one cell at a time unless the sink fills runs at once.
+     *
+     * @param row    row position of cells within pattern
+     * @param column column position of first cell within pattern
+     * @param length number of cells
+     */
+    default void setRun(long row, long column, long length) {
+        for (long i = 0; i < length; i++) {
+            setAlive(row, column + i);
+        }
+    }
+
+    /**
+     * Creates sink placing pattern on a packed board. Cells falling outside of the board are left out,
+     * and runs are clipped to the board and filled 64 cells at a time.
+     *
+     * @param board board to place pattern on
+     * @param top   row of board to place pattern row 0 at
+     * @param left  column of board to place pattern column 0 at
+     * @return created sink
+     */
+    static PatternSink of(BitBoard board, long top, long left) {
+        return new PatternSink() {
+            @Override
+            public void setAlive(long row, long column) {
+                long r = top + row;
+                long c = left + column;
+                if (r >= 0 && r < board.getRows() && c >= 0 && c < board.getColumns()) {
+                    board.setAlive((int) r, (int) c, true);
+                }
+            }
+
+            @Override
+            public void setRun(long row, long column, long length) {
+                long r = top + row;
+                long start = left + column;
+                long from = Math.max(start, 0);
+                long to = length > board.getColumns() - start ? board.getColumns() : start + length; //Exclusive, without overflow
+                if (r < 0 || r >= board.getRows() || from >= to) {
+                    return;
+                }
+                for (int w = (int) (from >>> 6); w <= (int) ((to - 1) >>> 6); w++) {
+                    long mask = -1L;
+                    if (w == from >>> 6) mask &= -1L << (from & 63);
+                    if (w == (to - 1) >>> 6) mask &= -1L >>> (63 - ((to - 1) & 63));
+                    board.setWord((int) r, w, board.getWord((int) r, w) | mask);
+                }
+            }
+        };
+    }
+
+    /**
+     * Creates sink placing pattern on an unbounded plane. Cells falling outside of the plane are left out.
+     *
+     * @param plane plane to place pattern on
+     * @param top   row of plane to place pattern row 0 at
+     * @param left  column of plane to place pattern column 0 at
+     * @return created sink
+     */
+    static PatternSink of(SparseBoard plane, long top, long left) {
+        return (row, column) -> {
+            long r = top + row;
+            long c = left + column;
+            if (r >= SparseBoard.MIN_COORDINATE && r <= SparseBoard.MAX_COORDINATE
+                    && c >= SparseBoard.MIN_COORDINATE && c <= SparseBoard.MAX_COORDINATE) {
+                plane.setAlive(r, c, true);
+            }
+        };
+    }
+
+    /**
+     * Creates sink placing pattern on a HashLife board, which grows as needed.
+     *
+     * @param hashLife board to place pattern on
+     * @param top      row to place pattern row 0 at
+     * @param left     column to place pattern column 0 at
+     * @return created sink
+     */
+    static PatternSink of(HashLife hashLife, long top, long left) {
+        return (row, column) -> hashLife.setAlive(top + row, left + column, true);
+    }
+}
@@ -0,0 +1,264 @@
+package com.larssont.gameoflife.core;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes boards as RLE, Life 1.06 or plaintext patterns. Rows are encoded
+ * a word of cells at a time into a byte buffer, without creating strings per row or cell.
+ * Patterns may also be written row by row, so boards never need to be held as a whole.
+ */
+public class PatternWriter implements Closeable {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int MAX_RLE_LINE_LENGTH = 70; //Longest line of an RLE body, as recommended by the format
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int length; //Bytes in buffer
+    private int lineLength; //Characters on current line of an RLE body
+    private PatternFormat format; //Format of pattern being written
+    private int columns; //Columns of pattern being written
+    private long row; //Row of pattern written next
+    private long pendingRows; //Row ends of an RLE body not yet written
+
+    /**
+     * Creates writer to a stream.
+     *
+     * @param out stream to write to
+     */
+    public PatternWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Writes board as a pattern and flushes the stream.
+     *
+     * @param board  board to write
+     * @param format format to write in
+     * @param rule   rule to include in RLE header, null to leave out
+     * @throws IOException when writing fails.
+     */
+    public void write(BitBoard board, PatternFormat format, Rule rule) throws IOException {
+        begin(format, board.getRows(), board.getColumns(), rule);
+        long[] words = new long[board.getWordsPerRow()];
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int word = 0; word < words.length; word++) {
+                words[word] = board.getWord(row, word);
+            }
+            writeRow(words);
+        }
+        end();
+    }
+
+    /**
+     * Starts writing a pattern row by row, for boards that are never held as a whole.
+     * Every row is then written by {@link #writeRow(long[])}, followed by {@link #end()}.
+     *
+     * @param format  format to write in
+     * @param rows    number of rows of pattern
+     * @param columns number of columns of pattern
+     * @param rule    rule to include in RLE header, null to leave out
+     * @throws IOException when writing fails.
+     */
+    public void begin(PatternFormat format, int rows, int columns, Rule rule) throws IOException {
+        this.format = format;
+        this.columns = columns;
+        row = 0;
+        pendingRows = 0;
+        lineLength = 0;
+        if (format == PatternFormat.RLE) {
+            write("x = " + columns + ", y = " + rows + (rule != null ? ", rule = " + rule : "") + "\n");
+        } else if (format == PatternFormat.LIFE_106) {
+            write("#Life 1.06\n");
+        }
+    }
+
+    /**
+     * Writes the next row of a pattern started by {@link #begin(PatternFormat, int, int, Rule)}.
+     *
+     * @param words cells of row, 64 cells per word. Bits beyond the last column must be dead.
+     * @throws IOException when writing fails.
+     */
+    public void writeRow(long[] words) throws IOException {
+        switch (format) {
+            case RLE:
+                writeRleRow(words);
+                break;
+            case LIFE_106:
+                writeLife106Row(words);
+                break;
+            default:
+                writePlaintextRow(words);
+        }
+        row++;
+    }
+
+    /**
+     * Ends a pattern started by {@link #begin(PatternFormat, int, int, Rule)} and flushes the stream.
+     *
+     * @throws IOException when writing fails.
+     */
+    public void end() throws IOException {
+        if (format == PatternFormat.RLE) {
+            writeByte('!');
+            writeByte('\n');
+        }
+        flush();
+    }
+
+    /**
+     * Writes row as RLE. Dead cells at the end of rows and empty rows at the end are left out.
+     *
+     * @param words cells of row
+     */
+    private void writeRleRow(long[] words) throws IOException {
+        long run = 0; //Length of current run of equal cells
+        boolean runAlive = false;
+
+        for (int word = 0; word < words.length; word++) {
+            long cells = words[word];
+            int bits = Math.min(64, columns - word * 64);
+            int bit = 0;
+            while (bit < bits) {
+                long rest = cells >>> bit;
+                int n = Math.min(Long.numberOfTrailingZeros(runAlive ? ~rest : rest), bits - bit);
+                run += n;
+                bit += n;
+                if (bit < bits) { //Run ends within word
+                    if (pendingRows > 0) {
+                        writeRun(pendingRows, '$');
+                        pendingRows = 0;
+                    }
+                    writeRun(run, runAlive ? 'o' : 'b');
+                    run = 0;
+                    runAlive = !runAlive;
+                }
+            }
+        }
+        if (runAlive) {
+            if (pendingRows > 0) {
+                writeRun(pendingRows, '$');
+                pendingRows = 0;
+            }
+            writeRun(run, 'o');
+        }
+        pendingRows++;
+    }
+
+    /**
+     * Writes a run of equal tags, wrapping lines at MAX_RLE_LINE_LENGTH.
+     *
+     * @param count number of tags, nothing is written if 0
+     * @param tag   tag to write
+     */
+    private void writeRun(long count, char tag) throws IOException {
+        if (count == 0) {
+            return;
+        }
+        if (length > BUFFER_SIZE - 32) { //Keeps run and line break within buffer
+            drain();
+        }
+        int start = length;
+        if (count > 1) writeNumber(count);
+        writeByte(tag);
+
+        int runLength = length - start;
+        if (lineLength + runLength > MAX_RLE_LINE_LENGTH) {
+            System.arraycopy(buffer, start, buffer, start + 1, runLength);
+            buffer[start] = '\n';
+            length++;
+            lineLength = 0;
+        }
+        lineLength += runLength;
+    }
+
+    /**
+     * Writes row as Life 1.06, one line of "column row" per alive cell.
+     *
+     * @param words cells of row
+     */
+    private void writeLife106Row(long[] words) throws IOException {
+        for (int word = 0; word < words.length; word++) {
+            long cells = words[word];
+            while (cells != 0) {
+                writeNumber(word * 64L + Long.numberOfTrailingZeros(cells));
+                writeByte(' ');
+                writeNumber(row);
+                writeByte('\n');
+                cells &= cells - 1;
+            }
+        }
+    }
+
+    /**
+     * Writes row as plaintext, 'O' for alive and '.' for dead cells.
+     *
+     * @param words cells of row
+     */
+    private void writePlaintextRow(long[] words) throws IOException {
+        for (int word = 0; word < words.length; word++) {
+            long cells = words[word];
+            int end = Math.min(64, columns - word * 64);
+            for (int bit = 0; bit < end; bit++) {
+                writeByte((cells & (1L << bit)) != 0 ? 'O' : '.');
+            }
+        }
+        writeByte('\n');
+    }
+
+    private void write(String text) throws IOException {
+        for (byte b : text.getBytes(StandardCharsets.US_ASCII)) {
+            writeByte(b);
+        }
+    }
+
+    private void writeNumber(long number) throws IOException {
+        if (number < 0) {
+            writeByte('-');
+            number = -number;
+        }
+        long divisor = 1;
+        while (divisor <= number / 10) {
+            divisor *= 10;
+        }
+        for (; divisor > 0; divisor /= 10) {
+            writeByte((int) ('0' + number / divisor % 10));
+        }
+    }
+
+    private void writeByte(int b) throws IOException {
+        if (length == BUFFER_SIZE) {
+            drain();
+        }
+        buffer[length++] = (byte) b;
+    }
+
+    private void drain() throws IOException {
+        out.write(buffer, 0, length);
+        length = 0;
+    }
+
+    /**
+     * Writes buffered bytes and flushes the stream.
+     *
+     * @throws IOException when writing fails.
+     */
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    /**
+     * Flushes and closes the stream.
+     *
+     * @throws IOException when writing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+}
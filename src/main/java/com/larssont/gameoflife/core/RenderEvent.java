@@ -0,0 +1,22 @@
+package com.larssont.gameoflife.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of rendering a frame. Its duration is the render time.
+ */
+@Name("com.larssont.gameoflife.Render")
+@Label("Render")
+@Category("Game of Life")
+@Description("Rendering of a published generation")
+@StackTrace(false)
+public final class RenderEvent extends Event {
+
+    @Label("Generation")
+    long generation;
+}
@@ -0,0 +1,26 @@
+package com.larssont.gameoflife.core;
+
+/**
+ * Computes next generation of the leading words of a packed row for rules with radius 1.
+ * Implemented by kernels that are loaded only when the platform supports them,
+ * {@link Kernels} computes the remaining words one at a time.
+ */
+interface RowKernel {
+
+    /**
+     * Computes next generation of leading words of a row into the next buffer, without masking
+     * bits past the last column. Words at offsets -1 and words of the row must be readable
+     * in all three rows.
+     *
+     * @param cells       current buffer
+     * @param next        next buffer
+     * @param north       index of first word of row above
+     * @param middle      index of first word of row
+     * @param south       index of first word of row below
+     * @param words       number of words in row
+     * @param bornMask    neighbour counts required for birth
+     * @param surviveMask neighbour counts required for survival
+     * @return number of leading words computed
+     */
+    int step(long[] cells, long[] next, int north, int middle, int south, int words, int bornMask, int surviveMask);
+}
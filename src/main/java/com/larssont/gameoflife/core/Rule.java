@@ -0,0 +1,398 @@
+package com.larssont.gameoflife.core;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Represents a compiled rule of the game: a neighbour radius along with
+ * the neighbour counts required for birth and survival.
+ * Conditions are stored as lookup tables indexed by neighbour count.
+ * Rules can be parsed from strings such as {@code B3/S23} or {@code R5,B34-45,S33-57}.
+ * Radii are limited to {@link #MAX_RADIUS}, as tables hold one entry per reachable neighbour count.
+ */
+public final class Rule {
+
+    public static final int MAX_RADIUS = 1000; //Keeps lookup tables within a few megabytes, 4 million entries each
+    public static final Rule CONWAY = new Rule(1, new int[]{3}, new int[]{2, 3});
+
+    private final int radius;
+    private final boolean[] born; //born[n] is true if n neighbours give birth
+    private final boolean[] survive; //survive[n] is true if n neighbours give survival
+    private final int bornMask; //Bit n set if born[n], for n below 32
+    private final int surviveMask; //Bit n set if survive[n], for n below 32
+
+    /**
+     * Creates a rule. Neighbour counts that can not be reached with given radius are left out.
+     *
+     * @param radius             radius for cells to be considered neighbours
+     * @param bornConditions     number of neighbours required for birth
+     * @param surviveConditions  number of neighbours required for survival
+     * @throws IllegalArgumentException when radius is not positive or above {@link #MAX_RADIUS},
+     *                                  or conditions contain negative integers.
+     */
+    public Rule(int radius, int[] bornConditions, int[] surviveConditions) {
+        if (radius <= 0) {
+            throw new IllegalArgumentException("Radius must be set to positive value");
+        }
+        if (radius > MAX_RADIUS) {
+            throw new IllegalArgumentException("Radius must not be above " + MAX_RADIUS);
+        }
+        this.radius = radius;
+
+        int maxNeighbours = maxNeighbours(radius);
+        born = toTable(bornConditions, maxNeighbours);
+        survive = toTable(surviveConditions, maxNeighbours);
+        bornMask = toMask(born);
+        surviveMask = toMask(survive);
+    }
+
+    /**
+     * Parses a rule string. Accepts the B/S notation, e.g. {@code B36/S23},
+     * where each digit is a neighbour count, and the comma separated notation for
+     * larger neighbourhoods, e.g. {@code R5,B34-45,S33-57}, where counts and ranges
+     * follow the letter of their condition. {@code C0}, {@code C2}, {@code M0} and {@code NM}
+     * are accepted in the comma separated notation for compatibility.
+     *
+     * @param rule rule string
+     * @return parsed rule
+     * @throws IllegalArgumentException when rule string is malformed, holds a range ending below its start
+     *                                  or a radius above {@link #MAX_RADIUS}.
+     */
+    public static Rule parse(String rule) {
+        String trimmed = rule.trim().toUpperCase(Locale.ROOT);
+
+        if (trimmed.indexOf(',') < 0 && !trimmed.startsWith("R")) {
+            return parseSlashNotation(trimmed);
+        }
+        return parseCommaNotation(trimmed);
+    }
+
+    /**
+     * Parses rule string in B/S notation.
+     *
+     * @param rule upper case rule string
+     * @return parsed rule
+     */
+    private static Rule parseSlashNotation(String rule) {
+        String[] parts = rule.split("/", -1);
+        if (parts.length != 2 || !parts[0].startsWith("B") || !parts[1].startsWith("S")) {
+            throw new IllegalArgumentException("Malformed rule: " + rule);
+        }
+        return new Rule(1, parseDigits(parts[0].substring(1)), parseDigits(parts[1].substring(1)));
+    }
+
+    /**
+     * Parses rule string in comma separated notation.
+     *
+     * @param rule upper case rule string
+     * @return parsed rule
+     */
+    private static Rule parseCommaNotation(String rule) {
+        int radius = 1;
+        StringBuilder born = new StringBuilder();
+        StringBuilder survive = new StringBuilder();
+        StringBuilder section = null;
+
+        for (String token : rule.split(",")) {
+            token = token.trim();
+            if (token.isEmpty()) {
+                throw new IllegalArgumentException("Malformed rule: " + rule);
+            }
+
+            char letter = token.charAt(0);
+            if (isDigit(letter)) {
+                if (section == null) {
+                    throw new IllegalArgumentException("Malformed rule: " + rule);
+                }
+                section.append(',').append(token);
+                continue;
+            }
+
+            String value = token.substring(1);
+            switch (letter) {
+                case 'R':
+                    radius = parseInt(value, rule);
+                    section = null;
+                    break;
+                case 'C':
+                    int states = parseInt(value, rule);
+                    if (states != 0 && states != 2) {
+                        throw new IllegalArgumentException("Only rules with two states are supported: " + rule);
+                    }
+                    section = null;
+                    break;
+                case 'M':
+                    if (parseInt(value, rule) != 0) {
+                        throw new IllegalArgumentException("Only rules excluding the middle cell are supported: " + rule);
+                    }
+                    section = null;
+                    break;
+                case 'N':
+                    if (!value.equals("M")) {
+                        throw new IllegalArgumentException("Only the Moore neighbourhood is supported: " + rule);
+                    }
+                    section = null;
+                    break;
+                case 'B':
+                    section = born;
+                    if (!value.isEmpty()) section.append(',').append(value);
+                    break;
+                case 'S':
+                    section = survive;
+                    if (!value.isEmpty()) section.append(',').append(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Malformed rule: " + rule);
+            }
+        }
+        if (radius <= 0 || radius > MAX_RADIUS) {
+            throw new IllegalArgumentException("Radius must be between 1 and " + MAX_RADIUS + ": " + rule);
+        }
+
+        int maxNeighbours = maxNeighbours(radius);
+        return new Rule(radius, parseRanges(born.toString(), rule, maxNeighbours),
+                parseRanges(survive.toString(), rule, maxNeighbours));
+    }
+
+    /**
+     * Parses a string of digits, each digit being a neighbour count.
+     *
+     * @param digits string of digits
+     * @return neighbour counts
+     */
+    private static int[] parseDigits(String digits) {
+        int[] counts = new int[digits.length()];
+        for (int i = 0; i < digits.length(); i++) {
+            char c = digits.charAt(i);
+            if (!isDigit(c)) {
+                throw new IllegalArgumentException("Malformed neighbour counts: " + digits);
+            }
+            counts[i] = c - '0';
+        }
+        return counts;
+    }
+
+    /**
+     * Parses comma separated counts and ranges, e.g. {@code ,3,5-7,9..10}.
+     * Ranges are cut off at the highest reachable neighbour count.
+     * Ranges ending below their start are rejected rather than read as empty.
+     *
+     * @param ranges        comma separated counts and ranges
+     * @param rule          full rule string, for error messages
+     * @param maxNeighbours highest reachable neighbour count
+     * @return neighbour counts
+     * @throws IllegalArgumentException when a range is malformed or ends below its start.
+     */
+    private static int[] parseRanges(String ranges, String rule, int maxNeighbours) {
+        int[] counts = new int[0];
+        for (String range : ranges.split(",")) {
+            if (range.isEmpty()) continue;
+
+            String[] bounds = range.split("-|\\.\\.", -1);
+            if (bounds.length > 2) {
+                throw new IllegalArgumentException("Malformed rule: " + rule);
+            }
+            int from = parseInt(bounds[0], rule);
+            int to = bounds.length == 2 ? parseInt(bounds[1], rule) : from;
+            if (to < from) {
+                throw new IllegalArgumentException("Range must not end below its start: " + range + " in " + rule);
+            }
+            to = Math.min(to, maxNeighbours);
+
+            int offset = counts.length;
+            counts = Arrays.copyOf(counts, offset + Math.max(0, to - from + 1));
+            for (int n = from; n <= to; n++) {
+                counts[offset + n - from] = n;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Parses a non-negative integer.
+     *
+     * @param value string to parse
+     * @param rule  full rule string, for error messages
+     * @return parsed integer
+     */
+    private static int parseInt(String value, String rule) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!isDigit(value.charAt(i))) { //Integer.parseInt also accepts signs and digits of other scripts
+                throw new IllegalArgumentException("Malformed rule: " + rule);
+            }
+        }
+        try {
+            int num = Integer.parseInt(value);
+            if (num < 0) {
+                throw new IllegalArgumentException("Malformed rule: " + rule);
+            }
+            return num;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed rule: " + rule, e);
+        }
+    }
+
+    /**
+     * Returns true if a character is an ASCII digit. Digits of other scripts are not,
+     * as neighbour counts are computed from their distance to '0'.
+     *
+     * @param c character to check
+     * @return true if c is from '0' to '9', otherwise false
+     */
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    /**
+     * Returns highest reachable neighbour count for a radius.
+     *
+     * @param radius radius for cells to be considered neighbours
+     * @return number of cells in neighbourhood, excluding the middle cell
+     */
+    private static int maxNeighbours(int radius) {
+        return (2 * radius + 1) * (2 * radius + 1) - 1;
+    }
+
+    /**
+     * Converts array of neighbour counts to a lookup table.
+     *
+     * @param conditions    neighbour counts
+     * @param maxNeighbours highest reachable neighbour count
+     * @return table where index n is true if conditions contain n
+     */
+    private static boolean[] toTable(int[] conditions, int maxNeighbours) {
+        boolean[] table = new boolean[maxNeighbours + 1];
+        for (int num : conditions) {
+            if (num < 0) {
+                throw new IllegalArgumentException("Must only contain array of non-negative integers.");
+            }
+            if (num <= maxNeighbours) table[num] = true;
+        }
+        return table;
+    }
+
+    /**
+     * Converts lookup table to a bitmask of its first 32 entries.
+     *
+     * @param table lookup table
+     * @return bitmask where bit n is set if table[n] is true
+     */
+    private static int toMask(boolean[] table) {
+        int mask = 0;
+        for (int n = 0; n < Math.min(table.length, 32); n++) {
+            if (table[n]) mask |= 1 << n;
+        }
+        return mask;
+    }
+
+    public int getRadius() {
+        return radius;
+    }
+
+    /**
+     * Returns bitmask of neighbour counts required for birth, where bit n is set if n neighbours give birth.
+     * Only meaningful for rules with radius 1.
+     *
+     * @return bitmask of neighbour counts
+     */
+    public int getBornMask() {
+        return bornMask;
+    }
+
+    /**
+     * Returns bitmask of neighbour counts required for survival, where bit n is set if n neighbours give survival.
+     * Only meaningful for rules with radius 1.
+     *
+     * @return bitmask of neighbour counts
+     */
+    public int getSurviveMask() {
+        return surviveMask;
+    }
+
+    public int[] getBornConditions() {
+        return toConditions(born);
+    }
+
+    public int[] getSurviveConditions() {
+        return toConditions(survive);
+    }
+
+    /**
+     * Returns next alive state for a cell.
+     *
+     * @param alive      current alive state
+     * @param neighbours number of alive neighbours, at most the highest reachable count
+     * @return true if cell is alive in the next generation, otherwise false
+     */
+    public boolean next(boolean alive, int neighbours) {
+        return alive ? survive[neighbours] : born[neighbours];
+    }
+
+    /**
+     * Converts lookup table to array of neighbour counts.
+     *
+     * @param table lookup table
+     * @return neighbour counts in ascending order
+     */
+    private static int[] toConditions(boolean[] table) {
+        int[] conditions = new int[table.length];
+        int size = 0;
+        for (int n = 0; n < table.length; n++) {
+            if (table[n]) conditions[size++] = n;
+        }
+        return Arrays.copyOf(conditions, size);
+    }
+
+    /**
+     * Formats neighbour counts, compressing consecutive counts into ranges.
+     *
+     * @param table lookup table
+     * @return comma separated counts and ranges
+     */
+    private static String formatRanges(boolean[] table) {
+        StringBuilder sb = new StringBuilder();
+        for (int n = 0; n < table.length; n++) {
+            if (!table[n]) continue;
+
+            int end = n;
+            while (end + 1 < table.length && table[end + 1]) end++;
+
+            if (sb.length() > 0) sb.append(',');
+            sb.append(n);
+            if (end > n) sb.append('-').append(end);
+            n = end;
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Rule)) return false;
+
+        Rule other = (Rule) o;
+        return radius == other.radius && Arrays.equals(born, other.born) && Arrays.equals(survive, other.survive);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * radius + Arrays.hashCode(born)) + Arrays.hashCode(survive);
+    }
+
+    /**
+     * Formats rule in B/S notation when radius is 1, otherwise in comma separated notation.
+     *
+     * @return rule string that can be parsed by {@link #parse(String)}
+     */
+    @Override
+    public String toString() {
+        if (radius == 1) {
+            StringBuilder sb = new StringBuilder("B");
+            for (int n : getBornConditions()) sb.append(n);
+            sb.append("/S");
+            for (int n : getSurviveConditions()) sb.append(n);
+            return sb.toString();
+        }
+        return "R" + radius + ",B" + formatRanges(born) + ",S" + formatRanges(survive);
+    }
+}
@@ -0,0 +1,823 @@
+package com.larssont.gameoflife.core;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Runs a game on a board in a background thread, decoupled from rendering.
+ * Generations are stepped as fast as possible or at a target rate. Frames are
+ * published through a triple buffer: the latest generation is copied only once the
+ * previous frame has been taken, so generations in between are skipped rather than
+ * slowing the simulation down. Edits to the board are queued and applied between steps.
+ * Renderers showing only part of a large bounded board set a window, so frames copy only the cells
+ * within it, along with the tile populations and the tiles whose population changed since the previous frame.
+ * <p>
+ * Cells are stepped by an {@link Engine} and shown through a board acting as a view of its plane.
+ * Frames show the plane at the position of the view, and edits apply to the view and are written back.
+ * Bounded boards shown whole are edited in place instead.
+ * Views of unbounded planes can be panned, while bounded boards are simulated in place by a {@link DenseEngine}
+ * and shown whole. History, checkpoints and export require a bounded board.
+ * <p>
+ * Changes can also be subscribed to, as one {@link BoardDiff} of changed words per generation.
+ * The board tracks changes only while there are subscribers. Bounded boards shown whole track their
+ * own changes, so they are drained without copying the board.
+ */
+public class Simulation {
+
+    private static final long IDLE_WAIT_MILLIS = 10; //Time to wait while paused, until a frame can be published
+
+    private final Game game;
+    private final Engine engine; //Engine simulating the plane, or a bounded board in place
+    private final BitBoard board; //View of the plane, edited and tracked for subscribers
+    private final AtomicLong view = new AtomicLong(); //Packed top left position of view on plane
+    private volatile long[] window; //Top, left, bottom and right of region copied to frames, null for all
+    private final BlockingQueue<Consumer<BitBoard>> edits = new LinkedBlockingQueue<>();
+
+    private final AtomicReference<Frame> ready; //Frame shared between threads
+    private final AtomicBoolean published = new AtomicBoolean(); //True while ready holds a frame not yet taken
+    private Frame writing; //Frame owned by simulation thread
+    private Frame reading; //Frame owned by consumer
+    private int[] publishedTiles = new int[0]; //Tile populations of the last published frame, owned by simulation thread
+    private long frames; //Frames published, owned by simulation thread
+
+    private final Thread thread;
+    private volatile boolean running;
+    private volatile boolean closed;
+    private volatile double targetRate; //Generations per second, 0 when unlimited
+
+    private volatile long generation;
+    private volatile long droppedFrames; //Generations never published as a frame
+
+    private volatile CheckpointWriter checkpoints; //Null when not checkpointing
+    private volatile long checkpointInterval;
+
+    private volatile FrameExporter exporter; //Null when not exporting
+    private volatile long exportInterval;
+
+    private volatile History history; //Null when not recording history
+    private final AtomicReference<LongUnaryOperator> seek = new AtomicReference<>(); //Generation to rewind to, null if none
+
+    private volatile CycleDetector cycleDetector; //Null when not detecting cycles
+    private volatile CycleDetector.Cycle cycle; //Cycle that paused the simulation, null if none
+    private boolean edited; //Board was edited since last step, owned by simulation thread
+
+    private final List<DiffSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Queue<DiffSubscription> joining = new ConcurrentLinkedQueue<>(); //Subscriptions yet to receive the whole board
+    private final BoardDiff changes = new BoardDiff(); //Changes of the board since the last drain, owned by simulation thread
+    private long drainedGeneration; //Generation of the last drain, owned by simulation thread
+
+    /**
+     * Creates a paused simulation, to be started with {@link #start()}. Once started, the board must only
+     * be accessed through {@link #submit(Consumer)} and frames. The board takes the topology of the game.
+     *
+     * @param game  game to update board with
+     * @param board board to simulate
+     * @throws IllegalArgumentException when the topology of the board is infinite.
+     */
+    public Simulation(Game game, BitBoard board) {
+        this(game, board, 0);
+    }
+
+    /**
+     * Creates a paused simulation continuing from a given generation, e.g. of a restored checkpoint,
+     * to be started with {@link #start()}. Once started, the board must only be accessed through
+     * {@link #submit(Consumer)} and frames. The board takes the topology of the game.
+     *
+     * @param game       game to update board with
+     * @param board      board to simulate
+     * @param generation generation of board
+     * @throws IllegalArgumentException when the topology of the board is infinite.
+     */
+    public Simulation(Game game, BitBoard board, long generation) {
+        this(game, new DenseEngine(board), board.getRows(), board.getColumns(), generation);
+    }
+
+    /**
+     * Creates a paused simulation of the plane of an engine, shown through a view of given size,
+     * to be started with {@link #start()}. Once started, the plane must only be accessed through
+     * {@link #submit(Consumer)} and frames.
+     *
+     * @param game    game to update plane with
+     * @param plane   plane to simulate
+     * @param rows    number of rows in view
+     * @param columns number of columns in view
+     */
+    public Simulation(Game game, Engine plane, int rows, int columns) {
+        this(game, plane, rows, columns, 0);
+    }
+
+    /**
+     * Creates a paused simulation of the plane of an engine continuing from a given generation,
+     * shown through a view of given size, to be started with {@link #start()}.
+     * Views of bounded engines should have the size of their board.
+     * Once started, the plane must only be accessed through {@link #submit(Consumer)} and frames.
+     *
+     * @param game       game to update plane with
+     * @param plane      plane to simulate
+     * @param rows       number of rows in view
+     * @param columns    number of columns in view
+     * @param generation generation of plane
+     */
+    public Simulation(Game game, Engine plane, int rows, int columns, long generation) {
+        this.game = game;
+        this.engine = plane;
+        this.board = new BitBoard(rows, columns);
+        this.generation = generation;
+
+        writing = new Frame(board.getRows(), board.getColumns());
+        reading = new Frame(board.getRows(), board.getColumns());
+        ready = new AtomicReference<>(new Frame(board.getRows(), board.getColumns()));
+
+        thread = new Thread(this::run, "simulation");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Starts simulation thread, which publishes frames and applies edits, while generations are only
+     * stepped once playing. Settings may be changed before and after starting.
+     *
+     * @throws IllegalStateException when simulation was already started.
+     */
+    public void start() {
+        if (thread.getState() != Thread.State.NEW) {
+            throw new IllegalStateException("Simulation was already started");
+        }
+        thread.start();
+    }
+
+    /**
+     * Starts stepping generations.
+     */
+    public void play() {
+        cycle = null;
+        running = true;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Stops stepping generations after the current step.
+     */
+    public void pause() {
+        running = false;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Stops simulation thread permanently.
+     */
+    public void close() {
+        closed = true;
+        running = false;
+        thread.interrupt();
+    }
+
+    /**
+     * Sets target rate of generations per second.
+     *
+     * @param targetRate generations per second, 0 to step as fast as possible
+     * @throws IllegalArgumentException when targetRate is negative.
+     */
+    public void setTargetRate(double targetRate) {
+        if (targetRate < 0) {
+            throw new IllegalArgumentException("Must be set to non-negative value");
+        }
+        this.targetRate = targetRate;
+        LockSupport.unpark(thread);
+    }
+
+    public double getTargetRate() {
+        return targetRate;
+    }
+
+    /**
+     * Returns number of generations stepped.
+     *
+     * @return current generation
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns number of generations that were stepped but never published as a frame.
+     *
+     * @return number of dropped frames
+     */
+    public long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * Sets writer to pass generations to, which writes them as checkpoints in the background.
+     * Generations are skipped if the writer falls behind. Checkpointing stops if writing fails,
+     * the failure is reported when the writer is closed. Has no effect when simulating an unbounded plane.
+     *
+     * @param checkpoints writer of checkpoints, null to stop checkpointing
+     * @param interval    number of generations between checkpointed generations
+     * @throws IllegalArgumentException when interval is not positive.
+     */
+    public void setCheckpoints(CheckpointWriter checkpoints, long interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Must be set to positive value");
+        }
+        checkpointInterval = interval;
+        this.checkpoints = checkpoints;
+    }
+
+    /**
+     * Sets exporter to pass generations to, which exports them as images in the background.
+     * Generations are skipped if the exporter falls behind, so the simulation never waits for it.
+     * Exporting stops if it fails, the failure is reported when the exporter is closed.
+     * Has no effect when simulating an unbounded plane.
+     *
+     * @param exporter exporter of generations, null to stop exporting
+     * @param interval number of generations between exported generations
+     * @throws IllegalArgumentException when interval is not positive.
+     */
+    public void setExporter(FrameExporter exporter, long interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Must be set to positive value");
+        }
+        exportInterval = interval;
+        this.exporter = exporter;
+    }
+
+    /**
+     * Sets history to record every generation and edit to, so the board can be rewound.
+     * Has no effect when simulating an unbounded plane.
+     *
+     * @param history history to record to, null to stop recording
+     */
+    public void setHistory(History history) {
+        this.history = history;
+        LockSupport.unpark(thread);
+    }
+
+    public History getHistory() {
+        return history;
+    }
+
+    /**
+     * Pauses and queues a rewind of the board to a generation of the history.
+     * Generations outside of the history rewind to its oldest or newest generation.
+     * Stepping on from a rewound generation, or editing it, drops the later generations of the history.
+     *
+     * @param generation generation to rewind to
+     */
+    public void seek(long generation) {
+        running = false;
+        seek.set(current -> generation);
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Pauses and queues a rewind of the board by one generation, if the history holds it.
+     */
+    public void stepBack() {
+        running = false;
+        seek.set(current -> current - 1);
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Sets detector of cycles. Once the board dies out, settles into a still life or oscillates
+     * within the maximum period of the detector, the simulation pauses and reports the cycle.
+     *
+     * @param cycleDetector detector of cycles, null to stop detecting
+     */
+    public void setCycleDetector(CycleDetector cycleDetector) {
+        this.cycleDetector = cycleDetector;
+    }
+
+    /**
+     * Returns cycle that paused the simulation.
+     *
+     * @return detected cycle, or null if none was detected since the simulation was last played
+     */
+    public CycleDetector.Cycle getCycle() {
+        return cycle;
+    }
+
+    /**
+     * Moves view over the plane. Has no effect when simulating a bounded board.
+     *
+     * @param rows    rows to move view down, negative to move up
+     * @param columns columns to move view right, negative to move left
+     */
+    public void pan(long rows, long columns) {
+        if (engine.getBoard() != null) {
+            return;
+        }
+        view.updateAndGet(position -> SparseBoard.pack(
+                clamp(SparseBoard.row(position) + rows, board.getRows()),
+                clamp(SparseBoard.column(position) + columns, board.getColumns())));
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Sets the region of a bounded board copied to frames, such as the part shown by a zoomed in viewport,
+     * so publishing a frame does not copy the whole board. Frames always hold all tile populations.
+     * A region holding no cells, as when zoomed out to whole tiles per pixel, copies tile populations only.
+     * Has no effect when simulating a plane, whose view is copied whole.
+     *
+     * @param top    first row of region
+     * @param left   first column of region
+     * @param bottom last row of region, exclusive
+     * @param right  last column of region, exclusive
+     */
+    public void setWindow(long top, long left, long bottom, long right) {
+        window = new long[]{top, left, bottom, right};
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Copies the whole view to frames again, as before a window was set.
+     */
+    public void clearWindow() {
+        window = null;
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Returns position of view on the plane.
+     *
+     * @return top row of view, 0 when simulating a bounded board
+     */
+    public long getViewTop() {
+        return SparseBoard.row(view.get());
+    }
+
+    /**
+     * Returns position of view on the plane.
+     *
+     * @return left column of view, 0 when simulating a bounded board
+     */
+    public long getViewLeft() {
+        return SparseBoard.column(view.get());
+    }
+
+    /**
+     * Keeps a view of given size within the coordinate range of the plane.
+     *
+     * @param position top or left position of view
+     * @param size     rows or columns of view
+     * @return clamped position
+     */
+    private static long clamp(long position, int size) {
+        return Math.max(SparseBoard.MIN_COORDINATE, Math.min(position, SparseBoard.MAX_COORDINATE - size + 1));
+    }
+
+    /**
+     * Queues a reset of all cells, including those of the plane outside of the view.
+     */
+    public void reset() {
+        submit(b -> {
+            game.reset(engine);
+            if (b != engine.getBoard()) game.reset(b);
+        });
+    }
+
+    /**
+     * Queues an edit of the board, applied on the simulation thread before the next step.
+     * The edit is applied to the view and written back to the plane, or to a bounded board shown whole.
+     *
+     * @param edit action editing the board
+     */
+    public void submit(Consumer<BitBoard> edit) {
+        edits.add(edit);
+        LockSupport.unpark(thread);
+    }
+
+    /**
+     * Subscribes to the changes of the view.
+     * The first diff lists the whole board, later ones the words changed by each generation or batch of edits.
+     *
+     * @param capacity number of diffs queued at most
+     * @param blocking true to pause the simulation while the queue is full,
+     *                 false to merge diffs of generations the subscriber can not keep up with
+     * @return created subscription, to be closed when no longer needed
+     * @throws IllegalArgumentException when capacity is not positive.
+     */
+    public DiffSubscription subscribe(int capacity, boolean blocking) {
+        DiffSubscription subscription = new DiffSubscription(this, capacity, blocking);
+        joining.add(subscription);
+        LockSupport.unpark(thread);
+        return subscription;
+    }
+
+    /**
+     * Stops publishing diffs to a subscription.
+     *
+     * @param subscription subscription to end
+     */
+    void unsubscribe(DiffSubscription subscription) {
+        joining.remove(subscription);
+        subscriptions.remove(subscription);
+    }
+
+    /**
+     * Takes the latest published frame. The returned frame may be read until the next call.
+     *
+     * @return latest frame, or null if no frame was published since the last call
+     */
+    public Frame pollFrame() {
+        if (!published.getAndSet(false)) {
+            return null;
+        }
+        reading = ready.getAndSet(reading);
+        return reading;
+    }
+
+    /**
+     * Main loop of simulation thread.
+     */
+    private void run() {
+        long nextStep = System.nanoTime();
+        boolean unpublished = true; //Board holds a state not yet published
+        boolean undrained = false; //Board may hold changes not yet published to subscribers
+        long shownView = view.get();
+        long[] shownWindow = window;
+
+        while (!closed) {
+            LongUnaryOperator target = seek.getAndSet(null);
+            if (target != null && rewind(target.applyAsLong(generation))) {
+                unpublished = true;
+                undrained = true;
+                edited = true;
+            }
+            if (!edits.isEmpty()) {
+                applyEdits();
+                record();
+                unpublished = true;
+                undrained = true;
+                edited = true;
+            }
+            if (view.get() != shownView) {
+                shownView = view.get();
+                unpublished = true;
+                undrained = true;
+            }
+            if (window != shownWindow) {
+                shownWindow = window;
+                unpublished = true;
+            }
+
+            if (running) {
+                CycleDetector detector = cycleDetector;
+                if (detector != null && (edited || detector.isEmpty())) {
+                    detector.reset();
+                    detector.add(generation, hash());
+                }
+                edited = false;
+                History recorder = history;
+                if (recorder != null && recorder.getNewestGeneration() != generation) record(); //Recorded from the generation before the first step
+
+                game.update(engine);
+                generation++;
+                if (unpublished) droppedFrames++;
+                unpublished = true;
+                undrained = true;
+                checkpoint();
+                export();
+                record();
+
+                if (detector != null && (cycle = detector.add(generation, hash())) != null) {
+                    running = false;
+                    detector.reset();
+                }
+            }
+
+            if (unpublished && !published.get()) {
+                publish();
+                unpublished = false;
+            }
+            if ((undrained && tracked().isTrackingChanges()) || !joining.isEmpty()) {
+                publishChanges();
+                undrained = false;
+            }
+
+            if (running) {
+                nextStep = pace(nextStep);
+                continue;
+            }
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(IDLE_WAIT_MILLIS));
+            nextStep = System.nanoTime();
+        }
+    }
+
+    /**
+     * Returns hash of the plane.
+     *
+     * @return current hash
+     */
+    private long hash() {
+        return engine.getHash();
+    }
+
+    /**
+     * Records bounded board to the history, if any.
+     */
+    private void record() {
+        History recorder = history;
+        BitBoard bounded = engine.getBoard();
+        if (recorder != null && bounded != null) {
+            recorder.record(bounded, generation);
+        }
+    }
+
+    /**
+     * Restores board to a generation of the history, clamped to the generations it holds.
+     *
+     * @param target generation to rewind to
+     * @return true if board was restored
+     */
+    private boolean rewind(long target) {
+        History recorder = history;
+        BitBoard bounded = engine.getBoard();
+        if (recorder == null || bounded == null || recorder.isEmpty()) {
+            return false;
+        }
+        long restored = Math.max(recorder.getOldestGeneration(), Math.min(target, recorder.getNewestGeneration()));
+        if (restored == generation || !recorder.restore(restored, bounded)) {
+            return false;
+        }
+        generation = restored;
+        return true;
+    }
+
+    /**
+     * Passes bounded board to the checkpoint writer if the current generation is due.
+     */
+    private void checkpoint() {
+        CheckpointWriter writer = checkpoints;
+        BitBoard bounded = engine.getBoard();
+        if (writer == null || bounded == null || generation % checkpointInterval != 0) {
+            return;
+        }
+        try {
+            writer.offer(bounded, generation, game.getRule());
+        } catch (IOException e) {
+            checkpoints = null;
+        }
+    }
+
+    /**
+     * Passes bounded board to the exporter if the current generation is due.
+     */
+    private void export() {
+        FrameExporter frames = exporter;
+        BitBoard bounded = engine.getBoard();
+        if (frames == null || bounded == null || generation % exportInterval != 0) {
+            return;
+        }
+        try {
+            frames.offer(bounded, generation);
+        } catch (IOException e) {
+            exporter = null;
+        }
+    }
+
+    /**
+     * Applies queued edits to the view of the plane and writes it back to the plane.
+     * A bounded board shown whole is edited in place, without copying it to the view and back.
+     */
+    private void applyEdits() {
+        Consumer<BitBoard> edit;
+        BitBoard bounded = shownWhole();
+        if (bounded != null) {
+            while ((edit = edits.poll()) != null) {
+                edit.accept(bounded);
+            }
+            return;
+        }
+
+        long position = view.get();
+        engine.copyTo(board, SparseBoard.row(position), SparseBoard.column(position));
+        while ((edit = edits.poll()) != null) {
+            edit.accept(board);
+        }
+
+        engine.load(board, SparseBoard.row(position), SparseBoard.column(position));
+    }
+
+    /**
+     * Copies the view of the plane, or the window of a bounded board, to the writing frame
+     * and exchanges it with the ready frame.
+     */
+    private void publish() {
+        long position = view.get();
+        BitBoard bounded = shownWhole();
+        long[] region = window;
+        if (bounded != null && region != null) {
+            bounded.copyWindowTo(writing.board, clampWindow(region[0]), clampWindow(region[1]),
+                    clampWindow(region[2]), clampWindow(region[3]));
+        } else {
+            engine.copyTo(writing.board, SparseBoard.row(position), SparseBoard.column(position));
+        }
+        listChangedTiles(writing);
+        writing.top = SparseBoard.row(position);
+        writing.left = SparseBoard.column(position);
+        writing.generation = generation;
+        writing.number = frames++;
+        writing = ready.getAndSet(writing);
+        published.set(true);
+    }
+
+    /**
+     * Lists the tiles of a frame whose population differs from that of the last published frame.
+     *
+     * @param frame frame to list changed tiles of
+     */
+    private void listChangedTiles(Frame frame) {
+        BitBoard shown = frame.board;
+        int words = shown.getWordsPerRow();
+        int tiles = shown.getTileRows() * words;
+        if (publishedTiles.length != tiles) {
+            publishedTiles = new int[tiles];
+        }
+        if (frame.changedTiles.length != tiles) {
+            frame.changedTiles = new int[tiles];
+        }
+
+        int count = 0;
+        for (int tileRow = 0; tileRow < shown.getTileRows(); tileRow++) {
+            for (int w = 0; w < words; w++) {
+                int tile = tileRow * words + w;
+                int population = shown.getTilePopulation(tileRow, w);
+                if (population != publishedTiles[tile]) {
+                    publishedTiles[tile] = population;
+                    frame.changedTiles[count++] = tile;
+                }
+            }
+        }
+        frame.changedTileCount = count;
+    }
+
+    /**
+     * Clamps a position of a window to the range of board positions.
+     *
+     * @param position row or column of window
+     * @return clamped position
+     */
+    private static int clampWindow(long position) {
+        return (int) Math.max(0, Math.min(position, Integer.MAX_VALUE));
+    }
+
+    /**
+     * Returns the bounded board when the view shows it whole, so it can be edited and tracked in place.
+     *
+     * @return bounded board, or null when simulating a plane or part of a board
+     */
+    private BitBoard shownWhole() {
+        BitBoard bounded = engine.getBoard();
+        return bounded != null && bounded.getRows() == board.getRows() && bounded.getColumns() == board.getColumns()
+                ? bounded : null;
+    }
+
+    /**
+     * Returns board whose changes are published to subscribers: the bounded board itself when the view
+     * shows it whole, otherwise the view.
+     *
+     * @return tracked board
+     */
+    private BitBoard tracked() {
+        BitBoard bounded = shownWhole();
+        return bounded != null ? bounded : board;
+    }
+
+    /**
+     * Drains changes of the view of the plane and offers them to subscribers.
+     * Subscriptions that just joined receive the whole board instead.
+     * Stops tracking changes once there are no subscribers.
+     */
+    private void publishChanges() {
+        BitBoard tracked = tracked();
+        if (subscriptions.isEmpty() && joining.isEmpty()) {
+            tracked.setTrackingChanges(false);
+            return;
+        }
+        if (tracked == board) {
+            long position = view.get();
+            engine.copyTo(board, SparseBoard.row(position), SparseBoard.column(position));
+        }
+
+        if (tracked.isTrackingChanges()) {
+            tracked.drainChanges(changes, drainedGeneration, generation);
+            if (changes.size() > 0 || changes.isReset() || drainedGeneration != generation) {
+                for (DiffSubscription subscription : subscriptions) {
+                    subscription.offer(changes);
+                }
+            }
+        } else {
+            tracked.setTrackingChanges(true);
+        }
+        drainedGeneration = generation;
+
+        DiffSubscription subscription;
+        while ((subscription = joining.poll()) != null) {
+            if (subscription.isClosed()) continue;
+            subscription.offer(BoardDiff.of(tracked, generation));
+            subscriptions.add(subscription);
+        }
+    }
+
+    /**
+     * Waits until the next step is due according to the target rate.
+     *
+     * @param nextStep time the step just made was due, in nanoseconds
+     * @return time the next step is due, in nanoseconds
+     */
+    private long pace(long nextStep) {
+        double rate = targetRate;
+        if (rate <= 0) {
+            return System.nanoTime();
+        }
+
+        long period = (long) (1e9 / rate);
+        long now = System.nanoTime();
+        nextStep = Math.max(nextStep + period, now - period); //Do not try to catch up more than one step
+        while (running && !closed && nextStep - System.nanoTime() > 0 && rate == targetRate) {
+            LockSupport.parkNanos(this, nextStep - System.nanoTime());
+        }
+        return nextStep;
+    }
+
+    /**
+     * Represents a published copy of the board.
+     */
+    public static final class Frame {
+
+        private final BitBoard board;
+        private long generation;
+        private long number; //Frames published before this one
+        private long top; //Top row of view on plane
+        private long left; //Left column of view on plane
+        private int[] changedTiles = new int[0]; //Tiles whose population changed since the previous frame
+        private int changedTileCount;
+
+        private Frame(int rows, int columns) {
+            board = new BitBoard(rows, columns);
+        }
+
+        /**
+         * Returns board of frame. When a window is set, only cells within the window, the tile populations
+         * and the population are up to date.
+         *
+         * @return board of frame
+         */
+        public BitBoard getBoard() {
+            return board;
+        }
+
+        /**
+         * Returns number of frames published before this one. Frames are taken in the order they are published,
+         * so changed tiles of consecutive frames add up to all changes.
+         *
+         * @return number of frame
+         */
+        public long getNumber() {
+            return number;
+        }
+
+        public int getChangedTileCount() {
+            return changedTileCount;
+        }
+
+        /**
+         * Returns a tile whose population changed since the previous frame.
+         *
+         * @param i index of changed tile, below {@link #getChangedTileCount()}
+         * @return index of tile, its row of tiles times words per row plus its word
+         */
+        public int getChangedTile(int i) {
+            return changedTiles[i];
+        }
+
+        public long getGeneration() {
+            return generation;
+        }
+
+        public long getTop() {
+            return top;
+        }
+
+        public long getLeft() {
+            return left;
+        }
+    }
+}
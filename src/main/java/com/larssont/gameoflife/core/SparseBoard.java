@@ -0,0 +1,284 @@
+package com.larssont.gameoflife.core;
+
+import java.util.function.LongConsumer;
+
+/**
+ * Board on an effectively unbounded plane, storing only alive cells.
+ * Positions are packed into a single long and kept in a primitive hash set,
+ * so memory grows with the population rather than with the area it spans.
+ * <p>
+ * A step counts neighbours of alive cells in a primitive hash map, so its cost
+ * is proportional to the population times the size of the neighbourhood.
+ * Rows and columns are limited to {@link #MIN_COORDINATE} through {@link #MAX_COORDINATE},
+ * cells that would be born outside of that range are left dead.
+ */
+public class SparseBoard implements Engine {
+
+    public static final long MIN_COORDINATE = -(1L << 30); //Smallest row or column of plane
+    public static final long MAX_COORDINATE = (1L << 30) - 1; //Largest row or column of plane
+
+    private LongHashSet alive = new LongHashSet(0);
+    private LongHashSet next = new LongHashSet(0);
+    private final LongIntHashMap counts = new LongIntHashMap(0); //Twice the neighbour count, plus 1 if alive
+
+    private long generation;
+    private long hash; //XOR of mixed positions of alive cells
+    private int lastBirths; //Cells born in last step
+    private int lastDeaths; //Cells died in last step
+
+    /**
+     * Packs a position into a single long.
+     *
+     * @param row    row position, within coordinate range
+     * @param column column position, within coordinate range
+     * @return packed position
+     */
+    public static long pack(long row, long column) {
+        return (row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns row of a packed position.
+     *
+     * @param position packed position
+     * @return row position
+     */
+    public static long row(long position) {
+        return position >> 32;
+    }
+
+    /**
+     * Returns column of a packed position.
+     *
+     * @param position packed position
+     * @return column position
+     */
+    public static long column(long position) {
+        return (int) position;
+    }
+
+    /**
+     * Returns alive state of cell at given position.
+     *
+     * @param row    row position of cell
+     * @param column column position of cell
+     * @return true if cell is alive, otherwise false
+     */
+    public boolean isAlive(long row, long column) {
+        return contains(row, column) && alive.contains(pack(row, column));
+    }
+
+    /**
+     * Sets alive state of cell at given position.
+     *
+     * @param row    row position of cell
+     * @param column column position of cell
+     * @param alive  new alive state
+     * @throws IndexOutOfBoundsException when position is outside of coordinate range.
+     */
+    public void setAlive(long row, long column, boolean alive) {
+        if (!contains(row, column)) {
+            throw new IndexOutOfBoundsException("Position outside of plane: " + row + ", " + column);
+        }
+        long position = pack(row, column);
+        if (alive ? this.alive.add(position) : this.alive.remove(position)) {
+            hash ^= BitBoard.mix(position);
+        }
+    }
+
+    /**
+     * Returns number of cells born in the last step.
+     *
+     * @return number of births
+     */
+    public long getLastBirths() {
+        return lastBirths;
+    }
+
+    /**
+     * Returns number of cells that died in the last step.
+     *
+     * @return number of deaths
+     */
+    public long getLastDeaths() {
+        return lastDeaths;
+    }
+
+    /**
+     * Returns Zobrist hash of the alive cells, the XOR of a key per alive cell derived from its position.
+     * Planes with equal alive cells have equal hashes.
+     *
+     * @return hash of plane
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Sets all cells dead.
+     */
+    public void clear() {
+        alive.clear(0);
+        generation = 0;
+        hash = 0;
+    }
+
+    /**
+     * Returns number of alive cells.
+     *
+     * @return number of alive cells
+     */
+    public long population() {
+        return alive.size();
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Passes the packed position of every alive cell to an action, in no particular order.
+     *
+     * @param action action accepting packed positions
+     */
+    public void forEachAlive(LongConsumer action) {
+        alive.forEach(action);
+    }
+
+    /**
+     * Returns smallest rectangle containing all alive cells.
+     *
+     * @return top, left, bottom and right position, inclusive, or null if no cell is alive
+     */
+    public long[] getBounds() {
+        if (alive.size() == 0) {
+            return null;
+        }
+        long[] bounds = {MAX_COORDINATE, MAX_COORDINATE, MIN_COORDINATE, MIN_COORDINATE};
+        alive.forEach(position -> {
+            long row = row(position);
+            long column = column(position);
+            bounds[0] = Math.min(bounds[0], row);
+            bounds[1] = Math.min(bounds[1], column);
+            bounds[2] = Math.max(bounds[2], row);
+            bounds[3] = Math.max(bounds[3], column);
+        });
+        return bounds;
+    }
+
+    /**
+     * Replaces region of the plane with the alive state of a packed board. The region has the size of the board.
+     *
+     * @param board packed board to copy from
+     * @param top   top row of region
+     * @param left  left column of region
+     */
+    public void load(BitBoard board, long top, long left) {
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int col = 0; col < board.getColumns(); col++) {
+                if (contains(top + row, left + col)) {
+                    setAlive(top + row, left + col, board.isAlive(row, col));
+                }
+            }
+        }
+    }
+
+    /**
+     * Copies region of the plane to a packed board. The region has the size of the board,
+     * so moving it pans a view over the plane. Only alive cells are visited when the
+     * population is smaller than the region.
+     *
+     * @param board packed board to copy to
+     * @param top   top row of region
+     * @param left  left column of region
+     */
+    public void copyTo(BitBoard board, long top, long left) {
+        board.clear();
+        int rows = board.getRows();
+        int columns = board.getColumns();
+
+        if (alive.size() < (long) rows * columns) {
+            alive.forEach(position -> {
+                long row = row(position) - top;
+                long col = column(position) - left;
+                if (row >= 0 && row < rows && col >= 0 && col < columns) {
+                    board.setAlive((int) row, (int) col, true);
+                }
+            });
+            return;
+        }
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                if (isAlive(top + row, left + col)) board.setAlive(row, col, true);
+            }
+        }
+    }
+
+    /**
+     * Advances plane one generation.
+     *
+     * @param rule rule to apply
+     * @throws IllegalArgumentException when rule gives birth to cells without neighbours,
+     *                                  which would fill the plane.
+     */
+    public void step(Rule rule) {
+        if (rule.next(false, 0)) {
+            throw new IllegalArgumentException("Rules giving birth without neighbours can not be used on an unbounded plane");
+        }
+        int radius = rule.getRadius();
+        int neighbourhood = (2 * radius + 1) * (2 * radius + 1);
+
+        counts.clear((int) Math.min((long) alive.size() * Math.min(neighbourhood, 4), 1 << 28));
+        for (int slot = 0; slot < alive.capacity(); slot++) {
+            long position = alive.keyAt(slot);
+            if (position == LongHashSet.EMPTY) continue;
+            long row = row(position);
+            long column = column(position);
+            counts.addTo(position, 1);
+
+            long top = Math.max(row - radius, MIN_COORDINATE);
+            long bottom = Math.min(row + radius, MAX_COORDINATE);
+            long left = Math.max(column - radius, MIN_COORDINATE);
+            long right = Math.min(column + radius, MAX_COORDINATE);
+            for (long r = top; r <= bottom; r++) {
+                for (long c = left; c <= right; c++) {
+                    if (r != row || c != column) counts.addTo(pack(r, c), 2);
+                }
+            }
+        }
+
+        next.clear(alive.size());
+        long nextHash = 0;
+        int survivors = 0;
+        for (int slot = 0; slot < counts.capacity(); slot++) {
+            long position = counts.keyAt(slot);
+            if (position == LongHashSet.EMPTY) continue;
+            int count = counts.valueAt(slot);
+            if (rule.next((count & 1) != 0, count >>> 1)) {
+                next.add(position);
+                nextHash ^= BitBoard.mix(position);
+                survivors += count & 1;
+            }
+        }
+        hash = nextHash;
+        lastBirths = next.size() - survivors;
+        lastDeaths = alive.size() - survivors;
+
+        LongHashSet swap = alive;
+        alive = next;
+        next = swap;
+        generation++;
+    }
+
+    /**
+     * Returns true if position is within coordinate range.
+     *
+     * @param row    row position
+     * @param column column position
+     * @return true if position is on the plane, otherwise false
+     */
+    private static boolean contains(long row, long column) {
+        return row >= MIN_COORDINATE && row <= MAX_COORDINATE
+                && column >= MIN_COORDINATE && column <= MAX_COORDINATE;
+    }
+}
@@ -0,0 +1,35 @@
+package com.larssont.gameoflife.core;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Flight recorder event of an update of one or more generations. Its duration is the latency of the update.
+ */
+@Name("com.larssont.gameoflife.Tick")
+@Label("Tick")
+@Category("Game of Life")
+@Description("Update of a board to its next generation")
+@StackTrace(false)
+public final class TickEvent extends Event {
+
+    @Label("Generation")
+    long generation;
+
+    @Label("Generations")
+    @Description("Generations advanced by the update")
+    int generations;
+
+    @Label("Births")
+    long births;
+
+    @Label("Deaths")
+    long deaths;
+
+    @Label("Population")
+    long population;
+}
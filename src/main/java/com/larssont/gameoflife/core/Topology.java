@@ -0,0 +1,77 @@
+package com.larssont.gameoflife.core;
+
+import java.util.Locale;
+
+/**
+ * Topologies of a board, deciding which cells neighbour cells on its edges.
+ * Boards pad their cells with halo rows and columns filled according to the topology,
+ * so neighbours are counted without bounds checks.
+ */
+public enum Topology {
+
+    /**
+     * Cells outside of the board are dead.
+     */
+    DEAD,
+
+    /**
+     * Top and bottom edges are joined, as are left and right edges.
+     */
+    TORUS,
+
+    /**
+     * Left and right edges are joined, top and bottom edges are joined with columns reversed.
+     */
+    KLEIN_BOTTLE,
+
+    /**
+     * Board grows whenever alive cells come within the neighbourhood radius of an edge,
+     * so no cell ever reaches the border. Cells outside of the board are dead.
+     */
+    INFINITE;
+
+    /**
+     * Returns true if cells on opposite edges neighbour each other.
+     *
+     * @return true for torus and Klein bottle, otherwise false
+     */
+    public boolean wraps() {
+        return this == TORUS || this == KLEIN_BOTTLE;
+    }
+
+    /**
+     * Returns row or column of board a position refers to, wrapping around as often as needed.
+     * Reversal of columns by a Klein bottle is not applied, see {@link #reflects(long, int)}.
+     *
+     * @param position row or column position, possibly outside of board
+     * @param size     number of rows or columns of board
+     * @return row or column within board, or -1 if position is outside of a board that does not wrap
+     */
+    int wrap(long position, int size) {
+        if (position >= 0 && position < size) return (int) position;
+        return wraps() ? (int) Math.floorMod(position, (long) size) : -1;
+    }
+
+    /**
+     * Returns true if a row position refers to a row of board with columns reversed,
+     * which is the case when crossing top or bottom edge of a Klein bottle an odd number of times.
+     *
+     * @param row  row position, possibly outside of board
+     * @param rows number of rows of board
+     * @return true if columns are reversed, otherwise false
+     */
+    boolean reflects(long row, int rows) {
+        return this == KLEIN_BOTTLE && (Math.floorDiv(row, (long) rows) & 1) != 0;
+    }
+
+    /**
+     * Parses a topology by name, ignoring case and accepting dashes for underscores.
+     *
+     * @param name name such as {@code torus} or {@code klein-bottle}
+     * @return parsed topology
+     * @throws IllegalArgumentException when name is not a topology.
+     */
+    public static Topology parse(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
@@ -0,0 +1,247 @@
+package com.larssont.gameoflife.core;
+
+/**
+ * Represents a zoomable and pannable view of a board, rendered as one shade per screen pixel.
+ * The scale is the base 2 logarithm of cells per pixel, negative when zoomed in.
+ * <p>
+ * Only cells within the view are read, and the work per frame depends on the number of pixels
+ * rather than the size of the board. Zoomed in, every pixel shows a single cell. Zoomed out,
+ * every pixel shows the density of the block of cells it covers: blocks smaller than a tile
+ * are counted from packed words, larger blocks are read from a {@link DensityMap}
+ * kept up to date from the tile populations of the board. Frames of a {@link Simulation} list
+ * their changed tiles, so only those are counted, and need to hold only the cells of {@link #getReadRegion()}.
+ */
+public class Viewport {
+
+    public static final int MIN_SCALE = -5; //Most zoomed in, 32 pixels per cell
+    public static final int MAX_SCALE = 30; //Most zoomed out
+    public static final int OUTSIDE = -1; //Shade of pixels outside of board
+    public static final int MAX_SHADE = 255; //Shade of pixels that are entirely alive
+    private static final int MIN_SHADE = 64; //Lowest shade of pixels holding alive cells, so sparse regions stay visible
+    private static final int TILE_SCALE = 6; //Scale at which a pixel covers a whole tile
+    private static final int FRACTION = -MIN_SCALE; //Bits of the view position below a cell, so the view pans by single pixels
+
+    private final int width;
+    private final int height;
+    private final DensityMap densityMap = new DensityMap();
+    private int scale;
+    private long top; //Row of top edge of view, in cells shifted left by FRACTION
+    private long left; //Column of left edge of view, in cells shifted left by FRACTION
+    private long lastFrame = -1; //Number of the last frame counted by the density map
+
+    /**
+     * Creates a view of given size in pixels, showing one cell per pixel from the top left corner.
+     *
+     * @param width  width in px
+     * @param height height in px
+     * @throws IllegalArgumentException when width or height is not positive.
+     */
+    public Viewport(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Must be set to positive values");
+        }
+        this.width = width;
+        this.height = height;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getScale() {
+        return scale;
+    }
+
+    /**
+     * Sets scale, keeping the cell at the center of the view in place.
+     *
+     * @param scale base 2 logarithm of cells per pixel, clamped to MIN_SCALE and MAX_SCALE
+     */
+    public void setScale(int scale) {
+        zoom(scale - this.scale, width / 2, height / 2);
+    }
+
+    /**
+     * Zooms by a number of steps, each halving or doubling cells per pixel,
+     * keeping the cell at given pixel in place.
+     *
+     * @param steps number of steps, positive to zoom out
+     * @param x     horizontal position of pixel in px
+     * @param y     vertical position of pixel in px
+     */
+    public void zoom(int steps, int x, int y) {
+        long row = top + ((long) y << (scale + FRACTION));
+        long column = left + ((long) x << (scale + FRACTION));
+        scale = Math.max(MIN_SCALE, Math.min(MAX_SCALE, scale + steps));
+        top = row - ((long) y << (scale + FRACTION));
+        left = column - ((long) x << (scale + FRACTION));
+    }
+
+    /**
+     * Moves view by a number of pixels, as when dragging the board.
+     *
+     * @param dx pixels to move right
+     * @param dy pixels to move down
+     */
+    public void pan(int dx, int dy) {
+        top -= (long) dy << (scale + FRACTION);
+        left -= (long) dx << (scale + FRACTION);
+    }
+
+    /**
+     * Zooms out until a board of given size fits, at one cell per pixel or larger, and centers it.
+     *
+     * @param rows    number of rows of board
+     * @param columns number of columns of board
+     */
+    public void fit(int rows, int columns) {
+        scale = MIN_SCALE;
+        while (scale < MAX_SCALE && (((long) width << (scale + FRACTION)) < ((long) columns << FRACTION)
+                || ((long) height << (scale + FRACTION)) < ((long) rows << FRACTION))) {
+            scale++;
+        }
+        top = ((long) rows << FRACTION) / 2 - ((long) height << (scale + FRACTION)) / 2;
+        left = ((long) columns << FRACTION) / 2 - ((long) width << (scale + FRACTION)) / 2;
+    }
+
+    /**
+     * Returns row of cell shown at a vertical pixel position.
+     *
+     * @param y vertical position in px
+     * @return row position of cell, possibly outside of board
+     */
+    public long rowAt(int y) {
+        return (top + ((long) y << (scale + FRACTION))) >> FRACTION;
+    }
+
+    /**
+     * Returns column of cell shown at a horizontal pixel position.
+     *
+     * @param x horizontal position in px
+     * @return column position of cell, possibly outside of board
+     */
+    public long columnAt(int x) {
+        return (left + ((long) x << (scale + FRACTION))) >> FRACTION;
+    }
+
+    /**
+     * Returns region of cells read when rendering, so only this region of a board needs to be up to date.
+     * Zoomed out to a tile or more per pixel, only tile populations are read and the region is empty.
+     *
+     * @return top row, left column, bottom row and right column of region, the last two exclusive
+     */
+    public long[] getReadRegion() {
+        if (scale >= TILE_SCALE) {
+            return new long[4];
+        }
+        int shift = Math.max(scale, 0);
+        return new long[]{rowAt(0) >> shift << shift, columnAt(0) >> shift << shift,
+                (rowAt(height - 1) >> shift) + 1 << shift, (columnAt(width - 1) >> shift) + 1 << shift};
+    }
+
+    /**
+     * Counts the tiles of a frame that changed since the previous frame, so rendering
+     * does not walk every tile. Every tile is counted when a frame was missed.
+     *
+     * @param frame frame to be drawn
+     */
+    public void update(Simulation.Frame frame) {
+        BitBoard board = frame.getBoard();
+        if (frame.getNumber() != lastFrame + 1) {
+            densityMap.update(board);
+        } else {
+            for (int i = 0; i < frame.getChangedTileCount(); i++) {
+                densityMap.update(board, frame.getChangedTile(i));
+            }
+        }
+        lastFrame = frame.getNumber();
+    }
+
+    /**
+     * Renders view of a board as one shade per pixel, row by row, counting every tile when zoomed out.
+     * Shades range from 0 for dead to MAX_SHADE for alive, or the share of alive cells in the block
+     * of a pixel when zoomed out. Pixels of blocks starting outside of the board are OUTSIDE.
+     *
+     * @param board  board to show
+     * @param shades array of width * height shades to write
+     * @throws IllegalArgumentException when shades is too small.
+     */
+    public void render(BitBoard board, int[] shades) {
+        if (scale >= TILE_SCALE) {
+            densityMap.update(board);
+            lastFrame = -2; //Next frame is counted whole
+        }
+        draw(board, shades);
+    }
+
+    /**
+     * Renders view of a board like {@link #render(BitBoard, int[])}, reading block populations
+     * as of the last update instead of counting tiles.
+     *
+     * @param board  board to show
+     * @param shades array of width * height shades to write
+     * @throws IllegalArgumentException when shades is too small.
+     */
+    public void draw(BitBoard board, int[] shades) {
+        if (shades.length < width * height) {
+            throw new IllegalArgumentException("Shades must hold width * height pixels");
+        }
+
+        for (int y = 0; y < height; y++) {
+            long block = rowAt(y) >> Math.max(scale, 0);
+            long row = block << Math.max(scale, 0);
+            for (int x = 0; x < width; x++) {
+                long column = (columnAt(x) >> Math.max(scale, 0)) << Math.max(scale, 0);
+                int shade;
+                if (row < 0 || row >= board.getRows() || column < 0 || column >= board.getColumns()) {
+                    shade = OUTSIDE;
+                } else if (scale <= 0) {
+                    shade = board.isAlive((int) row, (int) column) ? MAX_SHADE : 0;
+                } else if (scale < TILE_SCALE) {
+                    shade = shade(countBlock(board, (int) row, (int) column), 1L << (2 * scale));
+                } else {
+                    shade = shade(densityMap.getPopulation(scale - TILE_SCALE, block, column >> scale), 1L << (2 * scale));
+                }
+                shades[y * width + x] = shade;
+            }
+        }
+    }
+
+    /**
+     * Counts alive cells of a block smaller than a tile. The block is aligned to its size,
+     * so its columns lie within a single word.
+     *
+     * @param board  board to count
+     * @param row    first row of block
+     * @param column first column of block
+     * @return number of alive cells in block
+     */
+    private int countBlock(BitBoard board, int row, int column) {
+        int size = 1 << scale;
+        long mask = -1L >>> (64 - size);
+        int word = column >>> 6;
+        int count = 0;
+        for (int r = row; r < Math.min(row + size, board.getRows()); r++) {
+            count += Long.bitCount((board.getWord(r, word) >>> (column & 63)) & mask);
+        }
+        return count;
+    }
+
+    /**
+     * Returns shade of a block from its population.
+     *
+     * @param population number of alive cells in block
+     * @param cells      number of cells in block
+     * @return shade between 0 and MAX_SHADE, at least MIN_SHADE if any cell is alive
+     */
+    private static int shade(long population, long cells) {
+        if (population == 0) {
+            return 0;
+        }
+        return (int) Math.max(MIN_SHADE, population * MAX_SHADE / cells);
+    }
+}
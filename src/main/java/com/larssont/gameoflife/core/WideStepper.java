@@ -0,0 +1,111 @@
+package com.larssont.gameoflife.core;
+
+import java.util.Arrays;
+
+/**
+ * Computes generations of packed boards for rules with radius above 1.
+ * A column count array holds the number of alive cells of each column within the rows of the
+ * neighbourhood and slides down one row at a time, and a window sum slides along each row,
+ * so the cost per cell does not depend on the radius. Column counts are padded with radius
+ * halo columns on either side, so the window slides without bounds checks.
+ * <p>
+ * The column count buffer is reused by every step, so a stepper must only be used by one thread at a time.
+ */
+final class WideStepper {
+
+    private int[] columnCounts = new int[0]; //Count of column c at c + radius
+
+    /**
+     * Computes next generation of a band of rows into the next buffer. Buffers are laid out like those
+     * of {@link BitBoard}, and rows outside of the board refer to rows according to topology.
+     *
+     * @param cells    buffer holding the current generation
+     * @param next     buffer to compute into
+     * @param rows     number of rows of board
+     * @param columns  number of columns of board
+     * @param topology topology of board
+     * @param rule     rule to apply
+     * @param from     first row of band, inclusive
+     * @param to       last row of band, exclusive
+     */
+    void step(long[] cells, long[] next, int rows, int columns, Topology topology, Rule rule, int from, int to) {
+        int radius = rule.getRadius();
+        int words = (columns + 63) >>> 6;
+        if (columnCounts.length < columns + 2 * radius) {
+            columnCounts = new int[columns + 2 * radius];
+        }
+        Arrays.fill(columnCounts, 0, columns + 2 * radius, 0);
+
+        for (int row = from - radius; row < from + radius; row++) {
+            addRow(cells, rows, columns, topology, row, 1, radius);
+        }
+
+        for (int row = from; row < to; row++) {
+            addRow(cells, rows, columns, topology, row + radius, 1, radius);
+
+            int window = 0;
+            for (int i = 0; i < 2 * radius; i++) {
+                window += columnCounts[i];
+            }
+
+            int middle = (row + 1) * (words + 2) + 1;
+            for (int w = 0; w < words; w++) {
+                long c = cells[middle + w];
+                long result = 0;
+                int bits = Math.min(64, columns - (w << 6));
+
+                for (int bit = 0; bit < bits; bit++) {
+                    int col = (w << 6) + bit;
+                    window += columnCounts[col + 2 * radius];
+
+                    boolean alive = (c & (1L << bit)) != 0;
+                    int neighbours = alive ? window - 1 : window;
+                    if (rule.next(alive, neighbours)) result |= 1L << bit;
+
+                    window -= columnCounts[col];
+                }
+                next[middle + w] = result;
+            }
+
+            addRow(cells, rows, columns, topology, row - radius, -1, radius);
+        }
+    }
+
+    /**
+     * Adds alive cells of a row to padded column counts, including the halo columns they appear in.
+     * Rows outside of the board refer to rows according to topology, or are ignored if dead.
+     *
+     * @param cells    buffer holding the current generation
+     * @param rows     number of rows of board
+     * @param columns  number of columns of board
+     * @param topology topology of board
+     * @param row      row to add, possibly outside of board
+     * @param delta    1 to add row, -1 to remove it
+     * @param radius   radius of neighbourhood
+     */
+    private void addRow(long[] cells, int rows, int columns, Topology topology, int row, int delta, int radius) {
+        int source = topology.wrap(row, rows);
+        if (source < 0) return;
+        boolean reflected = topology.reflects(row, rows);
+        boolean wraps = topology.wraps();
+
+        int words = (columns + 63) >>> 6;
+        int start = (source + 1) * (words + 2) + 1;
+        for (int w = 0; w < words; w++) {
+            long word = cells[start + w];
+            while (word != 0) {
+                int column = (w << 6) + Long.numberOfTrailingZeros(word);
+                if (reflected) column = columns - 1 - column;
+                if (!wraps) {
+                    columnCounts[column + radius] += delta;
+                } else {
+                    //Every position within the padding that wraps onto the column, more than one if radius exceeds columns
+                    for (int x = column - (column + radius) / columns * columns; x < columns + radius; x += columns) {
+                        columnCounts[x + radius] += delta;
+                    }
+                }
+                word &= word - 1;
+            }
+        }
+    }
+}
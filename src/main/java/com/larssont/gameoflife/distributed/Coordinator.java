@@ -0,0 +1,262 @@
+package com.larssont.gameoflife.distributed;
+
+import com.larssont.gameoflife.core.BitBoard;
+import com.larssont.gameoflife.core.Rule;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Coordinates a board distributed across worker processes. The board is partitioned into
+ * bands of rows of about equal height, one per worker in the given order, and each worker
+ * exchanges edge rows with its neighbours every generation. The coordinator only sends commands
+ * to step and gathers snapshots, so cells never pass through it while stepping. Neither does it
+ * hold the board: bands are filled and sent one at a time, and gathered rows are passed on one at a time.
+ * <p>
+ * Cells beyond the board are dead. Every band must hold at least as many rows as the
+ * neighbourhood radius, so halos never span more than one neighbour.
+ */
+public class Coordinator implements Closeable {
+
+    private final List<Connection> workers = new ArrayList<>();
+    private final int rows;
+    private final int columns;
+    private final Rule rule;
+    private long generation;
+    private long population;
+
+    /**
+     * Connects to workers and sends each its partition of the board. Only the band of the worker
+     * being sent to is held in memory, so the board may be larger than the coordinator could hold.
+     *
+     * @param addresses addresses of workers, from the top band to the bottom band
+     * @param rows      number of rows of board
+     * @param columns   number of columns of board
+     * @param rule      rule to apply
+     * @param source    source filling bands of the board
+     * @throws IOException              when connecting to a worker or filling a band fails.
+     * @throws IllegalArgumentException when there are no workers, or bands would hold fewer rows than the radius.
+     */
+    public Coordinator(List<InetSocketAddress> addresses, int rows, int columns, Rule rule, BandSource source)
+            throws IOException {
+        int count = addresses.size();
+        if (count == 0) {
+            throw new IllegalArgumentException("Must be given at least one worker");
+        }
+        if (rows / count < rule.getRadius()) {
+            throw new IllegalArgumentException("Board has too few rows for " + count + " workers with radius " + rule.getRadius());
+        }
+        if (columns <= 0) {
+            throw new IllegalArgumentException("Columns must be set to positive value");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.rule = rule;
+
+        try {
+            for (int i = 0; i < count; i++) { //Connect to every worker before any connects to its neighbour
+                workers.add(new Connection(addresses.get(i), i * rows / count, (i + 1) * rows / count));
+            }
+            ByteBuffer buffer = Protocol.rowBuffer(columns);
+            for (int i = 0; i < count; i++) {
+                Connection worker = workers.get(i);
+                BitBoard band = new BitBoard(worker.to - worker.from, columns);
+                source.fill(band, worker.from);
+                population += band.population();
+                worker.out.writeInt(Protocol.MAGIC);
+                worker.out.writeByte(Protocol.COORDINATOR);
+                worker.out.writeInt(i);
+                worker.out.writeInt(count);
+                worker.out.writeUTF(rule.toString());
+                worker.out.writeInt(columns);
+                worker.out.writeInt(worker.to - worker.from);
+                InetSocketAddress upper = i > 0 ? addresses.get(i - 1) : null;
+                worker.out.writeUTF(upper != null ? upper.getHostString() : "");
+                worker.out.writeInt(upper != null ? upper.getPort() : 0);
+                Protocol.writeRows(worker.out, band, 0, band.getRows(), buffer);
+                worker.out.flush();
+            }
+            for (Connection worker : workers) {
+                Protocol.expect(worker.in, Protocol.READY);
+            }
+        } catch (IOException | RuntimeException e) {
+            closeConnections();
+            throw e;
+        }
+    }
+
+    /**
+     * Advances distributed board a number of generations and waits for all workers to finish.
+     *
+     * @param generations number of generations
+     * @throws IOException when a worker fails.
+     */
+    public void step(int generations) throws IOException {
+        if (generations < 0) {
+            throw new IllegalArgumentException("Must be set to non-negative value");
+        }
+        for (Connection worker : workers) {
+            worker.out.writeByte(Protocol.STEP);
+            worker.out.writeInt(generations);
+            worker.out.flush();
+        }
+        long sum = 0;
+        for (Connection worker : workers) {
+            Protocol.expect(worker.in, Protocol.DONE);
+            sum += worker.in.readLong();
+        }
+        population = sum;
+        generation += generations;
+    }
+
+    /**
+     * Gathers a snapshot of the distributed board from all workers, passing on rows from top
+     * to bottom as they arrive instead of building the board.
+     *
+     * @param sink sink receiving every row of the current generation
+     * @throws IOException when a worker or the sink fails.
+     */
+    public void gather(RowSink sink) throws IOException {
+        for (Connection worker : workers) {
+            worker.out.writeByte(Protocol.GATHER);
+            worker.out.flush();
+        }
+        long[] words = new long[(columns + 63) >>> 6];
+        ByteBuffer buffer = Protocol.rowBuffer(columns);
+        for (Connection worker : workers) {
+            for (int row = worker.from; row < worker.to; row++) {
+                Protocol.readRow(worker.in, words, buffer);
+                sink.accept(row, words);
+            }
+        }
+    }
+
+    /**
+     * Returns number of generations advanced since the board was distributed.
+     *
+     * @return number of generations
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Returns number of alive cells as of the last step.
+     *
+     * @return population of distributed board
+     */
+    public long population() {
+        return population;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getWorkers() {
+        return workers.size();
+    }
+
+    public Rule getRule() {
+        return rule;
+    }
+
+    /**
+     * Ends the session of every worker.
+     *
+     * @throws IOException when a worker fails.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+        for (Connection worker : workers) {
+            try {
+                worker.out.writeByte(Protocol.SHUTDOWN);
+                worker.out.flush();
+            } catch (IOException e) {
+                error = e;
+            }
+        }
+        closeConnections();
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    private void closeConnections() {
+        for (Connection worker : workers) {
+            try {
+                worker.socket.close();
+            } catch (IOException e) {
+                //Already closed
+            }
+        }
+    }
+
+    /**
+     * Fills bands of the board being distributed, such as by reading them from a pattern.
+     */
+    @FunctionalInterface
+    public interface BandSource {
+
+        /**
+         * Sets the alive cells of a band of rows. The band is dead when passed.
+         *
+         * @param band band to fill
+         * @param top  row of board held by row 0 of band
+         * @throws IOException when cells can not be read.
+         */
+        void fill(BitBoard band, int top) throws IOException;
+    }
+
+    /**
+     * Receives rows of a gathered board.
+     */
+    @FunctionalInterface
+    public interface RowSink {
+
+        /**
+         * Receives a row of cells, 64 cells per word. Bits beyond the last column are dead.
+         *
+         * @param row   row of board
+         * @param words cells of row, only valid until this method returns
+         * @throws IOException when the row can not be written.
+         */
+        void accept(int row, long[] words) throws IOException;
+    }
+
+    /**
+     * Connection to a worker and the band of rows it owns.
+     */
+    private static final class Connection {
+
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final int from; //First row of band, inclusive
+        private final int to; //Last row of band, exclusive
+
+        Connection(InetSocketAddress address, int from, int to) throws IOException {
+            socket = new Socket();
+            socket.connect(address);
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.larssont.gameoflife.distributed;
+
+import com.larssont.gameoflife.core.BitBoard;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Messages exchanged between coordinator and workers, and between neighbouring workers.
+ * Every connection starts with {@link #MAGIC} and the role of the connecting side.
+ * Rows of cells are sent as raw words, 64 cells per long.
+ */
+final class Protocol {
+
+    static final int MAGIC = 0x474F4C44; //"GOLD"
+
+    static final byte COORDINATOR = 1; //Connection from the coordinator, followed by the partition
+    static final byte PEER = 2; //Connection from the worker below, followed by its index
+
+    static final byte READY = 1; //Worker is connected to its neighbours
+    static final byte STEP = 2; //Advance a number of generations, answered by DONE and population
+    static final byte DONE = 3;
+    static final byte GATHER = 4; //Send owned rows
+    static final byte SHUTDOWN = 5; //End session
+
+    private Protocol() {
+    }
+
+    /**
+     * Writes rows of a board as words.
+     *
+     * @param out    stream to write to
+     * @param board  board holding rows
+     * @param from   first row, inclusive
+     * @param to     last row, exclusive
+     * @param buffer buffer of at least one row of bytes, reused between calls
+     * @throws IOException when writing fails.
+     */
+    static void writeRows(DataOutputStream out, BitBoard board, int from, int to, ByteBuffer buffer) throws IOException {
+        int words = board.getWordsPerRow();
+        for (int row = from; row < to; row++) {
+            buffer.clear();
+            for (int w = 0; w < words; w++) {
+                buffer.putLong(board.getWord(row, w));
+            }
+            out.write(buffer.array(), 0, buffer.position());
+        }
+    }
+
+    /**
+     * Reads rows of words into a board.
+     *
+     * @param in     stream to read from
+     * @param board  board to write rows to
+     * @param from   first row, inclusive
+     * @param to     last row, exclusive
+     * @param buffer buffer of at least one row of bytes, reused between calls
+     * @throws IOException when reading fails or the stream ends.
+     */
+    static void readRows(DataInputStream in, BitBoard board, int from, int to, ByteBuffer buffer) throws IOException {
+        int words = board.getWordsPerRow();
+        for (int row = from; row < to; row++) {
+            in.readFully(buffer.array(), 0, words * Long.BYTES);
+            buffer.clear();
+            for (int w = 0; w < words; w++) {
+                board.setWord(row, w, buffer.getLong());
+            }
+        }
+    }
+
+    /**
+     * Reads a single row of words.
+     *
+     * @param in     stream to read from
+     * @param words  array to read words of row into
+     * @param buffer buffer of at least one row of bytes, reused between calls
+     * @throws IOException when reading fails or the stream ends.
+     */
+    static void readRow(DataInputStream in, long[] words, ByteBuffer buffer) throws IOException {
+        in.readFully(buffer.array(), 0, words.length * Long.BYTES);
+        buffer.clear();
+        for (int w = 0; w < words.length; w++) {
+            words[w] = buffer.getLong();
+        }
+    }
+
+    /**
+     * Creates buffer holding one row of words of a board.
+     *
+     * @param board board to hold rows of
+     * @return created buffer
+     */
+    static ByteBuffer rowBuffer(BitBoard board) {
+        return rowBuffer(board.getColumns());
+    }
+
+    /**
+     * Creates buffer holding one row of words.
+     *
+     * @param columns number of cells in row
+     * @return created buffer
+     */
+    static ByteBuffer rowBuffer(int columns) {
+        return ByteBuffer.allocate(((columns + 63) >>> 6) * Long.BYTES);
+    }
+
+    /**
+     * Reads a single byte message and checks that it is the expected one.
+     *
+     * @param in       stream to read from
+     * @param expected expected message
+     * @throws IOException when another message is read or the stream ends.
+     */
+    static void expect(DataInputStream in, byte expected) throws IOException {
+        byte message = in.readByte();
+        if (message != expected) {
+            throw new IOException("Expected message " + expected + " but got " + message);
+        }
+    }
+}
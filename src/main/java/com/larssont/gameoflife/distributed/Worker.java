@@ -0,0 +1,296 @@
+package com.larssont.gameoflife.distributed;
+
+import com.larssont.gameoflife.core.BitBoard;
+import com.larssont.gameoflife.core.Rule;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+
+/**
+ * Worker process simulating one partition of a distributed board, a band of rows spanning all columns.
+ * The partition is held with ghost rows as deep as the neighbourhood radius above and below.
+ * Before every generation, the worker sends its edge rows to the workers owning the bands above
+ * and below and receives their edge rows into its ghost rows, so the band steps exactly like
+ * the same rows of the whole board would.
+ * <p>
+ * A worker listens on a single port. The coordinator connects first and sends the partition,
+ * then every worker connects to the worker above it, so each pair of neighbours shares one socket.
+ */
+public class Worker implements Closeable {
+
+    private static final String USAGE = "Usage: Worker [--port PORT]";
+
+    private final ServerSocket server;
+
+    private int index; //Position of partition from the top
+    private Rule rule;
+    private int radius;
+    private int owned; //Rows owned by this worker
+    private BitBoard board; //Ghost rows, owned rows, ghost rows
+    private ByteBuffer buffer;
+    private Link upper; //Link to worker above, null for the first worker
+    private Link lower; //Link to worker below, null for the last worker
+
+    /**
+     * Creates a worker listening on given port.
+     *
+     * @param port port to listen on, 0 to pick a free port
+     * @throws IOException when the port can not be bound.
+     */
+    public Worker(int port) throws IOException {
+        server = new ServerSocket(port);
+    }
+
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    /**
+     * Serves a single coordinator until it shuts the session down.
+     *
+     * @throws IOException when a connection fails or a malformed message is received.
+     */
+    public void serve() throws IOException {
+        try (Socket socket = server.accept()) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            if (in.readInt() != Protocol.MAGIC || in.readByte() != Protocol.COORDINATOR) {
+                throw new IOException("Expected coordinator");
+            }
+            try {
+                init(in);
+                out.writeByte(Protocol.READY);
+                out.flush();
+                handle(in, out);
+            } finally {
+                if (upper != null) upper.close();
+                if (lower != null) lower.close();
+                upper = null;
+                lower = null;
+            }
+        }
+    }
+
+    /**
+     * Reads partition from coordinator and connects to neighbouring workers.
+     *
+     * @param in stream from coordinator
+     * @throws IOException when reading or connecting fails.
+     */
+    private void init(DataInputStream in) throws IOException {
+        index = in.readInt();
+        int count = in.readInt();
+        rule = Rule.parse(in.readUTF());
+        radius = rule.getRadius();
+        int columns = in.readInt();
+        owned = in.readInt();
+        String upperHost = in.readUTF();
+        int upperPort = in.readInt();
+
+        board = new BitBoard(owned + 2 * radius, columns);
+        buffer = Protocol.rowBuffer(board);
+        Protocol.readRows(in, board, radius, radius + owned, buffer);
+
+        if (index > 0) {
+            Socket socket = new Socket();
+            socket.connect(new InetSocketAddress(upperHost, upperPort));
+            upper = new Link(socket);
+            upper.out.writeInt(Protocol.MAGIC);
+            upper.out.writeByte(Protocol.PEER);
+            upper.out.writeInt(index);
+            upper.out.flush();
+        }
+        if (index < count - 1) {
+            lower = new Link(server.accept());
+            if (lower.in.readInt() != Protocol.MAGIC || lower.in.readByte() != Protocol.PEER
+                    || lower.in.readInt() != index + 1) {
+                throw new IOException("Expected worker " + (index + 1));
+            }
+        }
+    }
+
+    /**
+     * Handles commands from coordinator until shut down.
+     *
+     * @param in  stream from coordinator
+     * @param out stream to coordinator
+     * @throws IOException when a connection fails or a malformed message is received.
+     */
+    private void handle(DataInputStream in, DataOutputStream out) throws IOException {
+        while (true) {
+            byte command = in.readByte();
+            switch (command) {
+                case Protocol.STEP:
+                    int generations = in.readInt();
+                    for (int i = 0; i < generations; i++) {
+                        exchange();
+                        board.step(rule);
+                    }
+                    out.writeByte(Protocol.DONE);
+                    out.writeLong(population());
+                    out.flush();
+                    break;
+                case Protocol.GATHER:
+                    Protocol.writeRows(out, board, radius, radius + owned, buffer);
+                    out.flush();
+                    break;
+                case Protocol.SHUTDOWN:
+                    return;
+                default:
+                    throw new IOException("Unknown command " + command);
+            }
+        }
+    }
+
+    /**
+     * Exchanges edge rows with neighbouring workers. Even workers send before receiving and odd workers
+     * receive before sending, so two neighbours never both block on writing rows the other has not read.
+     * Ghost rows without a neighbour are cleared, as cells beyond the board are dead.
+     *
+     * @throws IOException when a connection fails.
+     */
+    private void exchange() throws IOException {
+        if (index % 2 == 0) {
+            exchangeLower(true);
+            exchangeUpper(true);
+        } else {
+            exchangeUpper(false);
+            exchangeLower(false);
+        }
+    }
+
+    private void exchangeUpper(boolean sendFirst) throws IOException {
+        if (upper == null) {
+            clearRows(0, radius);
+            return;
+        }
+        upper.exchange(radius, 2 * radius, 0, radius, sendFirst);
+    }
+
+    private void exchangeLower(boolean sendFirst) throws IOException {
+        if (lower == null) {
+            clearRows(radius + owned, 2 * radius + owned);
+            return;
+        }
+        lower.exchange(owned, owned + radius, radius + owned, 2 * radius + owned, sendFirst);
+    }
+
+    private void clearRows(int from, int to) {
+        for (int row = from; row < to; row++) {
+            for (int w = 0; w < board.getWordsPerRow(); w++) {
+                board.setWord(row, w, 0);
+            }
+        }
+    }
+
+    /**
+     * Counts alive cells of owned rows.
+     *
+     * @return population of partition
+     */
+    private long population() {
+        long population = 0;
+        for (int row = radius; row < radius + owned; row++) {
+            for (int w = 0; w < board.getWordsPerRow(); w++) {
+                population += Long.bitCount(board.getWord(row, w));
+            }
+        }
+        return population;
+    }
+
+    /**
+     * Stops listening.
+     *
+     * @throws IOException when closing fails.
+     */
+    @Override
+    public void close() throws IOException {
+        server.close();
+    }
+
+    /**
+     * Connection to a neighbouring worker.
+     */
+    private class Link implements Closeable {
+
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+
+        Link(Socket socket) throws IOException {
+            this.socket = socket;
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        /**
+         * Sends edge rows to the neighbour and receives its edge rows into ghost rows.
+         *
+         * @param sendFrom    first row to send, inclusive
+         * @param sendTo      last row to send, exclusive
+         * @param receiveFrom first ghost row, inclusive
+         * @param receiveTo   last ghost row, exclusive
+         * @param sendFirst   true to send before receiving
+         * @throws IOException when the connection fails.
+         */
+        void exchange(int sendFrom, int sendTo, int receiveFrom, int receiveTo, boolean sendFirst) throws IOException {
+            if (sendFirst) {
+                send(sendFrom, sendTo);
+                Protocol.readRows(in, board, receiveFrom, receiveTo, buffer);
+            } else {
+                Protocol.readRows(in, board, receiveFrom, receiveTo, buffer);
+                send(sendFrom, sendTo);
+            }
+        }
+
+        private void send(int from, int to) throws IOException {
+            Protocol.writeRows(out, board, from, to, buffer);
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            socket.close();
+        }
+    }
+
+    /**
+     * Main method. Prints the port listened on, then serves coordinators one at a time until killed.
+     *
+     * @param args command line arguments, see usage
+     */
+    public static void main(String[] args) {
+        int port = 0;
+        if (args.length == 2 && args[0].equals("--port")) {
+            port = Integer.parseInt(args[1]);
+        } else if (args.length != 0) {
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+
+        try (Worker worker = new Worker(port)) {
+            System.out.println("Listening on port " + worker.getPort());
+            System.out.flush();
+            while (true) {
+                try {
+                    worker.serve();
+                } catch (IOException e) {
+                    System.err.println(e);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println(e);
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.larssont.gameoflife;
+
+import com.larssont.gameoflife.core.BitBoard;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class CellCanvasTest {
+
+    private BitBoard board;
+    private CellCanvas cellCanvas;
+
+    @Before
+    public void init() {
+        board = new BitBoard(10, 20);
+        cellCanvas = new CellCanvas(400, 10, 20);
+        cellCanvas.setOnCellClicked((row, col) -> board.setAlive(row, col, !board.isAlive(row, col)));
+    }
+
+    @Test
+    public void canvasSizeFitsBoard() {
+        assertEquals(20, cellCanvas.getCellSize());
+        assertEquals(400, cellCanvas.getWidth(), 0);
+        assertEquals(200, cellCanvas.getHeight(), 0);
+    }
+
+    @Test
+    public void clickAtFindsCell() {
+        cellCanvas.clickAt(45, 25);
+
+        assertTrue(board.isAlive(1, 2));
+        assertEquals(1, board.population());
+
+        cellCanvas.clickAt(59, 39);
+
+        assertFalse(board.isAlive(1, 2));
+    }
+
+    @Test
+    public void renderAfterChanges() {
+        board.setAlive(3, 4, true);
+        cellCanvas.render(board);
+        board.setAlive(3, 4, false);
+        board.setAlive(9, 19, true);
+        cellCanvas.render(board);
+    }
+
+    @Test
+    public void clickAtOutsideOfBoardDoesNothing() {
+        cellCanvas.clickAt(400, 10);
+        cellCanvas.clickAt(-1, 10);
+
+        assertEquals(0, board.population());
+    }
+}
@@ -1,5 +1,6 @@
 package com.larssont.gameoflife;
 
+import com.larssont.gameoflife.core.Cell;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -0,0 +1,45 @@
+package com.larssont.gameoflife;
+
+import com.larssont.gameoflife.core.Cell;
+import javafx.scene.paint.Color;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class CellRectTest {
+
+    private Cell cell;
+    private CellRect cellRect;
+    private int size = 20;
+
+    @Before
+    public void init() {
+        cell = new Cell(3, 3);
+        cellRect = new CellRect(size, cell);
+    }
+
+    @Test
+    public void cellRectangleIsSquare() {
+        assertEquals(cellRect.getHeight(), cellRect.getWidth(), 0);
+    }
+
+    @Test
+    public void cellRectangleIsCorrectWidth() {
+        assertEquals(cellRect.getWidth(), size, 0);
+    }
+
+    @Test
+    public void cellRectangleIsCorrectHeight() {
+        assertEquals(cellRect.getHeight(), size, 0);
+    }
+
+    @Test
+    public void cellRectangleFollowsAliveState() {
+        assertEquals(Color.WHITESMOKE, cellRect.getFill());
+
+        cell.setAlive(true);
+        assertEquals(Color.BLACK, cellRect.getFill());
+    }
+}
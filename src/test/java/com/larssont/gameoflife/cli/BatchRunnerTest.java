@@ -0,0 +1,229 @@
+package com.larssont.gameoflife.cli;
+
+import com.larssont.gameoflife.distributed.Worker;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class BatchRunnerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void runWritesFinalBoardAndStatistics() throws IOException {
+        File pattern = folder.newFile("blinker.cells");
+        File output = new File(folder.getRoot(), "out.cells");
+        Files.write(pattern.toPath(), Arrays.asList("!Name: Blinker", ".O.", ".O.", ".O."), StandardCharsets.UTF_8);
+
+        Map<String, String> options = BatchRunner.parseArgs(new String[]{
+                "--pattern", pattern.getPath(), "--generations", "3", "--size", "5x5",
+                "--threads", "2", "--output", output.getPath()});
+        ByteArrayOutputStream stats = new ByteArrayOutputStream();
+        new BatchRunner(options).run(new PrintStream(stats, true, "UTF-8"));
+
+        List<String> lines = Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList(".....", ".....", ".OOO.", ".....", "....."), lines);
+
+        String statsText = stats.toString("UTF-8");
+        assertTrue(statsText.contains("generations=3"));
+        assertTrue(statsText.contains("population=3"));
+        assertTrue(statsText.contains("tiles-evaluated="));
+    }
+
+    @Test
+    public void runWrapsGliderAroundTorus() throws IOException {
+        File pattern = folder.newFile("glider.cells");
+        Files.write(pattern.toPath(), Arrays.asList(".O.", "..O", "OOO"), StandardCharsets.UTF_8);
+
+        List<String> lines = new ArrayList<>();
+        for (String generations : new String[]{"0", "24"}) { //Glider moves one cell diagonally every 4 generations
+            File output = new File(folder.getRoot(), "out" + generations + ".cells");
+            Map<String, String> options = BatchRunner.parseArgs(new String[]{
+                    "--pattern", pattern.getPath(), "--generations", generations, "--size", "6x6",
+                    "--topology", "torus", "--output", output.getPath()});
+            ByteArrayOutputStream stats = new ByteArrayOutputStream();
+            new BatchRunner(options).run(new PrintStream(stats, true, "UTF-8"));
+
+            lines.add(String.join("\n", Files.readAllLines(output.toPath(), StandardCharsets.UTF_8)));
+            assertTrue(stats.toString("UTF-8").contains("topology=TORUS"));
+        }
+        assertEquals(lines.get(0), lines.get(1));
+    }
+
+    @Test
+    public void runDistributesAcrossWorkers() throws IOException {
+        File pattern = folder.newFile("rpentomino.cells");
+        Files.write(pattern.toPath(), Arrays.asList(".OO", "OO.", ".O."), StandardCharsets.UTF_8);
+
+        List<String> lines = new ArrayList<>();
+        try (Worker upper = new Worker(0); Worker lower = new Worker(0)) {
+            for (Worker worker : Arrays.asList(upper, lower)) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        worker.serve();
+                    } catch (IOException e) {
+                        //Closed by test
+                    }
+                });
+                thread.setDaemon(true);
+                thread.start();
+            }
+
+            for (String workers : new String[]{null, "localhost:" + upper.getPort() + ",localhost:" + lower.getPort()}) {
+                File output = new File(folder.getRoot(), workers == null ? "local.cells" : "distributed.cells");
+                List<String> args = new ArrayList<>(Arrays.asList("--pattern", pattern.getPath(), "--generations", "50",
+                        "--size", "40x40", "--output", output.getPath()));
+                if (workers != null) args.addAll(Arrays.asList("--workers", workers));
+                ByteArrayOutputStream stats = new ByteArrayOutputStream();
+                new BatchRunner(BatchRunner.parseArgs(args.toArray(new String[0]))).run(new PrintStream(stats, true, "UTF-8"));
+
+                lines.add(String.join("\n", Files.readAllLines(output.toPath(), StandardCharsets.UTF_8)));
+                assertTrue(stats.toString("UTF-8").contains(workers == null ? "workers=0" : "workers=2"));
+            }
+        }
+        assertEquals(lines.get(0), lines.get(1));
+    }
+
+    @Test
+    public void runDistributedSizesBoardFromPatternExtent() throws IOException {
+        File pattern = folder.newFile("glider.lif");
+        Files.write(pattern.toPath(), Arrays.asList("#Life 1.06", "-4 -7", "-3 -6", "-5 -5", "-4 -5", "-3 -5"),
+                StandardCharsets.UTF_8);
+
+        List<String> lines = new ArrayList<>();
+        try (Worker upper = new Worker(0); Worker lower = new Worker(0)) {
+            for (Worker worker : Arrays.asList(upper, lower)) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        worker.serve();
+                    } catch (IOException e) {
+                        //Closed by test
+                    }
+                });
+                thread.setDaemon(true);
+                thread.start();
+            }
+
+            for (String workers : new String[]{null, "localhost:" + upper.getPort() + ",localhost:" + lower.getPort()}) {
+                File output = new File(folder.getRoot(), workers == null ? "local.rle" : "distributed.rle");
+                List<String> args = new ArrayList<>(Arrays.asList("--pattern", pattern.getPath(), "--generations", "1",
+                        "--output", output.getPath()));
+                if (workers != null) args.addAll(Arrays.asList("--workers", workers));
+                ByteArrayOutputStream stats = new ByteArrayOutputStream();
+                new BatchRunner(BatchRunner.parseArgs(args.toArray(new String[0]))).run(new PrintStream(stats, true, "UTF-8"));
+
+                lines.add(String.join("\n", Files.readAllLines(output.toPath(), StandardCharsets.UTF_8)));
+                assertTrue(stats.toString("UTF-8").contains("size=3x3"));
+            }
+        }
+        assertEquals("x = 3, y = 3, rule = B3/S23\n$obo$b2o!", lines.get(1));
+        assertEquals(lines.get(0), lines.get(1));
+    }
+
+    @Test
+    public void runReadsAndWritesRle() throws IOException {
+        File pattern = folder.newFile("blinker.rle");
+        File output = new File(folder.getRoot(), "out.rle");
+        Files.write(pattern.toPath(), Arrays.asList("#N Blinker", "x = 3, y = 1, rule = B36/S23", "3o!"),
+                StandardCharsets.UTF_8);
+
+        Map<String, String> options = BatchRunner.parseArgs(new String[]{
+                "--pattern", pattern.getPath(), "--generations", "1", "--size", "5x5", "--output", output.getPath()});
+        ByteArrayOutputStream stats = new ByteArrayOutputStream();
+        new BatchRunner(options).run(new PrintStream(stats, true, "UTF-8"));
+
+        List<String> lines = Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList("x = 5, y = 5, rule = B36/S23", "$2bo$2bo$2bo!"), lines);
+        assertTrue(stats.toString("UTF-8").contains("rule=B36/S23"));
+    }
+
+    @Test
+    public void runResumesFromCheckpoint() throws IOException {
+        File pattern = folder.newFile("glider.rle");
+        File checkpoints = new File(folder.getRoot(), "checkpoints");
+        Files.write(pattern.toPath(), Arrays.asList("x = 3, y = 3", "bo$2bo$3o!"), StandardCharsets.UTF_8);
+        String[] args = {"--pattern", pattern.getPath(), "--generations", "5", "--size", "20x20",
+                "--checkpoint", checkpoints.getPath(), "--output", new File(folder.getRoot(), "a.rle").getPath()};
+
+        new BatchRunner(BatchRunner.parseArgs(args)).run(new PrintStream(new ByteArrayOutputStream(), true, "UTF-8"));
+        args[3] = "8";
+        ByteArrayOutputStream stats = new ByteArrayOutputStream();
+        new BatchRunner(BatchRunner.parseArgs(args)).run(new PrintStream(stats, true, "UTF-8"));
+
+        String statsText = stats.toString("UTF-8");
+        assertTrue(statsText.contains("resumed=5"));
+        assertTrue(statsText.contains("generations=3"));
+        assertTrue(statsText.contains("population=5"));
+    }
+
+    @Test
+    public void runFastForwardsDetectedCycle() throws IOException {
+        File pattern = folder.newFile("blinker.cells");
+        File output = new File(folder.getRoot(), "out.cells");
+        Files.write(pattern.toPath(), Arrays.asList(".O.", ".O.", ".O."), StandardCharsets.UTF_8);
+
+        Map<String, String> options = BatchRunner.parseArgs(new String[]{
+                "--pattern", pattern.getPath(), "--generations", "1000000001", "--size", "5x5",
+                "--detect-cycles", "10", "--output", output.getPath()});
+        ByteArrayOutputStream stats = new ByteArrayOutputStream();
+        new BatchRunner(options).run(new PrintStream(stats, true, "UTF-8"));
+
+        List<String> lines = Files.readAllLines(output.toPath(), StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList(".....", ".....", ".OOO.", ".....", "....."), lines);
+        String statsText = stats.toString("UTF-8");
+        assertTrue(statsText.contains("cycle=2@0"));
+        assertTrue(statsText.contains("steps=3"));
+    }
+
+    @Test
+    public void runWithHashLifeMatchesScalarEngine() throws IOException {
+        File pattern = folder.newFile("glider.cells");
+        Files.write(pattern.toPath(), Arrays.asList(".O.", "..O", "OOO"), StandardCharsets.UTF_8);
+
+        List<String> lines = new ArrayList<>();
+        for (String engine : new String[]{"scalar", "hashlife"}) {
+            File output = new File(folder.getRoot(), engine + ".cells");
+            Map<String, String> options = BatchRunner.parseArgs(new String[]{
+                    "--pattern", pattern.getPath(), "--generations", "37", "--size", "20x20",
+                    "--engine", engine, "--hashlife-cache", "100", "--output", output.getPath()});
+            ByteArrayOutputStream stats = new ByteArrayOutputStream();
+            new BatchRunner(options).run(new PrintStream(stats, true, "UTF-8"));
+
+            lines.add(String.join("\n", Files.readAllLines(output.toPath(), StandardCharsets.UTF_8)));
+            assertEquals(engine.equals("hashlife"), stats.toString("UTF-8").contains("hashlife-population=5"));
+        }
+        assertEquals(lines.get(0), lines.get(1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void runWithHashLifeOnTorus() throws IOException {
+        File pattern = folder.newFile("blinker.cells");
+        Files.write(pattern.toPath(), Arrays.asList("OOO"), StandardCharsets.UTF_8);
+        new BatchRunner(BatchRunner.parseArgs(new String[]{"--pattern", pattern.getPath(), "--generations", "3",
+                "--engine", "hashlife", "--topology", "torus"})).run(System.err);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void runWithoutPattern() throws IOException {
+        new BatchRunner(BatchRunner.parseArgs(new String[]{"--generations", "3"})).run(System.err);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseArgsWithMissingValue() {
+        BatchRunner.parseArgs(new String[]{"--pattern"});
+    }
+}
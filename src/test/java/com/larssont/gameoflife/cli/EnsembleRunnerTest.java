@@ -0,0 +1,93 @@
+package com.larssont.gameoflife.cli;
+
+import com.larssont.gameoflife.core.Rule;
+import com.larssont.gameoflife.core.Topology;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class EnsembleRunnerTest {
+
+    @org.junit.Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void runIsReproducibleRegardlessOfThreads() throws IOException {
+        File sequential = new File(folder.getRoot(), "sequential.csv");
+        File concurrent = new File(folder.getRoot(), "concurrent.csv");
+        run("--runs", "6", "--rules", "B3/S23;B36/S23", "--densities", "0.2,0.5", "--size", "24x24",
+                "--seed", "42", "--threads", "1", "--output", sequential.getPath());
+        String stats = run("--runs", "6", "--rules", "B3/S23;B36/S23", "--densities", "0.2,0.5", "--size", "24x24",
+                "--seed", "42", "--threads", "3", "--output", concurrent.getPath());
+
+        List<String> lines = Files.readAllLines(sequential.toPath(), StandardCharsets.UTF_8);
+        assertEquals(lines, Files.readAllLines(concurrent.toPath(), StandardCharsets.UTF_8));
+        assertEquals(1 + 2 * 2 * 6, lines.size());
+        assertEquals("rule,density,run,seed,initial_population,final_population,lifespan,period,extinct", lines.get(0));
+        assertTrue(lines.get(1).startsWith("\"B3/S23\",0.2,0,"));
+        assertTrue(stats.contains("runs=24"));
+        assertTrue(stats.contains("rule=B36/S23 density=0.500 runs=6"));
+    }
+
+    @Test
+    public void runWritesJson() throws IOException {
+        File output = new File(folder.getRoot(), "runs.json");
+        run("--runs", "2", "--rules", "R2,B6-9,S5-10", "--size", "16x16", "--max-generations", "50",
+                "--output", output.getPath());
+
+        String json = new String(Files.readAllBytes(output.toPath()), StandardCharsets.UTF_8);
+        assertTrue(json.startsWith("["));
+        assertTrue(json.contains("\"rule\": \"R2,B6-9,S5-10\""));
+        assertTrue(json.contains("\"run\": 1"));
+    }
+
+    @Test
+    public void simulateEmptySoupIsExtinct() {
+        EnsembleRunner.Result result = EnsembleRunner.simulate(
+                new EnsembleRunner.Soup(Rule.CONWAY, 0, 0, 1), 10, 10, Topology.DEAD, 100, 10);
+
+        assertTrue(result.isExtinct());
+        assertEquals(0, result.getLifespan());
+        assertEquals(1, result.getPeriod());
+        assertEquals(0, result.getFinalPopulation());
+    }
+
+    @Test
+    public void simulateStopsAtGenerationLimit() {
+        EnsembleRunner.Result result = EnsembleRunner.simulate(
+                new EnsembleRunner.Soup(Rule.CONWAY, 0.35, 0, 7), 64, 64, Topology.TORUS, 3, 10);
+
+        assertEquals(3, result.getLifespan());
+        assertEquals(0, result.getPeriod());
+        assertTrue(result.getInitialPopulation() > 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void runWithoutRuns() throws IOException {
+        run("--size", "8x8");
+    }
+
+    /**
+     * Runs ensemble with given arguments.
+     *
+     * @param args command line arguments
+     * @return summary written by the run
+     * @throws IOException when records can not be written.
+     */
+    private String run(String... args) throws IOException {
+        Map<String, String> options = BatchRunner.parseArgs(args);
+        ByteArrayOutputStream stats = new ByteArrayOutputStream();
+        new EnsembleRunner(options).run(new PrintStream(stats, true, "UTF-8"));
+        return stats.toString("UTF-8");
+    }
+}
@@ -0,0 +1,594 @@
+package com.larssont.gameoflife.core;
+
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class BitBoardTest {
+
+    private Game game;
+
+    @Before
+    public void init() {
+        game = new Game();
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createBoardWithZeroRows() {
+        new BitBoard(0, 10);
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void setAliveOutsideOfBoard() {
+        new BitBoard(10, 10).setAlive(10, 0, true);
+    }
+
+    @Test
+    public void setGetAliveAcrossWordBoundary() {
+        BitBoard board = new BitBoard(3, 130);
+
+        board.setAlive(1, 63, true);
+        board.setAlive(1, 64, true);
+        board.setAlive(2, 129, true);
+
+        assertTrue(board.isAlive(1, 63));
+        assertTrue(board.isAlive(1, 64));
+        assertTrue(board.isAlive(2, 129));
+        assertFalse(board.isAlive(1, 65));
+        assertEquals(3, board.population());
+
+        board.setAlive(1, 64, false);
+        assertFalse(board.isAlive(1, 64));
+    }
+
+    @Test
+    public void clearKillsAllCells() {
+        BitBoard board = BitBoard.of(createCellsFromBlueprint(new int[][]{
+                {1, 1, 1},
+                {1, 1, 1},
+                {1, 1, 1},
+        }));
+
+        game.reset(board);
+
+        assertEquals(0, board.population());
+    }
+
+    @Test
+    public void updateMatchesCellsWithCornersAlive() {
+        assertUpdateMatchesCells(new int[][]{
+                {1, 0, 1},
+                {0, 0, 0},
+                {1, 0, 1},
+        });
+    }
+
+    @Test
+    public void updateMatchesCellsWithStillLifeBlock() {
+        assertUpdateMatchesCells(new int[][]{
+                {0, 0, 0, 0},
+                {0, 1, 1, 0},
+                {0, 1, 1, 0},
+                {0, 0, 0, 0},
+        });
+    }
+
+    @Test
+    public void updateMatchesCellsWithOscillatorBlinker() {
+        assertUpdateMatchesCells(new int[][]{
+                {0, 0, 0, 0, 0},
+                {0, 0, 1, 0, 0},
+                {0, 0, 1, 0, 0},
+                {0, 0, 1, 0, 0},
+                {0, 0, 0, 0, 0},
+        });
+    }
+
+    @Test
+    public void updateMatchesCellsWithOscillatorBeacon() {
+        assertUpdateMatchesCells(new int[][]{
+                {0, 0, 0, 0, 0, 0},
+                {0, 0, 0, 0, 0, 0},
+                {0, 0, 1, 1, 1, 0},
+                {0, 1, 1, 1, 0, 0},
+                {0, 0, 0, 0, 0, 0},
+                {0, 0, 0, 0, 0, 0},
+        });
+    }
+
+    @Test
+    public void updateMatchesCellsOnRandomBoardAcrossWords() {
+        assertUpdateMatchesCells(createRandomBlueprint(37, 150, 1), 10);
+    }
+
+    @Test
+    public void updateMatchesCellsWithOtherRules() {
+        game.setCellBornConditions(new int[]{3, 6});
+        game.setCellSurviveConditions(new int[]{2, 3});
+        assertUpdateMatchesCells(createRandomBlueprint(20, 70, 2), 10);
+
+        game.setCellBornConditions(new int[]{0, 1, 8});
+        game.setCellSurviveConditions(new int[]{0, 4, 8});
+        assertUpdateMatchesCells(createRandomBlueprint(20, 70, 3), 5);
+    }
+
+    @Test
+    public void parallelUpdateMatchesSequentialUpdate() {
+        BitBoard sequential = createRandomBoard(517, 300, 4);
+        for (int i = 0; i < 20; i++) game.update(sequential);
+
+        Game parallelGame = new Game();
+        for (int threads : new int[]{2, 3, 8}) {
+            BitBoard parallel = createRandomBoard(517, 300, 4);
+            parallelGame.setThreads(threads);
+
+            for (int i = 0; i < 20; i++) parallelGame.update(parallel);
+
+            assertBoardsEqual(sequential, parallel);
+        }
+    }
+
+    @Test
+    public void vectorizedUpdateMatchesScalarUpdate() {
+        for (String rule : new String[]{"B3/S23", "B36/S23", "B0138/S048"}) {
+            game.setRule(rule);
+            for (int columns : new int[]{64, 300, 1000}) {
+                BitBoard scalar = createRandomBoard(150, columns, 9);
+                BitBoard vectorized = createRandomBoard(150, columns, 9);
+                vectorized.setVectorized(true);
+                assertEquals(BitBoard.isVectorSupported(), vectorized.isVectorized());
+
+                for (int i = 0; i < 12; i++) {
+                    game.update(scalar);
+                    game.update(vectorized);
+                }
+
+                assertBoardsEqual(scalar, vectorized);
+                assertEquals(scalar.getHash(), vectorized.getHash());
+                assertEquals(scalar.population(), vectorized.population());
+            }
+        }
+    }
+
+    @Test
+    public void multiGenerationUpdateMatchesSequentialUpdates() {
+        for (String rule : new String[]{"B3/S23", "B0138/S048"}) {
+            game.setRule(rule);
+            for (int[] size : new int[][]{{1, 70}, {37, 150}, {700, 4000}}) {
+                for (int generations : new int[]{1, 5, 40}) {
+                    BitBoard sequential = createRandomBoard(size[0], size[1], generations);
+                    BitBoard blocked = createRandomBoard(size[0], size[1], generations);
+                    long births = 0;
+                    long deaths = 0;
+
+                    for (int i = 0; i < generations; i++) {
+                        game.update(sequential);
+                        births += sequential.getLastBirths();
+                        deaths += sequential.getLastDeaths();
+                    }
+                    game.update(blocked, generations);
+
+                    assertBoardsEqual(sequential, blocked);
+                    assertEquals(sequential.getHash(), blocked.getHash());
+                    assertEquals(sequential.population(), blocked.population());
+                    assertEquals(births, blocked.getLastBirths());
+                    assertEquals(deaths, blocked.getLastDeaths());
+
+                    game.update(sequential); //Single steps after a blocked step evaluate every tile
+                    game.update(blocked);
+                    assertBoardsEqual(sequential, blocked);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void vectorizedMultiGenerationUpdateMatchesSequentialUpdates() {
+        BitBoard sequential = createRandomBoard(300, 1000, 10);
+        BitBoard blocked = createRandomBoard(300, 1000, 10);
+        blocked.setVectorized(true);
+
+        for (int i = 0; i < 20; i++) game.update(sequential);
+        game.update(blocked, 20);
+
+        assertBoardsEqual(sequential, blocked);
+    }
+
+    @Test
+    public void multiGenerationUpdateWithLargerRadius() {
+        game.setRule("R2,B6-9,S5-10");
+        BitBoard sequential = createRandomBoard(50, 100, 11);
+        BitBoard blocked = createRandomBoard(50, 100, 11);
+
+        for (int i = 0; i < 4; i++) game.update(sequential);
+        game.update(blocked, 4);
+
+        assertBoardsEqual(sequential, blocked);
+        assertEquals(sequential.getHash(), blocked.getHash());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void multiGenerationUpdateWithNegativeGenerations() {
+        game.update(new BitBoard(4, 4), -1);
+    }
+
+    @Test
+    public void updateMatchesCellsWithLargerRadius() {
+        game.setRule("R2,B6-9,S5-10");
+        assertUpdateMatchesCells(createRandomBlueprint(30, 140, 5), 8);
+
+        game.setRule("R5,B34-45,S33-57");
+        assertUpdateMatchesCells(createRandomBlueprint(40, 70, 6), 4);
+    }
+
+    @Test
+    public void parallelUpdateMatchesSequentialUpdateWithLargerRadius() {
+        game.setRule("R3,B10-16,S9-20");
+        BitBoard sequential = createRandomBoard(200, 100, 7);
+        for (int i = 0; i < 5; i++) game.update(sequential);
+
+        Game parallelGame = new Game();
+        parallelGame.setRule(game.getRule());
+        parallelGame.setThreads(4);
+        BitBoard parallel = createRandomBoard(200, 100, 7);
+        for (int i = 0; i < 5; i++) parallelGame.update(parallel);
+
+        assertBoardsEqual(sequential, parallel);
+    }
+
+    @Test
+    public void parallelUpdateReusesBandBuffers() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        game.setRule("R2,B6-9,S5-10");
+        game.setThreads(4);
+        BitBoard board = createRandomBoard(1024, 1024, 12);
+        for (int i = 0; i < 50; i++) game.update(board);
+
+        long before = allocatedBytes(threads);
+        for (int i = 0; i < 50; i++) game.update(board);
+        long perUpdate = (allocatedBytes(threads) - before) / 50;
+
+        assertTrue("Allocated " + perUpdate + " bytes per update", perUpdate < 1024); //A column count buffer is 4 KB
+    }
+
+    @Test
+    public void stableTilesAreSkipped() {
+        BitBoard board = new BitBoard(4 * BitBoard.TILE_ROWS, 256);
+        board.setAlive(10, 10, true); //Block in top left tile
+        board.setAlive(10, 11, true);
+        board.setAlive(11, 10, true);
+        board.setAlive(11, 11, true);
+        board.setAlive(200, 200, true); //Blinker in bottom right tile
+        board.setAlive(201, 200, true);
+        board.setAlive(202, 200, true);
+
+        game.update(board);
+        assertEquals(16, board.getEvaluatedTiles());
+
+        game.update(board);
+        assertEquals(4, board.getEvaluatedTiles());
+        assertEquals(12, board.getSkippedTiles());
+        assertTrue(board.isAlive(10, 10));
+        assertTrue(board.isAlive(201, 200));
+        assertTrue(board.isAlive(200, 200));
+        assertEquals(7, board.population());
+    }
+
+    @Test
+    public void skippedTilesMatchFullUpdate() {
+        int[][] blueprint = new int[300][300];
+        int[][] soup = createRandomBlueprint(40, 40, 8);
+        for (int row = 0; row < 40; row++) {
+            System.arraycopy(soup[row], 0, blueprint[row + 60], 60, 40);
+        }
+        Cell[][] cells = createCellsFromBlueprint(blueprint);
+        BitBoard board = BitBoard.of(cells);
+        Game fullGame = new Game();
+
+        for (int i = 0; i < 60; i++) {
+            game.update(board);
+            fullGame.update(cells);
+            if (i == 30) {
+                board.setAlive(150, 150, true);
+                cells[150][150].setAlive(true);
+            }
+        }
+
+        assertTrue(board.getSkippedTiles() > 0);
+        for (int row = 0; row < 300; row++) {
+            for (int col = 0; col < 300; col++) {
+                assertEquals(cells[row][col].isAlive(), board.isAlive(row, col));
+            }
+        }
+    }
+
+    @Test
+    public void tilePopulationsMatchRecountOfCells() {
+        BitBoard board = createRandomBoard(300, 200, 12);
+        assertTilePopulationsMatchCells(board);
+
+        game.update(board);
+        assertTilePopulationsMatchCells(board);
+        game.update(board, 10);
+        assertTilePopulationsMatchCells(board);
+
+        Game parallelGame = new Game();
+        parallelGame.setThreads(3);
+        parallelGame.update(board);
+        parallelGame.setThreads(1);
+        assertTilePopulationsMatchCells(board);
+
+        game.setRule("R2,B6-9,S5-10");
+        game.update(board);
+        assertTilePopulationsMatchCells(board);
+
+        board.setWord(70, 1, -1L);
+        board.setAlive(299, 199, true);
+        assertTilePopulationsMatchCells(board);
+
+        BitBoard copy = new BitBoard(300, 200);
+        board.copyTo(copy);
+        assertTilePopulationsMatchCells(copy);
+
+        board.clear();
+        assertTilePopulationsMatchCells(board);
+    }
+
+    @Test
+    public void tilePopulationsMatchRecountAfterGrowing() {
+        BitBoard board = createRandomBoard(70, 70, 13);
+        game.setTopology(Topology.INFINITE);
+
+        for (int i = 0; i < 5; i++) game.update(board);
+
+        assertTrue(board.getRows() > 70);
+        assertTilePopulationsMatchCells(board);
+    }
+
+    @Test
+    public void drainedChangesMatchDifferenceOfBoards() {
+        BitBoard board = createRandomBoard(200, 300, 14);
+        board.setTrackingChanges(true);
+        BitBoard shown = new BitBoard(200, 300);
+        board.copyTo(shown);
+        BoardDiff diff = new BoardDiff();
+
+        Game parallelGame = new Game();
+        parallelGame.setThreads(2);
+        for (int i = 0; i < 6; i++) {
+            if (i == 1) game.update(board, 5);
+            else if (i == 2) parallelGame.update(board);
+            else if (i == 3) board.setAlive(150, 250, !board.isAlive(150, 250));
+            else game.update(board);
+
+            long births = 0;
+            long deaths = 0;
+            for (int row = 0; row < 200; row++) {
+                for (int col = 0; col < 300; col++) {
+                    if (board.isAlive(row, col) && !shown.isAlive(row, col)) births++;
+                    if (!board.isAlive(row, col) && shown.isAlive(row, col)) deaths++;
+                }
+            }
+
+            board.drainChanges(diff, i, i + 1);
+            assertFalse(diff.isReset());
+            assertEquals(births, diff.getBirths());
+            assertEquals(deaths, diff.getDeaths());
+            diff.applyTo(shown);
+            assertBoardsEqual(board, shown);
+        }
+        parallelGame.setThreads(1);
+
+        board.drainChanges(diff, 6, 6);
+        assertEquals(0, diff.size());
+    }
+
+    @Test
+    public void drainedChangesOfCopiedAndClearedBoard() {
+        BitBoard board = createRandomBoard(150, 200, 17);
+        BitBoard shown = new BitBoard(150, 200);
+        board.copyTo(shown);
+        shown.setTrackingChanges(true);
+        BoardDiff diff = new BoardDiff();
+
+        board.setAlive(140, 190, !board.isAlive(140, 190));
+        board.copyTo(shown);
+        shown.drainChanges(diff, 0, 1);
+        assertEquals(1, diff.size());
+        assertEquals(140, diff.getRow(0));
+        assertEquals(2, diff.getWord(0));
+        assertEquals(1, diff.getBirths() + diff.getDeaths());
+
+        long population = shown.population();
+        shown.clear();
+        shown.drainChanges(diff, 1, 2);
+        assertEquals(0, diff.getBirths());
+        assertEquals(population, diff.getDeaths());
+    }
+
+    @Test
+    public void drainedChangesOfGrownBoardAreReset() {
+        BitBoard board = createRandomBoard(70, 70, 15);
+        board.setTrackingChanges(true);
+        game.setTopology(Topology.INFINITE);
+        game.update(board);
+
+        BoardDiff diff = new BoardDiff();
+        board.drainChanges(diff, 0, 1);
+        assertTrue(diff.isReset());
+        assertEquals(board.getRows(), diff.getRows());
+        assertEquals(board.population(), diff.getBirths());
+        assertEquals(0, diff.getDeaths());
+    }
+
+    @Test
+    public void mergedDiffsMatchDifferenceOfBoards() {
+        BitBoard board = createRandomBoard(100, 130, 16);
+        BitBoard shown = new BitBoard(100, 130);
+        board.copyTo(shown);
+        board.setTrackingChanges(true);
+
+        BoardDiff merged = new BoardDiff();
+        board.drainChanges(merged, 0, 0);
+        BoardDiff diff = new BoardDiff();
+        for (int i = 1; i <= 8; i++) {
+            game.update(board);
+            board.drainChanges(diff, i - 1, i);
+            merged.merge(diff);
+        }
+
+        assertEquals(0, merged.getFromGeneration());
+        assertEquals(8, merged.getToGeneration());
+        merged.applyTo(shown);
+        assertBoardsEqual(board, shown);
+
+        int[] born = merged.getBornCells();
+        assertEquals(2 * merged.getBirths(), born.length);
+        for (int i = 0; i < born.length; i += 2) {
+            assertTrue(board.isAlive(born[i], born[i + 1]));
+        }
+
+        BoardDiff whole = BoardDiff.of(board, 8);
+        whole.merge(diff);
+        assertTrue(whole.isReset());
+        assertEquals(board.population(), whole.getBirths());
+    }
+
+    /**
+     * Checks that population of every tile of a board matches a count of its cells.
+     *
+     * @param board board to check
+     */
+    private void assertTilePopulationsMatchCells(BitBoard board) {
+        long total = 0;
+        for (int tileRow = 0; tileRow < board.getTileRows(); tileRow++) {
+            for (int w = 0; w < board.getWordsPerRow(); w++) {
+                int count = 0;
+                for (int row = tileRow * BitBoard.TILE_ROWS; row < Math.min((tileRow + 1) * BitBoard.TILE_ROWS, board.getRows()); row++) {
+                    count += Long.bitCount(board.getWord(row, w));
+                }
+                assertEquals(count, board.getTilePopulation(tileRow, w));
+                total += count;
+            }
+        }
+        assertEquals(board.population(), total);
+    }
+
+    /**
+     * Checks that a single update of a board matches an update of cells.
+     *
+     * @param blueprint 2D int array to be used as blueprint
+     */
+    private void assertUpdateMatchesCells(int[][] blueprint) {
+        assertUpdateMatchesCells(blueprint, 1);
+    }
+
+    /**
+     * Checks that updating a board matches updating cells for a number of generations.
+     *
+     * @param blueprint   2D int array to be used as blueprint
+     * @param generations number of generations to compare
+     */
+    private void assertUpdateMatchesCells(int[][] blueprint, int generations) {
+        Cell[][] cells = createCellsFromBlueprint(blueprint);
+        BitBoard board = BitBoard.of(cells);
+
+        for (int i = 0; i < generations; i++) {
+            game.update(cells);
+            game.update(board);
+
+            for (int row = 0; row < cells.length; row++) {
+                for (int col = 0; col < cells[row].length; col++) {
+                    assertEquals(cells[row][col].isAlive(), board.isAlive(row, col));
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks that two boards have equal alive state for every cell.
+     *
+     * @param expected expected board
+     * @param actual   actual board
+     */
+    private void assertBoardsEqual(BitBoard expected, BitBoard actual) {
+        for (int row = 0; row < expected.getRows(); row++) {
+            for (int col = 0; col < expected.getColumns(); col++) {
+                assertEquals(expected.isAlive(row, col), actual.isAlive(row, col));
+            }
+        }
+    }
+
+    /**
+     * Creates a random board.
+     *
+     * @param rows    number of rows
+     * @param columns number of columns
+     * @param seed    random seed
+     * @return created board
+     */
+    private long allocatedBytes(com.sun.management.ThreadMXBean threads) {
+        long bytes = 0;
+        for (long allocated : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+            if (allocated > 0) bytes += allocated;
+        }
+        return bytes;
+    }
+
+    private BitBoard createRandomBoard(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        BitBoard board = new BitBoard(rows, columns);
+
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                board.setAlive(row, col, random.nextInt(3) == 0);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * Creates a random blueprint.
+     *
+     * @param rows    number of rows
+     * @param columns number of columns
+     * @param seed    random seed
+     * @return created blueprint
+     */
+    private int[][] createRandomBlueprint(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        int[][] blueprint = new int[rows][columns];
+
+        for (int[] row : blueprint) {
+            for (int j = 0; j < row.length; j++) {
+                row[j] = random.nextInt(3) == 0 ? 1 : 0;
+            }
+        }
+        return blueprint;
+    }
+
+    /**
+     * Creates a 2D array of cells based on blueprint int 2D array
+     *
+     * @param blueprint 2D int array to be used as blueprint
+     * @return cells of blueprint
+     */
+    private Cell[][] createCellsFromBlueprint(int[][] blueprint) {
+        Cell[][] cells = new Cell[blueprint.length][blueprint[0].length];
+
+        for (int i = 0; i < blueprint.length; i++) {
+            for (int j = 0; j < blueprint[i].length; j++) {
+                cells[i][j] = new Cell(i, j);
+                cells[i][j].setAlive(blueprint[i][j] == 1);
+            }
+        }
+
+        return cells;
+    }
+}
@@ -0,0 +1,50 @@
+package com.larssont.gameoflife.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+
+public class CellTest {
+
+    private Cell cell;
+    private int row = 3;
+    private int column = 3;
+
+    @Before
+    public void init() {
+        cell = new Cell(row, column);
+    }
+
+    @Test
+    public void cellIsCreatedDead() {
+        assertFalse(cell.isAlive());
+    }
+
+    @Test
+    public void cellSetGetAliveTrue() {
+        cell.setAlive(true);
+        assertTrue(cell.isAlive());
+    }
+
+    @Test
+    public void cellSetGetAliveFalse() {
+        cell.setAlive(false);
+        assertFalse(cell.isAlive());
+    }
+
+    @Test
+    public void cellToggleNotifiesListeners() {
+        int[] toggles = {0};
+        int[] changes = {0};
+        cell.setOnToggle(c -> toggles[0]++);
+        cell.setOnAliveChanged(c -> changes[0]++);
+
+        cell.toggleAlive();
+
+        assertTrue(cell.isAlive());
+        assertEquals(1, toggles[0]);
+        assertEquals(2, changes[0]); //Once when set, once when toggled
+    }
+}
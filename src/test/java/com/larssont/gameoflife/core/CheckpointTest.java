@@ -0,0 +1,163 @@
+package com.larssont.gameoflife.core;
+
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CheckpointTest {
+
+    @org.junit.Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void restoreReplaysJournal() throws IOException, InterruptedException {
+        Path directory = folder.getRoot().toPath();
+        BitBoard board = createSoup(100, 130, 1);
+        BitBoard expected = new BitBoard(100, 130);
+
+        try (CheckpointWriter writer = new CheckpointWriter(directory, 1000)) {
+            for (int generation = 0; generation < 20; generation++) {
+                writer.put(board, generation, Rule.CONWAY);
+                board.copyTo(expected);
+                board.step(Rule.CONWAY);
+            }
+        }
+
+        Checkpoint checkpoint = Checkpoint.readLatest(directory);
+        assertEquals(19, checkpoint.getGeneration());
+        assertEquals(Rule.CONWAY, checkpoint.getRule());
+        assertBoardsEqual(expected, checkpoint.getBoard());
+        assertEquals(1, CheckpointWriter.listFiles(directory).size());
+    }
+
+    @Test
+    public void journalIsSmallerThanSnapshots() throws IOException, InterruptedException {
+        Path directory = folder.getRoot().toPath();
+        BitBoard board = new BitBoard(1024, 1024);
+        Random random = new Random(2);
+        for (int i = 0; i < 100_000; i++) {
+            board.setAlive(random.nextInt(1024), random.nextInt(1024), true);
+        }
+
+        try (CheckpointWriter writer = new CheckpointWriter(directory, 1000)) {
+            writer.put(board, 0, Rule.CONWAY);
+        }
+        long snapshotSize = Files.size(CheckpointWriter.listFiles(directory).get(0));
+
+        try (CheckpointWriter writer = new CheckpointWriter(directory, 1000)) {
+            for (int generation = 1; generation <= 10; generation++) {
+                board.setAlive(generation, generation, !board.isAlive(generation, generation));
+                writer.put(board, generation, Rule.CONWAY);
+            }
+        }
+        List<Path> files = CheckpointWriter.listFiles(directory);
+        long journalSize = Files.size(files.get(files.size() - 1)) - snapshotSize;
+
+        assertTrue("Journal of 9 single-cell records took " + journalSize + " bytes", journalSize < 9 * 40);
+    }
+
+    @Test
+    public void newFileIsStartedAfterRecordsPerSnapshot() throws IOException, InterruptedException {
+        Path directory = folder.getRoot().toPath();
+        BitBoard board = createSoup(20, 20, 3);
+
+        try (CheckpointWriter writer = new CheckpointWriter(directory, 4)) {
+            for (int generation = 0; generation < 12; generation++) {
+                writer.put(board, generation, Rule.CONWAY);
+                board.step(Rule.CONWAY);
+            }
+        }
+
+        List<Path> files = CheckpointWriter.listFiles(directory);
+        assertEquals(2, files.size()); //Older files are deleted
+        assertEquals(CheckpointWriter.fileName(10), files.get(1).getFileName().toString());
+        assertEquals(11, Checkpoint.readLatest(directory).getGeneration());
+    }
+
+    @Test
+    public void restoreStopsAtTruncatedRecord() throws IOException, InterruptedException {
+        Path directory = folder.getRoot().toPath();
+        BitBoard board = createSoup(64, 64, 4);
+
+        try (CheckpointWriter writer = new CheckpointWriter(directory, 1000)) {
+            for (int generation = 0; generation < 10; generation++) {
+                writer.put(board, generation, Rule.CONWAY);
+                board.step(Rule.CONWAY);
+            }
+        }
+        Path file = CheckpointWriter.listFiles(directory).get(0);
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(raf.length() - 20);
+        }
+
+        Checkpoint checkpoint = Checkpoint.readLatest(directory);
+        assertTrue(checkpoint.getGeneration() < 9);
+    }
+
+    @Test
+    public void restoreFallsBackToOlderFile() throws IOException, InterruptedException {
+        Path directory = folder.getRoot().toPath();
+        BitBoard board = createSoup(64, 64, 5);
+
+        try (CheckpointWriter writer = new CheckpointWriter(directory, 2)) {
+            for (int generation = 0; generation < 4; generation++) {
+                writer.put(board, generation, Rule.CONWAY);
+                board.step(Rule.CONWAY);
+            }
+        }
+        List<Path> files = CheckpointWriter.listFiles(directory);
+        Files.write(files.get(1), new byte[]{1, 2, 3});
+
+        assertEquals(2, Checkpoint.readLatest(directory).getGeneration());
+    }
+
+    @Test
+    public void readLatestOfMissingDirectory() throws IOException {
+        assertNull(Checkpoint.readLatest(folder.getRoot().toPath().resolve("missing")));
+    }
+
+    @Test
+    public void simulationWritesCheckpoints() throws IOException, InterruptedException {
+        Path directory = folder.getRoot().toPath();
+        Simulation simulation = new Simulation(new Game(), createSoup(32, 32, 6), 100);
+        CheckpointWriter writer = new CheckpointWriter(directory, 1000);
+        simulation.setCheckpoints(writer, 1);
+        simulation.start();
+
+        simulation.play();
+        while (writer.getWrittenGenerations() < 5) Thread.sleep(1);
+        simulation.close();
+        writer.close();
+
+        assertTrue(Checkpoint.readLatest(directory).getGeneration() > 100);
+    }
+
+    private BitBoard createSoup(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        BitBoard board = new BitBoard(rows, columns);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                board.setAlive(row, col, random.nextBoolean());
+            }
+        }
+        return board;
+    }
+
+    private void assertBoardsEqual(BitBoard expected, BitBoard actual) {
+        assertEquals(expected.getRows(), actual.getRows());
+        assertEquals(expected.getColumns(), actual.getColumns());
+        for (int row = 0; row < expected.getRows(); row++) {
+            for (int col = 0; col < expected.getColumns(); col++) {
+                assertEquals("Cell " + row + ", " + col, expected.isAlive(row, col), actual.isAlive(row, col));
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.larssont.gameoflife.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class CycleDetectorTest {
+
+    @Test
+    public void detectBlinkerPeriod() {
+        BitBoard board = new BitBoard(10, 10);
+        board.setAlive(4, 3, true);
+        board.setAlive(4, 4, true);
+        board.setAlive(4, 5, true);
+
+        CycleDetector.Cycle cycle = run(board, new CycleDetector(10), 10);
+
+        assertNotNull(cycle);
+        assertEquals(2, cycle.getPeriod());
+        assertEquals(0, cycle.getStartGeneration());
+        assertEquals(2, cycle.getDetectedGeneration());
+        assertFalse(cycle.isStillLife());
+    }
+
+    @Test
+    public void detectStillLifeAfterTransient() {
+        BitBoard board = new BitBoard(10, 10);
+        board.setAlive(4, 4, true); //Becomes a block in generation 1
+        board.setAlive(4, 5, true);
+        board.setAlive(5, 4, true);
+
+        CycleDetector.Cycle cycle = run(board, new CycleDetector(10), 10);
+
+        assertTrue(cycle.isStillLife());
+        assertEquals(1, cycle.getStartGeneration());
+        assertEquals(2, cycle.getDetectedGeneration());
+    }
+
+    @Test
+    public void detectExtinction() {
+        BitBoard board = new BitBoard(10, 10);
+        board.setAlive(4, 4, true);
+
+        CycleDetector.Cycle cycle = run(board, new CycleDetector(10), 10);
+
+        assertTrue(cycle.isExtinct());
+        assertEquals(1, cycle.getStartGeneration());
+    }
+
+    @Test
+    public void periodsAboveMaximumAreNotDetected() {
+        BitBoard board = new BitBoard(10, 10);
+        board.setAlive(4, 3, true);
+        board.setAlive(4, 4, true);
+        board.setAlive(4, 5, true);
+
+        assertNull(run(board, new CycleDetector(1), 10));
+    }
+
+    @Test
+    public void movingGliderIsNotACycle() {
+        BitBoard board = new BitBoard(64, 64);
+        board.setAlive(0, 1, true);
+        board.setAlive(1, 2, true);
+        board.setAlive(2, 0, true);
+        board.setAlive(2, 1, true);
+        board.setAlive(2, 2, true);
+
+        assertNull(run(board, new CycleDetector(50), 100)); //Moves, so no generation repeats
+    }
+
+    @Test
+    public void hashMatchesRecomputedBoard() {
+        Random random = new Random(1);
+        BitBoard board = new BitBoard(150, 150);
+        for (int i = 0; i < 8000; i++) {
+            board.setAlive(random.nextInt(150), random.nextInt(150), true);
+        }
+
+        for (int i = 0; i < 30; i++) {
+            board.step(i < 15 ? Rule.CONWAY : Rule.parse("R2,B7-9,S6-11"));
+            BitBoard copy = new BitBoard(150, 150);
+            for (int row = 0; row < 150; row++) {
+                for (int col = 0; col < 150; col++) {
+                    if (board.isAlive(row, col)) copy.setAlive(row, col, true);
+                }
+            }
+            assertEquals(copy.getHash(), board.getHash());
+        }
+    }
+
+    @Test
+    public void sparseHashMatchesRecomputedPlane() {
+        SparseBoard plane = new SparseBoard();
+        plane.setAlive(0, 0, true);
+        plane.setAlive(0, 1, true);
+        plane.setAlive(0, 2, true);
+        long horizontal = plane.getHash();
+
+        plane.step(Rule.CONWAY);
+        assertNotEquals(horizontal, plane.getHash());
+        plane.step(Rule.CONWAY);
+        assertEquals(horizontal, plane.getHash());
+
+        plane.clear();
+        assertEquals(0, plane.getHash());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createWithZeroPeriod() {
+        new CycleDetector(0);
+    }
+
+    @Test
+    public void simulationPausesOnCycle() throws InterruptedException {
+        BitBoard board = new BitBoard(10, 10);
+        board.setAlive(4, 3, true);
+        board.setAlive(4, 4, true);
+        board.setAlive(4, 5, true);
+        Simulation simulation = new Simulation(new Game(), board);
+        simulation.setCycleDetector(new CycleDetector(10));
+        simulation.start();
+
+        simulation.play();
+        for (int i = 0; i < 1000 && simulation.isRunning(); i++) Thread.sleep(1);
+        simulation.close();
+
+        assertFalse(simulation.isRunning());
+        assertEquals(2, simulation.getCycle().getPeriod());
+        assertEquals(2, simulation.getGeneration());
+    }
+
+    private CycleDetector.Cycle run(BitBoard board, CycleDetector detector, int generations) {
+        detector.add(0, board.getHash());
+        for (int generation = 1; generation <= generations; generation++) {
+            board.step(Rule.CONWAY);
+            CycleDetector.Cycle cycle = detector.add(generation, board.getHash());
+            if (cycle != null) return cycle;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,173 @@
+package com.larssont.gameoflife.core;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EngineMetricsTest {
+
+    @Test
+    public void histogramPercentilesBoundRecordedLatencies() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000L);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(100_000, histogram.getMaxNanos());
+        assertEquals(50_500, histogram.getMeanNanos(), 1e-9);
+        long p50 = histogram.getPercentileNanos(50);
+        assertTrue(p50 >= 50_000 && p50 < 100_000);
+        assertEquals(100_000, histogram.getPercentileNanos(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getPercentileNanos(99));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectPercentileAboveHundred() {
+        new LatencyHistogram().getPercentileNanos(101);
+    }
+
+    @Test
+    public void recordBitBoardUpdates() {
+        BitBoard board = new BitBoard(10, 10);
+        board.setAlive(4, 3, true); //Blinker, 2 births and 2 deaths per generation
+        board.setAlive(4, 4, true);
+        board.setAlive(4, 5, true);
+        Game game = new Game();
+        EngineMetrics metrics = new EngineMetrics();
+        game.setMetrics(metrics);
+
+        for (int i = 0; i < 5; i++) {
+            game.update(board);
+        }
+
+        assertEquals(5, metrics.getGenerations());
+        assertEquals(10, metrics.getBirths());
+        assertEquals(10, metrics.getDeaths());
+        assertEquals(3, metrics.getPopulation());
+        assertEquals(5, metrics.getTickHistogram().getCount());
+
+        metrics.recordRender(null, 1000, 5); //Render without a flight recording
+        assertEquals(1, metrics.getRenders());
+
+        metrics.reset();
+        assertEquals(0, metrics.getGenerations());
+        assertEquals(0, metrics.getRenders());
+        assertEquals(0, metrics.getPopulation());
+        assertEquals(0, metrics.getLastBirths());
+        assertEquals(0, metrics.getLastDeaths());
+    }
+
+    @Test
+    public void recordEvaluatedAndSkippedTiles() {
+        BitBoard board = new BitBoard(4 * BitBoard.TILE_ROWS, 256);
+        board.setAlive(10, 10, true); //Block, so no tile changes after the first generation
+        board.setAlive(10, 11, true);
+        board.setAlive(11, 10, true);
+        board.setAlive(11, 11, true);
+        Game game = new Game();
+        EngineMetrics metrics = new EngineMetrics();
+        game.setMetrics(metrics);
+
+        game.update(board);
+        game.update(board);
+        assertEquals(16, metrics.getEvaluatedTiles());
+        assertEquals(16, metrics.getSkippedTiles());
+
+        game.update(board, 3); //Blocks of generations evaluate every tile
+        assertEquals(64, metrics.getEvaluatedTiles());
+        assertEquals(16, metrics.getSkippedTiles());
+
+        metrics.reset();
+        assertEquals(0, metrics.getEvaluatedTiles());
+        assertEquals(0, metrics.getSkippedTiles());
+    }
+
+    @Test
+    public void countsMatchRecountOfCells() {
+        Random random = new Random(14);
+        BitBoard board = new BitBoard(70, 130);
+        Cell[][] cells = new Cell[70][130];
+        for (int row = 0; row < 70; row++) {
+            for (int col = 0; col < 130; col++) {
+                cells[row][col] = new Cell(row, col);
+                if (random.nextInt(3) == 0) {
+                    board.setAlive(row, col, true);
+                    cells[row][col].setAlive(true);
+                }
+            }
+        }
+        Game boardGame = new Game();
+        Game cellGame = new Game();
+        EngineMetrics boardMetrics = new EngineMetrics();
+        EngineMetrics cellMetrics = new EngineMetrics();
+        boardGame.setMetrics(boardMetrics);
+        cellGame.setMetrics(cellMetrics);
+
+        for (int i = 0; i < 10; i++) {
+            long before = board.population();
+            boardGame.update(board);
+            cellGame.update(cells);
+
+            assertEquals(count(cells), board.population());
+            assertEquals(board.population(), cellMetrics.getPopulation());
+            assertEquals(board.population() - before, board.getLastBirths() - board.getLastDeaths());
+            assertEquals(board.getLastBirths(), cellMetrics.getLastBirths());
+            assertEquals(board.getLastDeaths(), cellMetrics.getLastDeaths());
+        }
+        assertEquals(cellMetrics.getBirths(), boardMetrics.getBirths());
+        assertEquals(cellMetrics.getDeaths(), boardMetrics.getDeaths());
+    }
+
+    @Test
+    public void countSparseBirthsAndDeaths() {
+        SparseBoard plane = new SparseBoard();
+        plane.setAlive(0, 0, true); //R-pentomino
+        plane.setAlive(0, 1, true);
+        plane.setAlive(1, -1, true);
+        plane.setAlive(1, 0, true);
+        plane.setAlive(2, 0, true);
+
+        for (int i = 0; i < 50; i++) {
+            long before = plane.population();
+            plane.step(Rule.CONWAY);
+            assertEquals(plane.population() - before, plane.getLastBirths() - plane.getLastDeaths());
+        }
+    }
+
+    @Test
+    public void registerWithPlatformServer() throws Exception {
+        EngineMetrics metrics = new EngineMetrics();
+        metrics.register("test");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("com.larssont.gameoflife:type=EngineMetrics,name=\"test\"");
+
+        Game game = new Game();
+        game.setMetrics(metrics);
+        game.update(new BitBoard(4, 4));
+        assertEquals(1L, server.getAttribute(name, "Generations"));
+        assertEquals(1L, server.getAttribute(name, "EvaluatedTiles"));
+
+        metrics.register("test"); //Replaces registered metrics
+        metrics.unregister();
+        assertFalse(server.isRegistered(name));
+    }
+
+    private static long count(Cell[][] cells) {
+        long alive = 0;
+        for (Cell[] row : cells) {
+            for (Cell cell : row) {
+                if (cell.isAlive()) alive++;
+            }
+        }
+        return alive;
+    }
+}
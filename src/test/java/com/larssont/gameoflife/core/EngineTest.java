@@ -0,0 +1,284 @@
+package com.larssont.gameoflife.core;
+
+import org.junit.Test;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class EngineTest {
+
+    @Test
+    public void createByName() {
+        assertTrue(Engine.create("sparse") instanceof SparseBoard);
+        assertTrue(Engine.create("Dense") instanceof DenseEngine);
+        assertTrue(Engine.create(" adaptive ") instanceof AdaptiveEngine);
+    }
+
+    @Test
+    public void createByNameIgnoresDefaultLocale() {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR")); //Lower case of I is a dotless i
+        try {
+            assertTrue(Engine.create("ADAPTIVE") instanceof AdaptiveEngine);
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createUnknownEngine() {
+        Engine.create("hashlife");
+    }
+
+    @Test
+    public void denseStepMatchesSparse() {
+        SparseBoard expected = createSoup(new SparseBoard(), 80, 80, 1);
+        DenseEngine dense = createSoup(new DenseEngine(), 80, 80, 1);
+
+        for (int i = 0; i < 200; i++) {
+            expected.step(Rule.CONWAY);
+            dense.step(Rule.CONWAY);
+            assertPlanesEqual(expected, dense);
+        }
+    }
+
+    @Test
+    public void denseBoardGrowsWithGlider() {
+        DenseEngine dense = new DenseEngine();
+        addGlider(dense, 0, 0);
+        long area = dense.getArea();
+        SparseBoard expected = new SparseBoard();
+        addGlider(expected, 0, 0);
+
+        for (int i = 0; i < 400; i++) {
+            expected.step(Rule.CONWAY);
+            dense.step(Rule.CONWAY);
+            assertEquals(expected.getHash(), dense.getHash());
+        }
+
+        assertPlanesEqual(expected, dense);
+        assertArrayEquals(new long[]{100, 100, 102, 102}, dense.getBounds());
+        assertTrue(dense.getArea() > area);
+    }
+
+    @Test
+    public void denseSetAliveFarAwayGrowsBoard() {
+        DenseEngine dense = new DenseEngine();
+        dense.setAlive(-5, 7, true);
+        dense.setAlive(100000, -3000, true);
+        dense.setAlive(SparseBoard.MAX_COORDINATE, 0, false); //Dead cells outside of board are ignored
+
+        assertTrue(dense.isAlive(-5, 7));
+        assertTrue(dense.isAlive(100000, -3000));
+        assertEquals(2, dense.population());
+        assertArrayEquals(new long[]{-5, -3000, 100000, 7}, dense.getBounds());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void denseRejectsBirthWithoutNeighbours() {
+        new DenseEngine().step(Rule.parse("B0/S8"));
+    }
+
+    @Test
+    public void boundedDenseStepsBoardInPlace() {
+        BitBoard expected = new BitBoard(50, 70);
+        Random random = new Random(4);
+        for (int row = 0; row < 50; row++) {
+            for (int col = 0; col < 70; col++) {
+                expected.setAlive(row, col, random.nextInt(3) == 0);
+            }
+        }
+        expected.setTopology(Topology.TORUS);
+        BitBoard board = new BitBoard(50, 70);
+        expected.copyTo(board);
+        board.setTopology(Topology.TORUS);
+        DenseEngine dense = new DenseEngine(board);
+        assertSame(board, dense.getBoard());
+
+        for (int i = 0; i < 50; i++) {
+            expected.step(Rule.CONWAY);
+            dense.step(Rule.CONWAY);
+            assertEquals(expected.getHash(), board.getHash());
+            assertEquals(dense.snapshot().getHash(), dense.getHash());
+        }
+        assertEquals(expected.population(), dense.population());
+        assertEquals(expected.getLastBirths(), dense.getLastBirths());
+    }
+
+    @Test
+    public void boundedDenseIgnoresCellsBeyondBoard() {
+        DenseEngine dense = new DenseEngine(new BitBoard(10, 10));
+        BitBoard pattern = new BitBoard(4, 4);
+        pattern.setAlive(0, 2, true);
+        pattern.setAlive(1, 0, true); //Left of board
+        pattern.setAlive(3, 3, true); //Below board
+
+        dense.load(pattern, 8, -2);
+        dense.setAlive(20, 20, false); //Dead cells beyond board are ignored
+
+        assertEquals(1, dense.population());
+        assertTrue(dense.isAlive(8, 0));
+        assertEquals(10, dense.getBoard().getRows());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void boundedDenseRejectsAliveCellsBeyondBoard() {
+        new DenseEngine(new BitBoard(10, 10)).setAlive(10, 0, true);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void boundedDenseRejectsInfiniteBoard() {
+        BitBoard board = new BitBoard(10, 10);
+        board.setTopology(Topology.INFINITE);
+        new DenseEngine(board);
+    }
+
+    @Test
+    public void snapshotStaysUnchangedWhileStepping() {
+        DenseEngine dense = createSoup(new DenseEngine(), 30, 30, 6);
+        Engine snapshot = dense.snapshot();
+        long hash = dense.getHash();
+
+        dense.step(Rule.CONWAY);
+
+        assertEquals(hash, snapshot.getHash());
+        assertNotEquals(hash, dense.getHash());
+    }
+
+    @Test
+    public void loadAndCopyToMatchAcrossEngines() {
+        BitBoard pattern = new BitBoard(50, 70);
+        Random random = new Random(2);
+        for (int row = 0; row < 50; row++) {
+            for (int col = 0; col < 70; col++) {
+                pattern.setAlive(row, col, random.nextInt(3) == 0);
+            }
+        }
+        SparseBoard sparse = new SparseBoard();
+        DenseEngine dense = new DenseEngine();
+        sparse.load(pattern, -1000, 3000);
+        dense.load(pattern, -1000, 3000);
+
+        BitBoard fromSparse = new BitBoard(40, 100);
+        BitBoard fromDense = new BitBoard(40, 100);
+        sparse.copyTo(fromSparse, -990, 2950);
+        dense.copyTo(fromDense, -990, 2950);
+
+        assertPlanesEqual(sparse, dense);
+        for (int row = 0; row < 40; row++) {
+            for (int col = 0; col < 100; col++) {
+                assertEquals("Cell " + row + "," + col, fromSparse.isAlive(row, col), fromDense.isAlive(row, col));
+            }
+        }
+    }
+
+    @Test
+    public void hashesMatchAcrossEngines() {
+        SparseBoard sparse = createSoup(new SparseBoard(), 40, 40, 3);
+        DenseEngine dense = createSoup(new DenseEngine(), 40, 40, 3);
+
+        for (int i = 0; i < 20; i++) {
+            assertEquals(sparse.getHash(), dense.getHash());
+            sparse.step(Rule.CONWAY);
+            dense.step(Rule.CONWAY);
+        }
+    }
+
+    @Test
+    public void adaptiveBecomesDenseAndSparseAgain() {
+        AdaptiveEngine adaptive = new AdaptiveEngine();
+        adaptive.setCheckInterval(1);
+        createSoup(adaptive, 100, 100, 4);
+        assertFalse(adaptive.isDense());
+
+        SparseBoard expected = createSoup(new SparseBoard(), 100, 100, 4);
+        adaptive.adapt();
+        assertTrue(adaptive.isDense());
+        assertEquals(1, adaptive.getSwitches());
+
+        adaptive.setDenseDensity(1);
+        adaptive.setSparseDensity(0.99);
+        adaptive.step(Rule.CONWAY);
+        expected.step(Rule.CONWAY);
+        assertFalse(adaptive.isDense());
+        assertEquals(2, adaptive.getSwitches());
+        assertPlanesEqual(expected, adaptive);
+    }
+
+    @Test
+    public void adaptiveMatchesSparseWhileSwitching() {
+        AdaptiveEngine adaptive = new AdaptiveEngine(0.1, 0.05);
+        adaptive.setCheckInterval(4);
+        adaptive.setMinDensePopulation(0);
+        SparseBoard expected = createSoup(new SparseBoard(), 60, 60, 5);
+        createSoup(adaptive, 60, 60, 5);
+
+        for (int i = 0; i < 300; i++) {
+            if (i == 100) { //Spreads alive cells over a much larger area
+                addGlider(expected, -300, -300);
+                addGlider(adaptive, -300, -300);
+            }
+            expected.step(Rule.CONWAY);
+            adaptive.step(Rule.CONWAY);
+            assertEquals(expected.getHash(), adaptive.getHash());
+        }
+
+        assertPlanesEqual(expected, adaptive);
+        assertEquals(2, adaptive.getSwitches());
+        assertFalse(adaptive.isDense());
+    }
+
+    @Test
+    public void adaptiveKeepsSmallPopulationsSparse() {
+        AdaptiveEngine adaptive = new AdaptiveEngine();
+        addGlider(adaptive, 0, 0);
+
+        adaptive.adapt();
+
+        assertFalse(adaptive.isDense());
+        assertEquals(0, adaptive.getSwitches());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void adaptiveDensityMustBeInRange() {
+        new AdaptiveEngine().setDenseDensity(1.5);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void adaptiveRejectsDenseDensityBelowSparseDensity() {
+        new AdaptiveEngine(0.001, 0.01);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void adaptiveSetterRejectsSparseDensityAboveDenseDensity() {
+        new AdaptiveEngine().setSparseDensity(0.5);
+    }
+
+    private static void addGlider(Engine plane, long row, long column) {
+        plane.setAlive(row, column + 1, true);
+        plane.setAlive(row + 1, column + 2, true);
+        plane.setAlive(row + 2, column, true);
+        plane.setAlive(row + 2, column + 1, true);
+        plane.setAlive(row + 2, column + 2, true);
+    }
+
+    private static void assertPlanesEqual(Engine expected, Engine actual) {
+        assertEquals(expected.population(), actual.population());
+        assertArrayEquals(expected.getBounds(), actual.getBounds());
+        expected.forEachAlive(position ->
+                assertTrue("Cell " + SparseBoard.row(position) + "," + SparseBoard.column(position),
+                        actual.isAlive(SparseBoard.row(position), SparseBoard.column(position))));
+    }
+
+    private static <T extends Engine> T createSoup(T plane, int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                plane.setAlive(row, column, random.nextInt(3) == 0);
+            }
+        }
+        return plane;
+    }
+}
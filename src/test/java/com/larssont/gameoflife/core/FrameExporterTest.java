@@ -0,0 +1,112 @@
+package com.larssont.gameoflife.core;
+
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class FrameExporterTest {
+
+    private static final int CELL_SIZE = 3;
+
+    @org.junit.Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void pngFramesMatchBoards() throws IOException {
+        Path directory = folder.getRoot().toPath().resolve("frames");
+        BitBoard board = createSoup(40, 70, 1);
+        BitBoard[] expected = new BitBoard[6];
+
+        try (FrameExporter exporter = new FrameExporter(directory, FrameExporter.Format.PNG, CELL_SIZE, 3, 2)) {
+            for (int generation = 0; generation < expected.length; generation++) {
+                expected[generation] = new BitBoard(40, 70);
+                board.copyTo(expected[generation]);
+                assertTrue(exporter.offer(board, generation, 10, TimeUnit.SECONDS));
+                board.step(Rule.CONWAY);
+            }
+        }
+
+        for (int frame = 0; frame < expected.length; frame++) {
+            assertImageMatches(expected[frame], ImageIO.read(directory.resolve(FrameExporter.fileName(frame)).toFile()));
+        }
+    }
+
+    @Test
+    public void gifFramesAreInOrder() throws IOException {
+        Path file = folder.getRoot().toPath().resolve("run.gif");
+        BitBoard board = createSoup(30, 30, 2);
+        BitBoard[] expected = new BitBoard[8];
+
+        try (FrameExporter exporter = new FrameExporter(file, FrameExporter.Format.GIF, CELL_SIZE, 3, 3)) {
+            for (int generation = 0; generation < expected.length; generation++) {
+                expected[generation] = new BitBoard(30, 30);
+                board.copyTo(expected[generation]);
+                assertTrue(exporter.offer(board, generation, 10, TimeUnit.SECONDS));
+                board.step(Rule.CONWAY);
+            }
+        }
+
+        ImageReader reader = ImageIO.getImageReadersByFormatName("gif").next();
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            reader.setInput(in);
+            assertEquals(expected.length, reader.getNumImages(true));
+            for (int frame = 0; frame < expected.length; frame++) {
+                assertImageMatches(expected[frame], reader.read(frame));
+            }
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    @Test
+    public void offerAfterCloseIsRejected() throws IOException {
+        FrameExporter exporter = new FrameExporter(folder.getRoot().toPath(), FrameExporter.Format.PNG, 1, 1, 1);
+        exporter.close();
+
+        assertFalse(exporter.offer(new BitBoard(8, 8), 0));
+        assertEquals(0, exporter.getWrittenFrames());
+    }
+
+    @Test
+    public void formatFollowsFileName() {
+        assertEquals(FrameExporter.Format.GIF, FrameExporter.Format.fromFileName("run.GIF"));
+        assertEquals(FrameExporter.Format.PNG, FrameExporter.Format.fromFileName("frames"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cellSizeMustBePositive() throws IOException {
+        new FrameExporter(folder.getRoot().toPath(), FrameExporter.Format.PNG, 0, 1, 1);
+    }
+
+    private static void assertImageMatches(BitBoard board, BufferedImage image) {
+        assertEquals(board.getColumns() * CELL_SIZE, image.getWidth());
+        assertEquals(board.getRows() * CELL_SIZE, image.getHeight());
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int column = 0; column < board.getColumns(); column++) {
+                int rgb = image.getRGB(column * CELL_SIZE + CELL_SIZE - 1, row * CELL_SIZE + CELL_SIZE - 1) & 0xFFFFFF;
+                assertEquals("Cell " + row + "," + column, board.isAlive(row, column), rgb == 0);
+            }
+        }
+    }
+
+    private static BitBoard createSoup(int rows, int columns, long seed) {
+        BitBoard board = new BitBoard(rows, columns);
+        Random random = new Random(seed);
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                board.setAlive(row, column, random.nextInt(3) == 0);
+            }
+        }
+        return board;
+    }
+}
@@ -1,8 +1,12 @@
-package com.larssont.gameoflife;
+package com.larssont.gameoflife.core;
 
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.lang.management.ManagementFactory;
+import java.util.Random;
+
 import static org.junit.Assert.*;
 
 public class GameTest {
@@ -12,12 +16,9 @@ public class GameTest {
     private int[] surviveConditions = {2, 3};
 
     private Game game;
-    private CellGridPane cellGridPane;
 
     @Before
     public void init() {
-        cellGridPane = new CellGridPane(1000);
-
         game = new Game();
         game.setNeighbourRadius(neighbourRadius);
         game.setCellBornConditions(bornConditions);
@@ -39,6 +40,23 @@ public class GameTest {
         game.setNeighbourRadius(-1);
     }
 
+    @Test(expected = IllegalArgumentException.class)
+    public void setThreadsToZero() {
+        game.setThreads(0);
+    }
+
+    @Test
+    public void setRuleFromString() {
+        game.setRule("B36/S23");
+
+        assertEquals(Rule.parse("B36/S23"), game.getRule());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setRuleFromMalformedString() {
+        game.setRule("B3S23");
+    }
+
     @Test
     public void resetKillsAllCells() {
         int[][] testBlueprint = {
@@ -83,6 +101,28 @@ public class GameTest {
         assertTrue(isCellsArrAliveEqual(expectedCells, testCells));
     }
 
+    @Test
+    public void updateEmptyCellsDoesNothing() {
+        game.update(new Cell[0][]);
+        game.update(new Cell[1][0]);
+    }
+
+    @Test
+    public void updateEngineAppliesTopologyToBoundedBoard() {
+        BitBoard board = new BitBoard(8, 8);
+        game.setTopology(Topology.TORUS);
+
+        game.update(new DenseEngine(board));
+
+        assertEquals(Topology.TORUS, board.getTopology());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void updateEngineRejectsInfiniteTopologyOnBoundedBoard() {
+        game.setTopology(Topology.INFINITE);
+        game.update(new DenseEngine(new BitBoard(8, 8)));
+    }
+
     @Test
     public void updateGameWithCornersAliveKillsAllCells() {
         int[][] testBlueprint = {
@@ -178,6 +218,89 @@ public class GameTest {
 
     }
 
+    @Test
+    public void updateGameWithLargerRadius() {
+        int[][] testBlueprint = {
+                {0, 0, 0, 0, 0, 0},
+                {0, 0, 0, 0, 0, 0},
+                {0, 0, 1, 0, 0, 0},
+                {0, 0, 0, 0, 0, 0},
+                {0, 0, 0, 0, 0, 0},
+                {0, 0, 0, 0, 0, 0},
+        };
+
+        int[][] expectedBlueprint = {
+                {1, 1, 1, 1, 1, 0},
+                {1, 1, 1, 1, 1, 0},
+                {1, 1, 0, 1, 1, 0},
+                {1, 1, 1, 1, 1, 0},
+                {1, 1, 1, 1, 1, 0},
+                {0, 0, 0, 0, 0, 0},
+        };
+
+        game.setNeighbourRadius(2);
+        game.setCellBornConditions(new int[]{1});
+        game.setCellSurviveConditions(new int[]{});
+
+        Cell[][] testCells = createCellsFromBlueprint(testBlueprint);
+        Cell[][] expectedCells = createCellsFromBlueprint(expectedBlueprint);
+
+        game.update(testCells);
+
+        assertTrue(isCellsArrAliveEqual(expectedCells, testCells));
+    }
+
+    @Test
+    public void updateOfCellsAllocatesNothingOnceWarmedUp() {
+        Cell[][] cells = createSoup(48, 64);
+        game.setMetrics(new EngineMetrics());
+
+        assertEquals(0, allocatedBytes(() -> game.update(cells)));
+    }
+
+    @Test
+    public void updateOfBoardAllocatesNothingOnceWarmedUp() {
+        BitBoard board = BitBoard.of(createSoup(200, 300));
+        game.setMetrics(new EngineMetrics());
+
+        assertEquals(0, allocatedBytes(() -> game.update(board)));
+        game.setTopology(Topology.TORUS);
+        assertEquals(0, allocatedBytes(() -> game.update(board)));
+    }
+
+    @Test
+    public void multiGenerationUpdateOfBoardAllocatesNothingOnceWarmedUp() {
+        BitBoard board = BitBoard.of(createSoup(300, 200));
+
+        assertEquals(0, allocatedBytes(() -> game.update(board, 8)));
+    }
+
+    @Test
+    public void updateWithLargerRadiusAllocatesNothingOnceWarmedUp() {
+        Cell[][] cells = createSoup(40, 40);
+        BitBoard board = BitBoard.of(cells);
+        game.setRule("R2,B6-9,S5-10");
+
+        assertEquals(0, allocatedBytes(() -> game.update(cells)));
+        assertEquals(0, allocatedBytes(() -> game.update(board)));
+    }
+
+    @Test
+    public void updateOfCellsOfChangedSizeMatchesBoard() {
+        for (int[] size : new int[][]{{12, 30}, {30, 12}, {20, 20}}) {
+            Cell[][] cells = createSoup(size[0], size[1]);
+            BitBoard board = BitBoard.of(cells);
+            for (int i = 0; i < 5; i++) {
+                game.update(cells);
+                game.update(board);
+            }
+            for (Cell[] row : cells) {
+                for (Cell cell : row) {
+                    assertEquals(board.isAlive(cell.getRow(), cell.getColumn()), cell.isAlive());
+                }
+            }
+        }
+    }
 
     /**
      * Creates a 2D array of cells based on blueprint int 2D array
@@ -187,10 +310,10 @@ public class GameTest {
      */
     private Cell[][] createCellsFromBlueprint(int[][] blueprint) {
         Cell[][] cells = new Cell[blueprint.length][blueprint[0].length];
-        cellGridPane.populate(cells);
 
         for (int i = 0; i < blueprint.length; i++) {
             for (int j = 0; j < blueprint[i].length; j++) {
+                cells[i][j] = new Cell(i, j);
                 if (blueprint[i][j] == 1) {
                     cells[i][j].setAlive(true);
                     continue;
@@ -202,6 +325,47 @@ public class GameTest {
         return cells;
     }
 
+    /**
+     * Measures bytes allocated by the current thread over a number of updates, after warming them up.
+     * Skips the test when the JVM does not count allocated bytes per thread.
+     *
+     * @param update update to measure
+     * @return bytes allocated by 100 updates
+     */
+    private static long allocatedBytes(Runnable update) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        long thread = Thread.currentThread().getId();
+
+        for (int i = 0; i < 200; i++) {
+            update.run();
+        }
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < 100; i++) {
+            update.run();
+        }
+        return threads.getThreadAllocatedBytes(thread) - before;
+    }
+
+    /**
+     * Creates 2D cell array with about a third of the cells alive.
+     *
+     * @param rows    number of rows
+     * @param columns number of columns
+     * @return created 2D cell array
+     */
+    private static Cell[][] createSoup(int rows, int columns) {
+        Random random = new Random(rows * 31L + columns);
+        Cell[][] cells = new Cell[rows][columns];
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                cells[i][j] = new Cell(i, j);
+                cells[i][j].setAlive(random.nextInt(3) == 0);
+            }
+        }
+        return cells;
+    }
+
     /**
      * Compares two 2D cell arrays and compares for equal alive state between elements
      *
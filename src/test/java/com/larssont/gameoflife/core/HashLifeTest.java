@@ -0,0 +1,169 @@
+package com.larssont.gameoflife.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HashLifeTest {
+
+    private HashLife hashLife;
+
+    @Before
+    public void init() {
+        hashLife = new HashLife(Rule.CONWAY, 1 << 20);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createWithLargerRadius() {
+        new HashLife(Rule.parse("R2,B3,S2"), 100);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createWithBirthWithoutNeighbours() {
+        new HashLife(Rule.parse("B03/S23"), 100);
+    }
+
+    @Test
+    public void setGetAliveGrowsBoard() {
+        hashLife.setAlive(-1000, 5000, true);
+        hashLife.setAlive(3, 3, true);
+
+        assertTrue(hashLife.isAlive(-1000, 5000));
+        assertTrue(hashLife.isAlive(3, 3));
+        assertFalse(hashLife.isAlive(3, 4));
+        assertEquals(2, hashLife.getPopulation());
+    }
+
+    @Test
+    public void loadAndCopyBoardRegion() {
+        BitBoard board = createSoup(40, 70, 1);
+        hashLife.load(board);
+
+        BitBoard copy = new BitBoard(40, 70);
+        hashLife.copyTo(copy, 0, 0);
+
+        assertBoardsEqual(board, copy);
+        assertEquals(board.population(), hashLife.getPopulation());
+    }
+
+    @Test
+    public void advanceMatchesBitBoard() {
+        BitBoard board = new BitBoard(256, 256);
+        BitBoard soup = createSoup(16, 16, 2);
+        for (int row = 0; row < 16; row++) {
+            for (int col = 0; col < 16; col++) {
+                board.setAlive(120 + row, 120 + col, soup.isAlive(row, col));
+            }
+        }
+        hashLife.load(board);
+
+        for (int i = 0; i < 100; i++) board.step(Rule.CONWAY);
+        hashLife.advance(100);
+
+        BitBoard copy = new BitBoard(256, 256);
+        hashLife.copyTo(copy, 0, 0);
+
+        assertEquals(100, hashLife.getGeneration());
+        assertBoardsEqual(board, copy);
+    }
+
+    @Test
+    public void stepMovesGliderFarAway() {
+        hashLife.setAlive(0, 1, true);
+        hashLife.setAlive(1, 2, true);
+        hashLife.setAlive(2, 0, true);
+        hashLife.setAlive(2, 1, true);
+        hashLife.setAlive(2, 2, true);
+
+        hashLife.step(20);
+
+        long shift = (1L << 20) / 4;
+        assertEquals(5, hashLife.getPopulation());
+        assertTrue(hashLife.isAlive(shift, shift + 1));
+        assertTrue(hashLife.isAlive(shift + 1, shift + 2));
+        assertTrue(hashLife.isAlive(shift + 2, shift));
+        assertTrue(hashLife.isAlive(shift + 2, shift + 1));
+        assertTrue(hashLife.isAlive(shift + 2, shift + 2));
+    }
+
+    @Test
+    public void smallCacheEvictsNodesWithoutChangingResult() {
+        HashLife bounded = new HashLife(Rule.CONWAY, 500);
+        BitBoard soup = createSoup(32, 32, 3);
+        hashLife.load(soup);
+        bounded.load(soup);
+
+        for (int i = 0; i < 40; i++) {
+            hashLife.step(3);
+            bounded.step(3);
+        }
+
+        BitBoard expected = new BitBoard(600, 600);
+        BitBoard actual = new BitBoard(600, 600);
+        hashLife.copyTo(expected, -284, -284);
+        bounded.copyTo(actual, -284, -284);
+
+        assertTrue(bounded.getEvictedNodes() > 0);
+        assertEquals(hashLife.getPopulation(), bounded.getPopulation());
+        assertBoardsEqual(expected, actual);
+    }
+
+    @Test
+    public void stepFillingCacheSplitsIntoSmallerSteps() {
+        HashLife bounded = new HashLife(Rule.CONWAY, 200);
+        BitBoard soup = createSoup(24, 24, 4);
+        hashLife.load(soup);
+        bounded.load(soup);
+
+        hashLife.step(7);
+        bounded.step(7);
+
+        BitBoard expected = new BitBoard(400, 400);
+        BitBoard actual = new BitBoard(400, 400);
+        hashLife.copyTo(expected, -188, -188);
+        bounded.copyTo(actual, -188, -188);
+
+        assertTrue(hashLife.getCacheSize() > 200);
+        assertTrue(bounded.getEvictedNodes() > 0);
+        assertEquals(128, bounded.getGeneration());
+        assertEquals(hashLife.getPopulation(), bounded.getPopulation());
+        assertBoardsEqual(expected, actual);
+    }
+
+    /**
+     * Checks that two boards have equal alive state for every cell.
+     *
+     * @param expected expected board
+     * @param actual   actual board
+     */
+    private void assertBoardsEqual(BitBoard expected, BitBoard actual) {
+        for (int row = 0; row < expected.getRows(); row++) {
+            for (int col = 0; col < expected.getColumns(); col++) {
+                assertEquals(expected.isAlive(row, col), actual.isAlive(row, col));
+            }
+        }
+    }
+
+    /**
+     * Creates a board filled with random cells.
+     *
+     * @param rows    number of rows
+     * @param columns number of columns
+     * @param seed    random seed
+     * @return created board
+     */
+    private BitBoard createSoup(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        BitBoard board = new BitBoard(rows, columns);
+
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                board.setAlive(row, col, random.nextBoolean());
+            }
+        }
+        return board;
+    }
+}
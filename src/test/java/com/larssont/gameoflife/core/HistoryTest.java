@@ -0,0 +1,120 @@
+package com.larssont.gameoflife.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class HistoryTest {
+
+    @Test
+    public void restoreMatchesEveryRecordedGeneration() {
+        BitBoard board = createSoup(50, 90, 1);
+        History history = new History(Long.MAX_VALUE, 8);
+        List<BitBoard> expected = new ArrayList<>();
+
+        for (int generation = 0; generation < 40; generation++) {
+            history.record(board, generation);
+            expected.add(copy(board));
+            board.step(Rule.CONWAY);
+        }
+
+        assertEquals(0, history.getOldestGeneration());
+        assertEquals(39, history.getNewestGeneration());
+        BitBoard restored = new BitBoard(50, 90);
+        for (int generation = 39; generation >= 0; generation -= 3) {
+            assertTrue(history.restore(generation, restored));
+            assertBoardsEqual(expected.get(generation), restored);
+        }
+        assertFalse(history.restore(40, restored));
+    }
+
+    @Test
+    public void memoryBudgetDropsOldestGenerations() {
+        BitBoard board = createSoup(64, 64, 2);
+        History history = new History(4096, 16);
+        List<BitBoard> expected = new ArrayList<>();
+
+        for (int generation = 0; generation < 200; generation++) {
+            history.record(board, generation);
+            expected.add(copy(board));
+            board.step(Rule.CONWAY);
+        }
+
+        assertTrue(history.getMemoryUsage() <= 4096);
+        assertTrue(history.getOldestGeneration() > 0);
+        assertEquals(199, history.getNewestGeneration());
+        BitBoard restored = new BitBoard(64, 64);
+        assertFalse(history.restore(history.getOldestGeneration() - 1, restored));
+        assertTrue(history.restore(history.getOldestGeneration(), restored));
+        assertBoardsEqual(expected.get((int) history.getOldestGeneration()), restored);
+    }
+
+    @Test
+    public void recordingRewoundGenerationDropsLaterOnes() {
+        BitBoard board = createSoup(20, 20, 3);
+        History history = new History(Long.MAX_VALUE, 4);
+        List<BitBoard> expected = new ArrayList<>();
+        for (int generation = 0; generation < 10; generation++) {
+            history.record(board, generation);
+            expected.add(copy(board));
+            board.step(Rule.CONWAY);
+        }
+
+        assertTrue(history.restore(5, board));
+        board.setAlive(0, 0, !board.isAlive(0, 0)); //Edit of rewound generation
+        history.record(board, 5);
+
+        assertEquals(5, history.getNewestGeneration());
+        BitBoard restored = new BitBoard(20, 20);
+        assertTrue(history.restore(5, restored));
+        assertBoardsEqual(board, restored);
+        assertTrue(history.restore(3, restored));
+        assertBoardsEqual(expected.get(3), restored);
+    }
+
+    @Test
+    public void recordingOtherSizeStartsOver() {
+        History history = new History(Long.MAX_VALUE, 4);
+        history.record(new BitBoard(10, 10), 0);
+        history.record(new BitBoard(10, 10), 1);
+
+        history.record(new BitBoard(12, 10), 2);
+
+        assertEquals(2, history.getOldestGeneration());
+        assertEquals(2, history.getNewestGeneration());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void keyframeIntervalMustBePositive() {
+        new History(1024, 0);
+    }
+
+    private static BitBoard copy(BitBoard board) {
+        BitBoard copy = new BitBoard(board.getRows(), board.getColumns());
+        board.copyTo(copy);
+        return copy;
+    }
+
+    private static void assertBoardsEqual(BitBoard expected, BitBoard actual) {
+        for (int row = 0; row < expected.getRows(); row++) {
+            for (int column = 0; column < expected.getColumns(); column++) {
+                assertEquals("Cell " + row + "," + column, expected.isAlive(row, column), actual.isAlive(row, column));
+            }
+        }
+    }
+
+    private static BitBoard createSoup(int rows, int columns, long seed) {
+        BitBoard board = new BitBoard(rows, columns);
+        Random random = new Random(seed);
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                board.setAlive(row, column, random.nextInt(3) == 0);
+            }
+        }
+        return board;
+    }
+}
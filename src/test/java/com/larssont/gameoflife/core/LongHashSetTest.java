@@ -0,0 +1,97 @@
+package com.larssont.gameoflife.core;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class LongHashSetTest {
+
+    @Test
+    public void addRemoveMatchesHashSet() {
+        Random random = new Random(1);
+        LongHashSet set = new LongHashSet(0);
+        Set<Long> expected = new HashSet<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            long key = SparseBoard.pack(random.nextInt(64) - 32, random.nextInt(64) - 32);
+            if (random.nextBoolean()) {
+                assertEquals(expected.add(key), set.add(key));
+            } else {
+                assertEquals(expected.remove(key), set.remove(key));
+            }
+        }
+
+        assertEquals(expected.size(), set.size());
+        for (long key : expected) {
+            assertTrue(set.contains(key));
+        }
+        set.forEach(key -> assertTrue(expected.contains(key)));
+    }
+
+    @Test
+    public void clearShrinksStorage() {
+        LongHashSet set = new LongHashSet(0);
+        for (long key = 0; key < 10_000; key++) {
+            set.add(key);
+        }
+        int capacity = set.capacity();
+
+        set.clear(10);
+
+        assertEquals(0, set.size());
+        assertTrue(set.capacity() < capacity / 100);
+        assertFalse(set.contains(5));
+    }
+
+    @Test
+    public void addToMatchesHashMap() {
+        Random random = new Random(2);
+        LongIntHashMap map = new LongIntHashMap(0);
+        Map<Long, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            long key = random.nextInt(5000) - 2500;
+            int delta = random.nextInt(3) + 1;
+            map.addTo(key, delta);
+            expected.merge(key, delta, Integer::sum);
+        }
+
+        assertEquals(expected.size(), map.size());
+        map.forEach((key, value) -> assertEquals(expected.get(key).intValue(), value));
+        assertEquals(0, map.get(1_000_000));
+    }
+
+    @Test
+    public void slotsHoldEveryKey() {
+        LongHashSet set = new LongHashSet(0);
+        LongIntHashMap map = new LongIntHashMap(0);
+        for (long key = -50; key < 50; key++) {
+            set.add(key * 7);
+            map.addTo(key * 7, (int) key);
+        }
+
+        long setSum = 0;
+        int keys = 0;
+        for (int slot = 0; slot < set.capacity(); slot++) {
+            if (set.keyAt(slot) == LongHashSet.EMPTY) continue;
+            setSum += set.keyAt(slot);
+            keys++;
+        }
+        long mapSum = 0;
+        for (int slot = 0; slot < map.capacity(); slot++) {
+            if (map.keyAt(slot) == LongHashSet.EMPTY) continue;
+            assertEquals(map.keyAt(slot), 7L * map.valueAt(slot));
+            mapSum += map.valueAt(slot);
+        }
+
+        assertEquals(100, keys);
+        assertEquals(-350, setSum);
+        assertEquals(-50, mapSum);
+    }
+}
@@ -0,0 +1,195 @@
+package com.larssont.gameoflife.core;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+public class PatternReaderTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void readRleWithHeader() throws IOException {
+        BitBoard board = new BitBoard(3, 3);
+        PatternInfo info = read("#N Glider\nx = 3, y = 3, rule = B3/S23\nbo$2bo$3o!", null, board);
+
+        assertEquals(PatternFormat.RLE, info.getFormat());
+        assertEquals("B3/S23", info.getRule());
+        assertEquals(3, info.getRows());
+        assertEquals(3, info.getColumns());
+        assertEquals(5, info.getPopulation());
+        assertGlider(board);
+    }
+
+    @Test
+    public void readRleWithRunsAcrossLines() throws IOException {
+        BitBoard board = new BitBoard(4, 80);
+        PatternInfo info = read("x = 80, y = 4\n7\n0o$\n\n2$b3o!", PatternFormat.RLE, board);
+
+        assertEquals(73, info.getPopulation());
+        assertTrue(board.isAlive(0, 69));
+        assertFalse(board.isAlive(0, 70));
+        assertTrue(board.isAlive(3, 1));
+        assertTrue(board.isAlive(3, 3));
+        assertEquals(73, board.population());
+    }
+
+    @Test
+    public void readLife106WithNegativePositions() throws IOException {
+        SparseBoard plane = new SparseBoard();
+        PatternInfo info = new PatternReader(stream("#Life 1.06\n0 -1\n1 0\n-1 1\n0 1\n1 1\n"), null)
+                .read(PatternSink.of(plane, 0, 0));
+
+        assertEquals(PatternFormat.LIFE_106, info.getFormat());
+        assertEquals(-1, info.getTop());
+        assertEquals(-1, info.getLeft());
+        assertEquals(3, info.getRows());
+        assertEquals(3, info.getColumns());
+        assertTrue(plane.isAlive(-1, 0));
+        assertTrue(plane.isAlive(1, -1));
+        assertEquals(5, plane.population());
+    }
+
+    @Test
+    public void readPlaintextWithComments() throws IOException {
+        BitBoard board = new BitBoard(3, 3);
+        PatternInfo info = read("!Name: Glider\r\n.O.\r\n..O\r\n***\r\n", null, board);
+
+        assertEquals(PatternFormat.PLAINTEXT, info.getFormat());
+        assertNull(info.getRule());
+        assertEquals(3, info.getRows());
+        assertEquals(3, info.getColumns());
+        assertGlider(board);
+    }
+
+    @Test
+    public void readFileDetectsFormatFromExtension() throws IOException {
+        File file = folder.newFile("glider.rle");
+        Files.write(file.toPath(), Arrays.asList("x = 3, y = 3", "bo$2bo$3o!"), StandardCharsets.US_ASCII);
+        BitBoard board = new BitBoard(3, 3);
+
+        try (PatternReader reader = new PatternReader(file.toPath())) {
+            reader.read(PatternSink.of(board, 0, 0));
+        }
+        assertGlider(board);
+    }
+
+    @Test
+    public void sinkLeavesOutCellsOutsideOfBoard() throws IOException {
+        BitBoard board = new BitBoard(2, 2);
+        PatternInfo info = read("x = 3, y = 3\nbo$2bo$3o!", null, board);
+
+        assertEquals(5, info.getPopulation());
+        assertEquals(1, board.population());
+        assertTrue(board.isAlive(0, 1));
+    }
+
+    @Test
+    public void readLargeStreamWithBoundedMemory() throws IOException {
+        long rows = 2_000_000;
+        InputStream in = new InputStream() {
+            private final byte[] row = "3o$\n".getBytes(StandardCharsets.US_ASCII);
+            private long position;
+
+            @Override
+            public int read() {
+                if (position == rows * row.length) return '!';
+                if (position > rows * row.length) return -1;
+                return row[(int) (position++ % row.length)];
+            }
+        };
+        long[] population = new long[1];
+
+        PatternInfo info = new PatternReader(in, PatternFormat.RLE).read((row, column) -> population[0]++);
+
+        assertEquals(rows * 3, population[0]);
+        assertEquals(rows * 3, info.getPopulation());
+        assertEquals(rows + 1, info.getRows());
+    }
+
+    @Test
+    public void readRleWithRuleAfterSize() throws IOException {
+        PatternInfo info = new PatternReader(stream("x = 3, y = 1, rule = R2,C0,M0,S2..3,B3..3,NM\n3o!"), null).readHeader();
+
+        assertEquals("R2,C0,M0,S2..3,B3..3,NM", info.getRule());
+        assertEquals(1, info.getRows());
+        assertEquals(3, info.getColumns());
+        assertEquals(0, info.getPopulation());
+    }
+
+    @Test
+    public void readLongRunClippedToBoard() throws IOException {
+        BitBoard board = new BitBoard(2, 200);
+        PatternInfo info = read("999999999999o$3o!", PatternFormat.RLE, board);
+
+        assertEquals(999999999999L + 3, info.getPopulation());
+        assertEquals(203, board.population());
+        assertTrue(board.isAlive(0, 199));
+    }
+
+    @Test(expected = IOException.class)
+    public void readRunBeyondDeclaredWidth() throws IOException {
+        read("x = 3, y = 1\n999999999999o!", null, new BitBoard(1, 3));
+    }
+
+    @Test
+    public void readCenteredStreamsPatternWithHeader() throws IOException {
+        BitBoard board = new BitBoard(7, 9);
+        PatternInfo info = new PatternReader(stream("x = 3, y = 3\nbo$2bo$3o!"), null).readCentered(board);
+
+        assertEquals(5, info.getPopulation());
+        assertTrue(board.isAlive(2, 4));
+        assertTrue(board.isAlive(3, 5));
+        assertTrue(board.isAlive(4, 3));
+        assertEquals(5, board.population());
+    }
+
+    @Test
+    public void readCenteredPlacesPatternWithoutHeader() throws IOException {
+        BitBoard board = new BitBoard(7, 9);
+        new PatternReader(stream("#Life 1.06\n0 -1\n1 0\n-1 1\n0 1\n1 1\n"), null).readCentered(board);
+
+        assertTrue(board.isAlive(2, 4));
+        assertTrue(board.isAlive(3, 5));
+        assertTrue(board.isAlive(4, 3));
+        assertEquals(5, board.population());
+    }
+
+    @Test(expected = IOException.class)
+    public void readMalformedRle() throws IOException {
+        read("x = 3, y = 3\nbo$2bz!", PatternFormat.RLE, new BitBoard(3, 3));
+    }
+
+    @Test(expected = IOException.class)
+    public void readMalformedLife106() throws IOException {
+        read("#Life 1.06\n1 x\n", null, new BitBoard(3, 3));
+    }
+
+    private PatternInfo read(String pattern, PatternFormat format, BitBoard board) throws IOException {
+        return new PatternReader(stream(pattern), format).read(PatternSink.of(board, 0, 0));
+    }
+
+    private InputStream stream(String pattern) {
+        return new ByteArrayInputStream(pattern.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private void assertGlider(BitBoard board) {
+        assertTrue(board.isAlive(0, 1));
+        assertTrue(board.isAlive(1, 2));
+        assertTrue(board.isAlive(2, 0));
+        assertTrue(board.isAlive(2, 1));
+        assertTrue(board.isAlive(2, 2));
+        assertEquals(5, board.population());
+    }
+}
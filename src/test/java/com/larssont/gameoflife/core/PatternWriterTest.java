@@ -0,0 +1,105 @@
+package com.larssont.gameoflife.core;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class PatternWriterTest {
+
+    @Test
+    public void writeRle() throws IOException {
+        BitBoard board = new BitBoard(4, 5);
+        board.setAlive(0, 1, true);
+        board.setAlive(1, 2, true);
+        board.setAlive(3, 0, true);
+        board.setAlive(3, 1, true);
+        board.setAlive(3, 2, true);
+
+        assertEquals("x = 5, y = 4, rule = B3/S23\nbo$2bo2$3o!\n", write(board, PatternFormat.RLE, Rule.CONWAY));
+    }
+
+    @Test
+    public void writeLife106() throws IOException {
+        BitBoard board = new BitBoard(2, 70);
+        board.setAlive(1, 65, true);
+
+        assertEquals("#Life 1.06\n65 1\n", write(board, PatternFormat.LIFE_106, null));
+    }
+
+    @Test
+    public void writePlaintext() throws IOException {
+        BitBoard board = new BitBoard(2, 3);
+        board.setAlive(1, 2, true);
+
+        assertEquals("...\n..O\n", write(board, PatternFormat.PLAINTEXT, null));
+    }
+
+    @Test
+    public void writeRleWrapsLongLines() throws IOException {
+        BitBoard board = createSoup(10, 200, 1);
+        String rle = write(board, PatternFormat.RLE, null);
+
+        for (String line : rle.split("\n")) {
+            assertTrue(line.length() <= 70);
+        }
+    }
+
+    @Test
+    public void roundTripAllFormats() throws IOException {
+        BitBoard board = createSoup(50, 130, 2);
+
+        for (PatternFormat format : PatternFormat.values()) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new PatternWriter(out).write(board, format, Rule.CONWAY);
+
+            BitBoard copy = new BitBoard(50, 130);
+            new PatternReader(new ByteArrayInputStream(out.toByteArray()), null).read(PatternSink.of(copy, 0, 0));
+
+            for (int row = 0; row < 50; row++) {
+                for (int col = 0; col < 130; col++) {
+                    assertEquals(format + " cell " + row + ", " + col, board.isAlive(row, col), copy.isAlive(row, col));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void roundTripRleWithLargerRadius() throws IOException {
+        BitBoard board = createSoup(20, 70, 3);
+        Rule rule = Rule.parse("R5,B34-45,S33-57");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PatternWriter(out).write(board, PatternFormat.RLE, rule);
+
+        BitBoard copy = new BitBoard(20, 70);
+        PatternInfo info = new PatternReader(new ByteArrayInputStream(out.toByteArray()), null)
+                .read(PatternSink.of(copy, 0, 0));
+
+        assertEquals(rule, Rule.parse(info.getRule()));
+        assertEquals(20, info.getRows());
+        assertEquals(70, info.getColumns());
+        assertEquals(board.population(), copy.population());
+        assertEquals(board.getHash(), copy.getHash());
+    }
+
+    private String write(BitBoard board, PatternFormat format, Rule rule) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new PatternWriter(out).write(board, format, rule);
+        return out.toString("US-ASCII");
+    }
+
+    private BitBoard createSoup(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        BitBoard board = new BitBoard(rows, columns);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                board.setAlive(row, col, random.nextBoolean());
+            }
+        }
+        return board;
+    }
+}
@@ -0,0 +1,118 @@
+package com.larssont.gameoflife.core;
+
+import org.junit.Test;
+
+import java.util.Locale;
+
+import static org.junit.Assert.*;
+
+public class RuleTest {
+
+    @Test
+    public void parseSlashNotation() {
+        Rule rule = Rule.parse("B36/S23");
+
+        assertEquals(1, rule.getRadius());
+        assertArrayEquals(new int[]{3, 6}, rule.getBornConditions());
+        assertArrayEquals(new int[]{2, 3}, rule.getSurviveConditions());
+    }
+
+    @Test
+    public void parseSlashNotationWithEmptyConditions() {
+        Rule rule = Rule.parse("b2/s");
+
+        assertArrayEquals(new int[]{2}, rule.getBornConditions());
+        assertArrayEquals(new int[]{}, rule.getSurviveConditions());
+    }
+
+    @Test
+    public void parseCommaNotation() {
+        Rule rule = Rule.parse("R5,B34-45,S33-57");
+
+        assertEquals(5, rule.getRadius());
+        assertTrue(rule.next(false, 34));
+        assertTrue(rule.next(false, 45));
+        assertFalse(rule.next(false, 46));
+        assertTrue(rule.next(true, 33));
+        assertFalse(rule.next(true, 58));
+    }
+
+    @Test
+    public void parseCommaNotationWithListsAndCompatibilityTokens() {
+        Rule rule = Rule.parse("R2,C0,M0,S2,4..6,B7,NM");
+
+        assertEquals(2, rule.getRadius());
+        assertArrayEquals(new int[]{2, 4, 5, 6}, rule.getSurviveConditions());
+        assertArrayEquals(new int[]{7}, rule.getBornConditions());
+    }
+
+    @Test
+    public void toStringCanBeParsed() {
+        for (String s : new String[]{"B3/S23", "B0/S", "R5,B34-45,S33-57", "R2,B1,3-4,S"}) {
+            Rule rule = Rule.parse(s);
+            assertEquals(rule, Rule.parse(rule.toString()));
+        }
+        assertEquals("B3/S23", Rule.CONWAY.toString());
+        assertEquals("R5,B34-45,S33-57", Rule.parse("R5,B34-45,S33-57").toString());
+    }
+
+    @Test
+    public void unreachableCountsAreLeftOut() {
+        Rule rule = new Rule(1, new int[]{3, 9, 100}, new int[]{2});
+
+        assertArrayEquals(new int[]{3}, rule.getBornConditions());
+        assertEquals(1 << 3, rule.getBornMask());
+        assertEquals(1 << 2, rule.getSurviveMask());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseMalformedSlashNotation() {
+        Rule.parse("B3/S2x");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseMalformedCommaNotation() {
+        Rule.parse("R2,X3");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseRejectsNonAsciiDigits() {
+        Rule.parse("B\u0663/S23"); //Arabic-Indic digit three
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseRejectsNonAsciiDigitsInRanges() {
+        Rule.parse("R2,B\u0663-5,S2");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseReversedRange() {
+        Rule.parse("R2,B5-3,S2");
+    }
+
+    @Test
+    public void parseIgnoresDefaultLocale() {
+        Locale locale = Locale.getDefault();
+        Locale.setDefault(new Locale("tr", "TR"));
+        try {
+            assertEquals(Rule.parse("R2,B6-9,S5-10"), Rule.parse("r2,c0,m0,b6-9,s5-10,nm"));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseRuleWithMoreStates() {
+        Rule.parse("R2,C3,B3,S2");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createRuleWithNegativeCondition() {
+        new Rule(1, new int[]{-1}, new int[]{});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createRuleWithTooLargeRadius() {
+        new Rule(Rule.MAX_RADIUS + 1, new int[]{}, new int[]{});
+    }
+}
@@ -0,0 +1,290 @@
+package com.larssont.gameoflife.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class SimulationTest {
+
+    private Simulation simulation;
+
+    @Before
+    public void init() {
+        BitBoard board = new BitBoard(5, 5);
+        board.setAlive(1, 2, true); //Vertical blinker
+        board.setAlive(2, 2, true);
+        board.setAlive(3, 2, true);
+
+        simulation = new Simulation(new Game(), board);
+        simulation.start();
+    }
+
+    @After
+    public void close() {
+        simulation.close();
+    }
+
+    @Test
+    public void pausedSimulationPublishesInitialBoard() throws InterruptedException {
+        Simulation.Frame frame = awaitFrame();
+
+        assertEquals(0, frame.getGeneration());
+        assertTrue(frame.getBoard().isAlive(1, 2));
+        assertEquals(3, frame.getBoard().population());
+    }
+
+    @Test
+    public void continuesFromGivenGeneration() throws InterruptedException {
+        BitBoard board = new BitBoard(5, 5);
+        board.setAlive(2, 1, true); //Horizontal blinker, as of odd generations
+        board.setAlive(2, 2, true);
+        board.setAlive(2, 3, true);
+        simulation.close();
+        simulation = new Simulation(new Game(), board, 101);
+        assertEquals(101, simulation.getGeneration());
+
+        simulation.start();
+        Simulation.Frame frame = awaitFrame();
+        assertEquals(101, frame.getGeneration());
+        assertTrue(frame.getBoard().isAlive(2, 1));
+    }
+
+    @Test
+    public void editsApplyToBoundedBoardInPlace() throws InterruptedException {
+        BitBoard board = new BitBoard(5, 5);
+        simulation.close();
+        simulation = new Simulation(new Game(), board);
+        simulation.start();
+        awaitFrame();
+
+        BitBoard[] edited = new BitBoard[1];
+        simulation.submit(b -> {
+            edited[0] = b;
+            b.setAlive(4, 4, true);
+        });
+        Simulation.Frame frame = awaitFrame();
+        simulation.close();
+
+        assertSame(board, edited[0]);
+        assertTrue(frame.getBoard().isAlive(4, 4));
+        assertTrue(board.isAlive(4, 4));
+    }
+
+    @Test
+    public void windowedFramesCopyWindowAndChangedTiles() throws InterruptedException {
+        BitBoard board = new BitBoard(200, 300);
+        board.setAlive(20, 80, true);
+        simulation.close();
+        simulation = new Simulation(new Game(), board);
+        simulation.setWindow(10, 70, 50, 140);
+        simulation.start();
+
+        Simulation.Frame frame = awaitFrame();
+        long number = frame.getNumber();
+        assertTrue(frame.getBoard().isAlive(20, 80));
+        assertEquals(1, frame.getChangedTileCount());
+        assertEquals(1, frame.getChangedTile(0)); //Tile of word 1 in the first row of tiles
+
+        simulation.submit(b -> b.setWord(150, 4, -1L));
+        frame = awaitFrame();
+        assertEquals(number + 1, frame.getNumber());
+        assertEquals(1, frame.getChangedTileCount());
+        assertEquals(2 * 5 + 4, frame.getChangedTile(0));
+        assertEquals(44, frame.getBoard().getTilePopulation(2, 4));
+        assertEquals(45, frame.getBoard().population());
+        assertEquals(0, frame.getBoard().getWord(150, 4)); //Outside of window, so never copied
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void startTwice() {
+        simulation.start();
+    }
+
+    @Test
+    public void framesMatchTheirGeneration() throws InterruptedException {
+        simulation.play();
+
+        for (int i = 0; i < 20; i++) {
+            Simulation.Frame frame = awaitFrame();
+            boolean vertical = frame.getGeneration() % 2 == 0;
+
+            assertEquals(vertical, frame.getBoard().isAlive(1, 2));
+            assertEquals(!vertical, frame.getBoard().isAlive(2, 1));
+            assertEquals(3, frame.getBoard().population());
+        }
+        assertTrue(simulation.getGeneration() > 0);
+    }
+
+    @Test
+    public void unlimitedRateSkipsFramesNotTaken() throws InterruptedException {
+        simulation.play();
+        Thread.sleep(100);
+        simulation.pause();
+
+        assertTrue(simulation.getGeneration() > 10);
+        assertTrue(simulation.getDroppedFrames() > 0);
+    }
+
+    @Test
+    public void targetRateLimitsGenerations() throws InterruptedException {
+        simulation.setTargetRate(20);
+        simulation.play();
+        Thread.sleep(500);
+        simulation.pause();
+
+        assertTrue(simulation.getGeneration() >= 3);
+        assertTrue(simulation.getGeneration() <= 20);
+    }
+
+    @Test
+    public void submittedEditsArePublished() throws InterruptedException {
+        awaitFrame();
+        simulation.submit(b -> b.setAlive(0, 0, true));
+
+        assertTrue(awaitFrame().getBoard().isAlive(0, 0));
+    }
+
+    @Test
+    public void panningPlanePublishesView() throws InterruptedException {
+        simulation.close();
+        SparseBoard plane = new SparseBoard();
+        plane.setAlive(-100, 200, true);
+        simulation = new Simulation(new Game(), plane, 5, 5);
+        simulation.start();
+
+        assertEquals(0, awaitFrame().getBoard().population());
+        simulation.pan(-102, 198);
+
+        Simulation.Frame frame = awaitFrame();
+        assertEquals(-102, frame.getTop());
+        assertEquals(198, frame.getLeft());
+        assertTrue(frame.getBoard().isAlive(2, 2));
+    }
+
+    @Test
+    public void editsApplyToViewOfPlane() throws InterruptedException {
+        simulation.close();
+        SparseBoard plane = new SparseBoard();
+        simulation = new Simulation(new Game(), plane, 5, 5);
+        simulation.start();
+        simulation.pan(1000, 1000);
+        awaitFrame();
+
+        simulation.submit(b -> b.setAlive(1, 1, true));
+        awaitFrame();
+        simulation.close();
+
+        assertTrue(plane.isAlive(1001, 1001));
+        assertEquals(1, plane.population());
+    }
+
+    @Test
+    public void blockingSubscriptionReceivesEveryGeneration() throws InterruptedException {
+        try (DiffSubscription changes = simulation.subscribe(2, true)) {
+            BoardDiff first = changes.poll(5, TimeUnit.SECONDS);
+            assertTrue(first.isReset());
+            assertEquals(3, first.getBirths());
+
+            BitBoard view = new BitBoard(5, 5);
+            first.applyTo(view);
+            simulation.play();
+            for (long generation = 1; generation <= 10; generation++) {
+                BoardDiff diff = changes.poll(5, TimeUnit.SECONDS);
+                assertEquals(generation - 1, diff.getFromGeneration());
+                assertEquals(generation, diff.getToGeneration());
+                assertEquals(2, diff.getBirths()); //Blinker turns, keeping its center
+                assertEquals(2, diff.getDeaths());
+
+                diff.applyTo(view);
+                assertEquals(generation % 2 == 0, view.isAlive(1, 2));
+                assertEquals(generation % 2 != 0, view.isAlive(2, 1));
+            }
+            simulation.pause();
+            assertEquals(0, changes.getMergedDiffs());
+        }
+    }
+
+    @Test
+    public void mergingSubscriptionSkipsGenerations() throws InterruptedException {
+        DiffSubscription changes = simulation.subscribe(1, false);
+        simulation.play();
+        Thread.sleep(100);
+        simulation.pause();
+        simulation.submit(b -> b.setAlive(0, 0, true));
+        Thread.sleep(100);
+
+        BoardDiff diff = changes.poll();
+        assertTrue(diff.isReset()); //First diff is never consumed, so everything merges into it
+        assertTrue(changes.getMergedDiffs() > 10);
+        BitBoard view = new BitBoard(5, 5);
+        diff.applyTo(view);
+        assertTrue(view.isAlive(0, 0));
+        assertEquals(4, view.population());
+        assertNull(changes.poll());
+        changes.close();
+    }
+
+    @Test
+    public void rewindRestoresRecordedGenerations() throws InterruptedException {
+        simulation.setHistory(new History(1 << 20, 4));
+        simulation.play();
+        Thread.sleep(100);
+        simulation.pause();
+        Thread.sleep(50);
+        long newest = simulation.getGeneration();
+        assertTrue(newest > 10);
+
+        simulation.stepBack();
+        Simulation.Frame frame = awaitGeneration(newest - 1);
+        assertEquals((newest - 1) % 2 == 0, frame.getBoard().isAlive(1, 2));
+
+        long oldest = simulation.getHistory().getOldestGeneration();
+        simulation.seek(-1); //Clamped to the oldest generation held
+        frame = awaitGeneration(oldest);
+        assertEquals(oldest % 2 == 0, frame.getBoard().isAlive(1, 2));
+        assertEquals(3, frame.getBoard().population());
+        assertEquals(newest, simulation.getHistory().getNewestGeneration());
+
+        simulation.submit(b -> b.setAlive(0, 0, true)); //Editing a rewound generation drops the later ones
+        Thread.sleep(100);
+        assertEquals(oldest, simulation.getHistory().getNewestGeneration());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void setTargetRateToNegativeValue() {
+        simulation.setTargetRate(-1);
+    }
+
+    /**
+     * Waits for the simulation to publish a frame of a generation.
+     *
+     * @param generation generation to wait for
+     * @return published frame
+     */
+    private Simulation.Frame awaitGeneration(long generation) throws InterruptedException {
+        for (int i = 0; i < 1000; i++) {
+            Simulation.Frame frame = simulation.pollFrame();
+            if (frame != null && frame.getGeneration() == generation) return frame;
+            Thread.sleep(1);
+        }
+        throw new AssertionError("No frame of generation " + generation + " published");
+    }
+
+    /**
+     * Waits for the simulation to publish a frame.
+     *
+     * @return published frame
+     */
+    private Simulation.Frame awaitFrame() throws InterruptedException {
+        for (int i = 0; i < 1000; i++) {
+            Simulation.Frame frame = simulation.pollFrame();
+            if (frame != null) return frame;
+            Thread.sleep(1);
+        }
+        throw new AssertionError("No frame published");
+    }
+}
@@ -0,0 +1,151 @@
+package com.larssont.gameoflife.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class SparseBoardTest {
+
+    private SparseBoard plane;
+
+    @Before
+    public void init() {
+        plane = new SparseBoard();
+    }
+
+    @Test
+    public void setGetAliveAtNegativePositions() {
+        plane.setAlive(-5, -7, true);
+        plane.setAlive(SparseBoard.MAX_COORDINATE, SparseBoard.MIN_COORDINATE, true);
+
+        assertTrue(plane.isAlive(-5, -7));
+        assertTrue(plane.isAlive(SparseBoard.MAX_COORDINATE, SparseBoard.MIN_COORDINATE));
+        assertFalse(plane.isAlive(-5, -6));
+        assertEquals(2, plane.population());
+
+        plane.setAlive(-5, -7, false);
+        assertFalse(plane.isAlive(-5, -7));
+        assertEquals(1, plane.population());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void setAliveOutsideOfPlane() {
+        plane.setAlive(SparseBoard.MAX_COORDINATE + 1, 0, true);
+    }
+
+    @Test
+    public void packedPositionRoundTrips() {
+        long position = SparseBoard.pack(-3, 12345);
+
+        assertEquals(-3, SparseBoard.row(position));
+        assertEquals(12345, SparseBoard.column(position));
+    }
+
+    @Test
+    public void stepMatchesBitBoardInside() {
+        BitBoard board = createSoup(64, 64, 1);
+        BitBoard padded = new BitBoard(64 + 200, 64 + 200);
+        for (int row = 0; row < 64; row++) {
+            for (int col = 0; col < 64; col++) {
+                padded.setAlive(100 + row, 100 + col, board.isAlive(row, col));
+            }
+        }
+        plane.load(padded, -100, -100);
+
+        for (int i = 0; i < 50; i++) {
+            padded.step(Rule.CONWAY);
+            plane.step(Rule.CONWAY);
+        }
+
+        BitBoard copy = new BitBoard(padded.getRows(), padded.getColumns());
+        plane.copyTo(copy, -100, -100);
+        assertBoardsEqual(padded, copy);
+        assertEquals(padded.population(), plane.population());
+        assertEquals(50, plane.getGeneration());
+    }
+
+    @Test
+    public void stepWithLargerRadiusMatchesBitBoard() {
+        Rule rule = Rule.parse("R3,B10-14,S9-17");
+        BitBoard board = createSoup(40, 40, 2);
+        BitBoard padded = new BitBoard(120, 120);
+        for (int row = 0; row < 40; row++) {
+            for (int col = 0; col < 40; col++) {
+                padded.setAlive(40 + row, 40 + col, board.isAlive(row, col));
+            }
+        }
+        plane.load(padded, 0, 0);
+
+        for (int i = 0; i < 5; i++) {
+            padded.step(rule);
+            plane.step(rule);
+        }
+
+        BitBoard copy = new BitBoard(120, 120);
+        plane.copyTo(copy, 0, 0);
+        assertBoardsEqual(padded, copy);
+    }
+
+    @Test
+    public void gliderTravelsPastAnyBoard() {
+        placeGlider(0, 0);
+
+        for (int i = 0; i < 4000; i++) plane.step(Rule.CONWAY);
+
+        assertEquals(5, plane.population());
+        assertArrayEquals(new long[]{1000, 1000, 1002, 1002}, plane.getBounds());
+    }
+
+    @Test
+    public void copyToPannedRegion() {
+        placeGlider(-50, 70);
+        BitBoard view = new BitBoard(3, 3);
+
+        plane.copyTo(view, -50, 70);
+        assertEquals(5, view.population());
+        assertTrue(view.isAlive(2, 2));
+
+        plane.copyTo(view, -49, 71);
+        assertEquals(3, view.population());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void stepWithBirthWithoutNeighbours() {
+        plane.step(Rule.parse("B03/S23"));
+    }
+
+    @Test
+    public void getBoundsOfEmptyPlane() {
+        assertNull(plane.getBounds());
+    }
+
+    private void placeGlider(long top, long left) {
+        plane.setAlive(top, left + 1, true);
+        plane.setAlive(top + 1, left + 2, true);
+        plane.setAlive(top + 2, left, true);
+        plane.setAlive(top + 2, left + 1, true);
+        plane.setAlive(top + 2, left + 2, true);
+    }
+
+    private BitBoard createSoup(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        BitBoard board = new BitBoard(rows, columns);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                board.setAlive(row, col, random.nextBoolean());
+            }
+        }
+        return board;
+    }
+
+    private void assertBoardsEqual(BitBoard expected, BitBoard actual) {
+        for (int row = 0; row < expected.getRows(); row++) {
+            for (int col = 0; col < expected.getColumns(); col++) {
+                assertEquals("Cell " + row + ", " + col, expected.isAlive(row, col), actual.isAlive(row, col));
+            }
+        }
+    }
+}
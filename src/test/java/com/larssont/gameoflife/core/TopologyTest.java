@@ -0,0 +1,270 @@
+package com.larssont.gameoflife.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class TopologyTest {
+
+    private static final String[] RULES = {"B3/S23", "B36/S125", "R2,B6-9,S5-10", "R5,B34-45,S33-57"};
+
+    @Test
+    public void parseNames() {
+        assertEquals(Topology.TORUS, Topology.parse("torus"));
+        assertEquals(Topology.KLEIN_BOTTLE, Topology.parse("Klein-Bottle"));
+        assertEquals(Topology.INFINITE, Topology.parse("INFINITE"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseUnknownName() {
+        Topology.parse("sphere");
+    }
+
+    @Test
+    public void cellsMatchReferenceOnEveryTopology() {
+        for (Topology topology : new Topology[]{Topology.DEAD, Topology.TORUS, Topology.KLEIN_BOTTLE}) {
+            for (String rule : RULES) {
+                Game game = new Game();
+                game.setRule(rule);
+                game.setTopology(topology);
+                boolean[][] expected = createRandomGrid(13, 17, rule.length());
+                Cell[][] cells = createCells(expected);
+
+                for (int i = 0; i < 4; i++) {
+                    expected = referenceStep(expected, game.getRule(), topology);
+                    game.update(cells);
+                    for (int row = 0; row < expected.length; row++) {
+                        for (int col = 0; col < expected[row].length; col++) {
+                            assertEquals(topology + " " + rule, expected[row][col], cells[row][col].isAlive());
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void boardMatchesReferenceOnEveryTopology() {
+        int[][] sizes = {{1, 1}, {3, 5}, {20, 64}, {70, 130}, {9, 200}};
+        for (Topology topology : new Topology[]{Topology.DEAD, Topology.TORUS, Topology.KLEIN_BOTTLE}) {
+            for (String rule : RULES) {
+                for (int[] size : sizes) {
+                    Game game = new Game();
+                    game.setRule(rule);
+                    game.setTopology(topology);
+                    boolean[][] expected = createRandomGrid(size[0], size[1], size[0] + size[1]);
+                    BitBoard board = createBoard(expected);
+                    board.setVectorized(size[1] > 100);
+
+                    for (int i = 0; i < 3; i++) {
+                        expected = referenceStep(expected, game.getRule(), topology);
+                        game.update(board);
+                        assertBoardEquals(topology + " " + rule + " " + size[0] + "x" + size[1], expected, board);
+                    }
+                    assertEquals(count(expected), board.population());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void wrappingBoardKeepsHashOfItsCells() {
+        for (Topology topology : new Topology[]{Topology.TORUS, Topology.KLEIN_BOTTLE}) {
+            Game game = new Game();
+            game.setTopology(topology);
+            BitBoard board = createBoard(createRandomGrid(40, 100, 3));
+            for (int i = 0; i < 10; i++) game.update(board);
+
+            BitBoard copy = new BitBoard(40, 100);
+            for (int row = 0; row < 40; row++) {
+                for (int col = 0; col < 100; col++) {
+                    copy.setAlive(row, col, board.isAlive(row, col));
+                }
+            }
+            assertEquals(copy.getHash(), board.getHash());
+        }
+    }
+
+    @Test
+    public void parallelUpdateMatchesSequentialUpdateOnKleinBottle() {
+        Game game = new Game();
+        game.setTopology(Topology.KLEIN_BOTTLE);
+        BitBoard sequential = createBoard(createRandomGrid(300, 150, 5));
+        for (int i = 0; i < 10; i++) game.update(sequential);
+
+        Game parallelGame = new Game();
+        parallelGame.setTopology(Topology.KLEIN_BOTTLE);
+        parallelGame.setThreads(4);
+        BitBoard parallel = createBoard(createRandomGrid(300, 150, 5));
+        for (int i = 0; i < 10; i++) parallelGame.update(parallel);
+        parallelGame.setThreads(1);
+
+        for (int row = 0; row < 300; row++) {
+            for (int col = 0; col < 150; col++) {
+                assertEquals(sequential.isAlive(row, col), parallel.isAlive(row, col));
+            }
+        }
+    }
+
+    @Test
+    public void gliderWrapsAroundTorus() {
+        Game game = new Game();
+        game.setTopology(Topology.TORUS);
+        BitBoard board = new BitBoard(8, 8);
+        int[][] glider = {{0, 1}, {1, 2}, {2, 0}, {2, 1}, {2, 2}};
+        for (int[] cell : glider) board.setAlive(cell[0], cell[1], true);
+
+        for (int i = 0; i < 32; i++) game.update(board); //Glider moves one cell diagonally every 4 generations
+
+        for (int[] cell : glider) assertTrue(board.isAlive(cell[0], cell[1]));
+        assertEquals(5, board.population());
+    }
+
+    @Test
+    public void infiniteBoardGrowsWithGlider() {
+        Game game = new Game();
+        game.setTopology(Topology.INFINITE);
+        BitBoard board = new BitBoard(6, 6);
+        SparseBoard plane = new SparseBoard();
+        int[][] glider = {{0, 1}, {1, 2}, {2, 0}, {2, 1}, {2, 2}};
+        for (int[] cell : glider) {
+            board.setAlive(cell[0], cell[1], true);
+            plane.setAlive(cell[0], cell[1], true);
+        }
+
+        for (int i = 0; i < 300; i++) {
+            game.update(board);
+            game.update(plane);
+        }
+
+        assertTrue(board.getRows() > 6 && board.getColumns() > 6);
+        assertEquals(5, board.population());
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int col = 0; col < board.getColumns(); col++) {
+                assertEquals(plane.isAlive(row - board.getOriginRow(), col - board.getOriginColumn()),
+                        board.isAlive(row, col));
+            }
+        }
+    }
+
+    @Test
+    public void infiniteBoardGrowsWithLargerRadius() {
+        Game game = new Game();
+        game.setRule("R3,B4-6,S3-8");
+        game.setTopology(Topology.INFINITE);
+        boolean[][] grid = createRandomGrid(10, 10, 4);
+        BitBoard board = createBoard(grid);
+        SparseBoard plane = new SparseBoard();
+        for (int row = 0; row < 10; row++) {
+            for (int col = 0; col < 10; col++) {
+                plane.setAlive(row, col, grid[row][col]);
+            }
+        }
+
+        for (int i = 0; i < 5; i++) {
+            game.update(board);
+            game.update(plane);
+        }
+
+        assertEquals(plane.population(), board.population());
+        for (int row = 0; row < board.getRows(); row++) {
+            for (int col = 0; col < board.getColumns(); col++) {
+                assertEquals(plane.isAlive(row - board.getOriginRow(), col - board.getOriginColumn()),
+                        board.isAlive(row, col));
+            }
+        }
+    }
+
+    /**
+     * Computes next generation by counting every neighbour, mapping positions beyond the edges one at a time.
+     *
+     * @param grid     alive state of cells
+     * @param rule     rule to apply
+     * @param topology topology of grid
+     * @return next generation
+     */
+    private static boolean[][] referenceStep(boolean[][] grid, Rule rule, Topology topology) {
+        int rows = grid.length;
+        int columns = grid[0].length;
+        int radius = rule.getRadius();
+        boolean[][] result = new boolean[rows][columns];
+
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                int neighbours = 0;
+                for (int r = row - radius; r <= row + radius; r++) {
+                    for (int c = col - radius; c <= col + radius; c++) {
+                        if (r == row && c == col) continue;
+                        int mappedRow = r;
+                        int mappedColumn = c;
+                        if (topology != Topology.DEAD) {
+                            if (topology == Topology.KLEIN_BOTTLE && Math.floorMod(Math.floorDiv(r, rows), 2) == 1) {
+                                mappedColumn = columns - 1 - c;
+                            }
+                            mappedRow = Math.floorMod(r, rows);
+                            mappedColumn = Math.floorMod(mappedColumn, columns);
+                        }
+                        if (mappedRow >= 0 && mappedRow < rows && mappedColumn >= 0 && mappedColumn < columns
+                                && grid[mappedRow][mappedColumn]) {
+                            neighbours++;
+                        }
+                    }
+                }
+                result[row][col] = rule.next(grid[row][col], neighbours);
+            }
+        }
+        return result;
+    }
+
+    private static boolean[][] createRandomGrid(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        boolean[][] grid = new boolean[rows][columns];
+        for (boolean[] row : grid) {
+            for (int col = 0; col < columns; col++) {
+                row[col] = random.nextInt(3) == 0;
+            }
+        }
+        return grid;
+    }
+
+    private static Cell[][] createCells(boolean[][] grid) {
+        Cell[][] cells = new Cell[grid.length][grid[0].length];
+        for (int row = 0; row < grid.length; row++) {
+            for (int col = 0; col < grid[row].length; col++) {
+                cells[row][col] = new Cell(row, col);
+                cells[row][col].setAlive(grid[row][col]);
+            }
+        }
+        return cells;
+    }
+
+    private static BitBoard createBoard(boolean[][] grid) {
+        BitBoard board = new BitBoard(grid.length, grid[0].length);
+        for (int row = 0; row < grid.length; row++) {
+            for (int col = 0; col < grid[row].length; col++) {
+                board.setAlive(row, col, grid[row][col]);
+            }
+        }
+        return board;
+    }
+
+    private static void assertBoardEquals(String message, boolean[][] expected, BitBoard board) {
+        for (int row = 0; row < expected.length; row++) {
+            for (int col = 0; col < expected[row].length; col++) {
+                assertEquals(message + " at " + row + "," + col, expected[row][col], board.isAlive(row, col));
+            }
+        }
+    }
+
+    private static long count(boolean[][] grid) {
+        long alive = 0;
+        for (boolean[] row : grid) {
+            for (boolean cell : row) {
+                if (cell) alive++;
+            }
+        }
+        return alive;
+    }
+}
@@ -0,0 +1,187 @@
+package com.larssont.gameoflife.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class ViewportTest {
+
+    @Test(expected = IllegalArgumentException.class)
+    public void createViewportWithZeroWidth() {
+        new Viewport(0, 10);
+    }
+
+    @Test
+    public void densityMapSumsTilePopulations() {
+        BitBoard board = createRandomBoard(300, 500, 1);
+        DensityMap map = new DensityMap();
+        map.update(board);
+        assertDensityMapMatchesBoard(map, board);
+
+        new Game().update(board, 3);
+        board.setWord(299, 7, -1L);
+        map.update(board);
+        assertDensityMapMatchesBoard(map, board);
+        assertEquals(board.population(), map.getPopulation(map.getLevels() - 1, 0, 0));
+        assertEquals(board.population(), map.getPopulation(map.getLevels() + 3, 0, 0));
+        assertEquals(0, map.getPopulation(0, -1, 0));
+    }
+
+    @Test
+    public void densityMapUpdatesListedTiles() {
+        BitBoard board = createRandomBoard(300, 500, 4);
+        DensityMap map = new DensityMap();
+        map.update(board, 0); //Counts every tile on first update
+        assertDensityMapMatchesBoard(map, board);
+
+        board.setWord(130, 6, 0);
+        board.setWord(299, 7, -1L);
+        map.update(board, 2 * board.getWordsPerRow() + 6);
+        map.update(board, 4 * board.getWordsPerRow() + 7);
+        assertDensityMapMatchesBoard(map, board);
+    }
+
+    @Test
+    public void renderReadsOnlyReadRegion() {
+        BitBoard board = createRandomBoard(1000, 1500, 5);
+        for (int scale : new int[]{-2, 0, 3, 5, 6, 9}) {
+            Viewport viewport = new Viewport(50, 40);
+            viewport.setScale(scale);
+            viewport.pan(-7, 3);
+            long[] region = viewport.getReadRegion();
+            BitBoard window = createRandomBoard(1000, 1500, 6); //Cells outside of the region differ
+            board.copyWindowTo(window, (int) Math.max(region[0], 0), (int) Math.max(region[1], 0),
+                    (int) region[2], (int) region[3]);
+
+            int[] expected = new int[50 * 40];
+            viewport.render(board, expected);
+            int[] shades = new int[50 * 40];
+            viewport.render(window, shades);
+            assertArrayEquals(expected, shades);
+        }
+    }
+
+    @Test
+    public void renderShowsCellsWhenZoomedIn() {
+        BitBoard board = createRandomBoard(30, 40, 2);
+        Viewport viewport = new Viewport(20, 10);
+        viewport.setScale(-1);
+        viewport.pan(-3, -3); //Off the top left corner, so pixels outside of the board are shown
+        int[] shades = new int[20 * 10];
+        viewport.render(board, shades);
+
+        for (int y = 0; y < 10; y++) {
+            for (int x = 0; x < 20; x++) {
+                long row = viewport.rowAt(y);
+                long column = viewport.columnAt(x);
+                int expected = row < 0 || column < 0 || row >= 30 || column >= 40 ? Viewport.OUTSIDE
+                        : board.isAlive((int) row, (int) column) ? Viewport.MAX_SHADE : 0;
+                assertEquals(expected, shades[y * 20 + x]);
+            }
+        }
+    }
+
+    @Test
+    public void renderShowsDensityWhenZoomedOut() {
+        BitBoard board = createRandomBoard(1000, 1500, 3);
+        for (int scale : new int[]{0, 2, 5, 6, 8}) {
+            Viewport viewport = new Viewport(50, 40);
+            viewport.setScale(scale);
+            viewport.pan(-7, 3);
+            int[] shades = new int[50 * 40];
+            viewport.render(board, shades);
+
+            for (int y = 0; y < 40; y++) {
+                for (int x = 0; x < 50; x++) {
+                    long row = viewport.rowAt(y) >> scale << scale;
+                    long column = viewport.columnAt(x) >> scale << scale;
+                    int shade = shades[y * 50 + x];
+                    if (row < 0 || column < 0 || row >= 1000 || column >= 1500) {
+                        assertEquals(Viewport.OUTSIDE, shade);
+                        continue;
+                    }
+
+                    int population = 0;
+                    for (long r = row; r < Math.min(row + (1L << scale), 1000); r++) {
+                        for (long c = column; c < Math.min(column + (1L << scale), 1500); c++) {
+                            if (board.isAlive((int) r, (int) c)) population++;
+                        }
+                    }
+                    long expected = population * (long) Viewport.MAX_SHADE >> (2 * scale);
+                    assertEquals(population == 0 ? 0 : Math.max(64, expected), shade);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void zoomKeepsCellAtPixelInPlace() {
+        Viewport viewport = new Viewport(100, 100);
+        viewport.fit(5000, 3000);
+        long row = viewport.rowAt(30);
+        long column = viewport.columnAt(70);
+
+        viewport.zoom(-3, 70, 30);
+        assertEquals(row, viewport.rowAt(30));
+        assertEquals(column, viewport.columnAt(70));
+
+        viewport.zoom(Viewport.MAX_SCALE * 2, 70, 30);
+        assertEquals(Viewport.MAX_SCALE, viewport.getScale());
+    }
+
+    @Test
+    public void fitShowsWholeBoard() {
+        Viewport viewport = new Viewport(100, 80);
+        viewport.fit(10000, 300);
+
+        assertEquals(7, viewport.getScale());
+        assertTrue(viewport.rowAt(0) <= 0);
+        assertTrue(viewport.rowAt(79) + (1L << 7) >= 10000);
+        assertTrue(viewport.columnAt(0) <= 0);
+        assertTrue(viewport.columnAt(99) >= 299);
+    }
+
+    /**
+     * Checks that every block of every level of a density map holds the population of its cells.
+     *
+     * @param map   density map to check
+     * @param board board counted by map
+     */
+    private void assertDensityMapMatchesBoard(DensityMap map, BitBoard board) {
+        for (int level = 0; level < map.getLevels(); level++) {
+            int size = BitBoard.TILE_ROWS << level;
+            for (int row = 0; row < map.rows(level); row++) {
+                for (int column = 0; column < map.columns(level); column++) {
+                    long population = 0;
+                    for (int r = row * size; r < Math.min((row + 1) * size, board.getRows()); r++) {
+                        for (int c = column * size; c < Math.min((column + 1) * size, board.getColumns()); c++) {
+                            if (board.isAlive(r, c)) population++;
+                        }
+                    }
+                    assertEquals(population, map.getPopulation(level, row, column));
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates board with random cells alive.
+     *
+     * @param rows    number of rows
+     * @param columns number of columns
+     * @param seed    seed of random generator
+     * @return created board
+     */
+    private BitBoard createRandomBoard(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        BitBoard board = new BitBoard(rows, columns);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                if (random.nextInt(4) == 0) board.setAlive(row, col, true);
+            }
+        }
+        return board;
+    }
+}
@@ -0,0 +1,191 @@
+package com.larssont.gameoflife.distributed;
+
+import com.larssont.gameoflife.core.BitBoard;
+import com.larssont.gameoflife.core.Rule;
+import org.junit.After;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class DistributedTest {
+
+    private final List<Worker> workers = new ArrayList<>();
+    private final List<Process> processes = new ArrayList<>();
+
+    @After
+    public void stopWorkers() throws IOException {
+        for (Worker worker : workers) worker.close();
+        for (Process process : processes) process.destroy();
+    }
+
+    @Test
+    public void distributedStepsMatchLocalSteps() throws Exception {
+        for (String rule : new String[]{"B3/S23", "B36/S23", "R3,B10-16,S9-20"}) {
+            for (int count : new int[]{1, 2, 3, 5}) {
+                BitBoard local = createRandomBoard(101, 130, count);
+                try (Coordinator coordinator = distribute(startWorkers(count), createRandomBoard(101, 130, count),
+                        Rule.parse(rule))) {
+                    for (int i = 0; i < 3; i++) {
+                        coordinator.step(4);
+                        for (int j = 0; j < 4; j++) local.step(Rule.parse(rule));
+
+                        assertBoardsEqual(local, gather(coordinator));
+                        assertEquals(local.population(), coordinator.population());
+                    }
+                    assertEquals(12, coordinator.getGeneration());
+                }
+                stopWorkers();
+                workers.clear();
+            }
+        }
+    }
+
+    @Test
+    public void workersServeSeveralSessions() throws Exception {
+        List<InetSocketAddress> addresses = startWorkers(2);
+        for (int session = 0; session < 2; session++) {
+            BitBoard local = createRandomBoard(40, 40, session);
+            try (Coordinator coordinator = distribute(addresses, createRandomBoard(40, 40, session), Rule.CONWAY)) {
+                coordinator.step(10);
+                for (int i = 0; i < 10; i++) local.step(Rule.CONWAY);
+                assertBoardsEqual(local, gather(coordinator));
+            }
+        }
+    }
+
+    @Test
+    public void distributedStepsAcrossProcesses() throws Exception {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            ProcessBuilder builder = new ProcessBuilder(
+                    System.getProperty("java.home") + File.separator + "bin" + File.separator + "java",
+                    "-cp", System.getProperty("java.class.path"), Worker.class.getName());
+            builder.redirectError(ProcessBuilder.Redirect.INHERIT);
+            Process process = builder.start();
+            processes.add(process);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+            String line = reader.readLine(); //Listening on port N
+            addresses.add(new InetSocketAddress("localhost", Integer.parseInt(line.substring(line.lastIndexOf(' ') + 1))));
+        }
+
+        BitBoard local = createRandomBoard(64, 200, 7);
+        try (Coordinator coordinator = distribute(addresses, createRandomBoard(64, 200, 7), Rule.CONWAY)) {
+            coordinator.step(20);
+            for (int i = 0; i < 20; i++) local.step(Rule.CONWAY);
+            assertBoardsEqual(local, gather(coordinator));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectBandsSmallerThanRadius() throws Exception {
+        distribute(startWorkers(3), new BitBoard(8, 8), Rule.parse("R3,B10-16,S9-20"));
+    }
+
+    @Test
+    public void bandsAreFilledOneAtATime() throws Exception {
+        List<Integer> tops = new ArrayList<>();
+        try (Coordinator coordinator = new Coordinator(startWorkers(3), 30, 70, Rule.CONWAY, (band, top) -> {
+            tops.add(top);
+            assertEquals(10, band.getRows());
+            assertEquals(0, band.population());
+            band.setAlive(0, top, true); //Diagonal of blocks, one per band
+            band.setAlive(0, top + 1, true);
+            band.setAlive(1, top, true);
+            band.setAlive(1, top + 1, true);
+        })) {
+            assertEquals(Arrays.asList(0, 10, 20), tops);
+            coordinator.step(5);
+            assertEquals(12, coordinator.population());
+
+            List<Integer> rows = new ArrayList<>();
+            coordinator.gather((row, words) -> {
+                rows.add(row);
+                assertEquals(2, words.length);
+                assertEquals(row % 10 < 2 ? 3L << (row - row % 10) : 0, words[0]);
+                assertEquals(0, words[1]);
+            });
+            assertEquals(30, rows.size());
+            assertEquals(29, (int) rows.get(29));
+        }
+    }
+
+    /**
+     * Starts workers serving sessions on threads, listening on free ports.
+     *
+     * @param count number of workers
+     * @return addresses of workers
+     * @throws IOException when a port can not be bound.
+     */
+    private List<InetSocketAddress> startWorkers(int count) throws IOException {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Worker worker = new Worker(0);
+            workers.add(worker);
+            addresses.add(new InetSocketAddress("localhost", worker.getPort()));
+            Thread thread = new Thread(() -> {
+                try {
+                    while (true) worker.serve();
+                } catch (IOException e) {
+                    //Closed by test
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+        return addresses;
+    }
+
+    /**
+     * Distributes a board held in memory, filling every band from it.
+     */
+    private static Coordinator distribute(List<InetSocketAddress> addresses, BitBoard board, Rule rule) throws IOException {
+        return new Coordinator(addresses, board.getRows(), board.getColumns(), rule, (band, top) -> {
+            for (int row = 0; row < band.getRows(); row++) {
+                for (int w = 0; w < band.getWordsPerRow(); w++) {
+                    band.setWord(row, w, board.getWord(top + row, w));
+                }
+            }
+        });
+    }
+
+    /**
+     * Gathers the distributed board into a board held in memory.
+     */
+    private static BitBoard gather(Coordinator coordinator) throws IOException {
+        BitBoard board = new BitBoard(coordinator.getRows(), coordinator.getColumns());
+        coordinator.gather((row, words) -> {
+            for (int w = 0; w < words.length; w++) board.setWord(row, w, words[w]);
+        });
+        return board;
+    }
+
+    private static BitBoard createRandomBoard(int rows, int columns, long seed) {
+        Random random = new Random(seed);
+        BitBoard board = new BitBoard(rows, columns);
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                board.setAlive(row, col, random.nextInt(3) == 0);
+            }
+        }
+        return board;
+    }
+
+    private static void assertBoardsEqual(BitBoard expected, BitBoard actual) {
+        for (int row = 0; row < expected.getRows(); row++) {
+            for (int col = 0; col < expected.getColumns(); col++) {
+                assertEquals(expected.isAlive(row, col), actual.isAlive(row, col));
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.larssont.gameoflife.core;
+
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Row kernel written against the Vector API. Each lane holds a word of 64 cells,
+ * so a vector of the preferred species computes several words of a row at once
+ * with the same full and half adders as the scalar path.
+ * <p>
+ * Compiled and run with {@code --add-modules jdk.incubator.vector}, and loaded by
+ * {@link Kernels} through reflection only when that module is present.
+ */
+final class VectorKernel implements RowKernel {
+
+    private static final VectorSpecies<Long> SPECIES = LongVector.SPECIES_PREFERRED;
+    private static final int MAX_NEIGHBOURS = 8; //Highest neighbour count with a radius of 1
+
+    @Override
+    public int step(long[] cells, long[] next, int north, int middle, int south, int words, int bornMask, int surviveMask) {
+        int bound = SPECIES.loopBound(words);
+
+        for (int w = 0; w < bound; w += SPECIES.length()) {
+            LongVector n = LongVector.fromArray(SPECIES, cells, north + w);
+            LongVector c = LongVector.fromArray(SPECIES, cells, middle + w);
+            LongVector s = LongVector.fromArray(SPECIES, cells, south + w);
+
+            LongVector nw = west(n, cells, north + w - 1);
+            LongVector ne = east(n, cells, north + w + 1);
+            LongVector we = west(c, cells, middle + w - 1);
+            LongVector ea = east(c, cells, middle + w + 1);
+            LongVector sw = west(s, cells, south + w - 1);
+            LongVector se = east(s, cells, south + w + 1);
+
+            //Three full adders and a half adder sum the eight neighbours into bit planes
+            LongVector x1 = nw.lanewise(VectorOperators.XOR, n);
+            LongVector s1 = x1.lanewise(VectorOperators.XOR, ne);
+            LongVector c1 = nw.and(n).or(ne.and(x1));
+            LongVector x2 = we.lanewise(VectorOperators.XOR, ea);
+            LongVector s2 = x2.lanewise(VectorOperators.XOR, sw);
+            LongVector c2 = we.and(ea).or(sw.and(x2));
+            LongVector s3 = s.lanewise(VectorOperators.XOR, se);
+            LongVector c3 = s.and(se);
+
+            LongVector x4 = s1.lanewise(VectorOperators.XOR, s2);
+            LongVector bit0 = x4.lanewise(VectorOperators.XOR, s3);
+            LongVector k1 = s1.and(s2).or(s3.and(x4));
+
+            LongVector x5 = c1.lanewise(VectorOperators.XOR, c2);
+            LongVector t = x5.lanewise(VectorOperators.XOR, c3);
+            LongVector k2a = c1.and(c2).or(c3.and(x5));
+            LongVector bit1 = t.lanewise(VectorOperators.XOR, k1);
+            LongVector k2b = t.and(k1);
+
+            LongVector bit2 = k2a.lanewise(VectorOperators.XOR, k2b);
+            LongVector bit3 = k2a.and(k2b);
+
+            LongVector dead = c.not();
+            LongVector result = LongVector.zero(SPECIES);
+            for (int count = 0; count <= MAX_NEIGHBOURS; count++) {
+                int bit = 1 << count;
+                if (((bornMask | surviveMask) & bit) == 0) continue;
+
+                LongVector equal = ((count & 1) != 0 ? bit0 : bit0.not())
+                        .and((count & 2) != 0 ? bit1 : bit1.not())
+                        .and((count & 4) != 0 ? bit2 : bit2.not())
+                        .and((count & 8) != 0 ? bit3 : bit3.not());
+
+                if ((bornMask & bit) != 0) result = result.or(equal.and(dead));
+                if ((surviveMask & bit) != 0) result = result.or(equal.and(c));
+            }
+            result.intoArray(next, middle + w);
+        }
+        return bound;
+    }
+
+    /**
+     * Shifts words towards higher columns by one cell, carrying in the last cell of the previous words.
+     *
+     * @param words    vector of words
+     * @param cells    buffer holding words
+     * @param previous index of word before first word of vector
+     * @return western neighbours of words
+     */
+    private static LongVector west(LongVector words, long[] cells, int previous) {
+        return words.lanewise(VectorOperators.LSHL, 1)
+                .or(LongVector.fromArray(SPECIES, cells, previous).lanewise(VectorOperators.LSHR, 63));
+    }
+
+    /**
+     * Shifts words towards lower columns by one cell, carrying in the first cell of the following words.
+     *
+     * @param words     vector of words
+     * @param cells     buffer holding words
+     * @param following index of word after first word of vector
+     * @return eastern neighbours of words
+     */
+    private static LongVector east(LongVector words, long[] cells, int following) {
+        return words.lanewise(VectorOperators.LSHR, 1)
+                .or(LongVector.fromArray(SPECIES, cells, following).lanewise(VectorOperators.LSHL, 63));
+    }
+}